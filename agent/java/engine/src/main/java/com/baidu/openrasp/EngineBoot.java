@@ -20,10 +20,14 @@ import com.baidu.openrasp.cloud.CloudManager;
 import com.baidu.openrasp.cloud.model.CloudCacheModel;
 import com.baidu.openrasp.cloud.utils.CloudUtils;
 import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.messaging.AsyncDailyRollingFileAppender;
 import com.baidu.openrasp.messaging.LogConfig;
+import com.baidu.openrasp.plugin.checker.AlarmAggregator;
+import com.baidu.openrasp.plugin.checker.AsyncCheckPipeline;
 import com.baidu.openrasp.plugin.checker.CheckerManager;
 import com.baidu.openrasp.plugin.js.JS;
 import com.baidu.openrasp.tool.cpumonitor.CpuMonitorManager;
+import com.baidu.openrasp.tool.metrics.MetricsManager;
 import com.baidu.openrasp.tool.model.BuildRASPModel;
 import com.baidu.openrasp.transformer.CustomClassTransformer;
 import com.baidu.openrasp.v8.CrashReporter;
@@ -71,6 +75,7 @@ public class EngineBoot implements Module {
             return;
         }
         CheckerManager.init();
+        MetricsManager.start();
         initTransformer(inst);
         if (CloudUtils.checkCloudControlEnter()) {
             CrashReporter.install(Config.getConfig().getCloudAddress() + "/v1/agent/crash/report",
@@ -91,8 +96,12 @@ public class EngineBoot implements Module {
         if (transformer != null) {
             transformer.release();
         }
+        AsyncCheckPipeline.release();
+        AlarmAggregator.release();
+        MetricsManager.release();
         JS.Dispose();
         CheckerManager.release();
+        AsyncDailyRollingFileAppender.release();
         String message = "[OpenRASP] Engine Released [" + Agent.projectVersion + " (build: GitCommit="
                 + Agent.gitCommit + " date=" + Agent.buildTime + ")]";
         System.out.println(message);
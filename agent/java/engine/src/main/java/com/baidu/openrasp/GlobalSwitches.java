@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 全局开关
+ * <p>
+ * 将 hook 总开关、cpu 熔断开关以及云控开关合并为一个 volatile 的位掩码，
+ * 检测入口只需读取一次即可判断是否需要继续检测
+ */
+public class GlobalSwitches {
+
+    /**
+     * hook 总开关，服务器识别完成后打开
+     */
+    public static final int HOOK_ENABLED = 1;
+    /**
+     * cpu 使用率过高时禁用全部 hook 点
+     */
+    public static final int HOOKS_DISABLED = 1 << 1;
+    /**
+     * 云控开关
+     */
+    public static final int CLOUD_SWITCH = 1 << 2;
+    /**
+     * 云控注册成功之前，不进入任何 hook 点
+     */
+    public static final int HOOK_WHITE_ALL = 1 << 3;
+
+    private static final int CLOUD_WHITE_ALL = CLOUD_SWITCH | HOOK_WHITE_ALL;
+
+    private static final AtomicInteger switches = new AtomicInteger(0);
+
+    /**
+     * 获取全部开关的当前值
+     *
+     * @return 开关位掩码
+     */
+    public static int get() {
+        return switches.get();
+    }
+
+    /**
+     * 判断指定开关是否打开
+     *
+     * @param mask 开关位
+     * @return 是否打开
+     */
+    public static boolean isSet(int mask) {
+        return (switches.get() & mask) != 0;
+    }
+
+    /**
+     * 设置指定开关
+     *
+     * @param mask  开关位
+     * @param value 开关值
+     * @return 设置前的开关值
+     */
+    public static boolean set(int mask, boolean value) {
+        for (; ; ) {
+            int current = switches.get();
+            int next = value ? current | mask : current & ~mask;
+            if (current == next || switches.compareAndSet(current, next)) {
+                return (current & mask) != 0;
+            }
+        }
+    }
+
+    /**
+     * 根据开关位掩码判断 hook 点是否需要继续检测
+     *
+     * @param switches 开关位掩码
+     * @return 是否需要检测
+     */
+    public static boolean isCheckEnabled(int switches) {
+        return (switches & (HOOK_ENABLED | HOOKS_DISABLED)) == HOOK_ENABLED
+                && (switches & CLOUD_WHITE_ALL) != CLOUD_WHITE_ALL;
+    }
+
+    /**
+     * 单个开关位的视图，保持与原 AtomicBoolean 开关相同的用法
+     */
+    public static class Switch {
+        private final int mask;
+
+        public Switch(int mask) {
+            this.mask = mask;
+        }
+
+        public boolean get() {
+            return isSet(mask);
+        }
+
+        public void set(boolean value) {
+            GlobalSwitches.set(mask, value);
+        }
+
+        public boolean getAndSet(boolean value) {
+            return GlobalSwitches.set(mask, value);
+        }
+    }
+
+}
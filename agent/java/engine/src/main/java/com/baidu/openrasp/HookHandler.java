@@ -22,12 +22,16 @@ import com.baidu.openrasp.exceptions.SecurityException;
 import com.baidu.openrasp.hook.xxe.XXEHook;
 import com.baidu.openrasp.messaging.ErrorType;
 import com.baidu.openrasp.messaging.LogTool;
+import com.baidu.openrasp.plugin.checker.AsyncCheckPipeline;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import com.baidu.openrasp.plugin.checker.CheckerManager;
+import com.baidu.openrasp.plugin.checker.local.XssChecker;
 import com.baidu.openrasp.request.AbstractRequest;
 import com.baidu.openrasp.request.DubboRequest;
 import com.baidu.openrasp.request.HttpServletRequest;
 import com.baidu.openrasp.response.HttpServletResponse;
+import com.baidu.openrasp.tool.StackCapture;
+import com.baidu.openrasp.tool.metrics.HookMetrics;
 import com.baidu.openrasp.transformer.CustomClassTransformer;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
@@ -35,7 +39,6 @@ import org.apache.log4j.Logger;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -51,47 +54,91 @@ public class HookHandler {
     public static AtomicLong requestSum = new AtomicLong(0);
     public static final Logger LOGGER = Logger.getLogger(HookHandler.class.getName());
     // 全局开关
-    public static final AtomicBoolean enableHook = new AtomicBoolean(false);
-    // 当前线程开关
-    private static ThreadLocal<Boolean> enableCurrThreadHook = new ThreadLocal<Boolean>() {
+    public static final GlobalSwitches.Switch enableHook = new GlobalSwitches.Switch(GlobalSwitches.HOOK_ENABLED);
+
+    // 以下线程变量均为 RaspContext 的视图，保留原有用法
+    public static ThreadLocal<AbstractRequest> requestCache = new ThreadLocal<AbstractRequest>() {
         @Override
-        protected Boolean initialValue() {
-            return false;
+        public AbstractRequest get() {
+            return RaspContext.get().request;
         }
-    };
 
-    private static ThreadLocal<Boolean> tmpEnableCurrThreadHook = new ThreadLocal<Boolean>() {
         @Override
-        protected Boolean initialValue() {
-            return false;
+        public void set(AbstractRequest value) {
+            RaspContext.get().setRequest(value);
         }
-    };
 
-    public static ThreadLocal<AbstractRequest> requestCache = new ThreadLocal<AbstractRequest>() {
         @Override
-        protected AbstractRequest initialValue() {
-            return null;
+        public void remove() {
+            RaspContext.get().setRequest(null);
         }
     };
 
     public static ThreadLocal<HttpServletResponse> responseCache = new ThreadLocal<HttpServletResponse>() {
         @Override
-        protected HttpServletResponse initialValue() {
-            return null;
+        public HttpServletResponse get() {
+            return RaspContext.get().response;
+        }
+
+        @Override
+        public void set(HttpServletResponse value) {
+            RaspContext.get().response = value;
+        }
+
+        @Override
+        public void remove() {
+            RaspContext.get().response = null;
         }
     };
 
     public static ThreadLocal<Boolean> enableXssHook = new ThreadLocal<Boolean>() {
         @Override
-        protected Boolean initialValue() {
-            return true;
+        public Boolean get() {
+            return RaspContext.get().enableXssHook;
+        }
+
+        @Override
+        public void set(Boolean value) {
+            RaspContext.get().enableXssHook = value;
+        }
+
+        @Override
+        public void remove() {
+            RaspContext.get().enableXssHook = true;
         }
     };
 
     public static ThreadLocal<Boolean> enableCmdHook = new ThreadLocal<Boolean>() {
         @Override
-        protected Boolean initialValue() {
-            return true;
+        public Boolean get() {
+            return RaspContext.get().enableCmdHook;
+        }
+
+        @Override
+        public void set(Boolean value) {
+            RaspContext.get().enableCmdHook = value;
+        }
+
+        @Override
+        public void remove() {
+            RaspContext.get().enableCmdHook = true;
+        }
+    };
+
+    public static ThreadLocal<Boolean> enableEnd = new ThreadLocal<Boolean>() {
+        @Override
+        public Boolean get() {
+            return RaspContext.get().enableEnd;
+        }
+
+        @Override
+        public void set(Boolean value) {
+            RaspContext.get().enableEnd = value;
+        }
+
+        @Override
+        public void remove() {
+            RaspContext.get().enableEnd = true;
         }
     };
 
@@ -101,46 +148,39 @@ public class HookHandler {
      * 用于关闭当前的线程的hook点
      */
     public static void disableCurrThreadHook() {
-        enableCurrThreadHook.set(false);
+        RaspContext.get().enableCurrThreadHook = false;
     }
 
     /**
      * 用于开启当前线程的hook点
      */
     public static void enableCurrThreadHook() {
-        enableCurrThreadHook.set(true);
+        RaspContext.get().enableCurrThreadHook = true;
     }
 
-    public static ThreadLocal<Boolean> enableEnd = new ThreadLocal<Boolean>() {
-        @Override
-        protected Boolean initialValue() {
-            return true;
-        }
-    };
-
     public static boolean isEnableCurrThreadHook() {
-        return enableCurrThreadHook.get();
+        return RaspContext.get().enableCurrThreadHook;
     }
 
     /**
      * 用于关闭xss的hook点
      */
     public static void disableBodyXssHook() {
-        enableXssHook.set(false);
+        RaspContext.get().enableXssHook = false;
     }
 
     /**
      * 用于开启xss的hook点
      */
     public static void enableBodyXssHook() {
-        enableXssHook.set(true);
+        RaspContext.get().enableXssHook = true;
     }
 
     /**
      * 用于判断xss的hook点状态
      */
     public static boolean isEnableXssHook() {
-        return enableXssHook.get();
+        return RaspContext.get().enableXssHook;
     }
 
     /**
@@ -159,16 +199,18 @@ public class HookHandler {
      * 进入需要屏蔽hook的方法关闭开关
      */
     public static void preShieldHook() {
-        tmpEnableCurrThreadHook.set(enableCurrThreadHook.get());
-        disableCurrThreadHook();
+        RaspContext context = RaspContext.get();
+        context.tmpEnableCurrThreadHook = context.enableCurrThreadHook;
+        context.enableCurrThreadHook = false;
     }
 
     /**
      * 退出需要屏蔽hook的方法打开开关
      */
     public static void postShieldHook() {
-        if (tmpEnableCurrThreadHook.get()) {
-            enableCurrThreadHook();
+        RaspContext context = RaspContext.get();
+        if (context.tmpEnableCurrThreadHook) {
+            context.enableCurrThreadHook = true;
         }
     }
 
@@ -180,20 +222,24 @@ public class HookHandler {
      * @param response 响应实体
      */
     public static void checkRequest(Object servlet, Object request, Object response) {
-        if (servlet != null && request != null && !enableCurrThreadHook.get()
-                && CustomClassTransformer.isNecessaryHookComplete) {
+        if (servlet == null || request == null || !CustomClassTransformer.isNecessaryHookComplete) {
+            return;
+        }
+        RaspContext context = RaspContext.get();
+        if (!context.enableCurrThreadHook) {
             // 默认是关闭hook的，只有处理过HTTP requesst的线程才打开
-            enableEnd.set(true);
-            enableCurrThreadHook.set(true);
+            context.enableEnd = true;
+            context.enableCurrThreadHook = true;
             //新的请求开启body xss hook点
-            enableBodyXssHook();
+            context.enableXssHook = true;
             HttpServletRequest requestContainer = new HttpServletRequest(request);
             HttpServletResponse responseContainer = new HttpServletResponse(response);
             responseContainer.setHeader(REQUEST_ID_HEADER_KEY, requestContainer.getRequestId());
             //设置响应的用户自定义头部
             setUserDefinedResponseHeader(responseContainer);
-            requestCache.set(requestContainer);
-            responseCache.set(responseContainer);
+            requestContainer.initHookWhiteMask();
+            context.setRequest(requestContainer);
+            context.response = responseContainer;
             XXEHook.resetLocalExpandedSystemIds();
             doCheck(CheckParameter.Type.REQUEST, EMPTY_MAP);
         }
@@ -205,12 +251,17 @@ public class HookHandler {
      * @param request 请求实体
      */
     public static void checkDubboRequest(Object request) {
-        if (request != null && !enableCurrThreadHook.get() && CustomClassTransformer.isDubboNecessaryHookComplete) {
-            enableCurrThreadHook.set(true);
+        if (request == null || !CustomClassTransformer.isDubboNecessaryHookComplete) {
+            return;
+        }
+        RaspContext context = RaspContext.get();
+        if (!context.enableCurrThreadHook) {
+            context.enableCurrThreadHook = true;
             //新的请求开启body xss hook点
-            enableBodyXssHook();
+            context.enableXssHook = true;
             DubboRequest requestContainer = new DubboRequest(request);
-            requestCache.set(requestContainer);
+            requestContainer.initHookWhiteMask();
+            context.setRequest(requestContainer);
             XXEHook.resetLocalExpandedSystemIds();
             doCheck(CheckParameter.Type.REQUEST, EMPTY_MAP);
         }
@@ -221,8 +272,14 @@ public class HookHandler {
      * 请求结束后不可以在进入任何hook点
      */
     public static void onServiceExit() {
-        enableCurrThreadHook.set(false);
-        requestCache.set(null);
+        RaspContext context = RaspContext.get();
+        context.enableCurrThreadHook = false;
+        AbstractRequest request = context.request;
+        if (request != null) {
+            request.releaseBody();
+        }
+        XssChecker.clearMatchState();
+        context.setRequest(null);
     }
 
     /**
@@ -230,8 +287,9 @@ public class HookHandler {
      * 请求结束后不可以在进入任何hook点
      */
     public static void onDubboExit() {
-        enableCurrThreadHook.set(false);
-        requestCache.set(null);
+        RaspContext context = RaspContext.get();
+        context.enableCurrThreadHook = false;
+        context.setRequest(null);
     }
 
     /**
@@ -256,7 +314,7 @@ public class HookHandler {
     }
 
     public static void onParseParameters() {
-        AbstractRequest request = requestCache.get();
+        AbstractRequest request = RaspContext.get().request;
         if (request != null) {
             request.setCanGetParameter(true);
         }
@@ -264,8 +322,9 @@ public class HookHandler {
 
     private static void handleBlock(CheckParameter parameter) {
         SecurityException securityException = new SecurityException("Request blocked by OpenRASP");
-        if (responseCache.get() != null) {
-            responseCache.get().sendError(parameter);
+        HttpServletResponse response = RaspContext.get().response;
+        if (response != null) {
+            response.sendError(parameter);
         }
         throw securityException;
     }
@@ -291,15 +350,32 @@ public class HookHandler {
      * @param params 检测参数map，key为参数名，value为检测参数值
      */
     public static void doRealCheckWithoutRequest(CheckParameter.Type type, Map params) {
+        doRealCheckWithoutRequest(type, params, HookMetrics.now());
+    }
+
+    /**
+     * 检测入口
+     *
+     * @param type   检测类型
+     * @param params 检测参数map，key为参数名，value为检测参数值
+     * @param start  hook 点进入检测入口的时间，用于统计检测耗时
+     */
+    private static void doRealCheckWithoutRequest(CheckParameter.Type type, Map params, long start) {
         if (!enableHook.get()) {
             return;
         }
+        HookMetrics.incrementCalls(type);
+        if (AsyncCheckPipeline.isAsyncType(type) && AsyncCheckPipeline.submit(type, params)) {
+            HookMetrics.record(type, HookMetrics.Phase.PARAM_BUILD, start);
+            return;
+        }
         long a = 0;
         if (Config.getConfig().getDebugLevel() > 0) {
             a = System.currentTimeMillis();
         }
         boolean isBlock = false;
         CheckParameter parameter = new CheckParameter(type, params);
+        long checkStart = HookMetrics.record(type, HookMetrics.Phase.PARAM_BUILD, start);
         try {
             isBlock = CheckerManager.check(type, parameter);
         } catch (Throwable e) {
@@ -313,6 +389,7 @@ public class HookHandler {
             }
             LogTool.error(ErrorType.PLUGIN_ERROR, msg, e);
         }
+        HookMetrics.record(type, HookMetrics.Phase.TOTAL, checkStart);
         if (a > 0) {
             long t = System.currentTimeMillis() - a;
             String message = "type=" + type.getName() + " " + "time=" + t;
@@ -323,6 +400,7 @@ public class HookHandler {
             }
         }
         if (isBlock) {
+            HookMetrics.incrementBlocks(type);
             handleBlock(parameter);
         }
     }
@@ -334,37 +412,36 @@ public class HookHandler {
      * @param params 检测参数map，key为参数名，value为检测参数值
      */
     public static void doCheckWithoutRequest(CheckParameter.Type type, Map params) {
-        boolean enableHookCache = enableCurrThreadHook.get();
+        doCheckWithoutRequest(RaspContext.get(), type, params);
+    }
+
+    private static void doCheckWithoutRequest(RaspContext context, CheckParameter.Type type, Map params) {
+        //全局开关关闭、cpu使用率超过90%、云控注册成功之前，均不进入任何hook点
+        if (!GlobalSwitches.isCheckEnabled(GlobalSwitches.get())) {
+            return;
+        }
+        boolean enableHookCache = context.enableCurrThreadHook;
+        boolean checkingCache = context.checking;
+        StackTraceElement[] stackCache = context.stack;
+        long start = HookMetrics.now();
         try {
-            enableCurrThreadHook.set(false);
-            //当服务器的cpu使用率超过90%，禁用全部hook点
-            if (Config.getConfig().getDisableHooks()) {
-                return;
-            }
-            //当云控注册成功之前，不进入任何hook点
-            if (Config.getConfig().getCloudSwitch() && Config.getConfig().getHookWhiteAll()) {
+            context.enableCurrThreadHook = false;
+            context.checking = true;
+            // 参数中已经有 hook 点获取的调用栈时，检测和报警直接共用
+            context.stack = StackCapture.find(params);
+            AbstractRequest request = context.request;
+            if (request != null && (request.getHookWhiteMask() & type.getCode()) != 0) {
                 return;
             }
-            if (requestCache.get() != null) {
-                try {
-                    StringBuffer sb = requestCache.get().getRequestURL();
-                    if (sb != null) {
-                        String url = sb.substring(sb.indexOf("://") + 3);
-                        if (HookWhiteModel.isContainURL(type.getCode(), url)) {
-                            return;
-                        }
-                    }
-                } catch (Exception e) {
-                    LogTool.traceWarn(ErrorType.HOOK_ERROR, "white list check has failed: " + e.getMessage(), e);
-                }
-            }
-            doRealCheckWithoutRequest(type, params);
+            doRealCheckWithoutRequest(type, params, start);
         } catch (Throwable t) {
             if (t instanceof SecurityException) {
                 throw (SecurityException) t;
             }
         } finally {
-            enableCurrThreadHook.set(enableHookCache);
+            context.enableCurrThreadHook = enableHookCache;
+            context.checking = checkingCache;
+            context.stack = stackCache;
         }
     }
 
@@ -375,8 +452,9 @@ public class HookHandler {
      * @param params 检测参数map，key为参数名，value为检测参数值
      */
     public static void doCheck(CheckParameter.Type type, Map params) {
-        if (enableCurrThreadHook.get()) {
-            doCheckWithoutRequest(type, params);
+        RaspContext context = RaspContext.get();
+        if (context.enableCurrThreadHook) {
+            doCheckWithoutRequest(context, type, params);
         }
     }
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp;
+
+import com.baidu.openrasp.request.AbstractRequest;
+import com.baidu.openrasp.response.HttpServletResponse;
+
+/**
+ * 线程级别的 RASP 上下文
+ * <p>
+ * 将原先分散在多个 ThreadLocal 中的线程开关与请求缓存合并到同一个对象中，
+ * hook 点检测入口只需一次 ThreadLocal 查找即可拿到全部状态
+ */
+public class RaspContext {
+
+    private static final ThreadLocal<RaspContext> CONTEXT = new ThreadLocal<RaspContext>() {
+        @Override
+        protected RaspContext initialValue() {
+            return new RaspContext();
+        }
+    };
+
+    // 当前线程 hook 开关，默认关闭，只有处理过 HTTP 请求的线程才打开
+    boolean enableCurrThreadHook = false;
+    // preShieldHook 时暂存的线程 hook 开关
+    boolean tmpEnableCurrThreadHook = false;
+    boolean enableXssHook = true;
+    boolean enableCmdHook = true;
+    boolean enableEnd = true;
+    AbstractRequest request;
+    HttpServletResponse response;
+    // 是否处于一次检测过程中，只有检测过程中获取的调用栈会被缓存
+    boolean checking = false;
+    // 本次检测中已经获取的调用栈
+    StackTraceElement[] stack;
+
+    RaspContext() {
+    }
+
+    /**
+     * 获取当前线程的上下文
+     *
+     * @return 当前线程的上下文
+     */
+    public static RaspContext get() {
+        return CONTEXT.get();
+    }
+
+    public AbstractRequest getRequest() {
+        return request;
+    }
+
+    public void setRequest(AbstractRequest request) {
+        this.request = request;
+    }
+
+    public HttpServletResponse getResponse() {
+        return response;
+    }
+
+    public void setResponse(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    public boolean isEnableCurrThreadHook() {
+        return enableCurrThreadHook;
+    }
+
+    public boolean isEnableXssHook() {
+        return enableXssHook;
+    }
+
+    public boolean isEnableCmdHook() {
+        return enableCmdHook;
+    }
+
+    public boolean isEnableEnd() {
+        return enableEnd;
+    }
+
+    /**
+     * 获取本次检测中已经获取的调用栈
+     *
+     * @return 调用栈，没有获取过或者不在检测过程中时为 null
+     */
+    public StackTraceElement[] getStack() {
+        return stack;
+    }
+
+    /**
+     * 缓存本次检测中获取的调用栈，不在检测过程中时不缓存
+     *
+     * @param stack 调用栈
+     */
+    public void setStack(StackTraceElement[] stack) {
+        if (checking) {
+            this.stack = stack;
+        }
+    }
+
+}
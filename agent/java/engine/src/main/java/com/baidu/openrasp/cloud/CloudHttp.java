@@ -28,6 +28,7 @@ import com.google.gson.reflect.TypeToken;
 import javax.net.ssl.*;
 import java.io.DataOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -76,25 +77,7 @@ public class CloudHttp implements Request {
         String jsonString = null;
         int responseCode;
         try {
-            URL realUrl = new URL(url);
-            URLConnection conn = realUrl.openConnection();
-            if (conn instanceof HttpsURLConnection && !Config.getConfig().isHttpsVerifyPeer()) {
-                skipSSL((HttpsURLConnection) conn);
-            }
-            HttpURLConnection httpUrlConnection = (HttpURLConnection) conn;
-            httpUrlConnection.setRequestProperty("Content-Type", "application/json");
-            String appId = Config.getConfig().getCloudAppId();
-            httpUrlConnection.setRequestProperty("X-OpenRASP-AppID", appId);
-            String appSecret = Config.getConfig().getCloudAppSecret();
-            httpUrlConnection.setRequestProperty("X-OpenRASP-AppSecret", appSecret);
-            httpUrlConnection.setRequestProperty("Accept-Encoding", "gzip");
-            httpUrlConnection.setConnectTimeout(DEFAULT_CONNECTION_TIMEOUT);
-            httpUrlConnection.setReadTimeout(DEFAULT_READ_TIMEOUT);
-            httpUrlConnection.setRequestMethod("POST");
-            httpUrlConnection.setUseCaches(false);
-            httpUrlConnection.setDoOutput(true);
-            httpUrlConnection.setDoInput(true);
-
+            HttpURLConnection httpUrlConnection = openConnection(url);
             out = new DataOutputStream(httpUrlConnection.getOutputStream());
             out.write(content.getBytes("UTF-8"));
             out.flush();
@@ -121,6 +104,68 @@ public class CloudHttp implements Request {
         return response;
     }
 
+    /**
+     * 批量上传日志，只关心响应码，请求体可以是 gzip 压缩后的内容
+     * 响应内容会被完整读取，以便底层连接被 keep-alive 复用
+     *
+     * @param url     上传地址
+     * @param content 请求体
+     * @param gzip    请求体是否经过 gzip 压缩
+     * @return http 响应码
+     */
+    public int batchLogRequest(String url, byte[] content, boolean gzip) throws Exception {
+        OutputStream out = null;
+        InputStream in = null;
+        try {
+            HttpURLConnection httpUrlConnection = openConnection(url);
+            if (gzip) {
+                httpUrlConnection.setRequestProperty("Content-Encoding", "gzip");
+            }
+            httpUrlConnection.setFixedLengthStreamingMode(content.length);
+            out = httpUrlConnection.getOutputStream();
+            out.write(content);
+            out.flush();
+            int responseCode = httpUrlConnection.getResponseCode();
+            in = responseCode < 400 ? httpUrlConnection.getInputStream() : httpUrlConnection.getErrorStream();
+            if (in != null) {
+                byte[] buffer = new byte[1024];
+                while (in.read(buffer) != -1) {
+                    // 丢弃响应内容
+                }
+            }
+            return responseCode;
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    private HttpURLConnection openConnection(String url) throws Exception {
+        URL realUrl = new URL(url);
+        URLConnection conn = realUrl.openConnection();
+        if (conn instanceof HttpsURLConnection && !Config.getConfig().isHttpsVerifyPeer()) {
+            skipSSL((HttpsURLConnection) conn);
+        }
+        HttpURLConnection httpUrlConnection = (HttpURLConnection) conn;
+        httpUrlConnection.setRequestProperty("Content-Type", "application/json");
+        String appId = Config.getConfig().getCloudAppId();
+        httpUrlConnection.setRequestProperty("X-OpenRASP-AppID", appId);
+        String appSecret = Config.getConfig().getCloudAppSecret();
+        httpUrlConnection.setRequestProperty("X-OpenRASP-AppSecret", appSecret);
+        httpUrlConnection.setRequestProperty("Accept-Encoding", "gzip");
+        httpUrlConnection.setConnectTimeout(DEFAULT_CONNECTION_TIMEOUT);
+        httpUrlConnection.setReadTimeout(DEFAULT_READ_TIMEOUT);
+        httpUrlConnection.setRequestMethod("POST");
+        httpUrlConnection.setUseCaches(false);
+        httpUrlConnection.setDoOutput(true);
+        httpUrlConnection.setDoInput(true);
+        return httpUrlConnection;
+    }
+
     public static void skipSSL(HttpsURLConnection conn) throws NoSuchProviderException, NoSuchAlgorithmException,
             KeyManagementException, MalformedURLException {
         SSLContext sslcontext;
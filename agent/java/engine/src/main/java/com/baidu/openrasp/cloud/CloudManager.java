@@ -16,6 +16,7 @@
 
 package com.baidu.openrasp.cloud;
 
+import com.baidu.openrasp.cloud.httpappender.HttpShipper;
 import com.baidu.openrasp.cloud.model.AppenderMappedLogger;
 import com.baidu.openrasp.cloud.syslog.DynamicConfigAppender;
 import com.baidu.openrasp.dependency.DependencyReport;
@@ -52,6 +53,7 @@ public class CloudManager {
         for (CloudTimerTask task : tasks) {
             task.stop();
         }
+        HttpShipper.stopAll();
     }
 
 }
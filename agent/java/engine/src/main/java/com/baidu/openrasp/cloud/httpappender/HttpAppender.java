@@ -16,17 +16,10 @@
 
 package com.baidu.openrasp.cloud.httpappender;
 
-import com.baidu.openrasp.cloud.CloudHttp;
-import com.baidu.openrasp.cloud.ThreadPool;
-import com.baidu.openrasp.cloud.model.AppenderCache;
 import com.baidu.openrasp.cloud.model.CloudRequestUrl;
-import com.baidu.openrasp.cloud.model.GenericResponse;
 import com.baidu.openrasp.messaging.ExceptionModel;
 import com.baidu.openrasp.plugin.info.ExceptInfo;
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import org.apache.log4j.AppenderSkeleton;
 import org.apache.log4j.Level;
 import org.apache.log4j.helpers.LogLog;
@@ -34,9 +27,6 @@ import org.apache.log4j.spi.LoggingEvent;
 import org.apache.log4j.spi.ThrowableInformation;
 
 import java.lang.management.ManagementFactory;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * @description: 日志上传appender
@@ -44,18 +34,9 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * @create: 2018/09/20 09:53
  */
 public class HttpAppender extends AppenderSkeleton {
-    private ThreadPool threadPool;
-
-    public HttpAppender() {
-        this.threadPool = new ThreadPool();
-    }
 
     private boolean checkEntryConditions() {
-        if (threadPool == null) {
-            LogLog.warn("Http need to be initialized.");
-            return false;
-
-        } else if (this.closed) {
+        if (this.closed) {
             LogLog.warn("Not allowed to write to a closed appender.");
             return false;
 
@@ -67,57 +48,22 @@ public class HttpAppender extends AppenderSkeleton {
     protected void append(LoggingEvent loggingEvent) {
         if (checkEntryConditions()) {
             String logger = getLogger(loggingEvent.getLoggerName());
-            JsonElement jsonElement = null;
+            String content = null;
             if ("root".equals(logger)) {
                 if ((loggingEvent.getLevel().equals(Level.WARN) || loggingEvent.getLevel().equals(Level.ERROR))
                         && loggingEvent.getMessage() instanceof ExceptionModel) {
-                    jsonElement = new JsonParser().parse(generateJson(loggingEvent));
+                    content = generateJson(loggingEvent);
                 }
             } else {
-                jsonElement = new JsonParser().parse(loggingEvent.getRenderedMessage());
-            }
-            if (jsonElement != null) {
-                JsonArray jsonArray = mergeFromAppenderCache(loggingEvent.getLoggerName(), jsonElement);
-                if (logger != null) {
-                    String requestUrl = getUrl(logger);
-                    if (requestUrl != null) {
-                        Runnable runnable = createTask(requestUrl, new Gson().toJson(jsonArray), logger, jsonElement);
-                        threadPool.getThreadPool().execute(runnable);
-                    }
-                }
+                content = loggingEvent.getRenderedMessage();
             }
-        }
-    }
-
-    private Runnable createTask(final String url, final String content, final String loggerName, final JsonElement currentLog) {
-        return new Runnable() {
-            @Override
-            public void run() {
-                GenericResponse response = new CloudHttp().logRequest(url, content);
-                if (response != null) {
-                    Integer responseCode = response.getResponseCode();
-                    if (responseCode != null && responseCode >= 200 && responseCode < 300) {
-                        AppenderCache.clearCache(loggerName);
-                        return;
-                    }
+            if (content != null && !content.trim().isEmpty()) {
+                String requestUrl = getUrl(logger);
+                if (requestUrl != null) {
+                    HttpShipper.getShipper(logger, requestUrl).offer(content);
                 }
-                AppenderCache.setCache(loggerName, currentLog);
             }
-        };
-    }
-
-    private JsonArray mergeFromAppenderCache(String loggerName, JsonElement currentLog) {
-        Set<JsonElement> sets = new HashSet<JsonElement>();
-        sets.add(currentLog);
-        ConcurrentLinkedQueue<JsonElement> queue = AppenderCache.getCache(getLogger(loggerName));
-        if (queue != null && !queue.isEmpty()) {
-            sets.addAll(queue);
-        }
-        JsonArray jsonArray = new JsonArray();
-        for (JsonElement element : sets) {
-            jsonArray.add(element);
         }
-        return jsonArray;
     }
 
     private String getLogger(String loggerName) {
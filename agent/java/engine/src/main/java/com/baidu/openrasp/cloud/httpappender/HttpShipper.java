@@ -0,0 +1,304 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.cloud.httpappender;
+
+import com.baidu.openrasp.cloud.CloudHttp;
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.tool.FileUtil;
+import org.apache.log4j.helpers.LogLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 日志批量上传
+ * <p>
+ * 每个上传地址对应一个有界队列和一个发送线程，日志按条数或时间攒批后合并为一个 json 数组，
+ * 压缩后一次性发送。云控不可达时整批写入磁盘，恢复后再按顺序补发
+ */
+public class HttpShipper implements Runnable {
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final long BATCH_MAX_BYTES = 1024 * 1024;
+    private static final int SPILL_BATCHES_PER_ROUND = 8;
+    private static final long MIN_RETRY_DELAY = 1000;
+    private static final long MAX_RETRY_DELAY = 60000;
+    private static final long STOP_TIMEOUT = 3000;
+    private static final int RESULT_SENT = 0;
+    private static final int RESULT_REJECTED = 1;
+    private static final int RESULT_FAILED = 2;
+
+    private static final ConcurrentHashMap<String, HttpShipper> shippers = new ConcurrentHashMap<String, HttpShipper>();
+
+    private final String name;
+    private final String url;
+    private final ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<String>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong malformed = new AtomicLong(0);
+    private final SpillStore spillStore;
+    private final Thread thread;
+    private volatile boolean running = true;
+    // 以下字段只在发送线程中访问
+    private long retryAt = 0;
+    private long retryDelay = MIN_RETRY_DELAY;
+    private boolean offline = false;
+
+    private HttpShipper(String name, String url) {
+        this(name, url, new File(FileUtil.getBaseDir() + File.separator + "logs"
+                + File.separator + "http_spill" + File.separator + name));
+    }
+
+    HttpShipper(String name, String url, File spillDirectory) {
+        this.name = name;
+        this.url = url;
+        this.spillStore = new SpillStore(spillDirectory, Config.getConfig().getHttpAppenderSpillMaxBytes());
+        this.thread = new Thread(this, "OpenRASP Http Appender Thread-" + name);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * 获取指定日志类型的上传器，不存在时创建并启动
+     *
+     * @param name 日志类型
+     * @param url  上传地址
+     * @return 上传器
+     */
+    public static HttpShipper getShipper(String name, String url) {
+        HttpShipper shipper = shippers.get(name);
+        if (shipper == null) {
+            synchronized (shippers) {
+                shipper = shippers.get(name);
+                if (shipper == null) {
+                    shipper = new HttpShipper(name, url);
+                    shipper.start();
+                    shippers.put(name, shipper);
+                }
+            }
+        }
+        return shipper;
+    }
+
+    /**
+     * 停止全部上传器，队列中未发送的日志写入磁盘
+     */
+    public static void stopAll() {
+        synchronized (shippers) {
+            for (HttpShipper shipper : shippers.values()) {
+                shipper.stop();
+            }
+            shippers.clear();
+        }
+    }
+
+    /**
+     * 提交一条 json 格式的日志，队列满时丢弃最旧的日志
+     * <p>
+     * 日志原样拼入批量数组，格式错误的日志会导致整批被拒绝，因此入队前丢弃
+     *
+     * @param event 日志内容
+     * @return 日志格式错误被丢弃时返回 false
+     */
+    public boolean offer(String event) {
+        if (!JsonSyntax.isValid(event)) {
+            if (malformed.incrementAndGet() == 1) {
+                LogLog.warn("http appender " + name + " dropped malformed log: " + event);
+            }
+            return false;
+        }
+        while (!queue.offer(event)) {
+            if (queue.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getMalformedCount() {
+        return malformed.get();
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(STOP_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<String> batch = new ArrayList<String>();
+        while (running) {
+            try {
+                collect(batch);
+                if (!batch.isEmpty()) {
+                    ship(batch);
+                    batch.clear();
+                } else {
+                    drainSpilled();
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Throwable t) {
+                LogLog.warn("http appender " + name + " failed to ship logs", t);
+                batch.clear();
+            }
+        }
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            spillStore.write(batch);
+        }
+        spillStore.close();
+    }
+
+    /**
+     * 等待第一条日志，之后在刷新间隔内继续攒批，直到达到条数或字节上限
+     */
+    private void collect(List<String> batch) throws InterruptedException {
+        long interval = Config.getConfig().getHttpAppenderFlushInterval();
+        String event = queue.poll(interval, TimeUnit.MILLISECONDS);
+        if (event == null) {
+            return;
+        }
+        int batchSize = Config.getConfig().getHttpAppenderBatchSize();
+        long deadline = System.currentTimeMillis() + interval;
+        long bytes = 0;
+        while (event != null) {
+            batch.add(event);
+            bytes += event.length();
+            if (batch.size() >= batchSize || bytes >= BATCH_MAX_BYTES) {
+                break;
+            }
+            event = queue.poll();
+            if (event == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                event = queue.poll(remaining, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void ship(List<String> batch) {
+        if (offline && System.currentTimeMillis() < retryAt) {
+            spillStore.write(batch);
+            return;
+        }
+        if (send(batch) == RESULT_FAILED) {
+            spillStore.write(batch);
+        } else {
+            drainSpilled();
+        }
+    }
+
+    /**
+     * 补发磁盘中的日志，每轮最多发送固定批数，避免阻塞实时日志
+     */
+    private void drainSpilled() {
+        if (offline && System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        int batchSize = Config.getConfig().getHttpAppenderBatchSize();
+        for (int i = 0; i < SPILL_BATCHES_PER_ROUND && spillStore.hasData(); i++) {
+            List<String> spilled = spillStore.peek(batchSize, BATCH_MAX_BYTES);
+            if (spilled.isEmpty()) {
+                continue;
+            }
+            if (send(spilled) == RESULT_FAILED) {
+                return;
+            }
+            spillStore.commit(spilled.size());
+        }
+    }
+
+    private int send(List<String> batch) {
+        int responseCode;
+        try {
+            boolean gzip = Config.getConfig().isHttpAppenderGzip();
+            responseCode = new CloudHttp().batchLogRequest(url, encode(batch, gzip), gzip);
+        } catch (Exception e) {
+            onFailure(e.getMessage());
+            return RESULT_FAILED;
+        }
+        if (responseCode >= 200 && responseCode < 300) {
+            onSuccess();
+            return RESULT_SENT;
+        }
+        if (responseCode >= 400 && responseCode < 500) {
+            // 云控拒绝的日志重发也不会成功，直接丢弃
+            onSuccess();
+            LogLog.warn("http appender " + name + " dropped " + batch.size()
+                    + " logs rejected with status " + responseCode);
+            return RESULT_REJECTED;
+        }
+        onFailure("status " + responseCode);
+        return RESULT_FAILED;
+    }
+
+    private void onSuccess() {
+        if (offline) {
+            offline = false;
+            LogLog.warn("http appender " + name + " reconnected to " + url);
+        }
+        retryDelay = MIN_RETRY_DELAY;
+    }
+
+    private void onFailure(String reason) {
+        if (!offline) {
+            offline = true;
+            LogLog.warn("http appender " + name + " failed to send logs to " + url + ": " + reason
+                    + ", spilling logs to disk");
+        } else {
+            retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY);
+        }
+        retryAt = System.currentTimeMillis() + retryDelay;
+    }
+
+    private static byte[] encode(List<String> batch, boolean gzip) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes;
+        out.write('[');
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(batch.get(i).getBytes("UTF-8"));
+        }
+        out.write(']');
+        out.close();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.cloud.httpappender;
+
+/**
+ * json 语法校验
+ * <p>
+ * 日志按原样拼接进批量数组，一条格式错误的日志会导致整批被云控拒绝，
+ * 因此入队前逐条校验，只做语法扫描，不构造对象
+ */
+final class JsonSyntax {
+    private static final int MAX_DEPTH = 512;
+
+    private final String text;
+    private int pos;
+
+    private JsonSyntax(String text) {
+        this.text = text;
+    }
+
+    /**
+     * 判断字符串是否为单个合法的 json 值
+     *
+     * @param text 待校验内容
+     * @return 合法时返回 true
+     */
+    static boolean isValid(String text) {
+        if (text == null) {
+            return false;
+        }
+        JsonSyntax syntax = new JsonSyntax(text);
+        syntax.skipWhitespace();
+        if (!syntax.value(0)) {
+            return false;
+        }
+        syntax.skipWhitespace();
+        return syntax.pos == text.length();
+    }
+
+    private boolean value(int depth) {
+        switch (peek()) {
+            case '{':
+                return depth < MAX_DEPTH && object(depth + 1);
+            case '[':
+                return depth < MAX_DEPTH && array(depth + 1);
+            case '"':
+                return string();
+            case 't':
+                return literal("true");
+            case 'f':
+                return literal("false");
+            case 'n':
+                return literal("null");
+            default:
+                return number();
+        }
+    }
+
+    private boolean object(int depth) {
+        pos++;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return true;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"' || !string()) {
+                return false;
+            }
+            skipWhitespace();
+            if (next() != ':') {
+                return false;
+            }
+            skipWhitespace();
+            if (!value(depth)) {
+                return false;
+            }
+            skipWhitespace();
+            int c = next();
+            if (c == '}') {
+                return true;
+            }
+            if (c != ',') {
+                return false;
+            }
+        }
+    }
+
+    private boolean array(int depth) {
+        pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return true;
+        }
+        while (true) {
+            skipWhitespace();
+            if (!value(depth)) {
+                return false;
+            }
+            skipWhitespace();
+            int c = next();
+            if (c == ']') {
+                return true;
+            }
+            if (c != ',') {
+                return false;
+            }
+        }
+    }
+
+    private boolean string() {
+        pos++;
+        while (true) {
+            int c = next();
+            if (c == '"') {
+                return true;
+            }
+            if (c < 0x20) {
+                // 包括结尾 -1 和未转义的控制字符
+                return false;
+            }
+            if (c == '\\') {
+                c = next();
+                if (c == 'u') {
+                    for (int i = 0; i < 4; i++) {
+                        if (Character.digit(next(), 16) < 0) {
+                            return false;
+                        }
+                    }
+                } else if ("\"\\/bfnrt".indexOf(c) < 0) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private boolean number() {
+        if (peek() == '-') {
+            pos++;
+        }
+        if (peek() == '0') {
+            pos++;
+        } else if (!digits()) {
+            return false;
+        }
+        if (peek() == '.') {
+            pos++;
+            if (!digits()) {
+                return false;
+            }
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            pos++;
+            if (peek() == '+' || peek() == '-') {
+                pos++;
+            }
+            return digits();
+        }
+        return true;
+    }
+
+    private boolean digits() {
+        int start = pos;
+        while (peek() >= '0' && peek() <= '9') {
+            pos++;
+        }
+        return pos > start;
+    }
+
+    private boolean literal(String literal) {
+        if (!text.startsWith(literal, pos)) {
+            return false;
+        }
+        pos += literal.length();
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (true) {
+            int c = peek();
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private int peek() {
+        return pos < text.length() ? text.charAt(pos) : -1;
+    }
+
+    private int next() {
+        return pos < text.length() ? text.charAt(pos++) : -1;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.cloud.httpappender;
+
+import org.apache.log4j.helpers.LogLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * 日志上传失败时的磁盘缓存
+ * <p>
+ * 日志按段文件顺序写入，每条记录为 4 字节长度加 UTF-8 内容；读取时从最旧的段开始，
+ * 整段发送成功后删除。总大小超过上限时丢弃最旧的段。只允许发送线程访问
+ */
+class SpillStore {
+    private static final String SUFFIX = ".spill";
+    private static final long SEGMENT_MAX_BYTES = 1024 * 1024;
+    private static final FilenameFilter SEGMENT_FILTER = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.endsWith(SUFFIX);
+        }
+    };
+
+    private final File directory;
+    private final long maxBytes;
+    private final LinkedList<File> segments = new LinkedList<File>();
+    private long totalBytes = 0;
+    private long nextSequence = 0;
+
+    private File writeSegment;
+    private DataOutputStream writer;
+    private long writeBytes;
+
+    private File readSegment;
+    private LinkedList<String> pending;
+
+    SpillStore(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        File[] files = directory.listFiles(SEGMENT_FILTER);
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                segments.add(file);
+                totalBytes += file.length();
+                nextSequence = Math.max(nextSequence, parseSequence(file) + 1);
+            }
+        }
+    }
+
+    /**
+     * 是否有等待重新发送的日志
+     */
+    boolean hasData() {
+        return (pending != null && !pending.isEmpty()) || !segments.isEmpty();
+    }
+
+    /**
+     * 将一批日志写入磁盘
+     *
+     * @param events 日志列表
+     */
+    void write(List<String> events) {
+        if (maxBytes <= 0) {
+            return;
+        }
+        try {
+            for (String event : events) {
+                if (writer == null || writeBytes >= SEGMENT_MAX_BYTES) {
+                    rollSegment();
+                }
+                byte[] bytes = event.getBytes("UTF-8");
+                writer.writeInt(bytes.length);
+                writer.write(bytes);
+                writeBytes += 4 + bytes.length;
+                totalBytes += 4 + bytes.length;
+            }
+            writer.flush();
+            trimToSize();
+        } catch (IOException e) {
+            LogLog.warn("failed to spill http appender events to " + directory, e);
+            closeWriter();
+        }
+    }
+
+    /**
+     * 从最旧的段中取出一批日志，发送成功后需要调用 {@link #commit(int)}
+     *
+     * @param maxCount 最大条数
+     * @param maxBytes 最大字节数
+     * @return 日志列表，没有数据时为空
+     */
+    List<String> peek(int maxCount, long maxBytes) {
+        List<String> result = new ArrayList<String>();
+        if (pending == null || pending.isEmpty()) {
+            loadOldestSegment();
+        }
+        if (pending != null) {
+            long bytes = 0;
+            for (String event : pending) {
+                if (result.size() >= maxCount || (bytes > 0 && bytes + event.length() > maxBytes)) {
+                    break;
+                }
+                result.add(event);
+                bytes += event.length();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 确认 peek 出的日志已经发送成功
+     *
+     * @param count 已发送的条数
+     */
+    void commit(int count) {
+        for (int i = 0; i < count && pending != null && !pending.isEmpty(); i++) {
+            pending.removeFirst();
+        }
+        if (pending != null && pending.isEmpty()) {
+            deleteReadSegment();
+        }
+    }
+
+    void close() {
+        closeWriter();
+    }
+
+    private void loadOldestSegment() {
+        pending = null;
+        if (segments.isEmpty()) {
+            return;
+        }
+        if (segments.getFirst() == writeSegment) {
+            closeWriter();
+        }
+        readSegment = segments.getFirst();
+        LinkedList<String> events = new LinkedList<String>();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(readSegment)));
+            while (true) {
+                int length = in.readInt();
+                if (length < 0 || length > SEGMENT_MAX_BYTES * 16) {
+                    break;
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                events.add(new String(bytes, "UTF-8"));
+            }
+        } catch (EOFException e) {
+            // 读到段尾，进程异常退出时最后一条记录可能不完整
+        } catch (IOException e) {
+            LogLog.warn("failed to read spilled http appender events from " + readSegment, e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+        pending = events;
+        if (pending.isEmpty()) {
+            deleteReadSegment();
+        }
+    }
+
+    private void deleteReadSegment() {
+        if (readSegment != null) {
+            segments.remove(readSegment);
+            totalBytes -= readSegment.length();
+            if (!readSegment.delete()) {
+                LogLog.warn("failed to delete spilled segment " + readSegment);
+            }
+            readSegment = null;
+        }
+        pending = null;
+    }
+
+    private void rollSegment() throws IOException {
+        closeWriter();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("can not create directory " + directory);
+        }
+        writeSegment = new File(directory, String.format("%020d", nextSequence++) + SUFFIX);
+        writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(writeSegment)));
+        writeBytes = 0;
+        segments.add(writeSegment);
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            writer = null;
+            writeSegment = null;
+        }
+    }
+
+    private void trimToSize() {
+        while (totalBytes > maxBytes && segments.size() > 1) {
+            File oldest = segments.getFirst();
+            if (oldest == writeSegment) {
+                break;
+            }
+            if (oldest == readSegment) {
+                readSegment = null;
+                pending = null;
+            }
+            segments.removeFirst();
+            totalBytes -= oldest.length();
+            if (!oldest.delete()) {
+                LogLog.warn("failed to delete spilled segment " + oldest);
+            }
+        }
+    }
+
+    private static long parseSequence(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
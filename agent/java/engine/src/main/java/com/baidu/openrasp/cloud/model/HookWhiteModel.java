@@ -23,7 +23,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * @description: 缓存hook点的白名单信息
@@ -31,8 +30,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * @create: 2018/09/13 20:55
  */
 public class HookWhiteModel {
-    private static DoubleArrayTrie hookWhiteinfo;
-    private static ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 构建完成后不再修改，整体替换发布
+    private static volatile DoubleArrayTrie hookWhiteinfo;
 
     public static void init(TreeMap<String, Integer> urls) {
         DoubleArrayTrie temp = null;
@@ -47,32 +46,22 @@ public class HookWhiteModel {
             }
             temp.build(list, value);
         }
-        try {
-            lock.writeLock().lock();
-            hookWhiteinfo = temp;
-        } finally {
-            lock.writeLock().unlock();
-        }
+        hookWhiteinfo = temp;
     }
 
     public static boolean isContainURL(Integer code, String url) {
-        if (hookWhiteinfo != null) {
-            List<Integer> matched;
-            try {
-                lock.readLock().lock();
-                matched = hookWhiteinfo.commonPrefixSearch(url);
-            } finally {
-                lock.readLock().unlock();
-            }
-            if (matched != null && !matched.isEmpty()) {
-                int result = 0;
-                for (Integer i : matched) {
-                    result = result | i;
-                }
-                return (code & result) != 0;
-            }
-        }
-        return false;
+        return (code & getMatchedMask(url)) != 0;
+    }
+
+    /**
+     * 获取 url 命中的全部白名单 hook 类型掩码
+     *
+     * @param url 去掉协议头的请求 url
+     * @return 命中的 hook 类型掩码，未命中返回 0
+     */
+    public static int getMatchedMask(String url) {
+        DoubleArrayTrie trie = hookWhiteinfo;
+        return trie != null ? trie.commonPrefixSearchMask(url) : 0;
     }
 
     public static TreeMap<String, Integer> parseHookWhite(Map<Object, Object> hooks) {
@@ -19,6 +19,7 @@ package com.baidu.openrasp.cloud.syslog;
 import com.baidu.openrasp.cloud.httpappender.HttpAppender;
 import com.baidu.openrasp.cloud.model.AppenderMappedLogger;
 import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.messaging.AsyncDailyRollingFileAppender;
 import com.baidu.openrasp.messaging.BurstFilter;
 import com.baidu.openrasp.messaging.OpenraspDailyRollingFileAppender;
 import com.baidu.openrasp.messaging.SyslogTcpAppender;
@@ -48,7 +49,13 @@ public class DynamicConfigAppender {
         RaspCustomLayout layout = new RaspCustomLayout();
         layout.setConversionPattern("%e: %m%n");
         int syslogFacility = Config.getConfig().getSyslogFacility();
-        SyslogTcpAppender appender = new SyslogTcpAppender(address, port, syslogFacility, layout);
+        SyslogTcpAppender appender;
+        if (Config.getConfig().isSyslogAsyncEnable()) {
+            appender = new SyslogTcpAppender(address, port, syslogFacility, layout,
+                    Config.getConfig().getSyslogAsyncQueueSize(), Config.getConfig().getSyslogAsyncOverflowPolicy());
+        } else {
+            appender = new SyslogTcpAppender(address, port, syslogFacility, layout);
+        }
         appender.setName(SYSLOG_APPENDER_NAME);
         appender.setThreshold(Level.INFO);
         appender.setFacilityPrinting(true);
@@ -58,8 +65,11 @@ public class DynamicConfigAppender {
 
     public static void removeSyslogAppender() {
         Logger logger = Logger.getLogger(LOGGER_NAME);
-        if (logger.getAppender(SYSLOG_APPENDER_NAME) != null) {
+        Appender appender = logger.getAppender(SYSLOG_APPENDER_NAME);
+        if (appender != null) {
             logger.removeAppender(SYSLOG_APPENDER_NAME);
+            // removeAppender 不会关闭 appender，需要主动关闭连接和发送线程
+            appender.close();
         }
     }
 
@@ -139,7 +149,13 @@ public class DynamicConfigAppender {
      * 创建fileAppender
      */
     public static OpenraspDailyRollingFileAppender createFileAppender(String appender, String targetPath) {
-        OpenraspDailyRollingFileAppender fileAppender = new OpenraspDailyRollingFileAppender();
+        OpenraspDailyRollingFileAppender fileAppender;
+        // rasp.log 保持同步写入，便于排查 agent 自身的问题
+        if (Config.getConfig().isLogAsyncEnable() && !"RASP".equals(appender)) {
+            fileAppender = new AsyncDailyRollingFileAppender(Config.getConfig().getLogAsyncQueueSize());
+        } else {
+            fileAppender = new OpenraspDailyRollingFileAppender();
+        }
         fileAppender.setName(appender);
         fileAppender.setErrorHandler(new OnlyOnceErrorHandler());
         fileAppender.setFile(targetPath);
@@ -269,4 +269,42 @@ public class DoubleArrayTrie {
 
         return result;
     }
+
+    /**
+     * 前缀匹配，返回全部命中前缀对应值的按位或，匹配过程不分配对象
+     *
+     * @param key 待匹配的字符串
+     * @return 命中值的按位或，未命中返回 0
+     */
+    public int commonPrefixSearchMask(String key) {
+        int result = 0;
+        int len = key.length();
+        int b = base[0];
+        int n;
+        int p;
+
+        for (int i = 0; i < len; i++) {
+            p = b;
+            n = base[p];
+
+            if (b == check[p] && n < 0) {
+                result |= -n - 1;
+            }
+
+            p = b + (int) (key.charAt(i)) + 1;
+            if (p < check.length && b == check[p])
+                b = base[p];
+            else
+                return result;
+        }
+
+        p = b;
+        n = base[p];
+
+        if (b == check[p] && n < 0) {
+            result |= -n - 1;
+        }
+
+        return result;
+    }
 }
\ No newline at end of file
@@ -35,6 +35,16 @@ import static com.baidu.openrasp.config.Config.MAX_LOG_REGEX_LENGTH;
  */
 public class AlgorithmConfigUtil {
 
+    static void setAllLog() {
+        boolean allLog = false;
+        JsonElement element = ConfigurableChecker.getElement(Config.getConfig().algorithmConfig, "meta", "all_log");
+        if (element != null && element.isJsonPrimitive()) {
+            allLog = element.getAsBoolean();
+        }
+        Config.getConfig().algorithmAllLog = allLog;
+        Config.LOGGER.info("meta.all_log: " + allLog);
+    }
+
     static void setLogRegexes() {
         JsonArray regexArray = null;
         JsonElement elements = ConfigurableChecker.getElement(Config.getConfig().algorithmConfig,
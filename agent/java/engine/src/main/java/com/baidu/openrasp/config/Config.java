@@ -16,15 +16,16 @@
 
 package com.baidu.openrasp.config;
 
+import com.baidu.openrasp.GlobalSwitches;
 import com.baidu.openrasp.cloud.syslog.DynamicConfigAppender;
 import com.baidu.openrasp.cloud.utils.CloudUtils;
 import com.baidu.openrasp.exceptions.ConfigLoadException;
 import com.baidu.openrasp.messaging.ErrorType;
 import com.baidu.openrasp.messaging.LogConfig;
 import com.baidu.openrasp.messaging.LogTool;
+import com.baidu.openrasp.plugin.js.VerdictCache;
 import com.baidu.openrasp.tool.FileUtil;
 import com.baidu.openrasp.tool.FilterConstructor;
-import com.baidu.openrasp.tool.LRUCache;
 import com.baidu.openrasp.tool.filemonitor.FileScanListener;
 import com.baidu.openrasp.tool.filemonitor.FileScanMonitor;
 import com.fuxi.javaagent.contentobjects.jnotify.JNotifyException;
@@ -59,11 +60,12 @@ public class Config extends FileScanListener {
     static final String CONFIG_FILE_NAME = "openrasp.yml";
     public static final Logger LOGGER = Logger.getLogger(Config.class.getName());
     public static final String[] FILE_MONITOR_MODE = new String[]{"jnotify", "scan", "disable"};
+    public static final String[] LRU_TYPE = new String[]{"lru", "concurrent"};
+    public static final String[] DETECT_ASYNC_OVERFLOW_POLICY = new String[]{"drop", "sample", "sync"};
+    public static final String[] SYSLOG_ASYNC_OVERFLOW_POLICY = new String[]{"drop", "drop_oldest", "block"};
     public static String baseDirectory;
     static Object watchId;
-    //全局lru的缓存
     private static boolean isInit = false;
-    public static LRUCache<Object, String> commonLRUCache;
 
     String configFileDir;
     int pluginMaxStack;
@@ -93,13 +95,22 @@ public class Config extends FileScanListener {
     String syslogUrl;
     String syslogTag;
     int syslogReconnectInterval;
+    boolean syslogAsyncEnable;
+    int syslogAsyncQueueSize;
+    String syslogAsyncOverflowPolicy;
     boolean hookWhiteAll;
     int logMaxBurst;
+    boolean alarmAggregateEnable;
+    int alarmAggregateWindow;
+    int alarmAggregateMaxKeys;
     int heartbeatInterval;
     int syslogFacility;
     boolean decompileEnable;
     Map<Object, Object> responseHeaders;
     int logMaxBackUp;
+    boolean logAsyncEnable;
+    int logAsyncQueueSize;
+    volatile boolean logAsyncFsync;
     int dependencyCheckInterval;
     boolean dependencyCheckEnable;
     List<String> securityWeakPasswords;
@@ -114,6 +125,26 @@ public class Config extends FileScanListener {
     Map<String, String> logSensitiveRegex;
     boolean lruCompareEnable;
     int lruCompareLimit;
+    String lruType;
+    long lruTtl;
+    Map<String, Integer> lruTypeMaxSize;
+    boolean algorithmAllLog;
+    boolean detectAsyncEnable;
+    int detectAsyncQueueSize;
+    int detectAsyncWorkers;
+    String detectAsyncOverflowPolicy;
+    int detectAsyncSampleInterval;
+    boolean metricsEnable;
+    int metricsPrometheusPort;
+    long dnsCacheTtl;
+    long dnsCacheNegativeTtl;
+    int dnsCacheMaxSize;
+    long fileCacheTtlMillis;
+    int fileCacheMaxSize;
+    int httpAppenderBatchSize;
+    long httpAppenderFlushInterval;
+    boolean httpAppenderGzip;
+    long httpAppenderSpillMaxBytes;
     int responseSamplerInterval;
     int responseSamplerBurst;
     boolean iastEnable;
@@ -130,8 +161,8 @@ public class Config extends FileScanListener {
             CustomResponseHtml.load(baseDirectory);
         }
         isInit = true;
-        //初始化全局缓存
-        commonLRUCache = new LRUCache<Object, String>(instance.getSqlCacheCapacity());
+        //初始化插件结果缓存
+        VerdictCache.rebuild();
         LOGGER.info("baseDirectory: " + baseDirectory);
     }
 
@@ -239,6 +270,10 @@ public class Config extends FileScanListener {
                 if (entry.getValue() instanceof JsonObject) {
                     value = CloudUtils.getMapGsonObject().fromJson((JsonObject) entry.getValue(), Map.class);
                 }
+            } else if (entry.getKey().equals(ConfigItem.LRU_TYPE_MAX_SIZE.toString())) {
+                if (entry.getValue() instanceof JsonObject) {
+                    value = CloudUtils.getMapGsonObject().fromJson((JsonObject) entry.getValue(), Map.class);
+                }
             } else if (entry.getKey().equals(ConfigItem.SECURITY_WEAK_PASSWORDS.toString())) {
                 if (entry.getValue() instanceof JsonArray) {
                     value = new Gson().fromJson((JsonArray) entry.getValue(), new TypeToken<List<String>>() {
@@ -547,6 +582,186 @@ public class Config extends FileScanListener {
         return lruCompareLimit;
     }
 
+    /**
+     * 获取全局 LRU 缓存的实现类型
+     *
+     * @return lru 或 concurrent
+     */
+    public String getLruType() {
+        return lruType;
+    }
+
+    /**
+     * 获取 LRU 缓存项的有效期，0 表示不过期
+     *
+     * @return 有效期，单位/秒
+     */
+    public long getLruTtl() {
+        return lruTtl;
+    }
+
+    /**
+     * 获取按检测类型单独设置的 LRU 缓存大小
+     *
+     * @return 检测类型名称到缓存大小的映射
+     */
+    public Map<String, Integer> getLruTypeMaxSize() {
+        return lruTypeMaxSize;
+    }
+
+    /**
+     * 检测算法配置中是否开启了观察模式(meta.all_log)，开启后插件不会拦截任何请求
+     *
+     * @return true 代表开启
+     */
+    public boolean getAlgorithmAllLog() {
+        return algorithmAllLog;
+    }
+
+    /**
+     * 是否开启异步检测，只对不会拦截的检测类型生效
+     *
+     * @return true 代表开启
+     */
+    public boolean getDetectAsyncEnable() {
+        return detectAsyncEnable;
+    }
+
+    /**
+     * 获取异步检测队列的容量
+     *
+     * @return 队列容量
+     */
+    public int getDetectAsyncQueueSize() {
+        return detectAsyncQueueSize;
+    }
+
+    /**
+     * 获取异步检测的线程数
+     *
+     * @return 线程数
+     */
+    public int getDetectAsyncWorkers() {
+        return detectAsyncWorkers;
+    }
+
+    /**
+     * 获取异步检测队列满时的处理策略
+     *
+     * @return drop、sample 或 sync
+     */
+    public String getDetectAsyncOverflowPolicy() {
+        return detectAsyncOverflowPolicy;
+    }
+
+    /**
+     * 获取 sample 策略下同步检测的间隔，队列满时每 N 个检测中同步执行 1 个
+     *
+     * @return 间隔
+     */
+    public int getDetectAsyncSampleInterval() {
+        return detectAsyncSampleInterval;
+    }
+
+    /**
+     * 是否开启检测耗时和次数统计
+     *
+     * @return true 代表开启
+     */
+    public boolean getMetricsEnable() {
+        return metricsEnable;
+    }
+
+    /**
+     * 获取本地 Prometheus 统计接口的端口，0 表示关闭
+     *
+     * @return 端口
+     */
+    public int getMetricsPrometheusPort() {
+        return metricsPrometheusPort;
+    }
+
+    /**
+     * 获取域名解析成功结果的缓存时间，0 表示不缓存
+     *
+     * @return 缓存时间，单位/秒
+     */
+    public long getDnsCacheTtl() {
+        return dnsCacheTtl;
+    }
+
+    /**
+     * 获取域名解析失败结果的缓存时间，0 表示不缓存
+     *
+     * @return 缓存时间，单位/秒
+     */
+    public long getDnsCacheNegativeTtl() {
+        return dnsCacheNegativeTtl;
+    }
+
+    /**
+     * 获取域名解析缓存的最大条数
+     *
+     * @return 最大条数
+     */
+    public int getDnsCacheMaxSize() {
+        return dnsCacheMaxSize;
+    }
+
+    /**
+     * 获取文件路径缓存的有效时间，0 表示不缓存，默认不缓存
+     *
+     * @return 缓存时间，单位/毫秒
+     */
+    public long getFileCacheTtlMillis() {
+        return fileCacheTtlMillis;
+    }
+
+    /**
+     * 获取文件路径缓存的最大条数
+     *
+     * @return 最大条数
+     */
+    public int getFileCacheMaxSize() {
+        return fileCacheMaxSize;
+    }
+
+    /**
+     * 获取云控日志上传每批的最大条数
+     *
+     * @return 最大条数
+     */
+    public int getHttpAppenderBatchSize() {
+        return httpAppenderBatchSize;
+    }
+
+    /**
+     * 获取云控日志上传攒批的最长等待时间
+     *
+     * @return 等待时间，单位/毫秒
+     */
+    public long getHttpAppenderFlushInterval() {
+        return httpAppenderFlushInterval;
+    }
+
+    /**
+     * 云控日志上传时是否对请求体进行 gzip 压缩
+     *
+     * @return true 代表压缩
+     */
+    public boolean isHttpAppenderGzip() {
+        return httpAppenderGzip;
+    }
+
+    /**
+     * 获取云控不可达时日志磁盘缓存的最大字节数，0 表示不缓存
+     *
+     * @return 最大字节数
+     */
+    public long getHttpAppenderSpillMaxBytes() {
+        return httpAppenderSpillMaxBytes;
+    }
+
     /**
      * 是否开启调试
      *
@@ -709,6 +924,33 @@ public class Config extends FileScanListener {
         return syslogReconnectInterval;
     }
 
+    /**
+     * 获取是否开启 syslog 异步发送
+     *
+     * @return true 代表异步发送
+     */
+    public boolean isSyslogAsyncEnable() {
+        return syslogAsyncEnable;
+    }
+
+    /**
+     * 获取 syslog 异步发送队列长度
+     *
+     * @return 队列长度
+     */
+    public int getSyslogAsyncQueueSize() {
+        return syslogAsyncQueueSize;
+    }
+
+    /**
+     * 获取 syslog 异步发送队列满时的处理策略
+     *
+     * @return drop、drop_oldest 或 block
+     */
+    public String getSyslogAsyncOverflowPolicy() {
+        return syslogAsyncOverflowPolicy;
+    }
+
     /**
      * 获取日志每分钟上传的条数
      *
@@ -718,6 +960,33 @@ public class Config extends FileScanListener {
         return logMaxBurst;
     }
 
+    /**
+     * 获取是否开启攻击报警聚合
+     *
+     * @return 是否开启
+     */
+    public boolean getAlarmAggregateEnable() {
+        return alarmAggregateEnable;
+    }
+
+    /**
+     * 获取攻击报警聚合的时间窗口
+     *
+     * @return 时间窗口，单位/秒
+     */
+    public int getAlarmAggregateWindow() {
+        return alarmAggregateWindow;
+    }
+
+    /**
+     * 获取同时聚合的报警种类上限
+     *
+     * @return 报警种类上限
+     */
+    public int getAlarmAggregateMaxKeys() {
+        return alarmAggregateMaxKeys;
+    }
+
     /**
      * 获取是否禁用全部 hook 点
      *
@@ -734,6 +1003,7 @@ public class Config extends FileScanListener {
      */
     public synchronized void setHookWhiteAll(String hookWhiteAll) {
         this.hookWhiteAll = Boolean.parseBoolean(hookWhiteAll);
+        GlobalSwitches.set(GlobalSwitches.HOOK_WHITE_ALL, this.hookWhiteAll);
     }
 
     /**
@@ -752,6 +1022,7 @@ public class Config extends FileScanListener {
      */
     public synchronized void setDisableHooks(String disableHooks) {
         this.disableHooks = Boolean.parseBoolean(disableHooks);
+        GlobalSwitches.set(GlobalSwitches.HOOKS_DISABLED, this.disableHooks);
     }
 
     /**
@@ -826,6 +1097,33 @@ public class Config extends FileScanListener {
         return logMaxBackUp;
     }
 
+    /**
+     * 获取报警日志是否异步写文件，只在创建 appender 时读取，修改后重启生效
+     *
+     * @return true 代表异步写文件
+     */
+    public boolean isLogAsyncEnable() {
+        return logAsyncEnable;
+    }
+
+    /**
+     * 获取异步写文件的队列长度
+     *
+     * @return 队列长度
+     */
+    public int getLogAsyncQueueSize() {
+        return logAsyncQueueSize;
+    }
+
+    /**
+     * 获取异步写文件时是否每批调用一次 fsync
+     *
+     * @return true 代表每批写入后 fsync
+     */
+    public boolean isLogAsyncFsync() {
+        return logAsyncFsync;
+    }
+
     /**
      * 获取dependencyChecker的上报时间间隔
      *
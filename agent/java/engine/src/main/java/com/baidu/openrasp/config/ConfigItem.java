@@ -16,13 +16,20 @@
 
 package com.baidu.openrasp.config;
 
+import com.baidu.openrasp.GlobalSwitches;
 import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.cloud.model.HookWhiteModel;
 import com.baidu.openrasp.detector.ServerDetector;
 import com.baidu.openrasp.exceptions.ConfigLoadException;
-import com.baidu.openrasp.tool.LRUCache;
+import com.baidu.openrasp.plugin.checker.AsyncCheckPipeline;
+import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.plugin.js.VerdictCache;
+import com.baidu.openrasp.tool.DnsCache;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.Reflection;
 import com.baidu.openrasp.tool.cpumonitor.CpuMonitorManager;
+import com.baidu.openrasp.tool.metrics.MetricsManager;
+import com.baidu.openrasp.transformer.CustomClassTransformer;
 import com.baidu.openrasp.cloud.syslog.DynamicConfigAppender;
 import com.google.gson.JsonParser;
 import org.apache.commons.lang3.StringUtils;
@@ -53,6 +60,7 @@ public enum ConfigItem {
         @Override
         public synchronized void setValue(String ignoreHooks) {
             Config.getConfig().ignoreHooks = ignoreHooks.replace(" ", "").split(",");
+            CustomClassTransformer.onIgnoreHooksChanged();
         }
 
         @Override
@@ -135,6 +143,46 @@ public enum ConfigItem {
         }
     }),
 
+    LOG_ASYNC_ENABLE(new ConfigSetter<String>("log.async.enable") {
+        @Override
+        public synchronized void setValue(String enable) {
+            Config.getConfig().logAsyncEnable = Boolean.parseBoolean(enable);
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "false";
+        }
+    }),
+
+    LOG_ASYNC_QUEUE_SIZE(new ConfigSetter<String>("log.async.queue_size") {
+        @Override
+        public synchronized void setValue(String queueSize) {
+            int value = Integer.parseInt(queueSize);
+            if (value <= 0) {
+                throw new ConfigLoadException(itemName + " must be greater than 0");
+            }
+            Config.getConfig().logAsyncQueueSize = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "8192";
+        }
+    }),
+
+    LOG_ASYNC_FSYNC(new ConfigSetter<String>("log.async.fsync") {
+        @Override
+        public synchronized void setValue(String fsync) {
+            Config.getConfig().logAsyncFsync = Boolean.parseBoolean(fsync);
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "false";
+        }
+    }),
+
     PLUGIN_MAX_STACK(new ConfigSetter<String>("plugin.maxstack") {
         @Override
         public synchronized void setValue(String pluginMaxStack) {
@@ -158,14 +206,9 @@ public enum ConfigItem {
             if (value < 0) {
                 throw new ConfigLoadException(itemName + " can not be less than 0");
             }
-            Config.getConfig().sqlCacheCapacity = value;
-            if (Config.commonLRUCache == null || Config.commonLRUCache.maxSize() != value) {
-                if (Config.commonLRUCache == null) {
-                    Config.commonLRUCache = new LRUCache<Object, String>(value);
-                } else {
-                    Config.commonLRUCache.clear();
-                    Config.commonLRUCache = new LRUCache<Object, String>(value);
-                }
+            if (value != Config.getConfig().sqlCacheCapacity) {
+                Config.getConfig().sqlCacheCapacity = value;
+                VerdictCache.rebuild();
             }
         }
 
@@ -258,6 +301,13 @@ public enum ConfigItem {
         @Override
         public synchronized void setValue(String json) {
             Config.getConfig().algorithmConfig = new JsonParser().parse(json).getAsJsonObject();
+            try {
+                AlgorithmConfigUtil.setAllLog();
+            } catch (Exception e) {
+                Config.LOGGER.warn(
+                        "failed to get the meta.all_log element from algorithm config: " + e.getMessage(), e);
+            }
+
             try {
                 AlgorithmConfigUtil.setSqlErrorCodes();
             } catch (Exception e) {
@@ -350,6 +400,7 @@ public enum ConfigItem {
         @Override
         public synchronized void setValue(String cloudSwitch) {
             Config.getConfig().cloudSwitch = Boolean.parseBoolean(cloudSwitch);
+            GlobalSwitches.set(GlobalSwitches.CLOUD_SWITCH, Config.getConfig().cloudSwitch);
         }
 
         @Override
@@ -474,6 +525,56 @@ public enum ConfigItem {
         }
     }),
 
+    SYSLOG_ASYNC_ENABLE(new ConfigSetter<String>("syslog.async.enable") {
+        @Override
+        public synchronized void setValue(String enable) {
+            Config.getConfig().syslogAsyncEnable = Boolean.parseBoolean(enable);
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "false";
+        }
+    }),
+
+    SYSLOG_ASYNC_QUEUE_SIZE(new ConfigSetter<String>("syslog.async.queue_size") {
+        @Override
+        public synchronized void setValue(String queueSize) {
+            int value = Integer.parseInt(queueSize);
+            if (value <= 0) {
+                throw new ConfigLoadException(itemName + " must be greater than 0");
+            }
+            Config.getConfig().syslogAsyncQueueSize = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "4096";
+        }
+    }),
+
+    SYSLOG_ASYNC_OVERFLOW_POLICY(new ConfigSetter<String>("syslog.async.overflow_policy") {
+        @Override
+        public synchronized void setValue(String policy) {
+            boolean find = false;
+            for (String p : Config.SYSLOG_ASYNC_OVERFLOW_POLICY) {
+                if (p.equals(policy)) {
+                    find = true;
+                    break;
+                }
+            }
+            if (!find) {
+                throw new ConfigLoadException(itemName + " must be in [ 'drop','drop_oldest','block' ]");
+            }
+            Config.getConfig().syslogAsyncOverflowPolicy = policy;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "drop";
+        }
+    }),
+
     LOG_MAXBURST(new ConfigSetter<String>("log.maxburst") {
         @Override
         public synchronized void setValue(String logMaxBurst) {
@@ -490,6 +591,50 @@ public enum ConfigItem {
         }
     }),
 
+    ALARM_AGGREGATE_ENABLE(new ConfigSetter<String>("alarm.aggregate.enable") {
+        @Override
+        public synchronized void setValue(String enable) {
+            Config.getConfig().alarmAggregateEnable = Boolean.parseBoolean(enable);
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "false";
+        }
+    }),
+
+    ALARM_AGGREGATE_WINDOW(new ConfigSetter<String>("alarm.aggregate.window") {
+        @Override
+        public synchronized void setValue(String window) {
+            int value = Integer.parseInt(window);
+            if (value <= 0) {
+                throw new ConfigLoadException(itemName + " must be greater than 0");
+            }
+            Config.getConfig().alarmAggregateWindow = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "60";
+        }
+    }),
+
+    ALARM_AGGREGATE_MAX_KEYS(new ConfigSetter<String>("alarm.aggregate.max_keys") {
+        @Override
+        public synchronized void setValue(String maxKeys) {
+            int value = Integer.parseInt(maxKeys);
+            if (value <= 0) {
+                throw new ConfigLoadException(itemName + " must be greater than 0");
+            }
+            Config.getConfig().alarmAggregateMaxKeys = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "1024";
+        }
+    }),
+
     HEARTBEAT_INTERVAL(new ConfigSetter<String>("cloud.heartbeat_interval") {
         @Override
         public synchronized void setValue(String heartbeatInterval) {
@@ -524,6 +669,7 @@ public enum ConfigItem {
         @Override
         public synchronized void setValue(String hookWhiteAll) {
             Config.getConfig().hookWhiteAll = Boolean.parseBoolean(hookWhiteAll);
+            GlobalSwitches.set(GlobalSwitches.HOOK_WHITE_ALL, Config.getConfig().hookWhiteAll);
         }
 
         @Override
@@ -752,7 +898,7 @@ public enum ConfigItem {
             boolean value = Boolean.parseBoolean(lruCompareEnable);
             if (value != Config.getConfig().lruCompareEnable) {
                 Config.getConfig().lruCompareEnable = value;
-                Config.commonLRUCache.clear();
+                VerdictCache.invalidate();
             }
         }
 
@@ -770,7 +916,7 @@ public enum ConfigItem {
                 throw new ConfigLoadException(itemName + " must be between [1,102400]");
             }
             if (value < Config.getConfig().lruCompareLimit) {
-                Config.commonLRUCache.clear();
+                VerdictCache.invalidate();
             }
             Config.getConfig().lruCompareLimit = value;
         }
@@ -781,6 +927,351 @@ public enum ConfigItem {
         }
     }),
 
+    LRU_TYPE(new ConfigSetter<String>("lru.type") {
+        @Override
+        public synchronized void setValue(String lruType) {
+            boolean find = false;
+            for (String t : Config.LRU_TYPE) {
+                if (t.equals(lruType)) {
+                    find = true;
+                    break;
+                }
+            }
+            if (!find) {
+                throw new ConfigLoadException(itemName + " must be in [ 'lru','concurrent' ]");
+            }
+            if (!lruType.equals(Config.getConfig().lruType)) {
+                Config.getConfig().lruType = lruType;
+                VerdictCache.rebuild();
+            }
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "lru";
+        }
+    }),
+
+    LRU_TTL(new ConfigSetter<String>("lru.ttl") {
+        @Override
+        public synchronized void setValue(String lruTtl) {
+            long value = Long.parseLong(lruTtl);
+            if (value < 0) {
+                throw new ConfigLoadException(itemName + " can not be less than 0");
+            }
+            Config.getConfig().lruTtl = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "3600";
+        }
+    }),
+
+    LRU_TYPE_MAX_SIZE(new ConfigSetter<Map<Object, Object>>("lru.type_max_size") {
+        @Override
+        public synchronized void setValue(Map<Object, Object> typeMaxSize) {
+            Map<String, Integer> sizes = new HashMap<String, Integer>();
+            for (Map.Entry<Object, Object> entry : typeMaxSize.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) {
+                    throw new ConfigLoadException("the value of " + itemName +
+                            "'s key and value can not be null");
+                }
+                String type = entry.getKey().toString();
+                boolean find = false;
+                for (CheckParameter.Type t : VerdictCache.CACHEABLE_TYPES) {
+                    if (t.getName().equals(type)) {
+                        find = true;
+                        break;
+                    }
+                }
+                if (!find) {
+                    throw new ConfigLoadException("the key of " + itemName + " must be a cacheable check type, " +
+                            "can not be " + type);
+                }
+                int value = (int) Double.parseDouble(entry.getValue().toString());
+                if (value < 0) {
+                    throw new ConfigLoadException("the value of " + itemName + " can not be less than 0");
+                }
+                sizes.put(type, value);
+            }
+            if (!sizes.equals(Config.getConfig().lruTypeMaxSize)) {
+                Config.getConfig().lruTypeMaxSize = sizes;
+                VerdictCache.rebuild();
+            }
+        }
+
+        @Override
+        public Map<Object, Object> getDefaultValue() {
+            return new HashMap<Object, Object>();
+        }
+    }),
+
+    DETECT_ASYNC_ENABLE(new ConfigSetter<String>("detect.async.enable") {
+        @Override
+        public synchronized void setValue(String enable) {
+            Config.getConfig().detectAsyncEnable = Boolean.parseBoolean(enable);
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "false";
+        }
+    }),
+
+    DETECT_ASYNC_QUEUE_SIZE(new ConfigSetter<String>("detect.async.queue_size") {
+        @Override
+        public synchronized void setValue(String queueSize) {
+            int value = Integer.parseInt(queueSize);
+            if (value < 1 || value > 1048576) {
+                throw new ConfigLoadException(itemName + " must be between [1,1048576]");
+            }
+            if (value != Config.getConfig().detectAsyncQueueSize) {
+                Config.getConfig().detectAsyncQueueSize = value;
+                AsyncCheckPipeline.restart();
+            }
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "4096";
+        }
+    }),
+
+    DETECT_ASYNC_WORKERS(new ConfigSetter<String>("detect.async.workers") {
+        @Override
+        public synchronized void setValue(String workers) {
+            int value = Integer.parseInt(workers);
+            if (value < 1 || value > 64) {
+                throw new ConfigLoadException(itemName + " must be between [1,64]");
+            }
+            if (value != Config.getConfig().detectAsyncWorkers) {
+                Config.getConfig().detectAsyncWorkers = value;
+                AsyncCheckPipeline.restart();
+            }
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "2";
+        }
+    }),
+
+    DETECT_ASYNC_OVERFLOW_POLICY(new ConfigSetter<String>("detect.async.overflow_policy") {
+        @Override
+        public synchronized void setValue(String policy) {
+            boolean find = false;
+            for (String p : Config.DETECT_ASYNC_OVERFLOW_POLICY) {
+                if (p.equals(policy)) {
+                    find = true;
+                    break;
+                }
+            }
+            if (!find) {
+                throw new ConfigLoadException(itemName + " must be in [ 'drop','sample','sync' ]");
+            }
+            Config.getConfig().detectAsyncOverflowPolicy = policy;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "drop";
+        }
+    }),
+
+    DETECT_ASYNC_SAMPLE_INTERVAL(new ConfigSetter<String>("detect.async.sample_interval") {
+        @Override
+        public synchronized void setValue(String interval) {
+            int value = Integer.parseInt(interval);
+            if (value < 1) {
+                throw new ConfigLoadException(itemName + " must be between [1,+∞)");
+            }
+            Config.getConfig().detectAsyncSampleInterval = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "10";
+        }
+    }),
+
+    METRICS_ENABLE(new ConfigSetter<String>("metrics.enable") {
+        @Override
+        public synchronized void setValue(String enable) {
+            Config.getConfig().metricsEnable = Boolean.parseBoolean(enable);
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "true";
+        }
+    }),
+
+    METRICS_PROMETHEUS_PORT(new ConfigSetter<String>("metrics.prometheus_port") {
+        @Override
+        public synchronized void setValue(String port) {
+            int value = Integer.parseInt(port);
+            if (value < 0 || value > 65535) {
+                throw new ConfigLoadException(itemName + " must be between [0,65535]");
+            }
+            if (value != Config.getConfig().metricsPrometheusPort) {
+                Config.getConfig().metricsPrometheusPort = value;
+                MetricsManager.restartEndpoint();
+            }
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "0";
+        }
+    }),
+
+    DNS_CACHE_TTL(new ConfigSetter<String>("dns.cache.ttl") {
+        @Override
+        public synchronized void setValue(String ttl) {
+            long value = Long.parseLong(ttl);
+            if (value < 0) {
+                throw new ConfigLoadException(itemName + " can not be less than 0");
+            }
+            Config.getConfig().dnsCacheTtl = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "30";
+        }
+    }),
+
+    DNS_CACHE_NEGATIVE_TTL(new ConfigSetter<String>("dns.cache.negative_ttl") {
+        @Override
+        public synchronized void setValue(String ttl) {
+            long value = Long.parseLong(ttl);
+            if (value < 0) {
+                throw new ConfigLoadException(itemName + " can not be less than 0");
+            }
+            Config.getConfig().dnsCacheNegativeTtl = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "10";
+        }
+    }),
+
+    DNS_CACHE_MAX_SIZE(new ConfigSetter<String>("dns.cache.max_size") {
+        @Override
+        public synchronized void setValue(String maxSize) {
+            int value = Integer.parseInt(maxSize);
+            if (value < 0) {
+                throw new ConfigLoadException(itemName + " can not be less than 0");
+            }
+            if (value != Config.getConfig().dnsCacheMaxSize) {
+                Config.getConfig().dnsCacheMaxSize = value;
+                DnsCache.rebuild();
+            }
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "1024";
+        }
+    }),
+
+    FILE_CACHE_TTL_MILLIS(new ConfigSetter<String>("file.cache.ttl_millis") {
+        @Override
+        public synchronized void setValue(String ttl) {
+            long value = Long.parseLong(ttl);
+            if (value < 0) {
+                throw new ConfigLoadException(itemName + " can not be less than 0");
+            }
+            Config.getConfig().fileCacheTtlMillis = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "0";
+        }
+    }),
+
+    FILE_CACHE_MAX_SIZE(new ConfigSetter<String>("file.cache.max_size") {
+        @Override
+        public synchronized void setValue(String maxSize) {
+            int value = Integer.parseInt(maxSize);
+            if (value < 0) {
+                throw new ConfigLoadException(itemName + " can not be less than 0");
+            }
+            if (value != Config.getConfig().fileCacheMaxSize) {
+                Config.getConfig().fileCacheMaxSize = value;
+                FilePathCache.rebuild();
+            }
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "4096";
+        }
+    }),
+
+    HTTP_APPENDER_BATCH_SIZE(new ConfigSetter<String>("log.http.batch_size") {
+        @Override
+        public synchronized void setValue(String batchSize) {
+            int value = Integer.parseInt(batchSize);
+            if (value <= 0) {
+                throw new ConfigLoadException(itemName + " must be greater than 0");
+            }
+            Config.getConfig().httpAppenderBatchSize = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "100";
+        }
+    }),
+
+    HTTP_APPENDER_FLUSH_INTERVAL(new ConfigSetter<String>("log.http.flush_interval") {
+        @Override
+        public synchronized void setValue(String interval) {
+            long value = Long.parseLong(interval);
+            if (value <= 0) {
+                throw new ConfigLoadException(itemName + " must be greater than 0");
+            }
+            Config.getConfig().httpAppenderFlushInterval = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "1000";
+        }
+    }),
+
+    HTTP_APPENDER_GZIP(new ConfigSetter<String>("log.http.gzip") {
+        @Override
+        public synchronized void setValue(String gzip) {
+            Config.getConfig().httpAppenderGzip = Boolean.parseBoolean(gzip);
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "true";
+        }
+    }),
+
+    HTTP_APPENDER_SPILL_MAX_BYTES(new ConfigSetter<String>("log.http.spill_maxbytes") {
+        @Override
+        public synchronized void setValue(String maxBytes) {
+            long value = Long.parseLong(maxBytes);
+            if (value < 0) {
+                throw new ConfigLoadException(itemName + " can not be less than 0");
+            }
+            Config.getConfig().httpAppenderSpillMaxBytes = value;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "67108864";
+        }
+    }),
+
     RESPONSE_SAMPLER_INTERVAL(new ConfigSetter<String>("response.sampler_interval") {
         @Override
         public synchronized void setValue(String interval) {
@@ -20,6 +20,11 @@ public class BESDetector extends ServerDetector {
         return "com/bes/enterprise/webtier/Server".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/bes/enterprise/webtier/Server"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String version = "";
@@ -31,6 +31,11 @@ public class DubboDetector extends ServerDetector {
         return "com/alibaba/dubbo/rpc/filter/GenericFilter".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/alibaba/dubbo/rpc/filter/GenericFilter"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String serverVersion = "";
@@ -35,6 +35,11 @@ public class JBossDetector extends ServerDetector {
         return "org/jboss/Main".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/jboss/Main"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String serverVersion = "";
@@ -32,6 +32,11 @@ public class JBossEAPDetector extends ServerDetector {
         return "org/jboss/modules/Main".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/jboss/modules/Main"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         if (isWildfly(domain)){
@@ -30,6 +30,11 @@ public class JettyDetector extends ServerDetector {
         return "org/eclipse/jetty/server/Server".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/eclipse/jetty/server/Server"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String serverVersion = "";
@@ -30,6 +30,11 @@ public class ResinDetector extends ServerDetector {
         return "com/caucho/server/resin/Resin".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/caucho/server/resin/Resin"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String serverVersion = "";
@@ -61,6 +61,16 @@ public abstract class ServerDetector {
 
     public abstract boolean isClassMatched(String className);
 
+    /**
+     * 声明 {@link #isClassMatched(String)} 可能匹配的类名，格式与
+     * {@link com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()} 相同
+     *
+     * @return 类名模式，null 表示不声明
+     */
+    public String[] getClassNamePatterns() {
+        return null;
+    }
+
     public abstract boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain);
 
     protected void sendRegister() {
@@ -17,10 +17,12 @@
 package com.baidu.openrasp.detector;
 
 import com.baidu.openrasp.HookHandler;
+import com.baidu.openrasp.transformer.ClassNameIndex;
 import org.apache.log4j.Logger;
 
 import java.security.ProtectionDomain;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 /**
  * Created by tyy on 19-2-12.
@@ -31,6 +33,7 @@ public class ServerDetectorManager {
 
     private static final ServerDetectorManager instance = new ServerDetectorManager();
     private ArrayList<ServerDetector> detectors = new ArrayList<ServerDetector>();
+    private ClassNameIndex<ServerDetector> detectorIndex;
 
     private ServerDetectorManager() {
         detectors.add(new TomcatDetector());
@@ -46,7 +49,11 @@ public class ServerDetectorManager {
         detectors.add(new TongWebDetector());
         detectors.add(new TongWeb7Detector());
         detectors.add(new BESDetector());
-
+        LinkedHashMap<ServerDetector, String[]> patterns = new LinkedHashMap<ServerDetector, String[]>();
+        for (ServerDetector detector : detectors) {
+            patterns.put(detector, detector.getClassNamePatterns());
+        }
+        detectorIndex = new ClassNameIndex<ServerDetector>(patterns);
     }
 
     public static ServerDetectorManager getInstance() {
@@ -61,7 +68,7 @@ public class ServerDetectorManager {
      */
     public void detectServer(String className, ClassLoader classLoader, ProtectionDomain domain) {
         try {
-            for (ServerDetector detector : detectors) {
+            for (ServerDetector detector : detectorIndex.getCandidates(className)) {
                 if (detector.isClassMatched(className) && detector.handleServer(className, classLoader, domain)) {
                     HookHandler.LOGGER.info("detect server class: " + className);
                 }
@@ -73,7 +80,7 @@ public class ServerDetectorManager {
     }
 
     public boolean isClassMatched(String className) {
-        for (ServerDetector detector : detectors) {
+        for (ServerDetector detector : detectorIndex.getCandidates(className)) {
             if (detector.isClassMatched(className)) {
                 return true;
             }
@@ -15,6 +15,11 @@ public class SpringbootDetector extends ServerDetector{
         return "org/apache/catalina/startup/Bootstrap".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/catalina/startup/Bootstrap"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         //tomcat标准启动方式设置为true，内置tomcat启动设置为false
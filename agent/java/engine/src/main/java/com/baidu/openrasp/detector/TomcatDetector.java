@@ -32,6 +32,11 @@ public class TomcatDetector extends ServerDetector {
         return "org/apache/catalina/Server".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/catalina/Server"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String version = "";
@@ -11,6 +11,11 @@ public class TongWeb7Detector extends ServerDetector{
         return "com/tongweb/catalina/Server".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/tongweb/catalina/Server"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String version = "";
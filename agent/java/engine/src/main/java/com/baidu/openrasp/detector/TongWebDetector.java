@@ -20,6 +20,11 @@ public class TongWebDetector extends ServerDetector {
         return "com/tongweb/web/thor/Server".equals(className);
 	}
 
+	@Override
+	public String[] getClassNamePatterns() {
+		return new String[]{"com/tongweb/web/thor/Server"};
+	}
+
 	@Override
 	public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String version = "";
@@ -32,6 +32,11 @@ public class UndertowDetector extends ServerDetector {
         return "io/undertow/server/HttpHandler".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"io/undertow/server/HttpHandler"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String version = "";
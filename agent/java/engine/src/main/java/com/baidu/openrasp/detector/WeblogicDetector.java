@@ -30,6 +30,11 @@ public class WeblogicDetector extends ServerDetector {
         return "weblogic/servlet/internal/WebAppServletContext".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"weblogic/servlet/internal/WebAppServletContext"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String serverVersion = "";
@@ -43,6 +43,11 @@ public class WebsphereDetector extends ServerDetector {
         return "org/eclipse/core/launcher/Main".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/eclipse/core/launcher/Main"};
+    }
+
     @Override
     public boolean handleServerInfo(ClassLoader classLoader, ProtectionDomain domain) {
         String version = "";
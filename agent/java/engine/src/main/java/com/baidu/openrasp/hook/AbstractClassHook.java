@@ -57,6 +57,18 @@ public abstract class AbstractClassHook {
      */
     public abstract boolean isClassMatched(String className);
 
+    /**
+     * 声明 {@link #isClassMatched(String)} 可能匹配的类名，用于加载类时预先过滤 hook 点
+     * <p>
+     * 以 "*" 结尾表示类名前缀，以 "*" 开头表示类名后缀，其余为完整类名；
+     * 返回 null 表示不声明，每个加载的类都会调用 {@link #isClassMatched(String)}
+     *
+     * @return 类名模式
+     */
+    public String[] getClassNamePatterns() {
+        return null;
+    }
+
     /**
      * hook点所属检测类型．
      *
@@ -79,15 +91,34 @@ public abstract class AbstractClassHook {
      * @return 转化之后类的字节码数组
      */
     public byte[] transformClass(CtClass ctClass) {
+        if (hookClass(ctClass)) {
+            try {
+                return ctClass.toBytecode();
+            } catch (Throwable e) {
+                if (Config.getConfig().isDebugEnabled()) {
+                    LOGGER.info("transform class " + ctClass.getName() + " failed", e);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在目标类中插入 hook 代码，不生成字节码，多个 hook 点可以依次修改同一个类
+     *
+     * @param ctClass 待转化的类
+     * @return 是否成功
+     */
+    public boolean hookClass(CtClass ctClass) {
         try {
             hookMethod(ctClass);
-            return ctClass.toBytecode();
+            return true;
         } catch (Throwable e) {
             if (Config.getConfig().isDebugEnabled()) {
                 LOGGER.info("transform class " + ctClass.getName() + " failed", e);
             }
         }
-        return null;
+        return false;
     }
 
     /**
@@ -20,12 +20,14 @@ import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
+import com.baidu.openrasp.plugin.checker.param.DnsParams;
+import com.baidu.openrasp.tool.DnsCache;
 import javassist.CannotCompileException;
 import javassist.CtClass;
 import javassist.NotFoundException;
-import java.util.HashMap;
 
 import java.io.IOException;
+import java.net.InetAddress;
 
 /**
  * Created by tyy on 6/21/17.
@@ -52,6 +54,16 @@ public class DNSHook extends AbstractClassHook {
         return "java/net/InetAddress".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/net/InetAddress"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -61,6 +73,9 @@ public class DNSHook extends AbstractClassHook {
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(DNSHook.class, "checkDNSLookup", "$1", String.class);
         insertBefore(ctClass, "getAllByName", "(Ljava/lang/String;)[Ljava/net/InetAddress;", src);
+        String srcAfter = getInvokeStaticSrc(DNSHook.class, "onDNSResolved", "$1,$_", String.class,
+                InetAddress[].class);
+        insertAfter(ctClass, "getAllByName", "(Ljava/lang/String;)[Ljava/net/InetAddress;", srcAfter);
     }
 
     /**
@@ -69,10 +84,23 @@ public class DNSHook extends AbstractClassHook {
      */
     public static void checkDNSLookup(String host) {
         if (host != null) {
-            HashMap<String, Object> params = new HashMap<String, Object>();
-            params.put("host", host);
-            HookHandler.doCheckWithoutRequest(CheckParameter.Type.DNS, params);
+            DnsParams params = DnsParams.acquire(host);
+            try {
+                HookHandler.doCheckWithoutRequest(CheckParameter.Type.DNS, params);
+            } finally {
+                params.release();
+            }
         }
     }
 
+    /**
+     * 记录 JVM 的域名解析结果，供 SSRF 检测复用
+     *
+     * @param host      dns域名
+     * @param addresses 解析结果
+     */
+    public static void onDNSResolved(String host, InetAddress[] addresses) {
+        DnsCache.put(host, addresses);
+    }
+
 }
@@ -19,10 +19,10 @@ package com.baidu.openrasp.hook;
 import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
+import com.baidu.openrasp.plugin.checker.param.DeserializationParams;
 import javassist.CannotCompileException;
 import javassist.CtClass;
 import javassist.NotFoundException;
-import java.util.HashMap;
 
 import java.io.IOException;
 import java.io.ObjectStreamClass;
@@ -53,6 +53,16 @@ public class DeserializationHook extends AbstractClassHook {
         return "java/io/ObjectInputStream".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/io/ObjectInputStream"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -74,9 +84,12 @@ public class DeserializationHook extends AbstractClassHook {
         if (objectStreamClass != null) {
             String clazz = objectStreamClass.getName();
             if (clazz != null) {
-                HashMap<String, Object> params = new HashMap<String, Object>();
-                params.put("clazz", clazz);
-                HookHandler.doCheck(CheckParameter.Type.DESERIALIZATION, params);
+                DeserializationParams params = DeserializationParams.acquire(clazz);
+                try {
+                    HookHandler.doCheck(CheckParameter.Type.DESERIALIZATION, params);
+                } finally {
+                    params.release();
+                }
             }
         }
 
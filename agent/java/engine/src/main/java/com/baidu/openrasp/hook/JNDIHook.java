@@ -52,6 +52,16 @@ public class JNDIHook extends AbstractClassHook {
         return "com/sun/jndi/toolkit/url/GenericURLContext".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/sun/jndi/toolkit/url/GenericURLContext"};
+    }
+
     /**
      * (none-javadoc)
      *
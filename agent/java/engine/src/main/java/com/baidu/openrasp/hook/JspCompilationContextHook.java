@@ -50,6 +50,16 @@ public class JspCompilationContextHook extends AbstractClassHook {
         return "org/apache/jasper/JspCompilationContext".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/jasper/JspCompilationContext"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -56,6 +56,16 @@ public class JstlImportHook extends AbstractClassHook {
         return "org/apache/taglibs/standard/tag/common/core/ImportSupport".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/taglibs/standard/tag/common/core/ImportSupport"};
+    }
+
     /**
      * (none-javadoc)
      *
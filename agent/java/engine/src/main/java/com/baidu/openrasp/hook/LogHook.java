@@ -54,6 +54,15 @@ public class LogHook extends AbstractClassHook {
         return false;
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "org/apache/log4j/Category",
+                "org/apache/logging/log4j/spi/AbstractLogger",
+                "ch/qos/logback/classic/Logger"
+        };
+    }
+
     @Override
     public String getType() {
         return "log";
@@ -52,6 +52,16 @@ public class OgnlHook extends AbstractClassHook {
         return "ognl/OgnlParser".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"ognl/OgnlParser"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -43,6 +43,16 @@ public class SocketHook extends AbstractClassHook {
         return className.equals("java/net/Socket");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/net/Socket"};
+    }
+
     /**
      * (none-javadoc)
      *
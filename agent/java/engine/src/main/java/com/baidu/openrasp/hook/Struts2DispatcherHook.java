@@ -40,6 +40,16 @@ public class Struts2DispatcherHook extends ServerRequestHook {
         return "org/apache/struts2/dispatcher/Dispatcher".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/struts2/dispatcher/Dispatcher"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -54,6 +54,16 @@ public class WebDAVCopyResourceHook extends AbstractClassHook {
         return "org/apache/catalina/servlets/WebdavServlet".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/catalina/servlets/WebdavServlet"};
+    }
+
     /**
      * (none-javadoc)
      *
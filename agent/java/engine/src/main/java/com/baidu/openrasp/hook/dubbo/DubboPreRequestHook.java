@@ -43,6 +43,14 @@ public class DubboPreRequestHook extends AbstractClassHook {
         return "com/alibaba/dubbo/rpc/filter/GenericFilter".equals(className) || "org/apache/dubbo/rpc/filter/GenericFilter".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/alibaba/dubbo/rpc/filter/GenericFilter",
+                "org/apache/dubbo/rpc/filter/GenericFilter"
+        };
+    }
+
     @Override
     public String getType() {
         return "dubbo_preRequest";
@@ -46,6 +46,14 @@ public class DubboRequestHook extends AbstractClassHook {
         return "com/alibaba/dubbo/rpc/filter/ContextFilter".equals(className) || "org/apache/dubbo/rpc/filter/ContextFilter".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/alibaba/dubbo/rpc/filter/ContextFilter",
+                "org/apache/dubbo/rpc/filter/ContextFilter"
+        };
+    }
+
     @Override
     public String getType() {
         return "dubboRequest";
@@ -19,6 +19,7 @@ package com.baidu.openrasp.hook.file;
 import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
 import javassist.CannotCompileException;
 import javassist.CtClass;
@@ -40,6 +41,11 @@ public class FileDeleteHook extends AbstractClassHook {
         return "java/io/File".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/io/File"};
+    }
+
     @Override
     public String getType() {
         return "deleteFile";
@@ -53,6 +59,7 @@ public class FileDeleteHook extends AbstractClassHook {
 
     public static void checkDeleteFile(File file) {
         if (file != null) {
+            FilePathCache.invalidate(file);
             HashMap<String, Object> params = new HashMap<String, Object>();
             String path = file.getPath();
             params.put("path", path);
@@ -21,6 +21,7 @@ import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.messaging.LogTool;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.StackTrace;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
 import javassist.CannotCompileException;
@@ -57,6 +58,16 @@ public class FileHook extends AbstractClassHook {
         return "java/io/File".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/io/File"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -76,7 +87,7 @@ public class FileHook extends AbstractClassHook {
     public static void checkListFiles(File file) {
         boolean checkSwitch = Config.getConfig().getPluginFilter();
         if (file != null) {
-            if (checkSwitch && !file.exists()) {
+            if (checkSwitch && !FilePathCache.exists(file)) {
                 return;
             }
             HashMap<String, Object> params = null;
@@ -85,11 +96,7 @@ public class FileHook extends AbstractClassHook {
                 params.put("path", file.getPath());
                 List<String> stackInfo = StackTrace.getParamStackTraceArray();
                 params.put("stack", stackInfo);
-                try {
-                    params.put("realpath", file.getCanonicalPath());
-                } catch (Exception e) {
-                    params.put("realpath", file.getAbsolutePath());
-                }
+                params.put("realpath", FilePathCache.getCanonicalPath(file));
             } catch (Throwable t) {
                 LogTool.traceHookWarn(t.getMessage(), t);
             }
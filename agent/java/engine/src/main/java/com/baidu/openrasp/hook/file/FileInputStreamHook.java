@@ -20,15 +20,15 @@ import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
-import com.baidu.openrasp.tool.FileUtil;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
+import com.baidu.openrasp.plugin.checker.param.FileParams;
 import javassist.CannotCompileException;
 import javassist.CtClass;
 import javassist.NotFoundException;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 
 /**
  * Created by zhuming01 on 5/31/17. All rights reserved
@@ -55,6 +55,16 @@ public class FileInputStreamHook extends AbstractClassHook {
         return "java/io/FileInputStream".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/io/FileInputStream"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -74,24 +84,19 @@ public class FileInputStreamHook extends AbstractClassHook {
     public static void checkReadFile(File file) {
         boolean checkSwitch = Config.getConfig().getPluginFilter();
         if (file != null) {
-            if (checkSwitch && !file.exists()) {
+            if (checkSwitch && !FilePathCache.exists(file)) {
                 return;
             }
-            HashMap<String, Object> params = new HashMap<String, Object>();
-            params.put("path", file.getPath());
-
-            String path;
-            try {
-                path = file.getCanonicalPath();
-            } catch (Exception e) {
-                path = file.getAbsolutePath();
-            }
+            String path = FilePathCache.getCanonicalPath(file);
             if (path.endsWith(".class")) {
                 return;
             }
-            params.put("realpath", FileUtil.getRealPath(file));
-
-            HookHandler.doCheck(CheckParameter.Type.READFILE, params);
+            FileParams params = FileParams.acquire(file.getPath(), FilePathCache.getRealPath(file));
+            try {
+                HookHandler.doCheck(CheckParameter.Type.READFILE, params);
+            } finally {
+                params.release();
+            }
         }
     }
 }
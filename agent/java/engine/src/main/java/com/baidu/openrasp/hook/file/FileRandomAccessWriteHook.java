@@ -37,6 +37,11 @@ public class FileRandomAccessWriteHook extends AbstractClassHook {
         return "java/io/RandomAccessFile".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/io/RandomAccessFile"};
+    }
+
     @Override
     public String getType() {
         return "writeFile";
@@ -21,6 +21,7 @@ import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
 import javassist.CannotCompileException;
 import javassist.CtClass;
@@ -42,6 +43,11 @@ public class FileRenameHook extends AbstractClassHook {
         return "java/io/File".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/io/File"};
+    }
+
     @Override
     public String getType() {
         return "rename";
@@ -57,6 +63,8 @@ public class FileRenameHook extends AbstractClassHook {
     public static void checkFileRename(File source, File dest) {
         boolean checkSwitch = Config.getConfig().getPluginFilter();
         if (source != null && !source.isDirectory() && dest != null && !dest.isDirectory()) {
+            FilePathCache.invalidate(source);
+            FilePathCache.invalidate(dest);
             if (checkSwitch && !source.exists()){
                 return;
             }
@@ -44,6 +44,11 @@ public class FileUploadHook extends AbstractClassHook {
         return "org/apache/commons/fileupload/FileUploadBase".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/commons/fileupload/FileUploadBase"};
+    }
+
     @Override
     public String getType() {
         return "fileUploadParam";
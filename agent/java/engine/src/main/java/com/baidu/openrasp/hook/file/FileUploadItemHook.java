@@ -35,6 +35,11 @@ public class FileUploadItemHook extends AbstractClassHook {
         return "org/apache/commons/fileupload/disk/DiskFileItem".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/commons/fileupload/disk/DiskFileItem"};
+    }
+
     @Override
     public String getType() {
         return "fileUpload";
@@ -46,6 +46,11 @@ public class JerseyMultipart extends AbstractClassHook {
         return "org/glassfish/jersey/media/multipart/FormDataMultiPart".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/glassfish/jersey/media/multipart/FormDataMultiPart"};
+    }
+
     @Override
     public String getType() {
         return "fileUpload";
@@ -19,6 +19,7 @@ package com.baidu.openrasp.hook.file;
 import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.Reflection;
 import com.baidu.openrasp.tool.StackTrace;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
@@ -57,6 +58,16 @@ public class NioFilesDeleteHook extends AbstractClassHook {
         return "java/nio/file/Files".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/nio/file/Files"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -77,6 +88,7 @@ public class NioFilesDeleteHook extends AbstractClassHook {
     public static void checkDeleteFile(Object path) {
         if (path != null) {
             File file=(File) Reflection.invokeMethod(path, "toFile", new Class[]{});
+            FilePathCache.invalidate(file);
             HashMap<String, Object> params = new HashMap<String, Object>();
             params.put("path", file.getPath());
             try {
@@ -21,6 +21,7 @@ import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.messaging.LogTool;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.Reflection;
 import com.baidu.openrasp.tool.StackTrace;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
@@ -60,6 +61,16 @@ public class NioFilesListHook extends AbstractClassHook {
         return "java/nio/file/Files".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/nio/file/Files"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -83,7 +94,7 @@ public class NioFilesListHook extends AbstractClassHook {
         boolean checkSwitch = Config.getConfig().getPluginFilter();
         if (path != null) {
             File file = (File) Reflection.invokeMethod(path, "toFile", new Class[]{});
-            if (checkSwitch && !file.exists()) {
+            if (checkSwitch && !FilePathCache.exists(file)) {
                 return;
             }
             HashMap<String, Object> params = null;
@@ -92,11 +103,7 @@ public class NioFilesListHook extends AbstractClassHook {
                 params.put("path", file.getPath());
                 List<String> stackInfo = StackTrace.getParamStackTraceArray();
                 params.put("stack", stackInfo);
-                try {
-                    params.put("realpath", file.getCanonicalPath());
-                } catch (Exception e) {
-                    params.put("realpath", file.getAbsolutePath());
-                }
+                params.put("realpath", FilePathCache.getCanonicalPath(file));
             } catch (Throwable t) {
                 LogTool.traceHookWarn(t.getMessage(), t);
             }
@@ -20,17 +20,17 @@ import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
-import com.baidu.openrasp.tool.FileUtil;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.Reflection;
 import com.baidu.openrasp.tool.StackTrace;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
+import com.baidu.openrasp.plugin.checker.param.FileParams;
 import javassist.CannotCompileException;
 import javassist.CtClass;
 import javassist.NotFoundException;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -60,6 +60,16 @@ public class NioFilesReadHook extends AbstractClassHook {
         return "java/nio/file/Files".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/nio/file/Files"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -84,23 +94,19 @@ public class NioFilesReadHook extends AbstractClassHook {
     public static void checkNioReadFile(Object path) {
         boolean checkSwitch = Config.getConfig().getPluginFilter();
         File file= (File) Reflection.invokeMethod(path, "toFile", new Class[]{});
-        if (checkSwitch && !file.exists()) {
+        if (checkSwitch && !FilePathCache.exists(file)) {
             return;
         }
-        String filepath;
-        try {
-            filepath = file.getCanonicalPath();
-        } catch (Exception e) {
-            filepath = file.getAbsolutePath();
-        }
+        String filepath = FilePathCache.getCanonicalPath(file);
         if (filepath.endsWith(".class")) {
             return;
         }
-        HashMap<String, Object> params = new HashMap<String, Object>();
-        params.put("path", file.getPath());
         List<String> stackInfo = StackTrace.getParamStackTraceArray();
-        params.put("stack", stackInfo);
-        params.put("realpath", FileUtil.getRealPath(file));
-        HookHandler.doCheck(CheckParameter.Type.READFILE, params);
+        FileParams params = FileParams.acquire(file.getPath(), FilePathCache.getRealPath(file), stackInfo);
+        try {
+            HookHandler.doCheck(CheckParameter.Type.READFILE, params);
+        } finally {
+            params.release();
+        }
     }
 }
@@ -20,6 +20,7 @@ import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.Reflection;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
 import javassist.CannotCompileException;
@@ -57,6 +58,16 @@ public class NioFilesRenameHook extends AbstractClassHook {
         return "java/nio/file/Files".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/nio/file/Files"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -90,6 +101,8 @@ public class NioFilesRenameHook extends AbstractClassHook {
             fileDest = (File) Reflection.invokeMethod(pathDest, "toFile", new Class[]{});
         }
         if (fileSource != null && fileDest != null && !fileSource.isDirectory() && !fileDest.isDirectory()) {
+            FilePathCache.invalidate(fileSource);
+            FilePathCache.invalidate(fileDest);
             if (checkSwitch && !fileSource.exists()) {
                 return;
             }
@@ -124,6 +137,8 @@ public class NioFilesRenameHook extends AbstractClassHook {
             fileDest = (File) Reflection.invokeMethod(pathDest, "toFile", new Class[]{});
         }
         if (fileSource != null && fileDest != null && !fileSource.isDirectory() && !fileDest.isDirectory()) {
+            FilePathCache.invalidate(fileSource);
+            FilePathCache.invalidate(fileDest);
             if (Config.getConfig().getPluginFilter() && !fileSource.exists()) {
                 return;
             }
@@ -19,17 +19,17 @@ package com.baidu.openrasp.hook.file;
 import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
-import com.baidu.openrasp.tool.FileUtil;
+import com.baidu.openrasp.tool.FilePathCache;
 import com.baidu.openrasp.tool.Reflection;
 import com.baidu.openrasp.tool.StackTrace;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
+import com.baidu.openrasp.plugin.checker.param.FileParams;
 import javassist.CannotCompileException;
 import javassist.CtClass;
 import javassist.NotFoundException;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -59,6 +59,16 @@ public class NioFilesWriteHook extends AbstractClassHook {
         return "java/nio/file/Files".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/nio/file/Files"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -84,12 +94,13 @@ public class NioFilesWriteHook extends AbstractClassHook {
     public static void checkNioWriteFile(Object path) {
         if (path != null) {
             File file = (File) Reflection.invokeMethod(path, "toFile", new Class[]{});
-            HashMap<String, Object> params = new HashMap<String, Object>();
-            params.put("path", file.getPath());
-            params.put("realpath", FileUtil.getRealPath(file));
             List<String> stackInfo = StackTrace.getParamStackTraceArray();
-            params.put("stack", stackInfo);
-            HookHandler.doCheck(CheckParameter.Type.WRITEFILE, params);
+            FileParams params = FileParams.acquire(file.getPath(), FilePathCache.getRealPath(file), stackInfo);
+            try {
+                HookHandler.doCheck(CheckParameter.Type.WRITEFILE, params);
+            } finally {
+                params.release();
+            }
         }
     }
 }
@@ -25,6 +25,11 @@ public class BESHttpResponseHook extends ServerOutputCloseHook {
         return false;
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/bes/enterprise/webtier/connector/Response"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertBefore(ctClass, "finishResponse", "()V", src);
@@ -26,6 +26,16 @@ public class BESInputBufferHook extends ServerInputHook {
         return "com/bes/enterprise/webtier/connector/InputBuffer".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/bes/enterprise/webtier/connector/InputBuffer"};
+    }
+
     /**
      * (none-javadoc)
      *
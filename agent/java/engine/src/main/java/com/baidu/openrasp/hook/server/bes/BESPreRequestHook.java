@@ -24,6 +24,16 @@ public class BESPreRequestHook extends ServerPreRequestHook {
         return className.endsWith("com/bes/enterprise/webtier/connector/CoyoteAdapter");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*com/bes/enterprise/webtier/connector/CoyoteAdapter"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -26,6 +26,16 @@ public class BESRequestEndHook extends ServerRequestEndHook {
         return className.endsWith("com/bes/enterprise/webtier/core/ApplicationFilterChain");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*com/bes/enterprise/webtier/core/ApplicationFilterChain"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String requestEndSrc = getInvokeStaticSrc(ServerRequestEndHook.class, "checkRequestEnd", "");
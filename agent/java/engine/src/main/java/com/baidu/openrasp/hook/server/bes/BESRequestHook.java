@@ -24,6 +24,16 @@ public class BESRequestHook extends ServerParamHook {
         return "com/bes/enterprise/webtier/connector/Request".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/bes/enterprise/webtier/connector/Request"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertAfter(ctClass, "parseParameters", "()V", src);
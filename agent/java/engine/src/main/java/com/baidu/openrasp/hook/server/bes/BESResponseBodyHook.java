@@ -33,6 +33,11 @@ public class BESResponseBodyHook extends ServerResponseBodyHook {
         return "com/bes/enterprise/webtier/connector/OutputBuffer".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/bes/enterprise/webtier/connector/OutputBuffer"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src1 = getInvokeStaticSrc(BESResponseBodyHook.class, "getBuffer", "$0,$1", Object.class, Object.class);
@@ -26,6 +26,16 @@ public class BESwebFilterHook extends ServerRequestHook {
         return className.endsWith("com/bes/enterprise/webtier/core/ApplicationFilterChain");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*com/bes/enterprise/webtier/core/ApplicationFilterChain"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -41,6 +41,16 @@ public class ApplicationFilterHook extends ServerRequestHook {
         return className.endsWith("apache/catalina/core/ApplicationFilterChain");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*apache/catalina/core/ApplicationFilterChain"};
+    }
+
     /**
      * (none-javadoc)
      *
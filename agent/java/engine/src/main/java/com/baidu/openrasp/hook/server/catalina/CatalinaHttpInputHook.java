@@ -48,6 +48,19 @@ public class CatalinaHttpInputHook extends ServerInputHook {
         return false;
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "org/apache/catalina/connector/InputBuffer",
+                "org/apache/catalina/connector/CoyoteReader"
+        };
+    }
+
     /**
      * (none-javadoc)
      *
@@ -40,6 +40,16 @@ public class CatalinaOutputBufferHook extends ServerOutputCloseHook {
         return "org/apache/catalina/connector/OutputBuffer".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/catalina/connector/OutputBuffer"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertBefore(ctClass, "close", "()V", src);
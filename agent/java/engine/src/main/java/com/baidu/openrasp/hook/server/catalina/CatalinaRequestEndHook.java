@@ -35,6 +35,11 @@ public class CatalinaRequestEndHook extends ServerRequestEndHook {
     public boolean isClassMatched(String className) {
         return className.endsWith("apache/catalina/core/ApplicationFilterChain");
     }
+
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*apache/catalina/core/ApplicationFilterChain"};
+    }
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String requestEndSrc = getInvokeStaticSrc(ServerRequestEndHook.class, "checkRequestEnd", "");
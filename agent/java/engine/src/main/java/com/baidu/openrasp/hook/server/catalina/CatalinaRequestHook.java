@@ -40,6 +40,16 @@ public class CatalinaRequestHook extends ServerParamHook {
         return "org/apache/catalina/connector/Request".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/catalina/connector/Request"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertAfter(ctClass, "parseParameters", "()V", src);
@@ -46,6 +46,11 @@ public class CatalinaResponseBodyHook extends ServerResponseBodyHook {
         return "org/apache/coyote/Response".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/coyote/Response"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(CatalinaResponseBodyHook.class, "getBuffer", "$0,$1", Object.class, Object.class);
@@ -43,6 +43,16 @@ public class CoyoteAdapterHook extends ServerPreRequestHook {
         return className.endsWith("apache/catalina/connector/CoyoteAdapter");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*apache/catalina/connector/CoyoteAdapter"};
+    }
+
     /**
      * (none-javadoc)
      *
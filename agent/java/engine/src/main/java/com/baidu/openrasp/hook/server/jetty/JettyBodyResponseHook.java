@@ -46,6 +46,16 @@ public class JettyBodyResponseHook extends ServerResponseBodyHook {
                 "org/eclipse/jetty/server/EncodingHttpWriter".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "org/eclipse/jetty/server/AbstractHttpConnection",
+                "org/eclipse/jetty/server/Utf8HttpWriter",
+                "org/eclipse/jetty/server/Iso88591HttpWriter",
+                "org/eclipse/jetty/server/EncodingHttpWriter"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src1 = getInvokeStaticSrc(JettyBodyResponseHook.class, "getJettyOutputBuffer", "_generator", Object.class);
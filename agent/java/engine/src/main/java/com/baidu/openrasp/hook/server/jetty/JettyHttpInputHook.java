@@ -44,6 +44,16 @@ public class JettyHttpInputHook extends ServerInputHook {
         return className.equals("org/eclipse/jetty/server/HttpInput");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/eclipse/jetty/server/HttpInput"};
+    }
+
     /**
      * (none-javadoc)
      *
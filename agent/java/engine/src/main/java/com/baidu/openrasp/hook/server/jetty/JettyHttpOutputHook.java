@@ -41,6 +41,16 @@ public class JettyHttpOutputHook extends ServerOutputCloseHook {
         return "org/eclipse/jetty/server/HttpOutput".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/eclipse/jetty/server/HttpOutput"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertBefore(ctClass, "close", "()V", src);
@@ -36,6 +36,11 @@ public class JettyRequestEndHook extends ServerRequestEndHook {
         return className.equals("org/eclipse/jetty/server/handler/HandlerWrapper");
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/eclipse/jetty/server/handler/HandlerWrapper"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String requestEndSrc = getInvokeStaticSrc(ServerRequestEndHook.class, "checkRequestEnd", "");
@@ -41,6 +41,16 @@ public class JettyRequestHook extends ServerParamHook {
         return "org/eclipse/jetty/server/Request".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/eclipse/jetty/server/Request"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertAfter(ctClass, "extractParameters", null, src);
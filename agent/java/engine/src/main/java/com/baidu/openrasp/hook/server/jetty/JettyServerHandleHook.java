@@ -47,6 +47,16 @@ public class JettyServerHandleHook extends ServerRequestHook {
         return className.equals("org/eclipse/jetty/server/handler/HandlerWrapper");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/eclipse/jetty/server/handler/HandlerWrapper"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -40,6 +40,16 @@ public class JettyServerHook extends ServerPreRequestHook {
         return className.equals("org/eclipse/jetty/server/Server");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/eclipse/jetty/server/Server"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -45,6 +45,20 @@ public class ResinHttpInputHook extends ServerInputHook {
                 || className.equals("com/caucho/vfs/BufferedReaderAdapter");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/caucho/server/connection/ServletInputStreamImpl",
+                "com/caucho/server/http/ServletInputStreamImpl",
+                "com/caucho/vfs/BufferedReaderAdapter"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         if (ctClass.getName().contains("BufferedReaderAdapter")) {
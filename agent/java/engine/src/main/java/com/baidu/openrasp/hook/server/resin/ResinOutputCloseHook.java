@@ -42,6 +42,19 @@ public class ResinOutputCloseHook extends ServerOutputCloseHook {
                 || "com/caucho/server/http/AbstractHttpResponse".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/caucho/server/connection/AbstractHttpResponse",
+                "com/caucho/server/http/AbstractHttpResponse"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         // resin3.x
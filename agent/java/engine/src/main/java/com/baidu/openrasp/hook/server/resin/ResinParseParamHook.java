@@ -42,6 +42,19 @@ public class ResinParseParamHook extends ServerParamHook {
                 || "com/caucho/server/http/AbstractCauchoRequest".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/caucho/server/connection/AbstractHttpRequest",
+                "com/caucho/server/http/AbstractCauchoRequest"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         // resin3.x
@@ -41,6 +41,16 @@ public class ResinPreRequestHook extends ServerPreRequestHook {
         return "com/caucho/server/http/HttpRequest".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/caucho/server/http/HttpRequest"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertBefore(ctClass, "handleRequest", "()Z", src);
@@ -37,6 +37,11 @@ public class ResinRequestEndHook extends ServerRequestEndHook {
         return "com/caucho/server/dispatch/ServletInvocation".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/caucho/server/dispatch/ServletInvocation"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String requestEndSrc = getInvokeStaticSrc(ServerRequestEndHook.class, "checkRequestEnd", "");
@@ -43,6 +43,16 @@ public class ResinRequestHook extends ServerRequestHook {
         return "com/caucho/server/dispatch/ServletInvocation".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/caucho/server/dispatch/ServletInvocation"};
+    }
+
     /**
      * (none-javadoc)
      *
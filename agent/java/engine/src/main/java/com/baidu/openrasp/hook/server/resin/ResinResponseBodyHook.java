@@ -43,6 +43,14 @@ public class ResinResponseBodyHook extends ServerResponseBodyHook {
                 "com/caucho/server/connection/ToByteResponseStream".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/caucho/server/http/ToByteResponseStream",
+                "com/caucho/server/connection/ToByteResponseStream"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(ResinResponseBodyHook.class, "getResinOutputBuffer", "_charBuffer,_charLength,_isOutputStreamOnly", char[].class, int.class, boolean.class);
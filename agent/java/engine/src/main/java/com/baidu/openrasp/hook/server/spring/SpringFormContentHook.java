@@ -27,6 +27,14 @@ public class SpringFormContentHook extends AbstractClassHook {
                 "HttpPutFormContentFilter$HttpPutFormContentRequestWrapper").equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "org/springframework/web/filter/FormContentFilter$FormContentRequestWrapper",
+                "org/springframework/web/filter/HttpPutFormContentFilter$HttpPutFormContentRequestWrapper"
+        };
+    }
+
     @Override
     public String getType() {
         return "spring_form";
@@ -27,6 +27,16 @@ public class TongwebFilterHook extends ServerRequestHook {
 		return className.endsWith("com/tongweb/web/thor/core/ApplicationFilterChain");
 	}
 
+	/**
+	 * (none-javadoc)
+	 *
+	 * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+	 */
+	@Override
+	public String[] getClassNamePatterns() {
+		return new String[]{"*com/tongweb/web/thor/core/ApplicationFilterChain"};
+	}
+
 	/**
 	 * (none-javadoc)
 	 *
@@ -25,6 +25,11 @@ public class TongwebHttpResponseHook extends ServerOutputCloseHook {
         }
         return false;	
     }
+
+	@Override
+	public String[] getClassNamePatterns() {
+		return new String[]{"com/tongweb/web/thor/connector/Response"};
+	}
     
 	@Override
 	protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
@@ -28,6 +28,16 @@ public class TongwebInputBufferHook extends ServerInputHook {
         return "com/tongweb/web/thor/connector/InputBuffer".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/tongweb/web/thor/connector/InputBuffer"};
+    }
+
     /**
      * (none-javadoc)
      *
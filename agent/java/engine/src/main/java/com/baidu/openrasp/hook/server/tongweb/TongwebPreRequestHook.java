@@ -25,6 +25,16 @@ public class TongwebPreRequestHook extends ServerPreRequestHook {
         return className.endsWith("com/tongweb/web/thor/connector/CoyoteAdapter");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*com/tongweb/web/thor/connector/CoyoteAdapter"};
+    }
+
     /**
      * (none-javadoc)
      *
@@ -24,6 +24,16 @@ public class TongwebRequestEndHook extends ServerRequestEndHook {
         return className.endsWith("com/tongweb/web/thor/core/ApplicationFilterChain");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*com/tongweb/web/thor/core/ApplicationFilterChain"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String requestEndSrc = getInvokeStaticSrc(ServerRequestEndHook.class, "checkRequestEnd", "");
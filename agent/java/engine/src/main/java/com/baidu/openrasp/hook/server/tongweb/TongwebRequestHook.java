@@ -25,6 +25,16 @@ public class TongwebRequestHook extends ServerParamHook {
         return "com/tongweb/web/oro/Request".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/tongweb/web/oro/Request"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertBefore(ctClass, "getParameters", null, src);
@@ -29,6 +29,11 @@ public class TongwebResponseBodyHook extends ServerResponseBodyHook {
         return "com/tongweb/web/thor/connector/OutputBuffer".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/tongweb/web/thor/connector/OutputBuffer"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src1 = getInvokeStaticSrc(TongwebResponseBodyHook.class, "getBufferFromByteArray", "$1,$2,$3", byte[].class, int.class, int.class);
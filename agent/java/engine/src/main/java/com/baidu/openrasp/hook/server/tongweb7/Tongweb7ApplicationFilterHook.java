@@ -26,6 +26,16 @@ public class Tongweb7ApplicationFilterHook extends ServerRequestHook {
 		return className.endsWith("com/tongweb/catalina/core/ApplicationFilterChain");
 	}
 
+	/**
+	 * (none-javadoc)
+	 *
+	 * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+	 */
+	@Override
+	public String[] getClassNamePatterns() {
+		return new String[]{"*com/tongweb/catalina/core/ApplicationFilterChain"};
+	}
+
 	/**
 	 * (none-javadoc)
 	 *
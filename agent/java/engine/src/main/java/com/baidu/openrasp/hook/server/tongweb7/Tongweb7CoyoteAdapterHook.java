@@ -28,6 +28,16 @@ public class Tongweb7CoyoteAdapterHook extends ServerPreRequestHook {
         return className.endsWith("com/tongweb/catalina/connector/CoyoteAdapter");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*com/tongweb/catalina/connector/CoyoteAdapter"};
+    }
+
     /**
      * (none-javadoc)
      *
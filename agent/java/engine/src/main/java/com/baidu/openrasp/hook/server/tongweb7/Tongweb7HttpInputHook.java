@@ -33,6 +33,19 @@ public class Tongweb7HttpInputHook extends ServerInputHook {
         return false;
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/tongweb/catalina/connector/InputBuffer",
+                "com/tongweb/catalina/connector/CoyoteReader"
+        };
+    }
+
     /**
      * (none-javadoc)
      *
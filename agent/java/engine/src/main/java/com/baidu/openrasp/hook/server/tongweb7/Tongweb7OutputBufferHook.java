@@ -18,6 +18,11 @@ public class Tongweb7OutputBufferHook extends ServerOutputCloseHook {
 	public boolean isClassMatched(String className) {
         return "com/tongweb/catalina/connector/OutputBuffer".equals(className);
     }
+
+	@Override
+	public String[] getClassNamePatterns() {
+		return new String[]{"com/tongweb/catalina/connector/OutputBuffer"};
+	}
     
 	@Override
 	protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
@@ -26,6 +26,16 @@ public class Tongweb7RequestEndHook extends ServerRequestEndHook {
         return className.endsWith("com/tongweb/catalina/core/ApplicationFilterChain");
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"*com/tongweb/catalina/core/ApplicationFilterChain"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String requestEndSrc = getInvokeStaticSrc(ServerRequestEndHook.class, "checkRequestEnd", "");
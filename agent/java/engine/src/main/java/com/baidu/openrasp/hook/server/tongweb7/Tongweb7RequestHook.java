@@ -24,6 +24,16 @@ public class Tongweb7RequestHook extends ServerParamHook {
         return "com/tongweb/catalina/connector/Request".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/tongweb/catalina/connector/Request"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertAfter(ctClass, "parseParameters", "()V", src);
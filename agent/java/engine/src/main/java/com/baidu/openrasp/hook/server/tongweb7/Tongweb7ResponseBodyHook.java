@@ -34,6 +34,11 @@ public class Tongweb7ResponseBodyHook extends ServerResponseBodyHook {
         return "com/tongweb/coyote/Response".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/tongweb/coyote/Response"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(CatalinaResponseBodyHook.class, "getBuffer", "$0,$1", Object.class, Object.class);
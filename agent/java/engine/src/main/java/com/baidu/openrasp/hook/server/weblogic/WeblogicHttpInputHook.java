@@ -38,6 +38,11 @@ public class WeblogicHttpInputHook extends ServerInputHook {
         return "weblogic/servlet/internal/ServletInputStreamImpl".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"weblogic/servlet/internal/ServletInputStreamImpl"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String srcRead1 = getInvokeStaticSrc(ServerInputHook.class, "onInputStreamRead",
@@ -40,6 +40,11 @@ public class WeblogicHttpOutputHook extends ServerOutputCloseHook {
         return false;
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"weblogic/servlet/internal/ServletOutputStreamImpl"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertBefore(ctClass, "commit", "()V", src);
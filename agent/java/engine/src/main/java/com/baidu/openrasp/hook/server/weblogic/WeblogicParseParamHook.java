@@ -35,6 +35,11 @@ public class WeblogicParseParamHook extends ServerParamHook {
         return "weblogic/servlet/internal/ServletRequestImpl$RequestParameters".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"weblogic/servlet/internal/ServletRequestImpl$RequestParameters"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertAfter(ctClass, "parseQueryParams", null, src);
@@ -35,6 +35,11 @@ public class WeblogicPreRequestHook extends ServerPreRequestHook {
         return "weblogic/servlet/internal/ServletRequestImpl".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"weblogic/servlet/internal/ServletRequestImpl"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertBefore(ctClass, "run", null, src);
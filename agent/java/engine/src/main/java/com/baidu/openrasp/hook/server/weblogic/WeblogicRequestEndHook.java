@@ -36,6 +36,11 @@ public class WeblogicRequestEndHook extends ServerRequestEndHook {
         return "weblogic/servlet/internal/WebAppServletContext".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"weblogic/servlet/internal/WebAppServletContext"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String requestEndSrc = getInvokeStaticSrc(ServerRequestEndHook.class, "checkRequestEnd", "");
@@ -42,6 +42,16 @@ public class WeblogicRequestHook extends ServerRequestHook {
         return "weblogic/servlet/internal/WebAppServletContext".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"weblogic/servlet/internal/WebAppServletContext"};
+    }
+
     /**
      * (none-javadoc)
      *
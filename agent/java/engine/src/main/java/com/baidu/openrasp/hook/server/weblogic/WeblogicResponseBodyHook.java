@@ -42,6 +42,11 @@ public class WeblogicResponseBodyHook extends ServerResponseBodyHook {
         return "weblogic/servlet/internal/CharsetChunkOutput".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"weblogic/servlet/internal/CharsetChunkOutput"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(WeblogicResponseBodyHook.class, "getWeblogicOutputBuffer", "$1", CharBuffer.class);
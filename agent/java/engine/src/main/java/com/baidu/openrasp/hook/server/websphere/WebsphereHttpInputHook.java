@@ -37,6 +37,11 @@ public class WebsphereHttpInputHook extends ServerInputHook {
         return "com/ibm/ws/webcontainer/srt/http/HttpInputStream".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/ibm/ws/webcontainer/srt/http/HttpInputStream"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String readByteSrc = getInvokeStaticSrc(ServerInputHook.class, "onInputStreamRead",
@@ -41,6 +41,11 @@ public class WebsphereHttpOutputHook extends ServerOutputCloseHook {
         return false;
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/ibm/ws/webcontainer/srt/SRTServletResponse"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertBefore(ctClass, "finish", "()V", src);
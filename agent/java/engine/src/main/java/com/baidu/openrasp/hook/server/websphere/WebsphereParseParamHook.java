@@ -35,6 +35,11 @@ public class WebsphereParseParamHook extends ServerParamHook {
         return "com/ibm/ws/webcontainer/srt/SRTServletRequest".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/ibm/ws/webcontainer/srt/SRTServletRequest"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertAfter(ctClass, "parseParameters", "()V", src);
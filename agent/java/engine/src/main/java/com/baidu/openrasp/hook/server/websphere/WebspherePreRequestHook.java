@@ -40,6 +40,11 @@ public class WebspherePreRequestHook extends ServerPreRequestHook {
         return "com/ibm/ws/webcontainer/WebContainer".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/ibm/ws/webcontainer/WebContainer"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass, String src) throws NotFoundException, CannotCompileException {
         insertBefore(ctClass, "handleRequest", null, src);
@@ -38,6 +38,15 @@ public class WebsphereRequestEndHook extends ServerRequestEndHook {
                 || "com/ibm/ws/webcontainer/servlet/CacheServletWrapper".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/ibm/ws/webcontainer/filter/WebAppFilterManager",
+                "com/ibm/ws/webcontainer/webapp/WebApp",
+                "com/ibm/ws/webcontainer/servlet/CacheServletWrapper"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         if (ctClass.getName().contains("WebAppFilterManager")) {
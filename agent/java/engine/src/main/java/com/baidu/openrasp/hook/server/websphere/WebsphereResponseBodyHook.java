@@ -42,6 +42,11 @@ public class WebsphereResponseBodyHook extends ServerResponseBodyHook {
         return "com/ibm/wsspi/webcontainer/util/BufferedWriter".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/ibm/wsspi/webcontainer/util/BufferedWriter"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(WebsphereResponseBodyHook.class, "getWebsphereOutputBuffer", "$0", Object.class);
@@ -42,6 +42,11 @@ public class UndertowInputHook extends ServerInputHook {
         return "io/undertow/servlet/spec/ServletInputStreamImpl".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"io/undertow/servlet/spec/ServletInputStreamImpl"};
+    }
+
     /**
      * hook 目标类的函数
      *
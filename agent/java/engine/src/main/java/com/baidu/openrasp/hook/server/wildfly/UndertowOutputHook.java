@@ -40,6 +40,11 @@ public class UndertowOutputHook extends ServerOutputCloseHook {
         return "io/undertow/servlet/spec/ServletPrintWriter".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"io/undertow/servlet/spec/ServletPrintWriter"};
+    }
+
     /**
      * hook 方法
      *
@@ -34,6 +34,11 @@ public class UndertowParamHook extends ServerParamHook {
         return "io/undertow/server/HttpServerExchange".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"io/undertow/server/HttpServerExchange"};
+    }
+
     /**
      * hook 方法
      *
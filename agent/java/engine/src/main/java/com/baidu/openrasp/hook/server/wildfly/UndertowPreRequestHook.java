@@ -41,6 +41,11 @@ public class UndertowPreRequestHook extends ServerPreRequestHook {
         return "io/undertow/servlet/handlers/ServletInitialHandler".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"io/undertow/servlet/handlers/ServletInitialHandler"};
+    }
+
 
     /**
      * hook 方法
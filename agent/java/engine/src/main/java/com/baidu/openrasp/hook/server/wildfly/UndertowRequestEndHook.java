@@ -35,6 +35,11 @@ public class UndertowRequestEndHook extends ServerRequestEndHook {
     public boolean isClassMatched(String className) {
         return "io/undertow/servlet/handlers/ServletInitialHandler".equals(className);
     }
+
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"io/undertow/servlet/handlers/ServletInitialHandler"};
+    }
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String requestEndSrc = getInvokeStaticSrc(ServerRequestEndHook.class, "checkRequestEnd", "");
@@ -42,6 +42,11 @@ public class UndertowRequestHook extends ServerRequestHook {
         return "io/undertow/servlet/handlers/ServletInitialHandler".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"io/undertow/servlet/handlers/ServletInitialHandler"};
+    }
+
     /**
      * hook 目标类的函数
      *
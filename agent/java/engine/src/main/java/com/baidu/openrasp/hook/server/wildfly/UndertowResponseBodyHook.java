@@ -42,6 +42,11 @@ public class UndertowResponseBodyHook extends ServerResponseBodyHook {
         return "io/undertow/servlet/spec/ServletPrintWriter".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"io/undertow/servlet/spec/ServletPrintWriter"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src1 = getInvokeStaticSrc(UndertowResponseBodyHook.class, "getUndertowOutputBuffer", "$1", CharBuffer.class);
@@ -20,13 +20,13 @@ import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
+import com.baidu.openrasp.plugin.checker.param.SqlParams;
 import javassist.CannotCompileException;
 import javassist.CtClass;
 import javassist.NotFoundException;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
-import java.util.HashMap;
 
 /**
  * @description: hibernate hql 检测hook点
@@ -40,6 +40,11 @@ public class HQLHook extends AbstractClassHook {
         return "org/hibernate/internal/SessionImpl".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/hibernate/internal/SessionImpl"};
+    }
+
     @Override
     public String getType() {
         return "hql";
@@ -54,10 +59,12 @@ public class HQLHook extends AbstractClassHook {
 
     public static void checkHQL(String query) {
         if (!StringUtils.isEmpty(query)) {
-            HashMap<String, Object> params = new HashMap<String, Object>();
-            params.put("query", query);
-            params.put("server", "hibernate");
-            HookHandler.doCheck(CheckParameter.Type.SQL, params);
+            SqlParams params = SqlParams.acquire("hibernate", query);
+            try {
+                HookHandler.doCheck(CheckParameter.Type.SQL, params);
+            } finally {
+                params.release();
+            }
         }
     }
 }
\ No newline at end of file
@@ -48,6 +48,11 @@ public class MongoConnectionHook extends AbstractClassHook {
         return "com/mongodb/Mongo".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/mongodb/Mongo"};
+    }
+
     @Override
     public String getType() {
         return "mongodb";
@@ -52,6 +52,11 @@ public class MongoSQLHook extends AbstractClassHook {
         return false;
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/mongodb/MongoCollectionImpl"};
+    }
+
     @Override
     public String getType() {
         return "mongodb";
@@ -49,6 +49,14 @@ public class SQLConnectionHook extends AbstractClassHook {
                 "com/mysql/cj/jdbc/NonRegisteringDriver".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/mysql/jdbc/NonRegisteringDriver",
+                "com/mysql/cj/jdbc/NonRegisteringDriver"
+        };
+    }
+
     @Override
     public String getType() {
         return "sql";
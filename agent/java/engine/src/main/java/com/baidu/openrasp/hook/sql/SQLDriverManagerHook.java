@@ -78,6 +78,16 @@ public class SQLDriverManagerHook extends AbstractClassHook {
         return classList.contains(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return classList.toArray(new String[0]);
+    }
+
     /**
      * (none-javadoc)
      *
@@ -92,6 +92,27 @@ public class SQLPreparedStatementHook extends AbstractSqlHook {
         return false;
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/mysql/jdbc/PreparedStatement",
+                "com/mysql/cj/jdbc/PreparedStatement",
+                "com/mysql/cj/jdbc/ClientPreparedStatement",
+                "org/sqlite/PrepStmt",
+                "org/sqlite/jdbc3/JDBC3PreparedStatement",
+                "oracle/jdbc/driver/OraclePreparedStatement",
+                "com/microsoft/sqlserver/jdbc/SQLServerPreparedStatement",
+                "org/postgresql/jdbc/PgPreparedStatement",
+                "org/postgresql/jdbc1/AbstractJdbc1Statement",
+                "org/postgresql/jdbc2/AbstractJdbc2Statement",
+                "org/postgresql/jdbc3/AbstractJdbc3Statement",
+                "org/postgresql/jdbc3g/AbstractJdbc3gStatement",
+                "org/postgresql/jdbc4/AbstractJdbc4Statement",
+                "org/hsqldb/jdbc/JDBCPreparedStatement",
+                "org/hsqldb/jdbc/jdbcPreparedStatement"
+        };
+    }
+
     /**
      * (none-javadoc)
      *
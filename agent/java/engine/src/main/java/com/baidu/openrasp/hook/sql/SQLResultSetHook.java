@@ -17,13 +17,16 @@
 package com.baidu.openrasp.hook.sql;
 
 import com.baidu.openrasp.HookHandler;
+import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import javassist.CannotCompileException;
 import javassist.CtClass;
 import javassist.NotFoundException;
 
 import java.io.IOException;
-import java.sql.ResultSet;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
 
 /**
@@ -32,6 +35,13 @@ import java.util.HashMap;
  */
 public class SQLResultSetHook extends AbstractSqlHook {
 
+    private static ThreadLocal<RowCounter> rowCounter = new ThreadLocal<RowCounter>() {
+        @Override
+        protected RowCounter initialValue() {
+            return new RowCounter();
+        }
+    };
+
     /**
      * (none-javadoc)
      *
@@ -91,6 +101,30 @@ public class SQLResultSetHook extends AbstractSqlHook {
         return false;
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/mysql/jdbc/ResultSetImpl",
+                "com/mysql/cj/jdbc/result/ResultSetImpl",
+                "org/sqlite/RS",
+                "org/sqlite/jdbc3/JDBC3ResultSet",
+                "oracle/jdbc/driver/OracleResultSetImpl",
+                "com/microsoft/sqlserver/jdbc/SQLServerResultSet",
+                "org/postgresql/jdbc/PgResultSet",
+                "org/postgresql/jdbc1/AbstractJdbc1ResultSet",
+                "org/postgresql/jdbc2/AbstractJdbc2ResultSet",
+                "org/postgresql/jdbc3/AbstractJdbc3ResultSet",
+                "org/postgresql/jdbc3g/AbstractJdbc3gResultSet",
+                "org/postgresql/jdbc4/AbstractJdbc4ResultSet",
+                "com/ibm/db2/jcc/am*"
+        };
+    }
+
     /**
      * (none-javadoc)
      *
@@ -135,20 +169,132 @@ public class SQLResultSetHook extends AbstractSqlHook {
 
     /**
      * 检测数据库查询结果
+     * <p>
+     * 每次 next 调用只在当前线程的计数表中累加行数，只有行数恰好达到 sql.slowquery.min_rows
+     * 时才进入完整的检测流程，避免遍历大结果集时每一行都创建参数并走一遍 doCheck
      *
      * @param sqlResultSet 数据库查询结果
      */
     public static void checkSqlQueryResult(String server, Object sqlResultSet) {
-        HashMap<String, Object> params = new HashMap<String, Object>();
-        try {
-            ResultSet resultSet = (ResultSet) sqlResultSet;
-            int queryCount = resultSet.getRow();
-            params.put("query_count", queryCount);
-            params.put("server", server);
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (sqlResultSet == null) {
+            return;
+        }
+        int queryCount = rowCounter.get().increase(sqlResultSet);
+        if (queryCount != Config.getConfig().getSqlSlowQueryMinCount()) {
+            return;
         }
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("query_count", queryCount);
+        params.put("server", server);
         HookHandler.doCheck(CheckParameter.Type.SQL_SLOW_QUERY, params);
     }
 
+    /**
+     * 线程级别的结果集行数计数器
+     * <p>
+     * 以结果集对象的弱引用为 key，按对象地址（identityHashCode 和 ==）查找，不调用驱动实现的 hashCode/equals，
+     * 结果集被回收后计数随之释放；同一结果集连续调用 next 时命中最近一次的缓存，无需查表
+     */
+    private static class RowCounter {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+        private Entry[] table = new Entry[INITIAL_CAPACITY];
+        private int size;
+        private Entry last;
+
+        /**
+         * 返回本次 next 调用之前该结果集已经读取的行数，并将计数加一
+         *
+         * @param resultSet 结果集对象
+         * @return 已读取的行数
+         */
+        int increase(Object resultSet) {
+            Entry entry = last;
+            if (entry == null || entry.get() != resultSet) {
+                entry = getEntry(resultSet);
+                last = entry;
+            }
+            int rows = entry.count;
+            if (rows < Integer.MAX_VALUE) {
+                entry.count = rows + 1;
+            }
+            return rows;
+        }
+
+        private Entry getEntry(Object resultSet) {
+            expungeStaleEntries();
+            int hash = System.identityHashCode(resultSet);
+            int index = hash & (table.length - 1);
+            for (Entry entry = table[index]; entry != null; entry = entry.next) {
+                if (entry.hash == hash && entry.get() == resultSet) {
+                    return entry;
+                }
+            }
+            Entry entry = new Entry(resultSet, hash, queue, table[index]);
+            table[index] = entry;
+            if (++size > table.length * 3 / 4) {
+                resize();
+            }
+            return entry;
+        }
+
+        /**
+         * 移除已被回收的结果集对应的计数
+         */
+        private void expungeStaleEntries() {
+            Reference<?> reference;
+            while ((reference = queue.poll()) != null) {
+                Entry stale = (Entry) reference;
+                int index = stale.hash & (table.length - 1);
+                Entry prev = null;
+                for (Entry entry = table[index]; entry != null; prev = entry, entry = entry.next) {
+                    if (entry == stale) {
+                        if (prev == null) {
+                            table[index] = entry.next;
+                        } else {
+                            prev.next = entry.next;
+                        }
+                        size--;
+                        break;
+                    }
+                }
+                if (stale == last) {
+                    last = null;
+                }
+            }
+        }
+
+        private void resize() {
+            Entry[] newTable = new Entry[table.length * 2];
+            for (Entry head : table) {
+                Entry entry = head;
+                while (entry != null) {
+                    Entry next = entry.next;
+                    int index = entry.hash & (newTable.length - 1);
+                    entry.next = newTable[index];
+                    newTable[index] = entry;
+                    entry = next;
+                }
+            }
+            table = newTable;
+        }
+
+        /**
+         * 结果集的弱引用及其计数
+         */
+        private static class Entry extends WeakReference<Object> {
+            final int hash;
+            int count;
+            Entry next;
+
+            Entry(Object resultSet, int hash, ReferenceQueue<Object> queue, Entry next) {
+                super(resultSet, queue);
+                this.hash = hash;
+                this.next = next;
+            }
+        }
+    }
+
 }
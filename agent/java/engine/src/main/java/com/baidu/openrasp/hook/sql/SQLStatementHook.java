@@ -19,12 +19,12 @@ package com.baidu.openrasp.hook.sql;
 import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
+import com.baidu.openrasp.plugin.checker.param.SqlParams;
 import javassist.CannotCompileException;
 import javassist.CtClass;
 import javassist.NotFoundException;
 
 import java.io.IOException;
-import java.util.HashMap;
 
 /**
  * Created by zhuming01 on 7/18/17.
@@ -105,6 +105,27 @@ public class SQLStatementHook extends AbstractSqlHook {
         return false;
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/mysql/jdbc/StatementImpl",
+                "com/mysql/cj/jdbc/StatementImpl",
+                "org/sqlite/Stmt",
+                "org/sqlite/jdbc3/JDBC3Statement",
+                "oracle/jdbc/driver/OracleStatement",
+                "com/microsoft/sqlserver/jdbc/SQLServerStatement",
+                "org/postgresql/jdbc/PgStatement",
+                "org/postgresql/jdbc1/AbstractJdbc1Statement",
+                "org/postgresql/jdbc2/AbstractJdbc2Statement",
+                "org/postgresql/jdbc3/AbstractJdbc3Statement",
+                "org/postgresql/jdbc3g/AbstractJdbc3gStatement",
+                "org/postgresql/jdbc4/AbstractJdbc4Statement",
+                "com/ibm/db2/jcc/am*",
+                "org/hsqldb/jdbc/JDBCStatement",
+                "org/hsqldb/jdbc/jdbcStatement"
+        };
+    }
+
     /**
      * (none-javadoc)
      *
@@ -158,10 +179,12 @@ public class SQLStatementHook extends AbstractSqlHook {
 
     public static void checkSQL(String server, Object statement, String stmt) {
         if (stmt != null && !stmt.isEmpty()) {
-            HashMap<String, Object> params = new HashMap<String, Object>();
-            params.put("server", server);
-            params.put("query", stmt);
-            HookHandler.doCheck(CheckParameter.Type.SQL, params);
+            SqlParams params = SqlParams.acquire(server, stmt);
+            try {
+                HookHandler.doCheck(CheckParameter.Type.SQL, params);
+            } finally {
+                params.release();
+            }
         }
     }
 }
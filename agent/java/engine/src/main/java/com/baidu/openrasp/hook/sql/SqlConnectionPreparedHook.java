@@ -72,6 +72,24 @@ public class SqlConnectionPreparedHook extends AbstractSqlHook {
         return false;
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/mysql/jdbc/ConnectionImpl",
+                "com/mysql/cj/jdbc/ConnectionImpl",
+                "org/sqlite/Conn",
+                "org/sqlite/jdbc4/JDBC4Connection",
+                "oracle/jdbc/driver/PhysicalConnection",
+                "com/microsoft/sqlserver/jdbc/SQLServerConnection",
+                "org/postgresql/jdbc/PgConnection",
+                "org/postgresql/jdbc3/Jdbc3Connection",
+                "org/postgresql/jdbc4/Jdbc4Connection",
+                "com/ibm/db2/jcc/am/Connection",
+                "org/hsqldb/jdbc/JDBCConnection",
+                "org/hsqldb/jdbc/jdbcConnection"
+        };
+    }
+
     @Override
     public String getType() {
         return "sqlPrepared";
@@ -19,10 +19,8 @@ package com.baidu.openrasp.hook.ssrf;
 import com.baidu.openrasp.HookHandler;
 import com.baidu.openrasp.hook.AbstractClassHook;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.tool.DnsCache;
 
-import java.net.Inet4Address;
-import java.net.InetAddress;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 
@@ -71,25 +69,18 @@ public abstract class AbstractSSRFHook extends AbstractClassHook {
         params.put("hostname", hostname);
         params.put("function", function);
         params.put("port", port);
-        LinkedList<String> ip = getIpList(hostname);
-        Collections.sort(ip);
-        params.put("ip", ip);
+        params.put("ip", getIpList(hostname));
         return params;
     }
 
+    /**
+     * 获取域名的 IPv4 地址，优先使用 {@link DnsCache} 中的解析结果
+     *
+     * @param hostname 域名
+     * @return 已排序的 IPv4 地址列表
+     */
     public static LinkedList<String> getIpList(String hostname) {
-        LinkedList<String> ip = new LinkedList<String>();
-        try {
-            InetAddress[] addresses = InetAddress.getAllByName(hostname);
-            for (InetAddress address : addresses) {
-                if (address != null && address instanceof Inet4Address) {
-                    ip.add(address.getHostAddress());
-                }
-            }
-        } catch (Throwable t) {
-            // ignore
-        }
-        return ip;
+        return new LinkedList<String>(DnsCache.getIpv4List(hostname));
     }
 
 
@@ -43,6 +43,16 @@ public class CommonHttpClientHook extends AbstractSSRFHook {
         return "org/apache/commons/httpclient/URI".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/apache/commons/httpclient/URI"};
+    }
+
     /**
      * (none-javadoc)
      *
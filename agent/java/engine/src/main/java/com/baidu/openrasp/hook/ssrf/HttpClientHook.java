@@ -60,6 +60,21 @@ public class HttpClientHook extends AbstractSSRFHook {
                 || "org/apache/http/impl/client/AbstractHttpClient".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "org/apache/http/impl/client/CloseableHttpClient",
+                "org/apache/http/impl/client/AutoRetryHttpClient",
+                "org/apache/http/impl/client/DecompressingHttpClient",
+                "org/apache/http/impl/client/AbstractHttpClient"
+        };
+    }
+
     /**
      * (none-javadoc)
      *
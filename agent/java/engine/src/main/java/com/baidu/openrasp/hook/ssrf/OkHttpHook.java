@@ -42,6 +42,15 @@ public class OkHttpHook extends AbstractSSRFHook {
                 "okhttp3/internal/http/RealInterceptorChain".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/squareup/okhttp/Call$ApplicationInterceptorChain",
+                "okhttp3/RealCall$ApplicationInterceptorChain",
+                "okhttp3/internal/http/RealInterceptorChain"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(OkHttpHook.class, "checkOkHttpUrl",
@@ -69,6 +69,19 @@ public class URLConnectionHook extends AbstractSSRFHook {
                 "weblogic/net/http/HttpURLConnection".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "sun/net/www/protocol/http/HttpURLConnection",
+                "weblogic/net/http/HttpURLConnection"
+        };
+    }
+
     /**
      * (none-javadoc)
      *
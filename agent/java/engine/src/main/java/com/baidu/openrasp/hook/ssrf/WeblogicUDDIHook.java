@@ -38,6 +38,11 @@ public class WeblogicUDDIHook extends AbstractSSRFHook {
         return "weblogic/uddi/client/service/UDDIService".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"weblogic/uddi/client/service/UDDIService"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(WeblogicUDDIHook.class, "getURL", "$1", String.class);
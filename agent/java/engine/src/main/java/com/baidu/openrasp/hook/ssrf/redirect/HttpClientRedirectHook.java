@@ -43,6 +43,14 @@ public class HttpClientRedirectHook extends AbstractRedirectHook {
                 || "org/apache/http/impl/client/DefaultRedirectHandler".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "org/apache/http/impl/client/DefaultRedirectStrategy",
+                "org/apache/http/impl/client/DefaultRedirectHandler"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(HttpClientRedirectHook.class, "cacheHttpRedirect",
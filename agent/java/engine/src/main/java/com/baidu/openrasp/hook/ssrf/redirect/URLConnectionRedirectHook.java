@@ -28,6 +28,14 @@ public class URLConnectionRedirectHook extends AbstractRedirectHook {
                 "weblogic/net/http/HttpURLConnection".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "sun/net/www/protocol/http/HttpURLConnection",
+                "weblogic/net/http/HttpURLConnection"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(URLConnectionRedirectHook.class, "cacheHttpRedirect",
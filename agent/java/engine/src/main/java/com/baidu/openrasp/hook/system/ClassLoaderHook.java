@@ -19,6 +19,11 @@ public class ClassLoaderHook extends LoadLibraryHook {
         return "java/lang/ClassLoader".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/lang/ClassLoader"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String beforeSrc = getInvokeStaticSrc(LoadLibraryHook.class,
@@ -18,6 +18,11 @@ public class NativeLoaderHook extends LoadLibraryHook {
         return "java/lang/ClassLoader$NativeLibrary".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/lang/ClassLoader$NativeLibrary"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(LoadLibraryHook.class,
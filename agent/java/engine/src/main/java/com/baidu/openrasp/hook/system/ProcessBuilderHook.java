@@ -68,6 +68,16 @@ public class ProcessBuilderHook extends AbstractClassHook {
         }
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"java/lang/ProcessImpl", "java/lang/UNIXProcess"};
+    }
+
     /**
      * (none-javadoc)
      *
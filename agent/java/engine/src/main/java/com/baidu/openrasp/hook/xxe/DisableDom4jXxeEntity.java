@@ -38,6 +38,11 @@ public class DisableDom4jXxeEntity extends DisableXxeEntity {
         return "org/dom4j/io/SAXReader".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/dom4j/io/SAXReader"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(DisableDom4jXxeEntity.class, "setFeature", "$0", Object.class);
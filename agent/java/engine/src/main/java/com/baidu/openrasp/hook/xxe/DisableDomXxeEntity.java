@@ -39,6 +39,14 @@ public class DisableDomXxeEntity extends DisableXxeEntity {
                 "org/apache/xerces/parsers/DOMParser".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/sun/org/apache/xerces/internal/parsers/DOMParser",
+                "org/apache/xerces/parsers/DOMParser"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(DisableDomXxeEntity.class, "setFeature", "$0", Object.class);
@@ -39,6 +39,11 @@ public class DisableJdomXxeEntity extends DisableXxeEntity {
                 || "org/jdom2/input/SAXBuilder".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"org/jdom/input/SAXBuilder", "org/jdom2/input/SAXBuilder"};
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(DisableJdomXxeEntity.class, "setFeature", "$0", Object.class);
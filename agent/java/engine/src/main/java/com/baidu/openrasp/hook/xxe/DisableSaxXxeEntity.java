@@ -41,6 +41,14 @@ public class DisableSaxXxeEntity extends DisableXxeEntity {
                 "org/apache/xerces/jaxp/SAXParserImpl$JAXPSAXParser".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/sun/org/apache/xerces/internal/jaxp/SAXParserImpl$JAXPSAXParser",
+                "org/apache/xerces/jaxp/SAXParserImpl$JAXPSAXParser"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(DisableSaxXxeEntity.class, "setFeature", "$0", Object.class);
@@ -39,6 +39,14 @@ public class DisableStaxXxeEntity extends DisableXxeEntity {
                 "com/ctc/wstx/stax/WstxInputFactory".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/sun/xml/internal/stream/XMLInputFactoryImpl",
+                "com/ctc/wstx/stax/WstxInputFactory"
+        };
+    }
+
     @Override
     protected void hookMethod(CtClass ctClass) throws IOException, CannotCompileException, NotFoundException {
         String src = getInvokeStaticSrc(DisableStaxXxeEntity.class, "setFeature", "$0", Object.class);
@@ -36,6 +36,11 @@ public class IBMXmlHook extends AbstractClassHook {
         return "com/ibm/xml/xlxp2/api/util/SimpleParsedEntityFactory".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/ibm/xml/xlxp2/api/util/SimpleParsedEntityFactory"};
+    }
+
     @Override
     public String getType() {
         return "xxe";
@@ -38,6 +38,11 @@ public class WoodStoxHook extends AbstractClassHook {
         return "com/ctc/wstx/sr/StreamScanner".equals(className);
     }
 
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{"com/ctc/wstx/sr/StreamScanner"};
+    }
+
     @Override
     public String getType() {
         return "xxe";
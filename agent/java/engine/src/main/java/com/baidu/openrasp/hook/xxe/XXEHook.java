@@ -79,6 +79,20 @@ public class XXEHook extends AbstractClassHook {
                 "org/apache/xerces/util/XMLEntityDescriptionImpl".equals(className);
     }
 
+    /**
+     * (none-javadoc)
+     *
+     * @see com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()
+     */
+    @Override
+    public String[] getClassNamePatterns() {
+        return new String[]{
+                "com/sun/org/apache/xerces/internal/impl/XMLEntityManager",
+                "org/apache/xerces/impl/XMLEntityManager",
+                "org/apache/xerces/util/XMLEntityDescriptionImpl"
+        };
+    }
+
     /**
      * (none-javadoc)
      *
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.messaging;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.tool.metrics.MetricsManager;
+import com.baidu.openrasp.tool.metrics.StatisticsSource;
+import org.apache.log4j.Layout;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.ErrorCode;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步写文件的 OpenraspDailyRollingFileAppender
+ * <p>
+ * 业务线程在 doAppend 中只做过滤和格式化，编码后的字节放入无锁队列，不再持有 appender 的锁；
+ * 由每个 appender 独占的写线程把队列中的日志合并成一批，通过 FileChannel 一次写入，
+ * log.async.fsync 开启时每批调用一次 force。队列超过 log.async.queue_size 时丢弃新日志。
+ * 日志滚动、文件命名和 log.maxbackup 清理沿用父类实现，并且只在写线程中执行
+ */
+public class AsyncDailyRollingFileAppender extends OpenraspDailyRollingFileAppender {
+    private static final int BATCH_SIZE = 256 * 1024;
+    private static final long PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long CLOSE_TIMEOUT = 3000;
+
+    private static final AtomicLong written = new AtomicLong(0);
+    private static final AtomicLong dropped = new AtomicLong(0);
+    private static final AtomicLong batches = new AtomicLong(0);
+    private static final AtomicLong writeErrors = new AtomicLong(0);
+    private static final CopyOnWriteArraySet<AsyncDailyRollingFileAppender> appenders =
+            new CopyOnWriteArraySet<AsyncDailyRollingFileAppender>();
+
+    static {
+        // queued、written、dropped、batches、write_error
+        MetricsManager.register("log_writer", new StatisticsSource() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return AsyncDailyRollingFileAppender.getStatistics();
+            }
+        });
+    }
+
+    private final ConcurrentLinkedQueue<byte[]> queue = new ConcurrentLinkedQueue<byte[]>();
+    private final AtomicInteger queued = new AtomicInteger(0);
+    private final AtomicBoolean parked = new AtomicBoolean(false);
+    private final ThreadLocal<LocalLayout> localLayout = new ThreadLocal<LocalLayout>();
+    private final int queueSize;
+    private volatile Thread writer;
+    private volatile boolean running;
+    private volatile boolean closing;
+    private FileOutputStream stream;
+    private FileChannel channel;
+
+    public AsyncDailyRollingFileAppender(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * 获取所有异步写文件 appender 的统计项
+     *
+     * @return queued、written、dropped、batches、write_error
+     */
+    public static Map<String, Long> getStatistics() {
+        long size = 0;
+        for (AsyncDailyRollingFileAppender appender : appenders) {
+            size += appender.queued.get();
+        }
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        result.put("queued", size);
+        result.put("written", written.get());
+        result.put("dropped", dropped.get());
+        result.put("batches", batches.get());
+        result.put("write_error", writeErrors.get());
+        return result;
+    }
+
+    /**
+     * 写完队列中剩余的日志并关闭所有异步写文件 appender
+     */
+    public static void release() {
+        for (AsyncDailyRollingFileAppender appender : appenders) {
+            appender.close();
+        }
+    }
+
+    @Override
+    public void activateOptions() {
+        super.activateOptions();
+        if (writer == null) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runWriter();
+                }
+            }, "OpenRASP Log Writer [" + name + "]");
+            thread.setDaemon(true);
+            running = true;
+            writer = thread;
+            appenders.add(this);
+            thread.start();
+        }
+    }
+
+    /**
+     * 不加锁的 doAppend，业务线程只做过滤、格式化和入队
+     */
+    @Override
+    public void doAppend(LoggingEvent event) {
+        if (closed || closing || layout == null) {
+            return;
+        }
+        if (!isAsSevereAsThreshold(event.getLevel())) {
+            return;
+        }
+        Filter f = getFirstFilter();
+        while (f != null) {
+            switch (f.decide(event)) {
+                case Filter.DENY:
+                    return;
+                case Filter.ACCEPT:
+                    f = null;
+                    break;
+                case Filter.NEUTRAL:
+                    f = f.getNext();
+                    break;
+            }
+        }
+        if (queued.incrementAndGet() > queueSize) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            queue.offer(encode(event));
+        } catch (Exception e) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            errorHandler.error("Failed to encode logging event for appender [" + name + "].", e,
+                    ErrorCode.WRITE_FAILURE);
+            return;
+        }
+        if (parked.get() && parked.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * 打开文件，写线程通过 FileChannel 以追加方式写入，不再创建 QuietWriter
+     */
+    @Override
+    public synchronized void setFile(String fileName, boolean append, boolean bufferedIO, int bufferSize)
+            throws IOException {
+        LogLog.debug("setFile called: " + fileName + ", " + append);
+        reset();
+        FileOutputStream ostream;
+        try {
+            ostream = new FileOutputStream(fileName, append);
+        } catch (FileNotFoundException e) {
+            File parentDir = new File(fileName).getParentFile();
+            if (parentDir != null && !parentDir.exists() && parentDir.mkdirs()) {
+                ostream = new FileOutputStream(fileName, append);
+            } else {
+                throw e;
+            }
+        }
+        this.stream = ostream;
+        this.channel = ostream.getChannel();
+        this.fileName = fileName;
+        this.fileAppend = append;
+        this.bufferedIO = bufferedIO;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    protected void closeFile() {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                LogLog.error("Could not close " + fileName, e);
+            }
+            stream = null;
+            channel = null;
+        }
+        super.closeFile();
+    }
+
+    /**
+     * 停止写线程，队列中剩余的日志写完后关闭文件
+     */
+    @Override
+    public void close() {
+        closing = true;
+        Thread thread = writer;
+        if (thread != null) {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(CLOSE_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        if (thread == null || !thread.isAlive()) {
+            // 写线程退出后仍可能有日志在关闭前刚好入队
+            ByteBuffer buffer = ByteBuffer.allocate(BATCH_SIZE);
+            while (writeBatch(buffer)) {
+                // drain
+            }
+        }
+        appenders.remove(this);
+        super.close();
+    }
+
+    private void runWriter() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH_SIZE);
+        while (true) {
+            if (writeBatch(buffer)) {
+                continue;
+            }
+            if (!running) {
+                break;
+            }
+            parked.set(true);
+            if (queue.isEmpty() && running) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            parked.set(false);
+        }
+    }
+
+    /**
+     * 从队列中取出一批日志写入文件
+     *
+     * @return 队列为空时返回 false
+     */
+    private boolean writeBatch(ByteBuffer buffer) {
+        byte[] data = queue.poll();
+        if (data == null) {
+            return false;
+        }
+        int count = 1;
+        ByteBuffer batch;
+        if (data.length > buffer.capacity()) {
+            batch = ByteBuffer.wrap(data);
+        } else {
+            buffer.clear();
+            buffer.put(data);
+            while ((data = queue.peek()) != null && data.length <= buffer.remaining()) {
+                // 只有写线程消费队列，peek 到的元素一定能被 poll 到
+                buffer.put(queue.poll());
+                count++;
+            }
+            buffer.flip();
+            batch = buffer;
+        }
+        queued.addAndGet(-count);
+        synchronized (this) {
+            checkRollOver();
+            if (channel == null) {
+                dropped.addAndGet(count);
+                return true;
+            }
+            try {
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (Config.getConfig().isLogAsyncFsync()) {
+                    channel.force(false);
+                }
+                written.addAndGet(count);
+                batches.incrementAndGet();
+            } catch (IOException e) {
+                writeErrors.incrementAndGet();
+                dropped.addAndGet(count);
+                errorHandler.error("Failed to write logs to [" + fileName + "].", e, ErrorCode.WRITE_FAILURE);
+            }
+        }
+        return true;
+    }
+
+    private byte[] encode(LoggingEvent event) throws UnsupportedEncodingException {
+        Layout current = layout;
+        String text;
+        if (current.getClass() == PatternLayout.class) {
+            text = getLocalLayout((PatternLayout) current).format(event);
+        } else {
+            synchronized (current) {
+                text = current.format(event);
+            }
+        }
+        if (current.ignoresThrowable()) {
+            String[] lines = event.getThrowableStrRep();
+            if (lines != null) {
+                StringBuilder sb = new StringBuilder(text);
+                for (String line : lines) {
+                    sb.append(line).append(Layout.LINE_SEP);
+                }
+                text = sb.toString();
+            }
+        }
+        String encoding = getEncoding();
+        return encoding != null ? text.getBytes(encoding) : text.getBytes();
+    }
+
+    /**
+     * PatternLayout 内部复用同一个 StringBuffer，并发格式化时每个线程使用一份副本
+     */
+    private PatternLayout getLocalLayout(PatternLayout source) {
+        LocalLayout local = localLayout.get();
+        if (local == null || local.source != source) {
+            local = new LocalLayout(source, new PatternLayout(source.getConversionPattern()));
+            localLayout.set(local);
+        }
+        return local.copy;
+    }
+
+    private static class LocalLayout {
+        final PatternLayout source;
+        final PatternLayout copy;
+
+        LocalLayout(PatternLayout source, PatternLayout copy) {
+            this.source = source;
+            this.copy = copy;
+        }
+    }
+}
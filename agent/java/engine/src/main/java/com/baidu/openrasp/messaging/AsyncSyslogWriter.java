@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.messaging;
+
+import com.baidu.openrasp.tool.metrics.MetricsManager;
+import com.baidu.openrasp.tool.metrics.StatisticsSource;
+import org.apache.log4j.helpers.LogLog;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * syslog 异步发送线程
+ * <p>
+ * 日志线程只负责格式化并放入有界队列，由后台线程合并写入同一个 ByteBuffer 后通过 NIO 发送，
+ * syslog 服务端缓慢或不可达时不会阻塞业务线程。队列满时按照 syslog.async.overflow_policy 处理：
+ * drop 丢弃新日志，drop_oldest 丢弃最旧的日志，block 最多等待一个 socket 超时后丢弃。
+ * 连接建立后切换为非阻塞模式，一次写入超过 socket 超时仍没有进展时断开并重新连接
+ */
+public class AsyncSyslogWriter extends Thread {
+    public static final String POLICY_DROP = "drop";
+    public static final String POLICY_DROP_OLDEST = "drop_oldest";
+    public static final String POLICY_BLOCK = "block";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long POLL_TIMEOUT = 1000;
+
+    private static final AtomicLong written = new AtomicLong(0);
+    private static final AtomicLong dropped = new AtomicLong(0);
+    private static final AtomicLong writeErrors = new AtomicLong(0);
+    private static volatile AsyncSyslogWriter active;
+
+    static {
+        // queued、written、dropped、write_error
+        MetricsManager.register("syslog", new StatisticsSource() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return AsyncSyslogWriter.getStatistics();
+            }
+        });
+    }
+
+    private final InetSocketAddress address;
+    private final int socketTimeout;
+    private final String overflowPolicy;
+    private final ArrayBlockingQueue<byte[]> queue;
+    private volatile int reconnectionDelay;
+    private volatile boolean running = true;
+    private SocketChannel channel;
+    private Selector selector;
+
+    public AsyncSyslogWriter(InetAddress address, int port, int socketTimeout, int reconnectionDelay,
+                             int queueSize, String overflowPolicy) {
+        super("OpenRASP Syslog Writer");
+        setDaemon(true);
+        this.address = new InetSocketAddress(address, port);
+        this.socketTimeout = socketTimeout;
+        this.reconnectionDelay = reconnectionDelay;
+        this.queue = new ArrayBlockingQueue<byte[]>(queueSize);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * 获取异步发送的统计项
+     *
+     * @return queued、written、dropped、write_error
+     */
+    public static Map<String, Long> getStatistics() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        AsyncSyslogWriter writer = active;
+        result.put("queued", writer != null ? (long) writer.queue.size() : 0L);
+        result.put("written", written.get());
+        result.put("dropped", dropped.get());
+        result.put("write_error", writeErrors.get());
+        return result;
+    }
+
+    public void setReconnectionDelay(int reconnectionDelay) {
+        this.reconnectionDelay = reconnectionDelay;
+    }
+
+    /**
+     * 提交一条已编码的 syslog 报文
+     *
+     * @param packet syslog 报文
+     */
+    public void offer(byte[] packet) {
+        if (queue.offer(packet)) {
+            return;
+        }
+        if (POLICY_DROP_OLDEST.equals(overflowPolicy)) {
+            while (!queue.offer(packet)) {
+                if (queue.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+            return;
+        }
+        if (POLICY_BLOCK.equals(overflowPolicy)) {
+            try {
+                if (queue.offer(packet, socketTimeout, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        dropped.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void start() {
+        active = this;
+        super.start();
+    }
+
+    /**
+     * 停止发送线程，队列中尚未发送的日志将被丢弃
+     */
+    public void shutdown() {
+        running = false;
+        interrupt();
+        if (active == this) {
+            active = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        byte[] carry = null;
+        while (running) {
+            try {
+                if (channel == null && !connect()) {
+                    Thread.sleep(reconnectionDelay);
+                    continue;
+                }
+                byte[] packet = carry != null ? carry : queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                carry = null;
+                if (packet == null) {
+                    continue;
+                }
+                if (packet.length > buffer.capacity()) {
+                    writeFully(ByteBuffer.wrap(packet));
+                    written.incrementAndGet();
+                    continue;
+                }
+                buffer.clear();
+                buffer.put(packet);
+                int count = 1;
+                while ((packet = queue.poll()) != null) {
+                    if (packet.length > buffer.remaining()) {
+                        carry = packet;
+                        break;
+                    }
+                    buffer.put(packet);
+                    count++;
+                }
+                buffer.flip();
+                try {
+                    writeFully(buffer);
+                    written.addAndGet(count);
+                } catch (IOException e) {
+                    dropped.addAndGet(count);
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                writeErrors.incrementAndGet();
+                LogLog.warn("Detected problem with syslog connection: " + e);
+                closeChannel();
+            }
+        }
+        closeChannel();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) == 0) {
+                // 发送缓冲区已满，服务端停止读取时不能一直阻塞在这里
+                if (selector.select(socketTimeout) == 0) {
+                    throw new SocketTimeoutException("write to syslog server " + address + " timed out");
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+    }
+
+    private boolean connect() {
+        SocketChannel socketChannel = null;
+        try {
+            socketChannel = SocketChannel.open();
+            socketChannel.socket().connect(address, socketTimeout);
+            socketChannel.configureBlocking(false);
+            Selector writeSelector = Selector.open();
+            socketChannel.register(writeSelector, SelectionKey.OP_WRITE);
+            channel = socketChannel;
+            selector = writeSelector;
+            return true;
+        } catch (IOException e) {
+            LogLog.debug("Could not connect to syslog server " + address + ". Exception is " + e);
+            if (socketChannel != null) {
+                try {
+                    socketChannel.close();
+                } catch (IOException ignored) {
+                    // ignore
+                }
+            }
+            return false;
+        }
+    }
+
+    private void closeChannel() {
+        if (selector != null) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            selector = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            channel = null;
+        }
+    }
+}
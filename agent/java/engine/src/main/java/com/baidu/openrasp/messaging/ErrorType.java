@@ -31,7 +31,8 @@ public enum ErrorType {
     REFLECTION_ERROR(20013, "Reflex Failed"),
     CPU_ERROR(20014, "Count Cpu Usage Failed"),
     DEPENDENCY_ERROR(20015, "Find Dependency Information Failed"),
-    DEPENDENCY_REPORT_ERROR(20016, "Dependency Report Failed");
+    DEPENDENCY_REPORT_ERROR(20016, "Dependency Report Failed"),
+    METRICS_ERROR(20017, "Metrics Error");
     private int code;
     private String message;
 
@@ -266,6 +266,14 @@ public class OpenraspDailyRollingFileAppender extends FileAppender {
      * rollover time and then rollover.
      */
     protected void subAppend(LoggingEvent event) {
+        checkRollOver();
+        super.subAppend(event);
+    }
+
+    /**
+     * 到达下一个滚动时间点时执行 rollover，调用方需保证与写文件互斥
+     */
+    void checkRollOver() {
         long n = System.currentTimeMillis();
         if (n >= nextCheck) {
             now.setTime(n);
@@ -279,7 +287,6 @@ public class OpenraspDailyRollingFileAppender extends FileAppender {
                 LogLog.error("rollOver() failed.", ioe);
             }
         }
-        super.subAppend(event);
     }
 
     public void rollFiles(final File file){
@@ -28,6 +28,7 @@ import org.apache.log4j.spi.LoggingEvent;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.*;
+import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
@@ -187,6 +188,7 @@ public class SyslogTcpAppender extends AppenderSkeleton {
     int socketTimeout = DEFAULT_SOCKET_TIMEOUT;
 
     private Connector connector;
+    private AsyncSyslogWriter asyncWriter;
     private boolean advertiseViaMulticastDNS;
     private ZeroConfSupport zeroConf;
 
@@ -213,6 +215,24 @@ public class SyslogTcpAppender extends AppenderSkeleton {
         this(getAddressByName(host), port, syslogFacility, layout);
     }
 
+    /**
+     * 异步模式，由后台线程负责连接和发送，日志线程只做格式化
+     */
+    public SyslogTcpAppender(String host, int port, int syslogFacility, Layout layout,
+                             int asyncQueueSize, String overflowPolicy) {
+        this.address = getAddressByName(host);
+        this.remoteHost = host;
+        this.port = port;
+        this.syslogFacility = syslogFacility * 8;
+        this.layout = layout;
+        this.initSyslogFacilityStr();
+        if (this.address != null) {
+            this.asyncWriter = new AsyncSyslogWriter(address, port, socketTimeout, reconnectionDelay,
+                    asyncQueueSize, overflowPolicy);
+            this.asyncWriter.start();
+        }
+    }
+
     /**
      * Connect to the specified <b>RemoteHost</b> and <b>Port</b>.
      */
@@ -242,6 +262,10 @@ public class SyslogTcpAppender extends AppenderSkeleton {
         if (advertiseViaMulticastDNS) {
             zeroConf.unadvertise();
         }
+        if (asyncWriter != null) {
+            asyncWriter.shutdown();
+            asyncWriter = null;
+        }
         cleanUp();
     }
 
@@ -397,7 +421,7 @@ public class SyslogTcpAppender extends AppenderSkeleton {
     }
 
     void connect() {
-        if (this.address == null)
+        if (this.address == null || asyncWriter != null)
             return;
         try {
             // First, close the previous connection if any.
@@ -438,6 +462,10 @@ public class SyslogTcpAppender extends AppenderSkeleton {
             }
             layoutHeaderChecked = true;
         }
+        if (asyncWriter != null) {
+            asyncWriter.offer(encodePacket(event));
+            return;
+        }
         if (stw == null) {
             errorHandler.error("No syslog host is set for SyslogTcpAppender named \"" +
                     this.name + "\".");
@@ -576,6 +604,9 @@ public class SyslogTcpAppender extends AppenderSkeleton {
      */
     public void setReconnectionDelay(int delay) {
         this.reconnectionDelay = delay;
+        if (asyncWriter != null) {
+            asyncWriter.setReconnectionDelay(delay);
+        }
     }
 
     /**
@@ -709,12 +740,52 @@ public class SyslogTcpAppender extends AppenderSkeleton {
         return "";
     }
 
+    /**
+     * 异步模式下将日志格式化为完整的 syslog 报文，格式与同步模式写出的内容一致
+     */
+    private byte[] encodePacket(LoggingEvent event) {
+        String hdr = getPacketHeader(event.timeStamp);
+        StringBuilder buf = new StringBuilder(256);
+        buf.append('<').append(syslogFacility | event.getLevel().getSyslogEquivalent()).append('>');
+        buf.append(hdr);
+        if (facilityPrinting) {
+            buf.append(facilityStr);
+        }
+        if (layout == null) {
+            buf.append(String.valueOf(event.getMessage()));
+        } else {
+            buf.append(layout.format(event));
+        }
+        if (facilityPrinting || hdr.length() > 0) {
+            buf.append(LINE_SEP);
+        }
+        if (layout == null || layout.ignoresThrowable()) {
+            String[] s = event.getThrowableStrRep();
+            if (s != null) {
+                for (int i = 0; i < s.length; i++) {
+                    if (s[i].startsWith("\t")) {
+                        buf.append(hdr).append(TAB).append(s[i].substring(1));
+                    } else {
+                        buf.append(hdr).append(s[i]);
+                    }
+                }
+            }
+        }
+        return buf.toString().getBytes(Charset.defaultCharset());
+    }
+
     /**
      * Set header or footer of layout.
      *
      * @param msg message body, may not be null.
      */
     private void sendLayoutMessage(final String msg) {
+        if (asyncWriter != null) {
+            String hdr = getPacketHeader(new Date().getTime());
+            String packet = "<" + (syslogFacility | 6) + ">" + hdr + (facilityPrinting ? facilityStr : "") + msg;
+            asyncWriter.offer(packet.getBytes(Charset.defaultCharset()));
+            return;
+        }
         if (stw != null) {
             String packet = msg;
             String hdr = getPacketHeader(new Date().getTime());
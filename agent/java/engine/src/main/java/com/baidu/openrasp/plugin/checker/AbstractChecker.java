@@ -19,6 +19,7 @@ package com.baidu.openrasp.plugin.checker;
 import com.baidu.openrasp.plugin.event.CheckEventDispatcher;
 import com.baidu.openrasp.plugin.event.CheckEventListener;
 import com.baidu.openrasp.plugin.info.EventInfo;
+import com.baidu.openrasp.tool.metrics.HookMetrics;
 
 import java.util.List;
 
@@ -44,13 +45,15 @@ public abstract class AbstractChecker implements Checker {
     public boolean check(CheckParameter checkParameter) {
         List<EventInfo> eventInfos = checkParam(checkParameter);
         boolean isBlock = false;
-        if (eventInfos != null) {
+        if (eventInfos != null && !eventInfos.isEmpty()) {
+            long start = HookMetrics.now();
             for (EventInfo info : eventInfos) {
                 if (info.isBlock()) {
                     isBlock = true;
                 }
                 dispatchCheckEvent(info);
             }
+            HookMetrics.record(checkParameter.getType(), HookMetrics.Phase.ALARM, start);
         }
         isBlock = isBlock && canBlock;
         return isBlock;
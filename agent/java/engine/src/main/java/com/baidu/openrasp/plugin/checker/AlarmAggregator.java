@@ -0,0 +1,293 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.checker;
+
+import com.baidu.openrasp.cloud.httpappender.HttpAppender;
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.messaging.ErrorType;
+import com.baidu.openrasp.messaging.LogTool;
+import com.baidu.openrasp.plugin.info.AttackInfo;
+import com.baidu.openrasp.plugin.info.AttackSummaryInfo;
+import com.baidu.openrasp.request.AbstractRequest;
+import com.baidu.openrasp.tool.metrics.MetricsManager;
+import com.baidu.openrasp.tool.metrics.StatisticsSource;
+import org.apache.log4j.Appender;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 攻击报警聚合
+ * <p>
+ * 按照攻击类型、插件、检测算法、拦截状态、请求路径和调用位置计算报警指纹，
+ * 同一指纹在 alarm.aggregate.window 秒内只输出第一条完整报警，其余报警只计数并保留少量请求 ID，
+ * 窗口结束时由后台线程输出一条汇总报警；同时聚合的指纹数量不超过 alarm.aggregate.max_keys，
+ * 超过时直接输出完整报警。汇总报警只写入 alarm.log 和 syslog，不上传到云控的攻击报警接口
+ */
+public class AlarmAggregator {
+
+    private static final int SAMPLE_SIZE = 5;
+    private static final int CALL_SITE_FRAMES = 5;
+    private static final long FLUSH_INTERVAL = 1000;
+
+    private static final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+    private static final AtomicLong aggregated = new AtomicLong(0);
+    private static final AtomicLong summaries = new AtomicLong(0);
+    private static final AtomicLong overflow = new AtomicLong(0);
+    private static volatile Thread flushThread = null;
+
+    static {
+        // keys、aggregated、summaries、overflow
+        MetricsManager.register("alarm_aggregator", new StatisticsSource() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return AlarmAggregator.getStatistics();
+            }
+        });
+    }
+
+    /**
+     * 提交一条攻击报警
+     *
+     * @param info 攻击报警
+     * @return true 表示需要输出完整报警，false 表示已经被合并
+     */
+    public static boolean offer(AttackInfo info) {
+        Config config = Config.getConfig();
+        if (!config.getAlarmAggregateEnable()) {
+            return true;
+        }
+        String callSite = getCallSite(info.getParameter());
+        String key = getKey(info, callSite);
+        String requestId = getRequestId(info.getParameter());
+        long now = System.currentTimeMillis();
+        while (true) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= config.getAlarmAggregateMaxKeys()) {
+                    overflow.incrementAndGet();
+                    return true;
+                }
+                ensureFlushThread();
+                if (buckets.putIfAbsent(key, new Bucket(info, callSite, requestId, now)) == null) {
+                    return true;
+                }
+                continue;
+            }
+            if (bucket.add(requestId, now)) {
+                aggregated.incrementAndGet();
+                return false;
+            }
+            // 聚合窗口已经结束，重新开始新的窗口
+            buckets.remove(key, bucket);
+        }
+    }
+
+    /**
+     * 引擎卸载时停止后台线程，并输出所有未输出的汇总报警
+     */
+    public static void release() {
+        Thread thread;
+        synchronized (AlarmAggregator.class) {
+            thread = flushThread;
+            flushThread = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+        flush(true);
+    }
+
+    /**
+     * 获取报警聚合的统计信息
+     *
+     * @return 统计项
+     */
+    public static Map<String, Long> getStatistics() {
+        Map<String, Long> stat = new TreeMap<String, Long>();
+        stat.put("keys", (long) buckets.size());
+        stat.put("aggregated", aggregated.get());
+        stat.put("summaries", summaries.get());
+        stat.put("overflow", overflow.get());
+        return stat;
+    }
+
+    static void flush(boolean all) {
+        long windowMillis = Config.getConfig().getAlarmAggregateWindow() * 1000L;
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Bucket>> iterator = buckets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Bucket bucket = iterator.next().getValue();
+            if (!all && now - bucket.startTime < windowMillis) {
+                continue;
+            }
+            iterator.remove();
+            AttackSummaryInfo summary = bucket.close();
+            if (summary != null) {
+                summaries.incrementAndGet();
+                try {
+                    logSummary(summary);
+                } catch (Throwable t) {
+                    LogTool.warn(ErrorType.PLUGIN_ERROR, "failed to log alarm summary: " + t.getMessage(), t);
+                }
+            }
+        }
+    }
+
+    /**
+     * 汇总报警缺少 request_id、url 等攻击报警的字段，云控按攻击事件建立索引和统计，
+     * 所以只交给报警 logger 上除 HttpAppender 以外的 appender
+     *
+     * @param summary 汇总报警
+     */
+    private static void logSummary(AttackSummaryInfo summary) {
+        Logger logger = Checker.ATTACK_ALARM_LOGGER;
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, summary, null);
+        Enumeration<?> appenders = logger.getAllAppenders();
+        while (appenders.hasMoreElements()) {
+            Appender appender = (Appender) appenders.nextElement();
+            if (!(appender instanceof HttpAppender)) {
+                appender.doAppend(event);
+            }
+        }
+    }
+
+    private static synchronized void ensureFlushThread() {
+        if (flushThread != null) {
+            return;
+        }
+        flushThread = new Thread("OpenRASP Alarm Aggregator") {
+            @Override
+            public void run() {
+                while (flushThread == this) {
+                    try {
+                        Thread.sleep(FLUSH_INTERVAL);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                    try {
+                        flush(false);
+                    } catch (Throwable t) {
+                        LogTool.warn(ErrorType.PLUGIN_ERROR, "failed to flush alarm summary: " + t.getMessage(), t);
+                    }
+                }
+            }
+        };
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    private static String getKey(AttackInfo info, String callSite) {
+        CheckParameter parameter = info.getParameter();
+        AbstractRequest request = parameter.getRequest();
+        StringBuilder key = new StringBuilder();
+        key.append(parameter.getType().getName()).append('\n')
+                .append(info.getPluginName()).append('\n')
+                .append(info.getAlgorithm()).append('\n')
+                .append(info.getAction()).append('\n')
+                .append(request != null ? request.getRequestURI() : "").append('\n')
+                .append(callSite);
+        return key.toString();
+    }
+
+    private static String getCallSite(CheckParameter parameter) {
+        StackTraceElement[] trace = parameter.getStackTrace();
+        long hash = 1;
+        int count = Math.min(trace.length, CALL_SITE_FRAMES);
+        for (int i = 0; i < count; i++) {
+            hash = hash * 1000003 + trace[i].getClassName().hashCode();
+            hash = hash * 1000003 + trace[i].getMethodName().hashCode();
+            hash = hash * 1000003 + trace[i].getLineNumber();
+        }
+        return Long.toHexString(hash);
+    }
+
+    private static String getRequestId(CheckParameter parameter) {
+        AbstractRequest request = parameter.getRequest();
+        return request != null ? request.getRequestId() : null;
+    }
+
+    /**
+     * 单个指纹的聚合状态，窗口结束后关闭，关闭后不再接受新的报警；
+     * 计数和首次时间包含窗口内第一条输出了完整报警的攻击
+     */
+    private static class Bucket {
+        final long startTime;
+        final String attackType;
+        final String pluginName;
+        final String algorithm;
+        final String action;
+        final String path;
+        final String callSite;
+        private final List<String> requestIds = new ArrayList<String>(SAMPLE_SIZE);
+        private int count;
+        private long firstTime;
+        private long lastTime;
+        private boolean closed = false;
+
+        Bucket(AttackInfo info, String callSite, String requestId, long startTime) {
+            AbstractRequest request = info.getParameter().getRequest();
+            this.startTime = startTime;
+            this.attackType = info.getParameter().getType().getName();
+            this.pluginName = info.getPluginName();
+            this.algorithm = info.getAlgorithm();
+            this.action = info.getAction();
+            this.path = request != null ? request.getRequestURI() : "";
+            this.callSite = callSite;
+            this.count = 1;
+            this.firstTime = startTime;
+            this.lastTime = startTime;
+            if (requestId != null) {
+                requestIds.add(requestId);
+            }
+        }
+
+        synchronized boolean add(String requestId, long time) {
+            if (closed) {
+                return false;
+            }
+            count++;
+            lastTime = time;
+            if (requestId != null && requestIds.size() < SAMPLE_SIZE) {
+                requestIds.add(requestId);
+            }
+            return true;
+        }
+
+        synchronized AttackSummaryInfo close() {
+            closed = true;
+            if (count == 1) {
+                // 窗口内没有被合并的报警，完整报警已经输出过
+                return null;
+            }
+            return new AttackSummaryInfo(attackType, pluginName, algorithm, action, path, callSite,
+                    count, firstTime, lastTime, requestIds);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.checker;
+
+import com.baidu.openrasp.HookHandler;
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.messaging.ErrorType;
+import com.baidu.openrasp.messaging.LogTool;
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import com.baidu.openrasp.plugin.checker.v8.V8AttackChecker;
+import com.baidu.openrasp.request.AbstractRequest;
+import com.baidu.openrasp.tool.RingBuffer;
+import com.baidu.openrasp.tool.StackCapture;
+import com.baidu.openrasp.tool.metrics.HookMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步检测流水线
+ * <p>
+ * 对于不会拦截的检测(检测器不能拦截，或者检测算法配置开启了观察模式 meta.all_log)，
+ * hook 线程只拷贝检测参数和调用栈放入有界环形队列，请求信息的快照在同一个请求中共用，
+ * 由后台线程调用插件检测并输出报警，
+ * 请求线程不再等待 V8 检测和报警日志的输出。
+ * 队列满时按照 detect.async.overflow_policy 处理：drop 丢弃，sample 每 N 个同步检测 1 个，sync 全部同步检测。
+ */
+public class AsyncCheckPipeline {
+
+    public static final String OVERFLOW_DROP = "drop";
+    public static final String OVERFLOW_SAMPLE = "sample";
+    public static final String OVERFLOW_SYNC = "sync";
+
+    private static final long MIN_IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final AtomicLong submitted = new AtomicLong(0);
+    private static final AtomicLong completed = new AtomicLong(0);
+    private static final AtomicLong dropped = new AtomicLong(0);
+    private static final AtomicLong overflowSync = new AtomicLong(0);
+    private static final AtomicLong overflowCount = new AtomicLong(0);
+
+    private static volatile Pipeline pipeline = null;
+
+    /**
+     * 判断检测类型当前是否可以异步检测
+     *
+     * @param type 检测类型
+     * @return 是否可以异步检测
+     */
+    public static boolean isAsyncType(Type type) {
+        Config config = Config.getConfig();
+        if (!config.getDetectAsyncEnable() || !(type.checker instanceof V8AttackChecker)) {
+            return false;
+        }
+        return !((V8AttackChecker) type.checker).isCanBlock() || config.getAlgorithmAllLog();
+    }
+
+    /**
+     * 提交异步检测，需要在 hook 线程中调用
+     *
+     * @param type   检测类型
+     * @param params 检测参数
+     * @return true 表示已提交或者按照溢出策略丢弃，false 表示调用方需要同步检测
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean submit(Type type, Map params) {
+        Pipeline current = getPipeline();
+        if (current.queue.isFull()) {
+            return onOverflow();
+        }
+        AbstractRequest request = HookHandler.requestCache.get();
+        HashMap<Object, Object> paramsCopy = new HashMap<Object, Object>(params);
+        // 参数中的调用栈和检测参数的调用栈共用本次检测中的同一次栈遍历
+        StackCapture.resolve(paramsCopy);
+        CheckParameter parameter = new CheckParameter(type, paramsCopy,
+                request == null ? null : request.getSnapshot(), StackCapture.get());
+        if (!current.queue.offer(parameter)) {
+            return onOverflow();
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 检测队列相关配置变化时，停止当前的检测线程，下一次提交时按新配置重新创建
+     */
+    public static synchronized void restart() {
+        Pipeline old = pipeline;
+        pipeline = null;
+        if (old != null) {
+            old.stop();
+        }
+    }
+
+    /**
+     * 引擎卸载时停止检测线程，队列中未检测的参数被丢弃
+     */
+    public static synchronized void release() {
+        restart();
+    }
+
+    /**
+     * 获取异步检测的统计信息
+     *
+     * @return 统计项
+     */
+    public static Map<String, Long> getStatistics() {
+        Map<String, Long> stat = new TreeMap<String, Long>();
+        Pipeline current = pipeline;
+        stat.put("queue_size", current != null ? (long) current.queue.size() : 0L);
+        stat.put("queue_capacity", current != null ? (long) current.queue.capacity() : 0L);
+        stat.put("submitted", submitted.get());
+        stat.put("completed", completed.get());
+        stat.put("dropped", dropped.get());
+        stat.put("overflow_sync", overflowSync.get());
+        return stat;
+    }
+
+    private static boolean onOverflow() {
+        String policy = Config.getConfig().getDetectAsyncOverflowPolicy();
+        if (OVERFLOW_SYNC.equals(policy)) {
+            overflowSync.incrementAndGet();
+            return false;
+        }
+        if (OVERFLOW_SAMPLE.equals(policy)
+                && overflowCount.incrementAndGet() % Config.getConfig().getDetectAsyncSampleInterval() == 0) {
+            overflowSync.incrementAndGet();
+            return false;
+        }
+        dropped.incrementAndGet();
+        return true;
+    }
+
+    private static Pipeline getPipeline() {
+        Pipeline current = pipeline;
+        if (current == null) {
+            synchronized (AsyncCheckPipeline.class) {
+                current = pipeline;
+                if (current == null) {
+                    Config config = Config.getConfig();
+                    current = new Pipeline(config.getDetectAsyncQueueSize(), config.getDetectAsyncWorkers());
+                    pipeline = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static void check(CheckParameter parameter) {
+        try {
+            if (HookHandler.enableHook.get()) {
+                long start = HookMetrics.now();
+                // 异步检测无法拦截请求，检测结果只用于输出报警
+                CheckerManager.check(parameter.getType(), parameter);
+                HookMetrics.record(parameter.getType(), HookMetrics.Phase.TOTAL, start);
+            }
+        } catch (Throwable e) {
+            String msg = "plugin check error: " + e.getClass().getName() + " because: " + e.getMessage();
+            AbstractRequest request = parameter.getRequest();
+            if (request != null && request.getRequestURLString() != null) {
+                msg = request.getRequestURLString() + " " + msg;
+            }
+            LogTool.error(ErrorType.PLUGIN_ERROR, msg, e);
+        } finally {
+            completed.incrementAndGet();
+        }
+    }
+
+    private static class Pipeline {
+        final RingBuffer<CheckParameter> queue;
+        final Thread[] workers;
+        volatile boolean running = true;
+
+        Pipeline(int queueSize, int workerCount) {
+            this.queue = new RingBuffer<CheckParameter>(queueSize);
+            this.workers = new Thread[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                Thread worker = new Thread(new Worker(this), "OpenRASP Async Check Thread-" + i);
+                worker.setDaemon(true);
+                workers[i] = worker;
+                worker.start();
+            }
+        }
+
+        void stop() {
+            running = false;
+            for (Thread worker : workers) {
+                LockSupport.unpark(worker);
+            }
+        }
+    }
+
+    private static class Worker implements Runnable {
+        private final Pipeline pipeline;
+
+        Worker(Pipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        @Override
+        public void run() {
+            long idleNanos = MIN_IDLE_NANOS;
+            while (pipeline.running) {
+                CheckParameter parameter = pipeline.queue.poll();
+                if (parameter != null) {
+                    check(parameter);
+                    idleNanos = MIN_IDLE_NANOS;
+                } else {
+                    LockSupport.parkNanos(idleNanos);
+                    idleNanos = Math.min(idleNanos << 1, MAX_IDLE_NANOS);
+                }
+            }
+        }
+    }
+}
@@ -28,7 +28,7 @@ import com.baidu.openrasp.plugin.info.EventInfo;
 public class AttackCheckListener implements CheckEventListener {
     @Override
     public void onCheckUpdate(EventInfo info) {
-        if (info instanceof AttackInfo) {
+        if (info instanceof AttackInfo && AlarmAggregator.offer((AttackInfo) info)) {
             Checker.ATTACK_ALARM_LOGGER.info(info);
         }
     }
@@ -25,6 +25,8 @@ import com.baidu.openrasp.plugin.checker.policy.SqlConnectionChecker;
 import com.baidu.openrasp.plugin.checker.policy.server.*;
 import com.baidu.openrasp.plugin.checker.v8.V8AttackChecker;
 import com.baidu.openrasp.request.AbstractRequest;
+import com.baidu.openrasp.tool.StackCapture;
+import com.baidu.openrasp.tool.StackTrace;
 import com.google.gson.Gson;
 
 import java.util.HashMap;
@@ -117,6 +119,7 @@ public class CheckParameter {
     private final Map params;
     private final AbstractRequest request;
     private final long createTime;
+    private StackTraceElement[] stackTrace;
 
 
     public CheckParameter(Type type, Map params) {
@@ -130,10 +133,20 @@ public class CheckParameter {
      * 用于单元测试的构造函数
      */
     public CheckParameter(Type type, Map params, AbstractRequest request) {
+        this(type, params, request, (StackTraceElement[]) null);
+    }
+
+    /**
+     * 用于在 hook 线程以外检测的构造函数
+     *
+     * @param stackTrace 在 hook 线程中获取的 hook 点调用栈，已经去掉 RASP 自身的栈帧
+     */
+    public CheckParameter(Type type, Map params, AbstractRequest request, StackTraceElement[] stackTrace) {
         this.type = type;
         this.params = params;
         this.request = request;
         this.createTime = System.currentTimeMillis();
+        this.stackTrace = stackTrace;
     }
 
     public Object getParam(String key) {
@@ -156,6 +169,19 @@ public class CheckParameter {
         return createTime;
     }
 
+    /**
+     * 获取 hook 点的调用栈，已经去掉 RASP 自身的栈帧，
+     * 在 hook 线程以外检测时返回创建检测参数时记录的调用栈
+     *
+     * @return 调用栈
+     */
+    public StackTraceElement[] getStackTrace() {
+        if (stackTrace == null) {
+            stackTrace = StackCapture.get();
+        }
+        return stackTrace;
+    }
+
     @Override
     public String toString() {
         Map<String, Object> obj = new HashMap<String, Object>();
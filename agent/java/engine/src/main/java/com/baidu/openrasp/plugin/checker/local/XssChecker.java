@@ -21,15 +21,18 @@ import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import com.baidu.openrasp.plugin.info.AttackInfo;
 import com.baidu.openrasp.plugin.info.EventInfo;
+import com.baidu.openrasp.request.AbstractRequest;
+import com.baidu.openrasp.tool.AhoCorasick;
 import com.baidu.openrasp.tool.Reflection;
 import com.baidu.openrasp.tool.model.ApplicationModel;
 import com.google.gson.JsonObject;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class XssChecker extends ConfigurableChecker {
@@ -40,6 +43,22 @@ public class XssChecker extends ConfigurableChecker {
     private static final int DEFAULT_MIN_LENGTH = 15;
     private static final int DEFAULT_MAX_DETECTION_NUM = 10;
     private static final String DEFAULT_XSS_REGEX = "<![\\-\\[A-Za-z]|<([A-Za-z]{1,12})[\\/\\x00-\\x20>]";
+    /**
+     * 放入自动机的单个参数值最大长度，以及每个请求放入自动机的参数值总长度，
+     * 超出的参数值退化为对每段 response body 调用 indexOf，避免超长参数在请求线程上构建巨大的自动机
+     */
+    private static final int MAX_PATTERN_LENGTH = 4096;
+    private static final int MAX_TOTAL_PATTERN_LENGTH = 16384;
+
+    /**
+     * 根据当前算法配置编译的检测规则，算法配置更新后重新编译
+     */
+    private static volatile Rule rule = null;
+
+    /**
+     * 当前线程正在处理的请求的匹配状态，同一个请求的多次 response body 写入共享
+     */
+    private static final ThreadLocal<MatchState> matchState = new ThreadLocal<MatchState>();
 
     @Override
     public List<EventInfo> checkParam(CheckParameter checkParameter) {
@@ -48,51 +67,171 @@ public class XssChecker extends ConfigurableChecker {
         LinkedList<EventInfo> result = new LinkedList<EventInfo>();
         String content = String.valueOf(checkParameter.getParam("content"));
         if (!StringUtils.isEmpty(action) && !EventInfo.CHECK_ACTION_IGNORE.equals(action)) {
-            if (HookHandler.requestCache.get() != null && content != null) {
-                Map<String, String[]> parameterMap = HookHandler.requestCache.get().getParameterMap();
-                if (parameterMap != null) {
-                    String regex = getStringElement(config, CONFIG_KEY_XSS_USER_INPUT, XSS_REGEX);
-                    if (regex == null) {
-                        regex = DEFAULT_XSS_REGEX;
+            AbstractRequest request = HookHandler.requestCache.get();
+            if (request != null && content != null) {
+                MatchState state = getMatchState(request, getRule(config));
+                if (state == null) {
+                    return result;
+                }
+                int index = state.match(content);
+                if (index >= 0) {
+                    if ("websphere".equals(ApplicationModel.getServerName())) {
+                        Reflection.invokeMethod(HookHandler.responseCache.get(), "resetBuffer", new Class[]{});
+                    }
+                    String message = "Reflected XSS attack detected, parameter name: " + state.names[index];
+                    Map<String, Object> params = (Map<String, Object>) checkParameter.getParams();
+                    params.remove("content");
+                    params.put("name", state.names[index]);
+                    params.put("value", state.values[index]);
+                    result.add(AttackInfo.createLocalAttackInfo(checkParameter, action, message, CONFIG_KEY_XSS_USER_INPUT));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 请求结束时清除当前线程的匹配状态
+     */
+    public static void clearMatchState() {
+        matchState.remove();
+    }
+
+    private static Rule getRule(JsonObject config) {
+        Rule current = rule;
+        if (current == null || current.config != config) {
+            current = new Rule(config);
+            rule = current;
+        }
+        return current;
+    }
+
+    /**
+     * 获取当前请求的匹配状态，参数列表在同一个请求中只筛选一次
+     *
+     * @return 匹配状态，请求参数还不能获取时返回 null
+     */
+    private static MatchState getMatchState(AbstractRequest request, Rule rule) {
+        MatchState state = matchState.get();
+        if (state != null && state.rule == rule && state.requestId.equals(request.getRequestId())) {
+            return state;
+        }
+        Map<String, String[]> parameterMap = request.getParameterMap();
+        if (parameterMap == null) {
+            return null;
+        }
+        state = new MatchState(request.getRequestId(), rule, parameterMap);
+        matchState.set(state);
+        return state;
+    }
+
+    private static class Rule {
+        final JsonObject config;
+        final Pattern pattern;
+        final int minLength;
+        final int maxDetectionNum;
+
+        Rule(JsonObject config) {
+            this.config = config;
+            String regex = getStringElement(config, CONFIG_KEY_XSS_USER_INPUT, XSS_REGEX);
+            if (regex == null) {
+                regex = DEFAULT_XSS_REGEX;
+            }
+            this.pattern = Pattern.compile(regex);
+            int xssParameterLength = getIntElement(config, CONFIG_KEY_XSS_USER_INPUT, XSS_PARAMETER_LENGTH);
+            if (xssParameterLength < 0) {
+                xssParameterLength = DEFAULT_MIN_LENGTH;
+            }
+            this.minLength = xssParameterLength;
+            int exceedLengthCount = getIntElement(config, CONFIG_KEY_XSS_USER_INPUT, EXCEED_LENGTH_COUNT);
+            if (exceedLengthCount < 0) {
+                exceedLengthCount = DEFAULT_MAX_DETECTION_NUM;
+            }
+            this.maxDetectionNum = exceedLengthCount;
+        }
+    }
+
+    private static class MatchState {
+        final String requestId;
+        final Rule rule;
+        final String[] names;
+        final String[] values;
+        final AhoCorasick automaton;
+        // 没有放入自动机的参数值下标，每段内容单独查找
+        final int[] fallback;
+        int state = AhoCorasick.ROOT;
+
+        MatchState(String requestId, Rule rule, Map<String, String[]> parameterMap) {
+            this.requestId = requestId;
+            this.rule = rule;
+            // 与逐个参数检测时相同，最多检测 max_detection_num + 1 个满足长度和正则要求的参数值
+            List<String> names = new ArrayList<String>();
+            List<String> values = new ArrayList<String>();
+            outer:
+            for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                for (String value : entry.getValue()) {
+                    if (value != null && value.length() >= rule.minLength && rule.pattern.matcher(value).find()) {
+                        names.add(entry.getKey());
+                        values.add(value);
+                        if (values.size() > rule.maxDetectionNum) {
+                            break outer;
+                        }
                     }
-                    Pattern pattern = Pattern.compile(regex);
+                }
+            }
+            this.names = names.toArray(new String[0]);
+            this.values = values.toArray(new String[0]);
+            String[] patterns = new String[this.values.length];
+            int[] fallback = new int[this.values.length];
+            int fallbackCount = 0;
+            int totalLength = 0;
+            for (int i = 0; i < this.values.length; i++) {
+                int length = this.values[i].length();
+                if (length <= MAX_PATTERN_LENGTH && totalLength + length <= MAX_TOTAL_PATTERN_LENGTH) {
+                    patterns[i] = this.values[i];
+                    totalLength += length;
+                } else {
+                    fallback[fallbackCount++] = i;
+                }
+            }
+            this.automaton = totalLength > 0 ? new AhoCorasick(patterns) : null;
+            this.fallback = fallbackCount > 0 ? Arrays.copyOf(fallback, fallbackCount) : null;
+        }
 
-                    int xssParameterLength = getIntElement(config, CONFIG_KEY_XSS_USER_INPUT, XSS_PARAMETER_LENGTH);
-                    if (xssParameterLength < 0) {
-                        xssParameterLength = DEFAULT_MIN_LENGTH;
+        /**
+         * 在 response body 的一段内容中查找参数值，上一段末尾未完成的匹配会继续进行
+         *
+         * @param content response body 的一段内容
+         * @return 找到的参数值中下标最小的一个，没有找到返回 -1
+         */
+        int match(String content) {
+            int found = -1;
+            if (automaton != null) {
+                int s = state;
+                for (int i = 0; i < content.length(); i++) {
+                    s = automaton.next(s, content.charAt(i));
+                    int index = automaton.getMatch(s);
+                    if (index >= 0 && (found < 0 || index < found)) {
+                        found = index;
                     }
-                    int exceedLengthCount = getIntElement(config, CONFIG_KEY_XSS_USER_INPUT, EXCEED_LENGTH_COUNT);
-                    if (exceedLengthCount < 0) {
-                        exceedLengthCount = DEFAULT_MAX_DETECTION_NUM;
+                }
+                state = s;
+            }
+            if (fallback != null) {
+                for (int index : fallback) {
+                    if (found >= 0 && found < index) {
+                        break;
                     }
-                    int count = 0;
-                    for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
-                        for (String value : entry.getValue()) {
-                            Matcher matcher = pattern.matcher(value);
-                            boolean isMatch = matcher.find();
-                            if (value.length() >= xssParameterLength && isMatch) {
-                                count++;
-                                if (content.contains(value)) {
-                                    if ("websphere".equals(ApplicationModel.getServerName())) {
-                                        Reflection.invokeMethod(HookHandler.responseCache.get(), "resetBuffer", new Class[]{});
-                                    }
-                                    String message = "Reflected XSS attack detected, parameter name: " + entry.getKey();
-                                    Map<String, Object> params = (Map<String, Object>) checkParameter.getParams();
-                                    params.remove("content");
-                                    params.put("name", entry.getKey());
-                                    params.put("value", value);
-                                    result.add(AttackInfo.createLocalAttackInfo(checkParameter, action, message, CONFIG_KEY_XSS_USER_INPUT));
-                                    return result;
-                                }
-                                if (count > exceedLengthCount) {
-                                    return result;
-                                }
-                            }
-                        }
+                    if (content.contains(values[index])) {
+                        found = index;
+                        break;
                     }
                 }
             }
+            return found;
         }
-        return result;
     }
 }
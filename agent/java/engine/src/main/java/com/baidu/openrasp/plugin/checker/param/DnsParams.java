@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.checker.param;
+
+import com.jsoniter.output.JsonStream;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * dns 检测参数
+ */
+public class DnsParams extends TypedParams {
+
+    private static final ThreadLocal<DnsParams> pool = new ThreadLocal<DnsParams>() {
+        @Override
+        protected DnsParams initialValue() {
+            return new DnsParams();
+        }
+    };
+
+    private String host;
+
+    public static DnsParams acquire(String host) {
+        DnsParams params = acquire(pool);
+        params.host = host;
+        return params;
+    }
+
+    @Override
+    protected TypedParams newInstance() {
+        return new DnsParams();
+    }
+
+    @Override
+    protected void writeFields(JsonStream stream) throws IOException {
+        stream.writeObjectField("host");
+        stream.writeVal(host);
+    }
+
+    @Override
+    protected void fillMap(Map<String, Object> map) {
+        map.put("host", host);
+    }
+
+    @Override
+    protected void clearFields() {
+        host = null;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.checker.param;
+
+import com.jsoniter.output.JsonStream;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * readFile、writeFile 检测参数
+ */
+public class FileParams extends TypedParams {
+
+    private static final ThreadLocal<FileParams> pool = new ThreadLocal<FileParams>() {
+        @Override
+        protected FileParams initialValue() {
+            return new FileParams();
+        }
+    };
+
+    private String path;
+    private String realpath;
+    private List<String> stack;
+
+    public static FileParams acquire(String path, String realpath) {
+        return acquire(path, realpath, null);
+    }
+
+    public static FileParams acquire(String path, String realpath, List<String> stack) {
+        FileParams params = acquire(pool);
+        params.path = path;
+        params.realpath = realpath;
+        params.stack = stack;
+        return params;
+    }
+
+    @Override
+    protected TypedParams newInstance() {
+        return new FileParams();
+    }
+
+    @Override
+    protected void writeFields(JsonStream stream) throws IOException {
+        stream.writeObjectField("path");
+        stream.writeVal(path);
+        stream.writeMore();
+        stream.writeObjectField("realpath");
+        stream.writeVal(realpath);
+        if (stack != null) {
+            stream.writeMore();
+            stream.writeObjectField("stack");
+            writeStringList(stream, stack);
+        }
+    }
+
+    @Override
+    protected void fillMap(Map<String, Object> map) {
+        map.put("path", path);
+        map.put("realpath", realpath);
+        if (stack != null) {
+            map.put("stack", stack);
+        }
+    }
+
+    @Override
+    protected void clearFields() {
+        path = null;
+        realpath = null;
+        stack = null;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.checker.param;
+
+import com.jsoniter.output.JsonStream;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * sql 检测参数
+ */
+public class SqlParams extends TypedParams {
+
+    private static final ThreadLocal<SqlParams> pool = new ThreadLocal<SqlParams>() {
+        @Override
+        protected SqlParams initialValue() {
+            return new SqlParams();
+        }
+    };
+
+    private String server;
+    private String query;
+
+    public static SqlParams acquire(String server, String query) {
+        SqlParams params = acquire(pool);
+        params.server = server;
+        params.query = query;
+        return params;
+    }
+
+    @Override
+    protected TypedParams newInstance() {
+        return new SqlParams();
+    }
+
+    @Override
+    protected void writeFields(JsonStream stream) throws IOException {
+        stream.writeObjectField("server");
+        stream.writeVal(server);
+        stream.writeMore();
+        stream.writeObjectField("query");
+        stream.writeVal(query);
+    }
+
+    @Override
+    protected void fillMap(Map<String, Object> map) {
+        map.put("server", server);
+        map.put("query", query);
+    }
+
+    @Override
+    protected void clearFields() {
+        server = null;
+        query = null;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.checker.param;
+
+import com.jsoniter.spi.JsonException;
+import com.jsoniter.output.JsonStream;
+import com.jsoniter.output.JsonStreamPool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按检测类型定义字段的检测参数
+ * <p>
+ * 传给 V8 时直接把字段写成 json，不再经过 HashMap 和反射序列化；
+ * 只有本地检测、日志等需要 Map 的地方才会按需生成 Map 视图。
+ * 实例按线程复用，hook 点在检测结束后需要调用 {@link #release()} 归还。
+ */
+public abstract class TypedParams extends AbstractMap<String, Object> {
+
+    private HashMap<String, Object> view;
+    private boolean inUse;
+
+    /**
+     * 从线程缓存中取出一个空闲实例，如果线程缓存的实例正在使用中则新建一个实例
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T extends TypedParams> T acquire(ThreadLocal<T> pool) {
+        TypedParams params = pool.get();
+        if (params.inUse) {
+            params = params.newInstance();
+        }
+        params.inUse = true;
+        return (T) params;
+    }
+
+    /**
+     * 检测结束后归还实例
+     */
+    public void release() {
+        view = null;
+        clearFields();
+        inUse = false;
+    }
+
+    /**
+     * 将参数写为 json 对象
+     *
+     * @param out 输出流
+     */
+    public void writeJson(OutputStream out) {
+        if (view != null) {
+            // Map 视图可能已被修改，以视图为准
+            JsonStream.serialize(view, out);
+            return;
+        }
+        JsonStream stream = JsonStreamPool.borrowJsonStream();
+        try {
+            stream.reset(out);
+            stream.writeObjectStart();
+            writeFields(stream);
+            stream.writeObjectEnd();
+            stream.flush();
+        } catch (IOException e) {
+            throw new JsonException(e);
+        } finally {
+            JsonStreamPool.returnJsonStream(stream);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return asMap().entrySet();
+    }
+
+    @Override
+    public Object get(Object key) {
+        return asMap().get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return asMap().put(key, value);
+    }
+
+    private Map<String, Object> asMap() {
+        if (view == null) {
+            view = new HashMap<String, Object>();
+            fillMap(view);
+        }
+        return view;
+    }
+
+    protected static void writeStringList(JsonStream stream, List<String> list) throws IOException {
+        stream.writeArrayStart();
+        boolean first = true;
+        for (String item : list) {
+            if (!first) {
+                stream.writeMore();
+            }
+            stream.writeVal(item);
+            first = false;
+        }
+        stream.writeArrayEnd();
+    }
+
+    protected abstract TypedParams newInstance();
+
+    /**
+     * 写出 json 对象的所有字段，不包含首尾的大括号
+     */
+    protected abstract void writeFields(JsonStream stream) throws IOException;
+
+    /**
+     * 生成 Map 视图
+     */
+    protected abstract void fillMap(Map<String, Object> map);
+
+    protected abstract void clearFields();
+}
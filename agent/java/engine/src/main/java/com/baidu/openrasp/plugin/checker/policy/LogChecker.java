@@ -22,11 +22,9 @@ import com.baidu.openrasp.messaging.LogTool;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import com.baidu.openrasp.plugin.info.EventInfo;
 import com.baidu.openrasp.plugin.info.SecurityPolicyInfo;
-import com.baidu.openrasp.tool.LRUCache;
-import com.baidu.openrasp.tool.OSUtil;
 
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,7 +35,13 @@ import java.util.regex.Pattern;
  */
 public class LogChecker extends PolicyChecker {
 
-    private static LRUCache<String, Object> logCache = new LRUCache<String, Object>(100);
+    /**
+     * 计算调用位置时最多使用的栈帧数量
+     */
+    private static final int MAX_CALL_SITE_FRAMES = 32;
+
+    private static final CallSiteSet reportedCallSites = new CallSiteSet(256);
+    private static volatile Scanner scanner = null;
 
     public LogChecker(boolean canBlock) {
         super(canBlock);
@@ -49,32 +53,30 @@ public class LogChecker extends PolicyChecker {
         String logMessage = (String) checkParameter.getParam("message");
         if (logMessage != null) {
             try {
-                Map<String, String> logRegexes = Config.getConfig().getLogSensitiveRegex();
-                if (logRegexes != null) {
-                    for (Map.Entry<String, String> element : logRegexes.entrySet()) {
-                        String type = element.getKey();
-                        String regex = element.getValue();
-                        String md5 = null;
-                        try {
-                            md5 = OSUtil.getDigestMd5(stringify(new Throwable().getStackTrace()) + regex);
-                        } catch (NoSuchAlgorithmException e) {
-                            // ignore
+                Scanner current = getScanner(Config.getConfig().getLogSensitiveRegex());
+                if (current != null) {
+                    long callSite = 0;
+                    for (int i = 0; i < current.patterns.length; i++) {
+                        Matcher matcher = current.patterns[i].matcher(logMessage);
+                        if (!matcher.find()) {
+                            continue;
+                        }
+                        // 只有日志内容命中时才计算调用位置，同一个调用位置的同一条正则只报警一次，
+                        // 按正则内容而不是下标区分，配置更新后正则的顺序变化不影响去重
+                        if (callSite == 0) {
+                            callSite = getCallSite(checkParameter.getStackTrace());
                         }
-                        if (md5 != null && !logCache.isContainsKey(md5)) {
-                            Pattern pattern = Pattern.compile(regex);
-                            Matcher matcher = pattern.matcher(logMessage);
-                            while (matcher.find()) {
-                                logCache.put(md5, null);
-                                String sensitiveData = matcher.group(0);
-                                sensitiveData = maskSensitiveData(sensitiveData);
-                                String message = type + " detected in the log message, value is: " + sensitiveData;
-                                HashMap<String, Object> params = new HashMap<String, Object>(7);
-                                params.put("type", type);
-                                params.put("message", type);
-                                result.add(new SecurityPolicyInfo(SecurityPolicyInfo.Type.SENSITIVE_LOG,
-                                        message, false, checkParameter.getParams()));
-                            }
+                        if (!reportedCallSites.add(callSite * 1000003 + current.regexHashes[i])) {
+                            continue;
                         }
+                        String type = current.types[i];
+                        do {
+                            String sensitiveData = matcher.group(0);
+                            sensitiveData = maskSensitiveData(sensitiveData);
+                            String message = type + " detected in the log message, value is: " + sensitiveData;
+                            result.add(new SecurityPolicyInfo(SecurityPolicyInfo.Type.SENSITIVE_LOG,
+                                    message, false, checkParameter.getParams()));
+                        } while (matcher.find());
                     }
                 }
             } catch (Exception e) {
@@ -85,6 +87,33 @@ public class LogChecker extends PolicyChecker {
         return result;
     }
 
+    private static Scanner getScanner(Map<String, String> logRegexes) {
+        if (logRegexes == null || logRegexes.isEmpty()) {
+            return null;
+        }
+        Scanner current = scanner;
+        if (current == null || current.source != logRegexes) {
+            current = new Scanner(logRegexes);
+            scanner = current;
+        }
+        return current;
+    }
+
+    /**
+     * 根据栈顶的若干个栈帧计算调用位置标识，不拼接字符串，也不计算 md5
+     */
+    private static long getCallSite(StackTraceElement[] trace) {
+        long hash = 1;
+        int count = Math.min(trace.length, MAX_CALL_SITE_FRAMES);
+        for (int i = 0; i < count; i++) {
+            StackTraceElement element = trace[i];
+            hash = hash * 1000003 + element.getClassName().hashCode();
+            hash = hash * 1000003 + element.getMethodName().hashCode();
+            hash = hash * 1000003 + element.getLineNumber();
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
     private String maskSensitiveData(String data) {
         StringBuilder maskData = new StringBuilder(data);
         if (data.length() >= 3) {
@@ -96,11 +125,59 @@ public class LogChecker extends PolicyChecker {
         return maskData.toString();
     }
 
-    private String stringify(StackTraceElement[] trace) {
-        StringBuilder sb = new StringBuilder();
-        for (StackTraceElement element : trace) {
-            sb.append(element.toString());
+    /**
+     * 预编译的敏感信息正则，log_regex.regex 配置更新后重新编译
+     */
+    private static class Scanner {
+        final Map<String, String> source;
+        final String[] types;
+        final Pattern[] patterns;
+        final long[] regexHashes;
+
+        Scanner(Map<String, String> source) {
+            this.source = source;
+            List<String> types = new ArrayList<String>(source.size());
+            List<Pattern> patterns = new ArrayList<Pattern>(source.size());
+            for (Map.Entry<String, String> element : source.entrySet()) {
+                try {
+                    patterns.add(Pattern.compile(element.getValue()));
+                    types.add(element.getKey());
+                } catch (Exception e) {
+                    LogTool.warn(ErrorType.PLUGIN_ERROR, "failed to compile log regex " + element.getKey()
+                            + ": " + e.getMessage(), e);
+                }
+            }
+            this.types = types.toArray(new String[0]);
+            this.patterns = patterns.toArray(new Pattern[0]);
+            this.regexHashes = new long[this.patterns.length];
+            for (int i = 0; i < regexHashes.length; i++) {
+                regexHashes[i] = this.patterns[i].pattern().hashCode();
+            }
+        }
+    }
+
+    /**
+     * 定长的已报警调用位置集合，按 hash 直接映射到槽位，冲突时覆盖旧的记录
+     */
+    private static class CallSiteSet {
+        private final AtomicLongArray slots;
+        private final int mask;
+
+        CallSiteSet(int capacity) {
+            this.slots = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        /**
+         * @return 集合中原来不存在该记录时返回 true
+         */
+        boolean add(long key) {
+            int index = (int) ((key ^ (key >>> 32)) * 0x9E3779B9L >>> 16) & mask;
+            if (slots.get(index) == key) {
+                return false;
+            }
+            slots.set(index, key);
+            return true;
         }
-        return sb.toString();
     }
 }
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.info;
+
+import com.baidu.openrasp.tool.model.NicModel;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 报警日志的流式 json 编码
+ * <p>
+ * 报警字段直接写入线程内复用的缓冲区，不再为每条报警构建 HashMap 再交给 Gson 反射序列化。
+ * 输出与默认配置的 Gson 一致：对象中值为 null 的字段不输出，字符串按 Gson 的 html 安全规则转义，
+ * 无法识别的类型交给共享的 Gson 实例处理
+ */
+public class AlarmJsonWriter implements EventInfo.InfoSink {
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final Gson GSON = new Gson();
+    private static final String[] REPLACEMENT_CHARS;
+
+    static {
+        REPLACEMENT_CHARS = new String[128];
+        for (int i = 0; i <= 0x1f; i++) {
+            REPLACEMENT_CHARS[i] = String.format("\\u%04x", i);
+        }
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+        REPLACEMENT_CHARS['<'] = "\\u003c";
+        REPLACEMENT_CHARS['>'] = "\\u003e";
+        REPLACEMENT_CHARS['&'] = "\\u0026";
+        REPLACEMENT_CHARS['='] = "\\u003d";
+        REPLACEMENT_CHARS['\''] = "\\u0027";
+    }
+
+    private static final ThreadLocal<AlarmJsonWriter> WRITERS = new ThreadLocal<AlarmJsonWriter>() {
+        @Override
+        protected AlarmJsonWriter initialValue() {
+            return new AlarmJsonWriter();
+        }
+    };
+
+    private StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+    private boolean firstField;
+    private boolean inUse;
+
+    /**
+     * 获取当前线程的编码器并开始一个 json 对象，编码结束后必须调用 {@link #finish()}
+     *
+     * @return 编码器
+     */
+    static AlarmJsonWriter begin() {
+        AlarmJsonWriter writer = WRITERS.get();
+        if (writer.inUse) {
+            // 编码过程中再次进入，使用临时的编码器
+            writer = new AlarmJsonWriter();
+        }
+        writer.inUse = true;
+        writer.buffer.setLength(0);
+        writer.buffer.append('{');
+        writer.firstField = true;
+        return writer;
+    }
+
+    /**
+     * 结束 json 对象并返回编码结果
+     *
+     * @return json 字符串
+     */
+    String finish() {
+        buffer.append('}');
+        String json = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(INITIAL_CAPACITY);
+        }
+        inUse = false;
+        return json;
+    }
+
+    /**
+     * 放弃当前的编码结果
+     */
+    void abort() {
+        inUse = false;
+    }
+
+    /**
+     * 将任意对象编码为 json 字符串，输出与 Gson 一致
+     *
+     * @param value 待编码的对象
+     * @return json 字符串
+     */
+    public static String toJson(Object value) {
+        AlarmJsonWriter writer = new AlarmJsonWriter();
+        writer.writeValue(value);
+        return writer.buffer.toString();
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        if (value == null || value instanceof JsonNull) {
+            return;
+        }
+        if (!firstField) {
+            buffer.append(',');
+        }
+        firstField = false;
+        writeString(key);
+        buffer.append(':');
+        writeValue(value);
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            buffer.append("null");
+        } else if (value instanceof CharSequence) {
+            writeString(value.toString());
+        } else if (value instanceof Number) {
+            writeNumber((Number) value);
+        } else if (value instanceof Boolean) {
+            buffer.append(((Boolean) value).booleanValue());
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            buffer.append('[');
+            boolean first = true;
+            for (Object item : (Collection<?>) value) {
+                if (!first) {
+                    buffer.append(',');
+                }
+                first = false;
+                writeValue(item);
+            }
+            buffer.append(']');
+        } else if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            buffer.append('[');
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                writeValue(array[i]);
+            }
+            buffer.append(']');
+        } else if (value instanceof JsonElement) {
+            writeJsonElement((JsonElement) value);
+        } else if (value instanceof NicModel) {
+            NicModel nic = (NicModel) value;
+            buffer.append('{');
+            boolean first = true;
+            if (nic.getName() != null) {
+                buffer.append("\"name\":");
+                writeString(nic.getName());
+                first = false;
+            }
+            if (nic.getIp() != null) {
+                if (!first) {
+                    buffer.append(',');
+                }
+                buffer.append("\"ip\":");
+                writeString(nic.getIp());
+            }
+            buffer.append('}');
+        } else {
+            buffer.append(GSON.toJson(value));
+        }
+    }
+
+    private void writeMap(Map<?, ?> map) {
+        buffer.append('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null || value instanceof JsonNull) {
+                continue;
+            }
+            if (!first) {
+                buffer.append(',');
+            }
+            first = false;
+            writeString(String.valueOf(entry.getKey()));
+            buffer.append(':');
+            writeValue(value);
+        }
+        buffer.append('}');
+    }
+
+    private void writeJsonElement(JsonElement element) {
+        if (element.isJsonNull()) {
+            buffer.append("null");
+        } else if (element.isJsonPrimitive()) {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isString()) {
+                writeString(primitive.getAsString());
+            } else if (primitive.isBoolean()) {
+                buffer.append(primitive.getAsBoolean());
+            } else {
+                writeNumber(primitive.getAsNumber());
+            }
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            buffer.append('[');
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                writeJsonElement(array.get(i));
+            }
+            buffer.append(']');
+        } else {
+            JsonObject object = element.getAsJsonObject();
+            buffer.append('{');
+            boolean first = true;
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                if (entry.getValue() == null || entry.getValue().isJsonNull()) {
+                    continue;
+                }
+                if (!first) {
+                    buffer.append(',');
+                }
+                first = false;
+                writeString(entry.getKey());
+                buffer.append(':');
+                writeJsonElement(entry.getValue());
+            }
+            buffer.append('}');
+        }
+    }
+
+    private void writeNumber(Number number) {
+        if (number instanceof Double || number instanceof Float) {
+            double d = number.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                buffer.append("null");
+                return;
+            }
+        }
+        buffer.append(number.toString());
+    }
+
+    private void writeString(String value) {
+        buffer.append('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENT_CHARS[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == 0x2028) {
+                replacement = "\\u2028";
+            } else if (c == 0x2029) {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (last < i) {
+                buffer.append(value, last, i);
+            }
+            buffer.append(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            buffer.append(value, last, length);
+        }
+        buffer.append('"');
+    }
+}
@@ -20,18 +20,16 @@ import com.baidu.openrasp.cloud.model.CloudCacheModel;
 import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import com.baidu.openrasp.request.AbstractRequest;
-import com.baidu.openrasp.tool.OSUtil;
+import com.baidu.openrasp.tool.HostIdentity;
 import com.baidu.openrasp.tool.StackTrace;
+import com.baidu.openrasp.tool.TimeUtils;
 import com.baidu.openrasp.tool.decompile.Decompiler;
 import com.baidu.openrasp.tool.model.ApplicationModel;
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 import org.apache.commons.lang3.StringUtils;
 
-import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -86,6 +84,8 @@ public class AttackInfo extends EventInfo {
         this.params = params;
         this.extras = extras;
         setBlock(CHECK_ACTION_BLOCK.equals(action));
+        // 报警在日志框架中序列化，调用栈需要在检测流程中获取，不能等到 writeInfo 时再获取
+        parameter.getStackTrace();
     }
 
     public AttackInfo(CheckParameter parameter, String action, String message,
@@ -97,81 +97,102 @@ public class AttackInfo extends EventInfo {
         this.parameter = parameter;
         this.algorithm = algorithm;
         setBlock(CHECK_ACTION_BLOCK.equals(action));
+        parameter.getStackTrace();
     }
 
     /**
-     * 整理攻击请求的信息
+     * 整理攻击请求的信息，插件返回的扩展字段覆盖同名的内置字段，输出的 json 中不会出现重复的 key
      *
-     * @return 攻击信息
+     * @param sink 攻击信息的输出目标
      */
     @Override
-    public Map<String, Object> getInfo() {
-        Map<String, Object> info = new HashMap<String, Object>();
+    protected void writeInfo(final InfoSink sink) {
+        if (extras == null) {
+            writeAttackInfo(sink);
+            return;
+        }
+        writeAttackInfo(new InfoSink() {
+            @Override
+            public void put(String key, Object value) {
+                if (!extras.has(key)) {
+                    sink.put(key, value);
+                }
+            }
+        });
+        for (Entry<String, JsonElement> entry : extras.entrySet()) {
+            sink.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void writeAttackInfo(InfoSink sink) {
         AbstractRequest request = parameter.getRequest();
-        Timestamp createTime = new Timestamp(parameter.getCreateTime());
 
-        info.put("event_type", getType());
+        sink.put("event_type", getType());
         // 攻击时间
-        info.put("event_time", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(createTime));
+        sink.put("event_time", TimeUtils.formatEventTime(parameter.getCreateTime()));
         // 服务器 hostname
-        info.put("server_hostname", OSUtil.getHostName());
+        sink.put("server_hostname", HostIdentity.getHostName());
         // 攻击类型
-        info.put("attack_type", parameter.getType().toString());
+        sink.put("attack_type", parameter.getType().toString());
         // 攻击参数
         if (params == null) {
-            params = parameter.getParams();
-            params.put("stack", StackTrace.getStackTraceArray(true, true));
+            // 检测参数可能在检测结束后被 hook 点回收复用，这里保留一份拷贝
+            @SuppressWarnings("unchecked")
+            Map<String, Object> source = parameter.getParams();
+            Map<String, Object> copy = new HashMap<String, Object>(source);
+            copy.put("stack", StackTrace.getStackTraceArray(parameter.getStackTrace(), true, true));
+            params = copy;
         }
-        info.put("attack_params", params);
+        sink.put("attack_params", params);
         // 检测插件
-        info.put("plugin_name", this.pluginName);
+        sink.put("plugin_name", this.pluginName);
         // 插件消息
-        info.put("plugin_message", this.message);
+        sink.put("plugin_message", this.message);
         // 插件置信度
-        info.put("plugin_confidence", this.confidence);
+        sink.put("plugin_confidence", this.confidence);
         // 是否拦截
-        info.put("intercept_state", this.action);
+        sink.put("intercept_state", this.action);
         // 检测算法
-        info.put("plugin_algorithm", this.algorithm);
+        sink.put("plugin_algorithm", this.algorithm);
         if (Config.getConfig().getCloudSwitch()) {
             // raspId
-            info.put("rasp_id", CloudCacheModel.getInstance().getRaspId());
+            sink.put("rasp_id", CloudCacheModel.getInstance().getRaspId());
             // appId
-            info.put("app_id", Config.getConfig().getCloudAppId());
+            sink.put("app_id", Config.getConfig().getCloudAppId());
         }
         // 服务器ip
-        info.put("server_nic", OSUtil.getIpAddress());
+        sink.put("server_nic", HostIdentity.getNics());
         // 被攻击目标服务器类型和版本
-        info.put("server_type", ApplicationModel.getServerName());
-        info.put("server_version", ApplicationModel.getVersion());
+        sink.put("server_type", ApplicationModel.getServerName());
+        sink.put("server_version", ApplicationModel.getVersion());
         // Java反编译开关打开时，启用
         if (Config.getConfig().getDecompileEnable() && checkTomcatVersion()) {
             // 攻击调用栈
-            StackTraceElement[] trace = StackTrace.filter(new Throwable().getStackTrace());
-            info.put("source_code", Decompiler.getAlarmPoint(trace));
+            StackTraceElement[] trace = StackTrace.filter(parameter.getStackTrace());
+            sink.put("source_code", Decompiler.getAlarmPoint(trace));
         } else {
-            info.put("source_code", "");
+            sink.put("source_code", "");
         }
         if (request == null) {
             // 请求ID
-            info.put("request_id", UUID.randomUUID().toString().replace("-", ""));
+            sink.put("request_id", UUID.randomUUID().toString().replace("-", ""));
         } else {
             // 请求ID
-            info.put("request_id", request.getRequestId());
+            sink.put("request_id", request.getRequestId());
             // 攻击来源IP
-            info.put("attack_source", request.getRemoteAddr());
+            sink.put("attack_source", request.getRemoteAddr());
             // 攻击真实IP
-            info.put("client_ip", request.getClientIp());
+            sink.put("client_ip", request.getClientIp());
             // 被攻击目标域名
-            info.put("target", request.getServerName());
+            sink.put("target", request.getServerName());
             // 被攻击目标IP
-            info.put("server_ip", request.getLocalAddr());
+            sink.put("server_ip", request.getLocalAddr());
             // 请求 header
-            info.put("header", getRequestHeader(request));
+            sink.put("header", getRequestHeader(request));
             // 请求参数
-            info.put("parameter", getLogRequestParameter(request));
+            sink.put("parameter", getLogRequestParameter(request));
             // 请求体
-            info.put("body", "");
+            sink.put("body", "");
             if (request.getContentType() == null
                     || !(request.getContentType().contains("application/json")
                     || request.getContentType().contains("multipart/form-data")
@@ -180,24 +201,18 @@ public class AttackInfo extends EventInfo {
                 if (body == null) {
                     body = "";
                 }
-                info.put("body", body);
+                sink.put("body", body);
             }
             // 被攻击URL
             StringBuffer requestURL = request.getRequestURL();
             String queryString = request.getQueryString();
-            info.put("url", requestURL == null ? "" : (queryString != null ? requestURL + "?" + queryString : requestURL));
+            sink.put("url", requestURL == null ? "" : (queryString != null ? requestURL + "?" + queryString : requestURL));
             // 被攻击PATH
-            info.put("path", request.getRequestURI());
+            sink.put("path", request.getRequestURI());
             // 请求方法
             String method = request.getMethod();
-            info.put("request_method", method != null ? method.toLowerCase() : null);
+            sink.put("request_method", method != null ? method.toLowerCase() : null);
         }
-        if (extras != null) {
-            for (Entry<String, JsonElement> entry : extras.entrySet()) {
-                info.put(entry.getKey(), entry.getValue());
-            }
-        }
-        return info;
     }
 
     private Map<String, String> getLogRequestParameter(AbstractRequest request) {
@@ -214,12 +229,12 @@ public class AttackInfo extends EventInfo {
         } else {
             List fileItems = request.getFileParamCache();
             if (fileItems != null) {
-                parameters.put("multipart", new Gson().toJson(fileItems));
+                parameters.put("multipart", AlarmJsonWriter.toJson(fileItems));
             }
         }
         Map formMap = request.getParameterMap();
         if (formMap != null) {
-            parameters.put("form", new Gson().toJson(formMap));
+            parameters.put("form", AlarmJsonWriter.toJson(formMap));
         }
         return parameters;
     }
@@ -251,6 +266,14 @@ public class AttackInfo extends EventInfo {
         return confidence;
     }
 
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public CheckParameter getParameter() {
+        return parameter;
+    }
+
     public void setMessage(String message) {
         this.message = message;
     }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.info;
+
+import com.baidu.openrasp.cloud.model.CloudCacheModel;
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.tool.HostIdentity;
+import com.baidu.openrasp.tool.TimeUtils;
+import com.baidu.openrasp.tool.model.ApplicationModel;
+
+import java.util.List;
+
+/**
+ * 攻击报警聚合的汇总信息
+ * <p>
+ * 同一类攻击在聚合窗口内第一次出现时输出完整报警，之后被合并的报警在窗口结束时汇总输出一条，
+ * 记录窗口内的报警总数（包含第一条完整报警）、首末时间以及部分请求 ID
+ */
+public class AttackSummaryInfo extends EventInfo {
+    public static final String TYPE_ATTACK_SUMMARY = "attack_summary";
+
+    private final String attackType;
+    private final String pluginName;
+    private final String algorithm;
+    private final String action;
+    private final String path;
+    private final String callSite;
+    private final int count;
+    private final long firstTime;
+    private final long lastTime;
+    private final List<String> requestIds;
+
+    public AttackSummaryInfo(String attackType, String pluginName, String algorithm, String action, String path,
+                             String callSite, int count, long firstTime, long lastTime, List<String> requestIds) {
+        this.attackType = attackType;
+        this.pluginName = pluginName;
+        this.algorithm = algorithm;
+        this.action = action;
+        this.path = path;
+        this.callSite = callSite;
+        this.count = count;
+        this.firstTime = firstTime;
+        this.lastTime = lastTime;
+        this.requestIds = requestIds;
+        setBlock(CHECK_ACTION_BLOCK.equals(action));
+    }
+
+    @Override
+    public String getType() {
+        return TYPE_ATTACK_SUMMARY;
+    }
+
+    @Override
+    protected void writeInfo(InfoSink sink) {
+        sink.put("event_type", getType());
+        sink.put("event_time", TimeUtils.formatEventTime(System.currentTimeMillis()));
+        sink.put("server_hostname", HostIdentity.getHostName());
+        sink.put("server_nic", HostIdentity.getNics());
+        sink.put("server_type", ApplicationModel.getServerName());
+        sink.put("server_version", ApplicationModel.getVersion());
+        if (Config.getConfig().getCloudSwitch()) {
+            sink.put("rasp_id", CloudCacheModel.getInstance().getRaspId());
+            sink.put("app_id", Config.getConfig().getCloudAppId());
+        }
+        sink.put("attack_type", attackType);
+        sink.put("plugin_name", pluginName);
+        sink.put("plugin_algorithm", algorithm);
+        sink.put("intercept_state", action);
+        sink.put("path", path);
+        sink.put("call_site", callSite);
+        // 窗口内的报警总数，包含第一条完整报警，count - 1 条被合并
+        sink.put("count", count);
+        sink.put("first_time", TimeUtils.formatEventTime(firstTime));
+        sink.put("last_time", TimeUtils.formatEventTime(lastTime));
+        sink.put("request_ids", requestIds);
+    }
+}
@@ -20,7 +20,6 @@ import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.messaging.ErrorType;
 import com.baidu.openrasp.messaging.LogTool;
 import com.baidu.openrasp.request.AbstractRequest;
-import com.google.gson.Gson;
 
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -40,9 +39,32 @@ public abstract class EventInfo {
 
     private boolean isBlock = false;
 
+    /**
+     * 报警字段的输出目标，getInfo 输出到 map，toString 直接编码为 json
+     */
+    protected interface InfoSink {
+        void put(String key, Object value);
+    }
+
     public abstract String getType();
 
-    public abstract Map<String, Object> getInfo();
+    /**
+     * 按顺序输出报警字段
+     *
+     * @param sink 输出目标
+     */
+    protected abstract void writeInfo(InfoSink sink);
+
+    public Map<String, Object> getInfo() {
+        final Map<String, Object> info = new HashMap<String, Object>();
+        writeInfo(new InfoSink() {
+            @Override
+            public void put(String key, Object value) {
+                info.put(key, value);
+            }
+        });
+        return info;
+    }
 
     public boolean isBlock() {
         return isBlock;
@@ -56,8 +78,13 @@ public abstract class EventInfo {
     public String toString() {
         try {
             if (json == null) {
-                Map<String, Object> info = getInfo();
-                json = new Gson().toJson(info);
+                AlarmJsonWriter writer = AlarmJsonWriter.begin();
+                try {
+                    writeInfo(writer);
+                    json = writer.finish();
+                } finally {
+                    writer.abort();
+                }
             }
             return json;
         } catch (Throwable t) {
@@ -18,11 +18,10 @@ package com.baidu.openrasp.plugin.info;
 
 import com.baidu.openrasp.cloud.model.CloudCacheModel;
 import com.baidu.openrasp.config.Config;
-import com.baidu.openrasp.tool.OSUtil;
+import com.baidu.openrasp.tool.HostIdentity;
+import com.baidu.openrasp.tool.TimeUtils;
 import com.google.gson.Gson;
 
-import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -57,18 +56,17 @@ public class ExceptInfo {
 
     public Map<String, Object> getInfo() {
         Map<String, Object> info = new HashMap<String, Object>();
-        Timestamp createTime = new Timestamp(this.createTime);
 
         info.put("pid", this.pid);
-        info.put("event_time", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(createTime));
+        info.put("event_time", TimeUtils.formatEventTime(this.createTime));
         info.put("rasp_id", CloudCacheModel.getInstance().getRaspId());
         info.put("app_id", this.appId);
         info.put("level", this.level);
         info.put("error_code", this.errorCode);
         info.put("message", this.message);
         info.put("stack_trace", this.stackTrace);
-        info.put("server_hostname", OSUtil.getHostName());
-        info.put("server_nic", OSUtil.getIpAddress());
+        info.put("server_hostname", HostIdentity.getHostName());
+        info.put("server_nic", HostIdentity.getNics());
         return info;
     }
 
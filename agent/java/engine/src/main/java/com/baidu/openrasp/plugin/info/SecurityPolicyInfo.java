@@ -18,12 +18,11 @@ package com.baidu.openrasp.plugin.info;
 
 import com.baidu.openrasp.cloud.model.CloudCacheModel;
 import com.baidu.openrasp.config.Config;
-import com.baidu.openrasp.tool.OSUtil;
+import com.baidu.openrasp.tool.HostIdentity;
 import com.baidu.openrasp.tool.StackTrace;
+import com.baidu.openrasp.tool.TimeUtils;
 import com.baidu.openrasp.tool.model.ApplicationModel;
 
-import java.text.SimpleDateFormat;
-import java.util.HashMap;
 import java.util.Map;
 
 public class SecurityPolicyInfo extends EventInfo {
@@ -76,35 +75,32 @@ public class SecurityPolicyInfo extends EventInfo {
     }
 
     @Override
-    public Map<String, Object> getInfo() {
-        Map<String, Object> info = new HashMap<String, Object>();
-
-        info.put("event_type", getType());
-        info.put("event_time", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(System.currentTimeMillis()));
+    protected void writeInfo(InfoSink sink) {
+        sink.put("event_type", getType());
+        sink.put("event_time", TimeUtils.formatEventTime(System.currentTimeMillis()));
         // policy id
-        info.put("policy_id", this.policy.toString());
+        sink.put("policy_id", this.policy.toString());
         // 服务器host name
-        info.put("server_hostname", OSUtil.getHostName());
+        sink.put("server_hostname", HostIdentity.getHostName());
         // 服务器ip
-        info.put("server_nic", OSUtil.getIpAddress());
+        sink.put("server_nic", HostIdentity.getNics());
         // 服务器类型
-        info.put("server_type", ApplicationModel.getServerName());
+        sink.put("server_type", ApplicationModel.getServerName());
         // 服务器版本
-        info.put("server_version", ApplicationModel.getVersion());
+        sink.put("server_version", ApplicationModel.getVersion());
         // 安全规范检测信息
-        info.put("message", message);
+        sink.put("message", message);
         // 检测参数信息
         if (params != null) {
             params.put("stack", StackTrace.getStackTraceArray(false, true));
-            info.put("policy_params", params);
+            sink.put("policy_params", params);
         }
         if (Config.getConfig().getCloudSwitch()) {
             // raspId
-            info.put("rasp_id", CloudCacheModel.getInstance().getRaspId());
+            sink.put("rasp_id", CloudCacheModel.getInstance().getRaspId());
             // appId
-            info.put("app_id", Config.getConfig().getCloudAppId());
+            sink.put("app_id", Config.getConfig().getCloudAppId());
         }
-        return info;
     }
 
 }
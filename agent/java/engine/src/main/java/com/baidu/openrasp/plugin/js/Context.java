@@ -19,15 +19,14 @@ package com.baidu.openrasp.plugin.js;
 import com.baidu.openrasp.cloud.model.CloudCacheModel;
 import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.request.AbstractRequest;
-import com.baidu.openrasp.tool.OSUtil;
+import com.baidu.openrasp.request.RequestContextSnapshot;
+import com.baidu.openrasp.tool.HostIdentity;
 import com.baidu.openrasp.tool.model.ApplicationModel;
 import com.baidu.openrasp.tool.model.NicModel;
 import com.baidu.openrasp.v8.ByteArrayOutputStream;
 import com.jsoniter.output.JsonStream;
 
 import java.io.UnsupportedEncodingException;
-import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -100,7 +99,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public String getPath() {
         try {
-            return request.getRequestURI().toString();
+            return request.getContextSnapshot().getPath();
         } catch (Exception e) {
             return "";
         }
@@ -108,7 +107,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public String getMethod() {
         try {
-            return request.getMethod().toLowerCase().toString();
+            return request.getContextSnapshot().getMethod();
         } catch (Exception e) {
             return "";
         }
@@ -116,7 +115,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public String getUrl() {
         try {
-            return request.getRequestURL().toString().toString();
+            return request.getContextSnapshot().getUrl();
         } catch (Exception e) {
             return "";
         }
@@ -124,7 +123,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public String getQuerystring() {
         try {
-            return request.getQueryString().toString();
+            return request.getContextSnapshot().getQuerystring();
         } catch (Exception e) {
             return "";
         }
@@ -132,7 +131,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public String getAppBasePath() {
         try {
-            return request.getAppBasePath().toString();
+            return request.getContextSnapshot().getAppBasePath();
         } catch (Exception e) {
             return "";
         }
@@ -140,7 +139,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public String getProtocol() {
         try {
-            return request.getProtocol().toLowerCase().toString();
+            return request.getContextSnapshot().getProtocol();
         } catch (Exception e) {
             return "";
         }
@@ -148,7 +147,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public String getRemoteAddr() {
         try {
-            return request.getRemoteAddr().toString();
+            return request.getContextSnapshot().getRemoteAddr();
         } catch (Exception e) {
             return "";
         }
@@ -162,10 +161,9 @@ public class Context extends com.baidu.openrasp.v8.Context {
         }
     }
 
-    // TODO: update openrasp-v8, accept string body
     public byte[] getBody() {
         try {
-            return escape(request.getStringBody());
+            return request.getContextSnapshot().getBody();
         } catch (Exception e) {
             return null;
         }
@@ -173,47 +171,19 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public byte[] getJson() {
         try {
-            String contentType = request.getContentType();
-            if (contentType != null && contentType.contains("application/json")) {
-                return getBody();
-            }
-            return null;
+            return request.getContextSnapshot().getJson();
         } catch (Exception e) {
             return null;
         }
     }
 
     public byte[] escape(String src) throws UnsupportedEncodingException {
-        char j;
-        StringBuilder tmp = new StringBuilder();
-        for (int i = 0; i < src.length(); i++) {
-            j = src.charAt(i);
-            if (j < 256)
-                tmp.append(j);
-            else {
-                tmp.append("\\u");
-                tmp.append(Integer.toString(j, 16));
-            }
-        }
-        return tmp.toString().getBytes("UTF-8");
+        return RequestContextSnapshot.escape(src);
     }
 
     public byte[] getHeader() {
         try {
-            Enumeration<String> headerNames = request.getHeaderNames();
-            if (headerNames == null || !headerNames.hasMoreElements()) {
-                return null;
-            }
-            HashMap<String, String> headers = new HashMap<String, String>();
-            while (headerNames.hasMoreElements()) {
-                String key = headerNames.nextElement();
-                String value = request.getHeader(key);
-                headers.put(key.toLowerCase(), value);
-            }
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            JsonStream.serialize(headers, out);
-            out.write(0);
-            return out.getByteArray();
+            return request.getContextSnapshot().getHeader();
         } catch (Exception e) {
             return "{}".getBytes();
         }
@@ -221,14 +191,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public byte[] getParameter() {
         try {
-            Map<String, String[]> parameters = request.getParameterMap();
-            if (parameters == null || parameters.isEmpty()) {
-                return null;
-            }
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            JsonStream.serialize(parameters, out);
-            out.write(0);
-            return out.getByteArray();
+            return request.getContextSnapshot().getParameter();
         } catch (Exception e) {
             return null;
         }
@@ -264,7 +227,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public String getHostname() {
         try {
-            return OSUtil.getHostName();
+            return HostIdentity.getHostName();
         } catch (Exception e) {
             return "";
         }
@@ -272,7 +235,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public byte[] getNic() {
         try {
-            List<NicModel> nic = OSUtil.getIpAddress();
+            List<NicModel> nic = HostIdentity.getNics();
             ByteArrayOutputStream out = new ByteArrayOutputStream();
             JsonStream.serialize(nic, out);
             out.write(0);
@@ -283,16 +246,12 @@ public class Context extends com.baidu.openrasp.v8.Context {
     }
 
     public String getSource() {
-        try {
-            return request.getRemoteAddr();
-        } catch (Exception e) {
-            return "";
-        }
+        return getRemoteAddr();
     }
 
     public String getTarget() {
         try {
-            return request.getLocalAddr();
+            return request.getContextSnapshot().getTarget();
         } catch (Exception e) {
             return "";
         }
@@ -300,7 +259,7 @@ public class Context extends com.baidu.openrasp.v8.Context {
 
     public String getClientIp() {
         try {
-            return request.getClientIp();
+            return request.getContextSnapshot().getClientIp();
         } catch (Exception e) {
             return "";
         }
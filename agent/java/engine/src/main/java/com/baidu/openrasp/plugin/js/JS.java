@@ -24,12 +24,14 @@ import com.baidu.openrasp.messaging.ErrorType;
 import com.baidu.openrasp.messaging.LogTool;
 import com.baidu.openrasp.plugin.checker.CheckParameter;
 import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import com.baidu.openrasp.plugin.checker.param.TypedParams;
 import com.baidu.openrasp.plugin.info.AttackInfo;
 import com.baidu.openrasp.plugin.info.EventInfo;
 import com.baidu.openrasp.request.AbstractRequest;
 import com.baidu.openrasp.tool.StackTrace;
 import com.baidu.openrasp.tool.filemonitor.FileScanListener;
 import com.baidu.openrasp.tool.filemonitor.FileScanMonitor;
+import com.baidu.openrasp.tool.metrics.HookMetrics;
 import com.baidu.openrasp.tool.model.BuildRASPModel;
 import com.baidu.openrasp.v8.ByteArrayOutputStream;
 import com.baidu.openrasp.v8.V8;
@@ -49,6 +51,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class JS {
     public static final Logger PLUGIN_LOGGER = Logger.getLogger(JS.class.getPackage().getName() + ".log");
@@ -120,38 +123,62 @@ public class JS {
 
     public static List<EventInfo> Check(CheckParameter checkParameter) {
         Type type = checkParameter.getType();
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        JsonStream.serialize(checkParameter.getParams(), out);
-        out.write(0);
+        ParamOutputStream out = ParamOutputStream.acquire();
+        byte[] results = null;
+        long start = HookMetrics.now();
+        try {
+            Map params = checkParameter.getParams();
+            if (params instanceof TypedParams) {
+                ((TypedParams) params).writeJson(out);
+            } else {
+                JsonStream.serialize(params, out);
+            }
+            out.write(0);
+            start = HookMetrics.record(type, HookMetrics.Phase.SERIALIZE, start);
 
-        Object hashData = null;
-        if (type == Type.DIRECTORY || type == Type.READFILE || type == Type.WRITEFILE || type == Type.SQL
-                || type == Type.SSRF) {
-            byte[] paramData = out.getByteArray();
-            if (!Config.getConfig().getLruCompareEnable()) {
-                hashData = ByteBuffer.wrap(paramData).hashCode();
-            } else if (paramData.length <= Config.getConfig().getLruCompareLimit()) {
-                hashData = ByteBuffer.wrap(paramData);
+            Object hashData = null;
+            long cacheGeneration = 0;
+            if (VerdictCache.isCacheable(type)) {
+                if (!Config.getConfig().getLruCompareEnable()) {
+                    hashData = out.getHash();
+                } else if (out.size() <= Config.getConfig().getLruCompareLimit()) {
+                    hashData = out.view();
+                }
+                if (VerdictCache.contains(type, hashData)) {
+                    HookMetrics.incrementCacheHits(type);
+                    HookMetrics.record(type, HookMetrics.Phase.CACHE_LOOKUP, start);
+                    return null;
+                }
+                cacheGeneration = VerdictCache.getGeneration();
+                start = HookMetrics.record(type, HookMetrics.Phase.CACHE_LOOKUP, start);
             }
-            if (Config.commonLRUCache.isContainsKey(hashData)) {
+
+            long timeout = Config.getConfig().getPluginTimeout();
+            try {
+                results = V8.Check(type.getName(), out.getBuffer(), out.size(),
+                        new Context(checkParameter.getRequest()), (int) timeout);
+            } catch (Exception e) {
+                LogTool.error(ErrorType.PLUGIN_ERROR, e.getMessage(), e);
                 return null;
+            } finally {
+                long v8Start = start;
+                start = HookMetrics.record(type, HookMetrics.Phase.V8, start);
+                if (start != 0 && start - v8Start >= TimeUnit.MILLISECONDS.toNanos(timeout)) {
+                    HookMetrics.incrementTimeouts(type);
+                }
             }
-        }
 
-        byte[] results = null;
-        try {
-            results = V8.Check(type.getName(), out.getByteArray(), out.size(), new Context(checkParameter.getRequest()),
-                    (int) Config.getConfig().getPluginTimeout());
-        } catch (Exception e) {
-            LogTool.error(ErrorType.PLUGIN_ERROR, e.getMessage(), e);
-            return null;
-        }
-
-        if (results == null) {
-            if (hashData != null && Config.commonLRUCache.maxSize() != 0) {
-                Config.commonLRUCache.put(hashData, null);
+            if (results == null) {
+                if (hashData instanceof ByteBuffer) {
+                    hashData = out.copy();
+                }
+                if (hashData != null) {
+                    VerdictCache.put(type, hashData, cacheGeneration);
+                }
+                return null;
             }
-            return null;
+        } finally {
+            out.release();
         }
 
         try {
@@ -185,6 +212,7 @@ public class JS {
                             .add(new AttackInfo(checkParameter, action, message, name, confidence, algorithm, params, obj));
                 }
             }
+            HookMetrics.record(type, HookMetrics.Phase.RESULT_PARSE, start);
             return attackInfos;
         } catch (Exception e) {
             LOGGER.warn(e);
@@ -234,7 +262,7 @@ public class JS {
             } catch (Exception e) {
                 LogTool.error(ErrorType.PLUGIN_ERROR, e.getMessage(), e);
             }
-            Config.commonLRUCache.clear();
+            VerdictCache.invalidate();
         }
         return rst;
     }
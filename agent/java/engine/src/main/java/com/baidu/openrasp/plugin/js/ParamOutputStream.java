@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.js;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 传给 V8 的检测参数缓冲区
+ * <p>
+ * 每个线程复用同一个实例，写入时同时计算缓存 key 的 hash，
+ * 检测时直接把内部数组和长度交给 V8.Check，不再产生中间拷贝。
+ */
+public class ParamOutputStream extends OutputStream {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<ParamOutputStream> threadBuffer = new ThreadLocal<ParamOutputStream>() {
+        @Override
+        protected ParamOutputStream initialValue() {
+            return new ParamOutputStream();
+        }
+    };
+
+    private byte[] buf;
+    private int count;
+    private int hash;
+    private boolean inUse;
+
+    public ParamOutputStream() {
+        this.buf = new byte[INITIAL_CAPACITY];
+        reset();
+    }
+
+    /**
+     * 获取当前线程的缓冲区，如果当前线程的缓冲区正在被使用则返回一个新的实例
+     *
+     * @return 已清空的缓冲区，使用完后需要调用 {@link #release()}
+     */
+    public static ParamOutputStream acquire() {
+        ParamOutputStream out = threadBuffer.get();
+        if (out.inUse) {
+            out = new ParamOutputStream();
+        }
+        out.inUse = true;
+        out.reset();
+        return out;
+    }
+
+    /**
+     * 归还缓冲区，过大的内部数组不再保留
+     */
+    public void release() {
+        inUse = false;
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            buf = new byte[INITIAL_CAPACITY];
+        }
+        count = 0;
+    }
+
+    public void reset() {
+        count = 0;
+        hash = 1;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+        hash = 31 * hash + (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        int h = hash;
+        for (int i = off, end = off + len; i < end; i++) {
+            h = 31 * h + b[i];
+        }
+        hash = h;
+        count += len;
+    }
+
+    /**
+     * 内部数组，有效数据为 [0, size())
+     */
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 写入过程中增量计算的 hash
+     */
+    public int getHash() {
+        return hash;
+    }
+
+    /**
+     * 以内部数组为底层的视图，只在释放缓冲区之前有效，适合用于查询缓存
+     */
+    public ByteBuffer view() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    /**
+     * 有效数据的独立拷贝，适合作为缓存 key 长期保存
+     */
+    public ByteBuffer copy() {
+        return ByteBuffer.wrap(Arrays.copyOf(buf, count));
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > buf.length) {
+            int newCapacity = Math.max(buf.length << 1, minCapacity);
+            buf = Arrays.copyOf(buf, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.js;
+
+import com.baidu.openrasp.cloud.model.CloudCacheModel;
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import com.baidu.openrasp.tool.Cache;
+import com.baidu.openrasp.tool.ConcurrentLRUCache;
+import com.baidu.openrasp.tool.LRUCache;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按检测类型划分的插件放行结果缓存
+ * <p>
+ * 每个检测类型使用独立的缓存，大小默认为 lru.max_size，可以通过 lru.type_max_size 单独设置；
+ * 缓存项记录写入时的插件 md5、config_time 和插件版本号，插件或配置更新后旧的缓存项自动失效，
+ * 超过 lru.ttl 秒的缓存项也会失效。
+ */
+public class VerdictCache {
+
+    /**
+     * 允许缓存放行结果的检测类型
+     */
+    public static final EnumSet<Type> CACHEABLE_TYPES = EnumSet.of(Type.SQL, Type.DIRECTORY, Type.READFILE,
+            Type.WRITEFILE, Type.SSRF, Type.COMMAND, Type.INCLUDE, Type.XXE, Type.DESERIALIZATION, Type.DNS);
+
+    private static final AtomicLong generation = new AtomicLong(0);
+    private static volatile EnumMap<Type, TypeCache> caches = new EnumMap<Type, TypeCache>(Type.class);
+
+    public static boolean isCacheable(Type type) {
+        return CACHEABLE_TYPES.contains(type);
+    }
+
+    /**
+     * 获取当前插件版本号，在调用插件之前获取，写入缓存时传回，
+     * 避免检测过程中插件发生更新时把旧插件的结果写入缓存
+     *
+     * @return 插件版本号
+     */
+    public static long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * 查询缓存中是否有仍然有效的放行结果
+     *
+     * @param type 检测类型
+     * @param key  检测参数的缓存 key
+     * @return 是否命中
+     */
+    public static boolean contains(Type type, Object key) {
+        TypeCache cache = caches.get(type);
+        if (cache == null || key == null) {
+            return false;
+        }
+        Entry entry = cache.cache.get(key);
+        if (entry == null) {
+            cache.misses.incrementAndGet();
+            return false;
+        }
+        if (!entry.isValid(System.currentTimeMillis())) {
+            cache.expirations.incrementAndGet();
+            cache.misses.incrementAndGet();
+            return false;
+        }
+        cache.hits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 缓存放行结果
+     *
+     * @param type       检测类型
+     * @param key        检测参数的缓存 key
+     * @param generation 调用插件前获取的插件版本号
+     */
+    public static void put(Type type, Object key, long generation) {
+        TypeCache cache = caches.get(type);
+        if (cache == null || key == null || cache.cache.maxSize() == 0) {
+            return;
+        }
+        if (generation != VerdictCache.generation.get()) {
+            return;
+        }
+        CloudCacheModel model = CloudCacheModel.getInstance();
+        long ttl = Config.getConfig().getLruTtl() * 1000L;
+        long expireTime = ttl > 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE;
+        cache.cache.put(key, new Entry(model.getPluginMD5(), model.getConfigTime(), generation, expireTime));
+    }
+
+    /**
+     * 插件更新或缓存相关配置变化时，使所有缓存项失效
+     */
+    public static void invalidate() {
+        generation.incrementAndGet();
+        for (TypeCache cache : caches.values()) {
+            cache.cache.clear();
+        }
+    }
+
+    /**
+     * 按照当前的 lru.max_size、lru.type_max_size 和 lru.type 重建所有缓存
+     */
+    public static synchronized void rebuild() {
+        Config config = Config.getConfig();
+        Map<String, Integer> typeMaxSize = config.getLruTypeMaxSize();
+        EnumMap<Type, TypeCache> newCaches = new EnumMap<Type, TypeCache>(Type.class);
+        for (Type type : CACHEABLE_TYPES) {
+            int size = config.getSqlCacheCapacity();
+            if (typeMaxSize != null && typeMaxSize.get(type.getName()) != null) {
+                size = typeMaxSize.get(type.getName());
+            }
+            Cache<Object, Entry> cache;
+            if ("concurrent".equals(config.getLruType())) {
+                cache = new ConcurrentLRUCache<Object, Entry>(size);
+            } else {
+                cache = new LRUCache<Object, Entry>(size);
+            }
+            newCaches.put(type, new TypeCache(cache));
+        }
+        generation.incrementAndGet();
+        EnumMap<Type, TypeCache> oldCaches = caches;
+        caches = newCaches;
+        for (TypeCache cache : oldCaches.values()) {
+            cache.cache.clear();
+        }
+    }
+
+    /**
+     * 获取各检测类型的缓存统计信息
+     *
+     * @return 检测类型名称到统计项的映射
+     */
+    public static Map<String, Map<String, Long>> getStatistics() {
+        Map<String, Map<String, Long>> result = new TreeMap<String, Map<String, Long>>();
+        for (Map.Entry<Type, TypeCache> entry : caches.entrySet()) {
+            TypeCache cache = entry.getValue();
+            Map<String, Long> stat = new TreeMap<String, Long>();
+            stat.put("size", (long) cache.cache.realSize());
+            stat.put("max_size", (long) cache.cache.maxSize());
+            stat.put("hit", cache.hits.get());
+            stat.put("miss", cache.misses.get());
+            stat.put("eviction", cache.cache.getEvictionCount() + cache.expirations.get());
+            result.put(entry.getKey().getName(), stat);
+        }
+        return result;
+    }
+
+    private static class TypeCache {
+        final Cache<Object, Entry> cache;
+        final AtomicLong hits = new AtomicLong(0);
+        final AtomicLong misses = new AtomicLong(0);
+        final AtomicLong expirations = new AtomicLong(0);
+
+        TypeCache(Cache<Object, Entry> cache) {
+            this.cache = cache;
+        }
+    }
+
+    private static class Entry {
+        final String pluginMD5;
+        final long configTime;
+        final long generation;
+        final long expireTime;
+
+        Entry(String pluginMD5, long configTime, long generation, long expireTime) {
+            this.pluginMD5 = pluginMD5;
+            this.configTime = configTime;
+            this.generation = generation;
+            this.expireTime = expireTime;
+        }
+
+        boolean isValid(long now) {
+            CloudCacheModel model = CloudCacheModel.getInstance();
+            return now < expireTime
+                    && generation == VerdictCache.generation.get()
+                    && configTime == model.getConfigTime()
+                    && (pluginMD5 == null ? model.getPluginMD5() == null : pluginMD5.equals(model.getPluginMD5()));
+        }
+    }
+
+}
@@ -16,15 +16,14 @@
 
 package com.baidu.openrasp.request;
 
+import com.baidu.openrasp.cloud.model.HookWhiteModel;
 import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.messaging.ErrorType;
 import com.baidu.openrasp.messaging.LogTool;
 import com.baidu.openrasp.tool.Reflection;
 import org.apache.commons.lang3.StringUtils;
 
-import java.io.ByteArrayOutputStream;
 import java.io.CharArrayWriter;
-import java.io.UnsupportedEncodingException;
 import java.util.*;
 
 /**
@@ -33,18 +32,22 @@ import java.util.*;
  * 为不同服务器的不同请求hook点做出的统一格式抽象类
  */
 public abstract class AbstractRequest {
+    private static final int HOOK_WHITE_MASK_UNKNOWN = -1;
     protected static final Class[] EMPTY_CLASS = new Class[]{};
     protected static final Class[] STRING_CLASS = new Class[]{String.class};
     protected Object request;
     protected Object inputStream = null;
     protected Object charReader = null;
-    protected ByteArrayOutputStream bodyOutputStream = null;
+    protected BodyBuffer bodyBuffer = null;
     protected CharArrayWriter bodyWriter = null;
     protected int maxBodySize = 4096;
     protected String requestId;
     protected boolean canGetParameter = false;
     protected HashMap<String, String[]> formItemCache = null;
     protected LinkedList<RequestFileItem> fileParamCache = null;
+    protected RequestContextSnapshot contextSnapshot = null;
+    protected RequestSnapshot snapshot = null;
+    protected int hookWhiteMask = HOOK_WHITE_MASK_UNKNOWN;
 
     /**
      * constructor
@@ -99,6 +102,75 @@ public abstract class AbstractRequest {
      */
     public void setCanGetParameter(boolean canGetParameter) {
         this.canGetParameter = canGetParameter;
+        snapshot = null;
+        if (contextSnapshot != null) {
+            contextSnapshot.invalidateParameter();
+        }
+    }
+
+    /**
+     * 获取插件检测上下文字段的缓存，同一个请求的多次检测共享
+     *
+     * @return 请求上下文缓存
+     */
+    public RequestContextSnapshot getContextSnapshot() {
+        if (contextSnapshot == null) {
+            contextSnapshot = new RequestContextSnapshot(this);
+        }
+        return contextSnapshot;
+    }
+
+    /**
+     * 获取请求信息的只读快照，同一个请求的多次异步检测共享，
+     * 请求参数或者 body 发生变化后重新生成，已经生成的快照不受影响
+     *
+     * @return 请求信息快照
+     */
+    public RequestSnapshot getSnapshot() {
+        if (snapshot == null) {
+            snapshot = new RequestSnapshot(this);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 获取当前请求命中的 hook 白名单掩码，未初始化时现场计算
+     *
+     * @return 白名单掩码，每一位对应一种检测类型
+     */
+    public int getHookWhiteMask() {
+        int mask = hookWhiteMask;
+        if (mask == HOOK_WHITE_MASK_UNKNOWN) {
+            mask = initHookWhiteMask();
+        }
+        return mask;
+    }
+
+    /**
+     * 根据请求 url 计算命中的 hook 白名单掩码，请求进入时调用一次
+     *
+     * @return 白名单掩码，每一位对应一种检测类型
+     */
+    public int initHookWhiteMask() {
+        int mask = 0;
+        try {
+            StringBuffer sb = getRequestURL();
+            if (sb != null) {
+                String url = sb.substring(sb.indexOf("://") + 3);
+                mask = HookWhiteModel.getMatchedMask(url);
+            }
+        } catch (Exception e) {
+            LogTool.traceWarn(ErrorType.HOOK_ERROR, "white list check has failed: " + e.getMessage(), e);
+        }
+        hookWhiteMask = mask;
+        return mask;
+    }
+
+    private void invalidateContextBody() {
+        snapshot = null;
+        if (contextSnapshot != null) {
+            contextSnapshot.invalidateBody();
+        }
     }
 
     /**
@@ -108,6 +180,7 @@ public abstract class AbstractRequest {
      */
     public void setRequest(Object request) {
         this.request = request;
+        this.hookWhiteMask = HOOK_WHITE_MASK_UNKNOWN;
     }
 
     /**
@@ -290,7 +363,7 @@ public abstract class AbstractRequest {
      * @return request body, can be null
      */
     public byte[] getBody() {
-        return bodyOutputStream != null ? bodyOutputStream.toByteArray() : null;
+        return bodyBuffer != null ? bodyBuffer.toByteArray() : null;
     }
 
     /**
@@ -299,21 +372,8 @@ public abstract class AbstractRequest {
      * @return request body, can be null
      */
     public String getStringBody() {
-        if (bodyOutputStream != null) {
-            byte[] body = bodyOutputStream.toByteArray();
-            if (body != null) {
-                String encoding = getCharacterEncoding();
-                if (!StringUtils.isEmpty(encoding)) {
-                    try {
-                        return new String(body, encoding);
-                    } catch (UnsupportedEncodingException e) {
-                        return new String(body);
-                    }
-                } else {
-                    return new String(body);
-                }
-            }
-            return null;
+        if (bodyBuffer != null) {
+            return bodyBuffer.toString(getCharacterEncoding());
         } else if (bodyWriter != null) {
             return bodyWriter.toString();
         }
@@ -321,12 +381,21 @@ public abstract class AbstractRequest {
     }
 
     /**
-     * 返回HTTP request body stream
+     * 返回HTTP request body 缓冲区
      *
      * @return request body, can be null
      */
-    public ByteArrayOutputStream getBodyStream() {
-        return bodyOutputStream;
+    public BodyBuffer getBodyBuffer() {
+        return bodyBuffer;
+    }
+
+    /**
+     * 请求结束时归还 body 缓冲区占用的内存块
+     */
+    public void releaseBody() {
+        if (bodyBuffer != null) {
+            bodyBuffer.release();
+        }
     }
 
     /**
@@ -371,12 +440,13 @@ public abstract class AbstractRequest {
      * @param b 要添加的字节
      */
     public void appendByteBody(int b) {
-        if (bodyOutputStream == null) {
-            bodyOutputStream = new ByteArrayOutputStream();
+        if (bodyBuffer == null) {
+            bodyBuffer = new BodyBuffer(maxBodySize);
         }
 
-        if (bodyOutputStream.size() < maxBodySize) {
-            bodyOutputStream.write(b);
+        if (bodyBuffer.size() < maxBodySize) {
+            bodyBuffer.write(b);
+            invalidateContextBody();
         }
     }
 
@@ -388,13 +458,14 @@ public abstract class AbstractRequest {
      * @param len    要添加的长度
      */
     public void appendBody(byte[] bytes, int offset, int len) {
-        if (bodyOutputStream == null) {
-            bodyOutputStream = new ByteArrayOutputStream();
+        if (bodyBuffer == null) {
+            bodyBuffer = new BodyBuffer(maxBodySize);
         }
 
-        len = Math.min(len, maxBodySize - bodyOutputStream.size());
+        len = Math.min(len, maxBodySize - bodyBuffer.size());
         if (len > 0) {
-            bodyOutputStream.write(bytes, offset, len);
+            bodyBuffer.write(bytes, offset, len);
+            invalidateContextBody();
         }
     }
 
@@ -413,6 +484,7 @@ public abstract class AbstractRequest {
         len = Math.min(len, maxBodySize / 2 - bodyWriter.size());
         if (len > 0) {
             bodyWriter.write(cbuf, offset, len);
+            invalidateContextBody();
         }
     }
 
@@ -428,6 +500,7 @@ public abstract class AbstractRequest {
 
         if (bodyWriter.size() < (maxBodySize / 2)) {
             bodyWriter.write(b);
+            invalidateContextBody();
         }
     }
 
@@ -457,6 +530,10 @@ public abstract class AbstractRequest {
 
     public void setFormItemCache(HashMap<String, String[]> cache) {
         formItemCache = cache;
+        snapshot = null;
+        if (contextSnapshot != null) {
+            contextSnapshot.invalidateParameter();
+        }
     }
 
     public LinkedList<RequestFileItem> getFileParamCache() {
@@ -465,5 +542,6 @@ public abstract class AbstractRequest {
 
     public void setFileParamCache(LinkedList<RequestFileItem> fileParamCache) {
         this.fileParamCache = fileParamCache;
+        snapshot = null;
     }
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.request;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求 body 缓冲区
+ * <p>
+ * 由固定大小的池化内存块组成，总长度不超过 body.maxbytes，读取 body 时整块拷贝，不再逐字节扩容；
+ * 合并后的字节数组和解码后的字符串各只生成一次，追加数据后才重新生成；
+ * 请求结束时调用 {@link #release()} 将内存块归还到池中。
+ */
+public class BodyBuffer {
+
+    static final int SLAB_SIZE = 4096;
+    private static final int MAX_POOLED_SLABS = 256;
+    private static final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<byte[]>();
+    private static final AtomicInteger pooledCount = new AtomicInteger(0);
+
+    private final int limit;
+    private byte[][] slabs;
+    private int slabCount = 0;
+    private int size = 0;
+    private byte[] bytes = null;
+    private Boolean ascii = null;
+    private String string = null;
+    private String stringEncoding = null;
+    // 内存块已经归还到池中，之后写入的数据会被忽略
+    private boolean released = false;
+
+    /**
+     * @param limit 最大长度
+     */
+    public BodyBuffer(int limit) {
+        this.limit = Math.max(limit, 0);
+        this.slabs = new byte[(this.limit + SLAB_SIZE - 1) / SLAB_SIZE][];
+    }
+
+    private BodyBuffer(byte[] bytes) {
+        this.limit = bytes.length;
+        this.slabs = new byte[0][];
+        this.size = bytes.length;
+        this.bytes = bytes;
+    }
+
+    /**
+     * 创建一个与 body 内容相同的只读缓冲区，不占用池中的内存块，
+     * 用于在请求结束后仍需要访问 body 的场景
+     *
+     * @param body 原缓冲区
+     * @return 只读缓冲区
+     */
+    public static BodyBuffer readOnlyCopy(BodyBuffer body) {
+        return new BodyBuffer(body.toByteArray());
+    }
+
+    public void write(int b) {
+        if (released || size >= limit) {
+            return;
+        }
+        int index = size / SLAB_SIZE;
+        ensureSlab(index);
+        slabs[index][size % SLAB_SIZE] = (byte) b;
+        size++;
+        onChange();
+    }
+
+    public void write(byte[] b, int off, int len) {
+        if (released) {
+            return;
+        }
+        len = Math.min(len, limit - size);
+        if (len <= 0) {
+            return;
+        }
+        while (len > 0) {
+            int index = size / SLAB_SIZE;
+            int pos = size % SLAB_SIZE;
+            ensureSlab(index);
+            int n = Math.min(len, SLAB_SIZE - pos);
+            System.arraycopy(b, off, slabs[index], pos, n);
+            size += n;
+            off += n;
+            len -= n;
+        }
+        onChange();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取 body 的字节数组，追加数据之前多次调用返回同一个数组，调用方不能修改
+     *
+     * @return body 字节数组
+     */
+    public byte[] toByteArray() {
+        if (bytes == null) {
+            byte[] result = new byte[size];
+            int copied = 0;
+            for (int i = 0; i < slabCount && copied < size; i++) {
+                int n = Math.min(SLAB_SIZE, size - copied);
+                System.arraycopy(slabs[i], 0, result, copied, n);
+                copied += n;
+            }
+            bytes = result;
+        }
+        return bytes;
+    }
+
+    /**
+     * body 是否只包含 ASCII 字符
+     */
+    public boolean isAscii() {
+        if (ascii == null) {
+            boolean result = true;
+            byte[] data = toByteArray();
+            for (byte b : data) {
+                if (b < 0) {
+                    result = false;
+                    break;
+                }
+            }
+            ascii = result;
+        }
+        return ascii;
+    }
+
+    /**
+     * 按照给定编码解码 body，结果会被缓存
+     *
+     * @param encoding 编码，为空时使用平台默认编码
+     * @return 解码后的字符串
+     */
+    public String toString(String encoding) {
+        if (string == null || !StringUtils.equals(encoding, stringEncoding)) {
+            byte[] data = toByteArray();
+            String result;
+            if (!StringUtils.isEmpty(encoding)) {
+                try {
+                    result = new String(data, encoding);
+                } catch (UnsupportedEncodingException e) {
+                    result = new String(data);
+                }
+            } else {
+                result = new String(data);
+            }
+            string = result;
+            stringEncoding = encoding;
+        }
+        return string;
+    }
+
+    /**
+     * 将内存块归还到池中，之后缓冲区只保留已经生成的字节数组，并且不再接受写入，
+     * 否则后续写入会从池中取到其他请求用过的内存块
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        for (int i = 0; i < slabCount; i++) {
+            byte[] slab = slabs[i];
+            slabs[i] = null;
+            if (slab != null && pooledCount.incrementAndGet() <= MAX_POOLED_SLABS) {
+                pool.offer(slab);
+            } else {
+                pooledCount.decrementAndGet();
+            }
+        }
+        slabCount = 0;
+        if (bytes == null) {
+            // 内存块已归还，不能再从内存块中读取
+            bytes = new byte[0];
+        }
+        size = bytes.length;
+    }
+
+    private void ensureSlab(int index) {
+        while (slabCount <= index) {
+            byte[] slab = pool.poll();
+            if (slab != null) {
+                pooledCount.decrementAndGet();
+            } else {
+                slab = new byte[SLAB_SIZE];
+            }
+            slabs[slabCount++] = slab;
+        }
+    }
+
+    private void onChange() {
+        bytes = null;
+        ascii = null;
+        string = null;
+        stringEncoding = null;
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.request;
+
+import com.baidu.openrasp.v8.ByteArrayOutputStream;
+import com.jsoniter.output.JsonStream;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 插件检测上下文中请求相关字段的缓存
+ * <p>
+ * 每个字段在第一次被 V8 回调读取时计算一次，并保存为 V8 需要的最终形式(字符串或 json 字节)，
+ * 同一个请求中的多次检测共享计算结果；body 或请求参数发生变化时只清除受影响的字段。
+ * 只在请求线程中使用，不做同步；异步检测线程共享的请求快照通过 {@link #loadAll()} 提前计算全部字段。
+ */
+public class RequestContextSnapshot {
+
+    private static final int PATH = 1;
+    private static final int METHOD = 1 << 1;
+    private static final int URL = 1 << 2;
+    private static final int QUERYSTRING = 1 << 3;
+    private static final int APP_BASE_PATH = 1 << 4;
+    private static final int PROTOCOL = 1 << 5;
+    private static final int REMOTE_ADDR = 1 << 6;
+    private static final int TARGET = 1 << 7;
+    private static final int CLIENT_IP = 1 << 8;
+    private static final int BODY = 1 << 9;
+    private static final int JSON = 1 << 10;
+    private static final int HEADER = 1 << 11;
+    private static final int PARAMETER = 1 << 12;
+
+    /**
+     * ASCII 字符编码与 ASCII 相同的字符集
+     */
+    private static final String[] ASCII_COMPATIBLE_ENCODINGS = new String[]{"UTF-8", "UTF8", "ISO-8859-1",
+            "US-ASCII", "GBK", "GB2312", "GB18030"};
+
+    private final AbstractRequest request;
+    private int loaded = 0;
+
+    private String path;
+    private String method;
+    private String url;
+    private String querystring;
+    private String appBasePath;
+    private String protocol;
+    private String remoteAddr;
+    private String target;
+    private String clientIp;
+    private byte[] body;
+    private byte[] json;
+    private byte[] header;
+    private byte[] parameter;
+
+    RequestContextSnapshot(AbstractRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * 计算全部字段，之后所有 getter 只读取已经计算的结果，可以在多个线程中共享
+     *
+     * @return 当前对象
+     */
+    RequestContextSnapshot loadAll() {
+        getPath();
+        getMethod();
+        getUrl();
+        getQuerystring();
+        getAppBasePath();
+        getProtocol();
+        getRemoteAddr();
+        getTarget();
+        getClientIp();
+        getBody();
+        getJson();
+        getHeader();
+        getParameter();
+        return this;
+    }
+
+    /**
+     * body 发生变化
+     */
+    void invalidateBody() {
+        loaded &= ~(BODY | JSON);
+    }
+
+    /**
+     * 请求参数发生变化
+     */
+    void invalidateParameter() {
+        loaded &= ~PARAMETER;
+    }
+
+    public String getPath() {
+        if ((loaded & PATH) == 0) {
+            try {
+                path = request.getRequestURI().toString();
+            } catch (Exception e) {
+                path = "";
+            }
+            loaded |= PATH;
+        }
+        return path;
+    }
+
+    public String getMethod() {
+        if ((loaded & METHOD) == 0) {
+            try {
+                method = request.getMethod().toLowerCase();
+            } catch (Exception e) {
+                method = "";
+            }
+            loaded |= METHOD;
+        }
+        return method;
+    }
+
+    public String getUrl() {
+        if ((loaded & URL) == 0) {
+            try {
+                url = request.getRequestURL().toString();
+            } catch (Exception e) {
+                url = "";
+            }
+            loaded |= URL;
+        }
+        return url;
+    }
+
+    public String getQuerystring() {
+        if ((loaded & QUERYSTRING) == 0) {
+            try {
+                querystring = request.getQueryString().toString();
+            } catch (Exception e) {
+                querystring = "";
+            }
+            loaded |= QUERYSTRING;
+        }
+        return querystring;
+    }
+
+    public String getAppBasePath() {
+        if ((loaded & APP_BASE_PATH) == 0) {
+            try {
+                appBasePath = request.getAppBasePath().toString();
+            } catch (Exception e) {
+                appBasePath = "";
+            }
+            loaded |= APP_BASE_PATH;
+        }
+        return appBasePath;
+    }
+
+    public String getProtocol() {
+        if ((loaded & PROTOCOL) == 0) {
+            try {
+                protocol = request.getProtocol().toLowerCase();
+            } catch (Exception e) {
+                protocol = "";
+            }
+            loaded |= PROTOCOL;
+        }
+        return protocol;
+    }
+
+    public String getRemoteAddr() {
+        if ((loaded & REMOTE_ADDR) == 0) {
+            try {
+                remoteAddr = request.getRemoteAddr().toString();
+            } catch (Exception e) {
+                remoteAddr = "";
+            }
+            loaded |= REMOTE_ADDR;
+        }
+        return remoteAddr;
+    }
+
+    public String getTarget() {
+        if ((loaded & TARGET) == 0) {
+            try {
+                target = request.getLocalAddr();
+            } catch (Exception e) {
+                target = "";
+            }
+            loaded |= TARGET;
+        }
+        return target;
+    }
+
+    public String getClientIp() {
+        if ((loaded & CLIENT_IP) == 0) {
+            try {
+                clientIp = request.getClientIp();
+            } catch (Exception e) {
+                clientIp = "";
+            }
+            loaded |= CLIENT_IP;
+        }
+        return clientIp;
+    }
+
+    // TODO: update openrasp-v8, accept string body
+    public byte[] getBody() {
+        if ((loaded & BODY) == 0) {
+            try {
+                BodyBuffer buffer = request.getBodyBuffer();
+                if (buffer != null && buffer.isAscii() && isAsciiCompatible(request.getCharacterEncoding())) {
+                    // 纯 ASCII 的 body 解码再转义后与原始字节相同，直接使用缓冲区的字节数组
+                    body = buffer.toByteArray();
+                } else {
+                    body = escape(request.getStringBody());
+                }
+            } catch (Exception e) {
+                body = null;
+            }
+            loaded |= BODY;
+        }
+        return body;
+    }
+
+    public byte[] getJson() {
+        if ((loaded & JSON) == 0) {
+            try {
+                String contentType = request.getContentType();
+                json = contentType != null && contentType.contains("application/json") ? getBody() : null;
+            } catch (Exception e) {
+                json = null;
+            }
+            loaded |= JSON;
+        }
+        return json;
+    }
+
+    public byte[] getHeader() {
+        if ((loaded & HEADER) == 0) {
+            try {
+                header = null;
+                Enumeration<String> headerNames = request.getHeaderNames();
+                if (headerNames != null && headerNames.hasMoreElements()) {
+                    HashMap<String, String> headers = new HashMap<String, String>();
+                    while (headerNames.hasMoreElements()) {
+                        String key = headerNames.nextElement();
+                        String value = request.getHeader(key);
+                        headers.put(key.toLowerCase(), value);
+                    }
+                    header = serialize(headers);
+                }
+            } catch (Exception e) {
+                header = "{}".getBytes();
+            }
+            loaded |= HEADER;
+        }
+        return header;
+    }
+
+    public byte[] getParameter() {
+        if ((loaded & PARAMETER) == 0) {
+            try {
+                parameter = null;
+                Map<String, String[]> parameters = request.getParameterMap();
+                if (parameters != null && !parameters.isEmpty()) {
+                    parameter = serialize(parameters);
+                }
+            } catch (Exception e) {
+                parameter = null;
+            }
+            loaded |= PARAMETER;
+        }
+        return parameter;
+    }
+
+    private static boolean isAsciiCompatible(String encoding) {
+        if (encoding == null || encoding.length() == 0) {
+            return true;
+        }
+        for (String compatible : ASCII_COMPATIBLE_ENCODINGS) {
+            if (compatible.equalsIgnoreCase(encoding)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static byte[] escape(String src) throws UnsupportedEncodingException {
+        char j;
+        StringBuilder tmp = new StringBuilder();
+        for (int i = 0; i < src.length(); i++) {
+            j = src.charAt(i);
+            if (j < 256)
+                tmp.append(j);
+            else {
+                tmp.append("\\u");
+                tmp.append(Integer.toString(j, 16));
+            }
+        }
+        return tmp.toString().getBytes("UTF-8");
+    }
+
+    private static byte[] serialize(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonStream.serialize(value, out);
+        out.write(0);
+        return out.getByteArray();
+    }
+}
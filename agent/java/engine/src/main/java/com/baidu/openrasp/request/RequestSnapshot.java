@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.request;
+
+import java.io.CharArrayWriter;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * 请求信息的只读快照
+ * <p>
+ * 在请求线程中拷贝检测和报警需要的请求信息，用于在请求结束后的其他线程中检测，
+ * 避免访问已经被服务器回收复用的原始请求对象。
+ * 同一个快照会被多个异步检测线程共享，插件检测上下文的字段在构造时全部计算完成。
+ */
+public class RequestSnapshot extends AbstractRequest {
+
+    private final String localAddr;
+    private final String method;
+    private final String protocol;
+    private final String authType;
+    private final String contextPath;
+    private final String remoteAddr;
+    private final String requestURI;
+    private final String requestURL;
+    private final String serverName;
+    private final String queryString;
+    private final String appBasePath;
+    private final String contentType;
+    private final String clientIp;
+    private final String characterEncoding;
+    private final Map<String, String[]> parameterMap;
+    private final Map<String, String> headers;
+    private final Map<String, String> serverContext;
+    private final RequestContextSnapshot sharedContextSnapshot;
+
+    public RequestSnapshot(AbstractRequest request) {
+        super(null, request.getRequestId());
+        this.localAddr = request.getLocalAddr();
+        this.method = request.getMethod();
+        this.protocol = request.getProtocol();
+        this.authType = request.getAuthType();
+        this.contextPath = request.getContextPath();
+        this.remoteAddr = request.getRemoteAddr();
+        this.requestURI = request.getRequestURI();
+        this.requestURL = request.getRequestURLString();
+        this.serverName = request.getServerName();
+        this.queryString = request.getQueryString();
+        this.appBasePath = request.getAppBasePath();
+        this.contentType = request.getContentType();
+        this.clientIp = request.getClientIp();
+        this.characterEncoding = request.getCharacterEncoding();
+        this.canGetParameter = request.isCanGetParameter();
+
+        Map<String, String[]> parameters = request.getParameterMap();
+        this.parameterMap = parameters == null ? null : new HashMap<String, String[]>(parameters);
+        this.headers = new LinkedHashMap<String, String>();
+        Enumeration<String> headerNames = request.getHeaderNames();
+        if (headerNames != null) {
+            while (headerNames.hasMoreElements()) {
+                String key = headerNames.nextElement();
+                headers.put(key, request.getHeader(key));
+            }
+        }
+        Map<String, String> context = request.getServerContext();
+        this.serverContext = context == null ? null : new HashMap<String, String>(context);
+
+        if (request.bodyBuffer != null) {
+            this.bodyBuffer = BodyBuffer.readOnlyCopy(request.bodyBuffer);
+        }
+        if (request.bodyWriter != null) {
+            this.bodyWriter = new CharArrayWriter(request.bodyWriter.size());
+            char[] body = request.bodyWriter.toCharArray();
+            this.bodyWriter.write(body, 0, body.length);
+        }
+        if (request.formItemCache != null) {
+            this.formItemCache = new HashMap<String, String[]>(request.formItemCache);
+        }
+        if (request.fileParamCache != null) {
+            this.fileParamCache = new LinkedList<RequestFileItem>(request.fileParamCache);
+        }
+        this.sharedContextSnapshot = new RequestContextSnapshot(this).loadAll();
+    }
+
+    @Override
+    public RequestContextSnapshot getContextSnapshot() {
+        return sharedContextSnapshot;
+    }
+
+    @Override
+    public RequestSnapshot getSnapshot() {
+        return this;
+    }
+
+    @Override
+    public String getLocalAddr() {
+        return localAddr;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public String getAuthType() {
+        return authType;
+    }
+
+    @Override
+    public String getContextPath() {
+        return contextPath;
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return remoteAddr;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        return requestURL == null ? null : new StringBuffer(requestURL);
+    }
+
+    @Override
+    public String getServerName() {
+        return serverName;
+    }
+
+    @Override
+    public String getParameter(String key) {
+        if (parameterMap == null) {
+            return null;
+        }
+        String[] values = parameterMap.get(key);
+        return values != null && values.length > 0 ? values[0] : null;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        if (parameterMap == null) {
+            return null;
+        }
+        return Collections.enumeration(parameterMap.keySet());
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameterMap;
+    }
+
+    @Override
+    public String getHeader(String key) {
+        String value = headers.get(key);
+        if (value == null && key != null) {
+            // 请求头名称不区分大小写
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                if (key.equalsIgnoreCase(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public Map<String, String> getServerContext() {
+        return serverContext;
+    }
+
+    @Override
+    public String getAppBasePath() {
+        return appBasePath;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public String getClientIp() {
+        return clientIp;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+}
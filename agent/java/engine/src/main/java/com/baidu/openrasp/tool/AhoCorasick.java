@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick 多模式字符串匹配自动机
+ * <p>
+ * 构建完成后不可修改，可以在多个线程之间共享；匹配状态由调用方保存，
+ * 因此一段文本被拆分成多次输入时，跨越两次输入的模式串仍然可以被找到。
+ * 所有状态都保存在扁平的数组中，构建时的内存与模式串总长度成正比，不会为每个节点创建对象，
+ * 调用方需要自行限制模式串的总长度。
+ */
+public class AhoCorasick {
+
+    /**
+     * 初始状态
+     */
+    public static final int ROOT = 0;
+
+    private static final long EMPTY_KEY = -1L;
+
+    // 状态转移表，开放寻址的哈希表，key 为 (状态 << 16 | 字符)
+    private final long[] edgeKeys;
+    private final int[] edgeTargets;
+    private final int edgeMask;
+    private final int[] fail;
+    // 在某个状态结束的所有模式串中下标最小的一个(包括失败指针链上的)，没有为 -1
+    private final int[] match;
+
+    /**
+     * @param patterns 模式串，匹配结果为模式串在数组中的下标，null 和空字符串会被忽略
+     */
+    public AhoCorasick(String[] patterns) {
+        int totalLength = 0;
+        for (String pattern : patterns) {
+            if (pattern != null) {
+                totalLength += pattern.length();
+            }
+        }
+        int capacity = totalLength + 1;
+        int tableSize = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+        edgeKeys = new long[tableSize];
+        edgeTargets = new int[tableSize];
+        edgeMask = tableSize - 1;
+        Arrays.fill(edgeKeys, EMPTY_KEY);
+
+        int[] parent = new int[capacity];
+        char[] label = new char[capacity];
+        int[] depth = new int[capacity];
+        int[] own = new int[capacity];
+        own[ROOT] = -1;
+        int size = 1;
+        int maxDepth = 0;
+        for (int i = 0; i < patterns.length; i++) {
+            String pattern = patterns[i];
+            if (pattern == null || pattern.length() == 0) {
+                continue;
+            }
+            int state = ROOT;
+            for (int j = 0; j < pattern.length(); j++) {
+                char c = pattern.charAt(j);
+                int next = goTo(state, c);
+                if (next < 0) {
+                    next = size++;
+                    parent[next] = state;
+                    label[next] = c;
+                    depth[next] = j + 1;
+                    own[next] = -1;
+                    putEdge(state, c, next);
+                }
+                state = next;
+            }
+            if (own[state] < 0) {
+                own[state] = i;
+            }
+            maxDepth = Math.max(maxDepth, pattern.length());
+        }
+
+        // 按深度排序节点，保证计算某个节点的失败指针时，更浅的节点都已经计算完成
+        int[] depthStart = new int[maxDepth + 2];
+        for (int s = 1; s < size; s++) {
+            depthStart[depth[s] + 1]++;
+        }
+        for (int d = 1; d < depthStart.length; d++) {
+            depthStart[d] += depthStart[d - 1];
+        }
+        int[] order = new int[size];
+        for (int s = 1; s < size; s++) {
+            order[depthStart[depth[s]]++] = s;
+        }
+
+        fail = new int[size];
+        match = new int[size];
+        match[ROOT] = -1;
+        for (int i = 0; i < size - 1; i++) {
+            int s = order[i];
+            int f = ROOT;
+            if (parent[s] != ROOT) {
+                f = next(fail[parent[s]], label[s]);
+            }
+            fail[s] = f;
+            int inherited = match[f];
+            match[s] = own[s] < 0 || (inherited >= 0 && inherited < own[s]) ? inherited : own[s];
+        }
+    }
+
+    /**
+     * 输入一个字符
+     *
+     * @param state 当前状态
+     * @param c     字符
+     * @return 新的状态
+     */
+    public int next(int state, char c) {
+        int next;
+        while ((next = goTo(state, c)) < 0) {
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+        return next;
+    }
+
+    /**
+     * 在某个状态结束的模式串中下标最小的一个
+     *
+     * @param state 状态
+     * @return 模式串下标，没有模式串在该状态结束时返回 -1
+     */
+    public int getMatch(int state) {
+        return match[state];
+    }
+
+    private int goTo(int state, char c) {
+        long key = ((long) state << 16) | c;
+        int i = hash(key) & edgeMask;
+        long k;
+        while ((k = edgeKeys[i]) != EMPTY_KEY) {
+            if (k == key) {
+                return edgeTargets[i];
+            }
+            i = (i + 1) & edgeMask;
+        }
+        return -1;
+    }
+
+    private void putEdge(int state, char c, int target) {
+        long key = ((long) state << 16) | c;
+        int i = hash(key) & edgeMask;
+        while (edgeKeys[i] != EMPTY_KEY) {
+            i = (i + 1) & edgeMask;
+        }
+        edgeKeys[i] = key;
+        edgeTargets[i] = target;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
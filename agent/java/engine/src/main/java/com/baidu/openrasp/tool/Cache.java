@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+/**
+ * 有界缓存的公共接口，{@link LRUCache} 与 {@link ConcurrentLRUCache} 均实现该接口
+ */
+public interface Cache<K, V> {
+
+    /**
+     * get an entry from the cache.
+     *
+     * @param key the key whose associated value is to be returned.
+     * @return the value associated to this key, or null if no value with this key exists in the cache.
+     */
+    V get(K key);
+
+    /**
+     * Add an entry to this cache.
+     *
+     * @param key   the key with which the specified value is to be associated.
+     * @param value a value to be associated with the specified key.
+     */
+    void put(K key, V value);
+
+    /**
+     * Clear the cache.
+     */
+    void clear();
+
+    /**
+     * Return the existence of key in the cache.
+     *
+     * @param key the key to look up.
+     */
+    boolean isContainsKey(K key);
+
+    /**
+     * Return the real size of the cache.
+     */
+    int realSize();
+
+    /**
+     * Return the max size of the cache.
+     */
+    int maxSize();
+
+    /**
+     * remove element from the cache.
+     */
+    void remove(K key);
+
+    /**
+     * Return the number of entries evicted because the cache was full.
+     */
+    long getEvictionCount();
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分段的 CLOCK 近似 LRU 缓存
+ * <p>
+ * 读操作只访问 {@link ConcurrentHashMap} 并设置访问标记，不加锁也不调整访问顺序；
+ * 写操作只锁住 key 所在的分段，分段内使用 CLOCK 算法淘汰最近未被访问的元素。
+ * 与 {@link LRUCache} 相比淘汰顺序是近似的，但在多核下 hook 点并发查询缓存时不再竞争同一把锁。
+ */
+public class ConcurrentLRUCache<K, V> implements Cache<K, V> {
+
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MIN_SEGMENT_SIZE = 16;
+
+    private final int cacheSize;
+    private final int segmentMask;
+    private final Segment<K, V>[] segments;
+
+    /**
+     * Creates a new concurrent LRU cache.
+     *
+     * @param cacheSize the maximum number of entries that will be kept in this cache.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLRUCache(int cacheSize) {
+        this.cacheSize = cacheSize;
+        int segmentCount = 1;
+        int limit = Math.min(MAX_SEGMENTS, Runtime.getRuntime().availableProcessors() * 2);
+        while (segmentCount < limit && cacheSize / (segmentCount << 1) >= MIN_SEGMENT_SIZE) {
+            segmentCount <<= 1;
+        }
+        this.segmentMask = segmentCount - 1;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = cacheSize / segmentCount + (i < cacheSize % segmentCount ? 1 : 0);
+            segments[i] = new Segment<K, V>(capacity);
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = segmentFor(key).map.get(key);
+        if (node == null) {
+            return null;
+        }
+        node.referenced = true;
+        return node.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null || cacheSize <= 0) {
+            return;
+        }
+        segmentFor(key).put(key, value);
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public boolean isContainsKey(K key) {
+        if (key == null) {
+            return false;
+        }
+        Node<K, V> node = segmentFor(key).map.get(key);
+        if (node == null) {
+            return false;
+        }
+        node.referenced = true;
+        return true;
+    }
+
+    @Override
+    public int realSize() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.map.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int maxSize() {
+        return cacheSize;
+    }
+
+    @Override
+    public void remove(K key) {
+        if (key == null) {
+            return;
+        }
+        segmentFor(key).remove(key);
+    }
+
+    @Override
+    public long getEvictionCount() {
+        long count = 0;
+        for (Segment<K, V> segment : segments) {
+            count += segment.evictionCount;
+        }
+        return count;
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        h ^= (h >>> 7);
+        return segments[h & segmentMask];
+    }
+
+    private static class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile boolean referenced;
+        int index;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static class Segment<K, V> {
+        final ConcurrentHashMap<K, Node<K, V>> map;
+        final ReentrantLock lock = new ReentrantLock();
+        final Node<K, V>[] ring;
+        int hand = 0;
+        int count = 0;
+        volatile long evictionCount = 0;
+
+        @SuppressWarnings("unchecked")
+        Segment(int capacity) {
+            this.map = new ConcurrentHashMap<K, Node<K, V>>(Math.max(capacity, 1));
+            this.ring = new Node[capacity];
+        }
+
+        void put(K key, V value) {
+            if (ring.length == 0) {
+                return;
+            }
+            lock.lock();
+            try {
+                Node<K, V> node = map.get(key);
+                if (node != null) {
+                    node.value = value;
+                    node.referenced = true;
+                    return;
+                }
+                if (count < ring.length) {
+                    while (ring[hand] != null) {
+                        advance();
+                    }
+                } else {
+                    // CLOCK: 跳过并清除最近被访问过的元素，淘汰第一个未被访问的元素
+                    while (true) {
+                        Node<K, V> victim = ring[hand];
+                        if (victim.referenced) {
+                            victim.referenced = false;
+                            advance();
+                        } else {
+                            map.remove(victim.key);
+                            count--;
+                            evictionCount++;
+                            break;
+                        }
+                    }
+                }
+                node = new Node<K, V>(key, value);
+                node.index = hand;
+                ring[hand] = node;
+                count++;
+                map.put(key, node);
+                advance();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(K key) {
+            lock.lock();
+            try {
+                Node<K, V> node = map.remove(key);
+                if (node != null) {
+                    ring[node.index] = null;
+                    count--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                map.clear();
+                Arrays.fill(ring, null);
+                hand = 0;
+                count = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void advance() {
+            if (++hand == ring.length) {
+                hand = 0;
+            }
+        }
+    }
+
+}
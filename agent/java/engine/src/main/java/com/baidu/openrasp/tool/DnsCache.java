@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.tool.metrics.MetricsManager;
+import com.baidu.openrasp.tool.metrics.StatisticsSource;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * agent 自己维护的域名解析缓存
+ * <p>
+ * 缓存内容来自 DNS hook 点看到的 JVM 解析结果以及 SSRF 检测自己的解析，
+ * 解析成功的结果保存 dns.cache.ttl 秒，解析失败的结果保存 dns.cache.negative_ttl 秒，
+ * SSRF 检测优先使用缓存，避免在请求线程上重复做阻塞的域名解析。
+ */
+public class DnsCache {
+
+    private static final String[] EMPTY = new String[0];
+
+    private static final AtomicLong hits = new AtomicLong(0);
+    private static final AtomicLong misses = new AtomicLong(0);
+    private static volatile ConcurrentLRUCache<String, Entry> cache = new ConcurrentLRUCache<String, Entry>(1024);
+
+    static {
+        // size、max_size、hit、miss、eviction
+        MetricsManager.register("dns_cache", new StatisticsSource() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return DnsCache.getStatistics();
+            }
+        });
+    }
+
+    /**
+     * 按照当前的 dns.cache.max_size 重建缓存
+     */
+    public static synchronized void rebuild() {
+        ConcurrentLRUCache<String, Entry> oldCache = cache;
+        cache = new ConcurrentLRUCache<String, Entry>(Config.getConfig().getDnsCacheMaxSize());
+        oldCache.clear();
+    }
+
+    /**
+     * 记录 JVM 的解析结果
+     *
+     * @param hostname  域名
+     * @param addresses 解析结果，为空代表解析失败
+     */
+    public static void put(String hostname, InetAddress[] addresses) {
+        if (hostname == null) {
+            return;
+        }
+        Config config = Config.getConfig();
+        long ttl = addresses == null || addresses.length == 0 ?
+                config.getDnsCacheNegativeTtl() : config.getDnsCacheTtl();
+        if (ttl <= 0) {
+            return;
+        }
+        cache.put(hostname.toLowerCase(), new Entry(addresses, System.currentTimeMillis() + ttl * 1000L));
+    }
+
+    /**
+     * 获取域名的 IPv4 地址，已排序，优先使用缓存，缓存中没有时进行解析并记录结果
+     *
+     * @param hostname 域名
+     * @return IPv4 地址列表，解析失败时为空
+     */
+    public static List<String> getIpv4List(String hostname) {
+        return Arrays.asList(resolve(hostname).ipv4);
+    }
+
+    /**
+     * 获取域名的 IPv6 地址，已排序，优先使用缓存，缓存中没有时进行解析并记录结果
+     *
+     * @param hostname 域名
+     * @return IPv6 地址列表，解析失败时为空
+     */
+    public static List<String> getIpv6List(String hostname) {
+        return Arrays.asList(resolve(hostname).ipv6);
+    }
+
+    private static Entry resolve(String hostname) {
+        if (hostname == null) {
+            return Entry.UNRESOLVED;
+        }
+        Entry entry = cache.get(hostname.toLowerCase());
+        if (entry != null && System.currentTimeMillis() < entry.expireTime) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        InetAddress[] addresses = null;
+        try {
+            addresses = InetAddress.getAllByName(hostname);
+        } catch (UnknownHostException e) {
+            // 解析失败也进行缓存
+        } catch (Throwable t) {
+            return Entry.UNRESOLVED;
+        }
+        put(hostname, addresses);
+        return new Entry(addresses, 0);
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计项
+     */
+    public static Map<String, Long> getStatistics() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        ConcurrentLRUCache<String, Entry> current = cache;
+        result.put("size", (long) current.realSize());
+        result.put("max_size", (long) current.maxSize());
+        result.put("hit", hits.get());
+        result.put("miss", misses.get());
+        result.put("eviction", current.getEvictionCount());
+        return result;
+    }
+
+    private static class Entry {
+        static final Entry UNRESOLVED = new Entry(null, 0);
+
+        final String[] ipv4;
+        final String[] ipv6;
+        final long expireTime;
+
+        Entry(InetAddress[] addresses, long expireTime) {
+            this.expireTime = expireTime;
+            if (addresses == null || addresses.length == 0) {
+                this.ipv4 = EMPTY;
+                this.ipv6 = EMPTY;
+                return;
+            }
+            List<String> ipv4 = new ArrayList<String>(addresses.length);
+            List<String> ipv6 = new ArrayList<String>();
+            for (InetAddress address : addresses) {
+                if (address instanceof Inet4Address) {
+                    ipv4.add(address.getHostAddress());
+                } else if (address instanceof Inet6Address) {
+                    ipv6.add(address.getHostAddress());
+                }
+            }
+            Collections.sort(ipv4);
+            Collections.sort(ipv6);
+            this.ipv4 = ipv4.toArray(EMPTY);
+            this.ipv6 = ipv6.toArray(EMPTY);
+        }
+    }
+}
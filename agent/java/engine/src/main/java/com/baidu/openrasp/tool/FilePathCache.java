@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.tool.metrics.MetricsManager;
+import com.baidu.openrasp.tool.metrics.StatisticsSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文件 hook 点共用的路径缓存
+ * <p>
+ * 以绝对路径为 key 缓存 getCanonicalPath 的结果以及文件存在的状态，
+ * 缓存 file.cache.ttl_millis 毫秒，避免同一文件被反复打开时每次都做 realpath、stat 系统调用，默认不开启。
+ * 只缓存文件存在的结果，不存在的文件每次都重新判断，防止文件被创建后跳过检测；
+ * 删除、重命名、创建硬链接的 hook 点会主动清除对应路径的缓存。
+ * <p>
+ * 规范路径与绝对路径不同(经过了符号链接或者包含 ..)的路径不缓存，每次重新解析；
+ * 但是缓存期间把普通文件或者目录替换成符号链接(例如 ln -sf)无法被感知，
+ * 在缓存时间内仍会解析到旧的路径，开启缓存时应当使用较小的缓存时间。
+ */
+public class FilePathCache {
+
+    private static final AtomicLong hits = new AtomicLong(0);
+    private static final AtomicLong misses = new AtomicLong(0);
+    private static volatile ConcurrentLRUCache<String, Entry> cache = new ConcurrentLRUCache<String, Entry>(4096);
+
+    static {
+        // size、max_size、hit、miss、eviction
+        MetricsManager.register("file_cache", new StatisticsSource() {
+            @Override
+            public Map<String, Long> getStatistics() {
+                return FilePathCache.getStatistics();
+            }
+        });
+    }
+
+    /**
+     * 按照当前的 file.cache.max_size 重建缓存
+     */
+    public static synchronized void rebuild() {
+        ConcurrentLRUCache<String, Entry> oldCache = cache;
+        cache = new ConcurrentLRUCache<String, Entry>(Config.getConfig().getFileCacheMaxSize());
+        oldCache.clear();
+    }
+
+    /**
+     * 获取文件的规范路径，获取失败时返回绝对路径
+     *
+     * @param file 文件
+     * @return 规范路径
+     */
+    public static String getCanonicalPath(File file) {
+        return getEntry(file, file.getAbsolutePath()).canonicalPath;
+    }
+
+    /**
+     * 获取文件的真实路径，与 {@link FileUtil#getRealPath(File)} 的结果一致
+     *
+     * @param file 文件
+     * @return 真实文件路径
+     */
+    public static String getRealPath(File file) {
+        String absPath = file.getAbsolutePath();
+        if (OSUtil.isWindows()) {
+            int index = absPath.indexOf("::$");
+            if (index >= 0) {
+                absPath = absPath.substring(0, index);
+                file = new File(absPath);
+            }
+        }
+        return getEntry(file, absPath).canonicalPath;
+    }
+
+    /**
+     * 判断文件是否存在，只有存在的结果会被缓存
+     *
+     * @param file 文件
+     * @return 是否存在
+     */
+    public static boolean exists(File file) {
+        Entry entry = getEntry(file, file.getAbsolutePath());
+        if (entry.exists) {
+            return true;
+        }
+        if (file.exists()) {
+            entry.exists = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 文件被写入、删除或者重命名时清除对应的缓存
+     *
+     * @param file 文件
+     */
+    public static void invalidate(File file) {
+        if (file != null) {
+            cache.remove(file.getAbsolutePath());
+        }
+    }
+
+    private static Entry getEntry(File file, String absPath) {
+        long ttl = Config.getConfig().getFileCacheTtlMillis();
+        long now = System.currentTimeMillis();
+        ConcurrentLRUCache<String, Entry> current = cache;
+        if (ttl > 0) {
+            Entry entry = current.get(absPath);
+            if (entry != null && now < entry.expireTime) {
+                hits.incrementAndGet();
+                return entry;
+            }
+        }
+        misses.incrementAndGet();
+        String canonicalPath;
+        try {
+            canonicalPath = file.getCanonicalPath();
+        } catch (IOException e) {
+            canonicalPath = absPath;
+        }
+        Entry entry = new Entry(canonicalPath, now + ttl);
+        if (ttl > 0 && canonicalPath.equals(absPath)) {
+            current.put(absPath, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计项
+     */
+    public static Map<String, Long> getStatistics() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        ConcurrentLRUCache<String, Entry> current = cache;
+        result.put("size", (long) current.realSize());
+        result.put("max_size", (long) current.maxSize());
+        result.put("hit", hits.get());
+        result.put("miss", misses.get());
+        result.put("eviction", current.getEvictionCount());
+        return result;
+    }
+
+    private static class Entry {
+        final String canonicalPath;
+        final long expireTime;
+        volatile boolean exists;
+
+        Entry(String canonicalPath, long expireTime) {
+            this.canonicalPath = canonicalPath;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import com.baidu.openrasp.tool.model.NicModel;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 服务器主机名与网卡信息的缓存
+ * <p>
+ * 报警、异常日志每条都需要 hostname 和网卡列表，实时获取需要解析本机地址并遍历全部网卡。
+ * 这里缓存一份快照，过期后由后台线程刷新，调用方始终直接返回当前快照
+ */
+public class HostIdentity {
+    private static final long REFRESH_INTERVAL = 60 * 1000;
+
+    private static final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private static volatile Snapshot snapshot;
+
+    /**
+     * 获取服务器主机名
+     *
+     * @return 主机名
+     */
+    public static String getHostName() {
+        return getSnapshot().hostName;
+    }
+
+    /**
+     * 获取服务器网卡信息，返回的列表不可修改
+     *
+     * @return 网卡名称与 ipv4 地址列表
+     */
+    public static List<NicModel> getNics() {
+        return getSnapshot().nics;
+    }
+
+    /**
+     * 立即重新获取主机信息
+     */
+    public static void refresh() {
+        snapshot = load();
+    }
+
+    private static Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (HostIdentity.class) {
+                if (snapshot == null) {
+                    snapshot = load();
+                }
+                return snapshot;
+            }
+        }
+        if (System.currentTimeMillis() > current.expireTime && refreshing.compareAndSet(false, true)) {
+            Thread thread = new Thread("OpenRASP Host Identity Refresh") {
+                @Override
+                public void run() {
+                    try {
+                        snapshot = load();
+                    } finally {
+                        refreshing.set(false);
+                    }
+                }
+            };
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return current;
+    }
+
+    private static Snapshot load() {
+        String hostName;
+        try {
+            hostName = OSUtil.getHostName();
+        } catch (Throwable t) {
+            hostName = "";
+        }
+        List<NicModel> nics = Collections.unmodifiableList(OSUtil.getIpAddress());
+        return new Snapshot(hostName, nics, System.currentTimeMillis() + REFRESH_INTERVAL);
+    }
+
+    private static class Snapshot {
+        final String hostName;
+        final List<NicModel> nics;
+        final long expireTime;
+
+        Snapshot(String hostName, List<NicModel> nics, long expireTime) {
+            this.hostName = hostName;
+            this.nics = nics;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -27,12 +27,13 @@ import java.util.concurrent.locks.ReentrantLock;
  * 　　* @author anyang
  * 　　* @date 2018/6/20 11:05
  */
-public class LRUCache<K, V> {
+public class LRUCache<K, V> implements Cache<K, V> {
 
     private static final float HASH_TABLE_LOAD_FACTOR = 0.75f;
 
     private LinkedHashMap<K, V> map;
     private int cacheSize;
+    private long evictionCount = 0;
     private final Lock lock = new ReentrantLock();
 
     /**
@@ -47,7 +48,11 @@ public class LRUCache<K, V> {
 
             @Override
             protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-                return size() > LRUCache.this.cacheSize;
+                if (size() > LRUCache.this.cacheSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
             }
         };
     }
@@ -58,6 +63,7 @@ public class LRUCache<K, V> {
      * @param key the key whose associated value is to be returned.
      * @return the value associated to this key, or null if no value with this key exists in the cache.
      */
+    @Override
     public V get(K key) {
 
         try {
@@ -75,6 +81,7 @@ public class LRUCache<K, V> {
      * @param key   the key with which the specified value is to be associated.
      * @param value a value to be associated with the specified key.
      */
+    @Override
     public void put(K key, V value) {
         try {
             lock.lock();
@@ -87,6 +94,7 @@ public class LRUCache<K, V> {
     /**
      * Clear the cache.
      */
+    @Override
     public void clear() {
 
         try {
@@ -102,6 +110,7 @@ public class LRUCache<K, V> {
      *
      * @param key the key with which the specified value is to be associated.
      */
+    @Override
     public boolean isContainsKey(K key) {
 
         try {
@@ -140,6 +149,7 @@ public class LRUCache<K, V> {
     /**
      * Return the real size of the cache.
      */
+    @Override
     public int realSize() {
         try {
             lock.lock();
@@ -152,6 +162,7 @@ public class LRUCache<K, V> {
     /**
      * Return the max size of the cache.
      */
+    @Override
     public int maxSize() {
         try {
             lock.lock();
@@ -164,6 +175,7 @@ public class LRUCache<K, V> {
     /**
      * remove element from the cache.
      */
+    @Override
     public void remove(K key) {
         try {
             lock.lock();
@@ -173,5 +185,15 @@ public class LRUCache<K, V> {
         }
     }
 
+    @Override
+    public long getEvictionCount() {
+        try {
+            lock.lock();
+            return evictionCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
 
 }
@@ -20,8 +20,12 @@ import com.baidu.openrasp.messaging.ErrorType;
 import com.baidu.openrasp.messaging.LogTool;
 import org.apache.log4j.Logger;
 
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by tyy on 3/27/17.
@@ -30,6 +34,15 @@ import java.lang.reflect.Method;
  */
 public class Reflection {
     private static final Logger LOGGER = Logger.getLogger(Reflection.class.getName());
+    private static final Class[] EMPTY_CLASS = new Class[]{};
+    // 方法缓存按类分段加锁，类作为弱引用 key，不会阻止已卸载的 web 应用的类加载器被回收
+    private static final MethodCacheSegment[] METHOD_CACHE = new MethodCacheSegment[16];
+
+    static {
+        for (int i = 0; i < METHOD_CACHE.length; i++) {
+            METHOD_CACHE[i] = new MethodCacheSegment();
+        }
+    }
 
     /**
      * 根据方法名调用对象的某一个方法
@@ -111,10 +124,7 @@ public class Reflection {
 
     public static Object invokeMethod(Object object, Class clazz, String methodName, Class[] paramTypes, Object... parameters) {
         try {
-            Method method = clazz.getMethod(methodName, paramTypes);
-            if (!method.isAccessible()) {
-                method.setAccessible(true);
-            }
+            Method method = getMethod(clazz, methodName, paramTypes);
             return method.invoke(object, parameters);
         } catch (Exception e) {
             String message = "Reflection call " + methodName + " failed: " + e.getMessage();
@@ -126,6 +136,44 @@ public class Reflection {
         }
     }
 
+    /**
+     * 获取类的 public 方法，按照 (类, 方法名, 参数类型) 缓存已经设置为可访问的 Method，
+     * 同一个服务器实现类的同一个方法只查找一次，命中缓存时不分配对象
+     *
+     * @param clazz      类
+     * @param methodName 方法名称
+     * @param paramTypes 参数类型列表
+     * @return 方法
+     */
+    public static Method getMethod(Class clazz, String methodName, Class[] paramTypes) throws NoSuchMethodException {
+        if (paramTypes == null) {
+            paramTypes = EMPTY_CLASS;
+        }
+        MethodTable table = getMethodTable(clazz);
+        Method method = table.find(methodName, paramTypes);
+        if (method == null) {
+            method = clazz.getMethod(methodName, paramTypes);
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+            table.add(methodName, paramTypes.clone(), method);
+        }
+        return method;
+    }
+
+    private static MethodTable getMethodTable(Class<?> clazz) {
+        MethodCacheSegment segment = METHOD_CACHE[System.identityHashCode(clazz) & (METHOD_CACHE.length - 1)];
+        synchronized (segment) {
+            SoftReference<MethodTable> ref = segment.get(clazz);
+            MethodTable table = ref != null ? ref.get() : null;
+            if (table == null) {
+                table = new MethodTable();
+                segment.put(clazz, new SoftReference<MethodTable>(table));
+            }
+            return table;
+        }
+    }
+
     public static boolean isPrimitiveType(Object object) {
         try {
             return ((Class<?>) object.getClass().getField("TYPE").get(null)).isPrimitive();
@@ -134,4 +182,55 @@ public class Reflection {
         }
     }
 
+    /**
+     * Method 会引用所属的类，如果被 WeakHashMap 的 value 强引用，类作为 key 永远不会被回收，
+     * 所以每个类的方法表通过软引用保存
+     */
+    private static class MethodCacheSegment extends WeakHashMap<Class<?>, SoftReference<MethodTable>> {
+    }
+
+    /**
+     * 一个类的方法缓存，以方法名为 key，同名的重载方法按参数类型逐个比较
+     */
+    private static class MethodTable {
+        private final ConcurrentHashMap<String, MethodEntry[]> methods = new ConcurrentHashMap<String, MethodEntry[]>();
+
+        Method find(String methodName, Class[] paramTypes) {
+            MethodEntry[] entries = methods.get(methodName);
+            if (entries != null) {
+                for (MethodEntry entry : entries) {
+                    if (Arrays.equals(entry.paramTypes, paramTypes)) {
+                        return entry.method;
+                    }
+                }
+            }
+            return null;
+        }
+
+        synchronized void add(String methodName, Class[] paramTypes, Method method) {
+            MethodEntry[] entries = methods.get(methodName);
+            if (entries == null) {
+                entries = new MethodEntry[0];
+            }
+            for (MethodEntry entry : entries) {
+                if (Arrays.equals(entry.paramTypes, paramTypes)) {
+                    return;
+                }
+            }
+            MethodEntry[] updated = Arrays.copyOf(entries, entries.length + 1);
+            updated[entries.length] = new MethodEntry(paramTypes, method);
+            methods.put(methodName, updated);
+        }
+    }
+
+    private static class MethodEntry {
+        final Class[] paramTypes;
+        final Method method;
+
+        MethodEntry(Class[] paramTypes, Method method) {
+            this.paramTypes = paramTypes;
+            this.method = method;
+        }
+    }
+
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import com.baidu.openrasp.RaspContext;
+import com.baidu.openrasp.config.Config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * hook 点调用栈的获取服务
+ * <p>
+ * 只保留最后一个 RASP 栈帧之后的 plugin.maxstack 个栈帧，紧跟在 RASP 栈帧之后的反射栈帧也会去掉，
+ * 因此调用栈在序列化等 RASP 内部流程中被展开时结果也不变；
+ * JDK 9 及以上使用 StackWalker 逐帧遍历，取够栈帧即停止，低版本 JDK 使用 Throwable 获取；
+ * 同一次检测中插件、报警、基线检测获取的调用栈共用同一次遍历的结果。
+ * 遍历取够栈帧即停止，所以必须在 hook 点和检测流程中获取，调用方与 RASP 栈帧之间不能夹着
+ * 序列化库、日志框架等第三方栈帧，否则 plugin.maxstack 较小时取到的是这些库的栈帧
+ */
+public class StackCapture {
+
+    private static Object walker;
+    private static Method walkMethod;
+    private static Object walkFunction;
+    private static Method iteratorMethod;
+    private static Method getClassNameMethod;
+    private static Method toStackTraceElementMethod;
+
+    static {
+        try {
+            Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+            Class<?> optionClass = Class.forName("java.lang.StackWalker$Option");
+            Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+            Class<?> functionClass = Class.forName("java.util.function.Function");
+            Object showReflectFrames = optionClass.getField("SHOW_REFLECT_FRAMES").get(null);
+            Object instance = walkerClass.getMethod("getInstance", optionClass).invoke(null, showReflectFrames);
+            Method walk = walkerClass.getMethod("walk", functionClass);
+            Method iterator = Class.forName("java.util.stream.BaseStream").getMethod("iterator");
+            Method getClassName = frameClass.getMethod("getClassName");
+            Method toStackTraceElement = frameClass.getMethod("toStackTraceElement");
+            Object function = Proxy.newProxyInstance(StackCapture.class.getClassLoader(),
+                    new Class<?>[]{functionClass}, new WalkHandler());
+            walkMethod = walk;
+            iteratorMethod = iterator;
+            getClassNameMethod = getClassName;
+            toStackTraceElementMethod = toStackTraceElement;
+            walkFunction = function;
+            walker = instance;
+        } catch (Throwable t) {
+            // JDK 9 以下没有 StackWalker，使用 Throwable 获取调用栈
+            walker = null;
+        }
+    }
+
+    /**
+     * 获取当前 hook 点的调用栈，已经去掉 RASP 自身的栈帧，检测过程中多次调用只遍历一次
+     *
+     * @return 调用栈
+     */
+    public static StackTraceElement[] get() {
+        RaspContext context = RaspContext.get();
+        StackTraceElement[] stack = context.getStack();
+        if (stack == null) {
+            stack = capture();
+            context.setStack(stack);
+        }
+        return stack;
+    }
+
+    /**
+     * 获取 hook 点参数中使用的调用栈，调用栈在 hook 点获取，第一次被访问时才转换为字符串
+     *
+     * @return 调用栈，每一项为 "类名.方法名"
+     */
+    public static List<String> getParamStack() {
+        return new LazyStack(get());
+    }
+
+    /**
+     * 获取检测参数中 hook 点已经获取的调用栈，用于同一次检测中共用
+     *
+     * @param params 检测参数
+     * @return 调用栈，检测参数中没有调用栈时返回 null
+     */
+    public static StackTraceElement[] find(Map params) {
+        if (params != null) {
+            for (Object value : params.values()) {
+                if (value instanceof LazyStack) {
+                    return ((LazyStack) value).trace;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 将检测参数中尚未转换的调用栈在当前线程中转换，用于把检测参数交给其它线程之前
+     *
+     * @param params 检测参数
+     */
+    @SuppressWarnings("unchecked")
+    public static void resolve(Map params) {
+        for (Object entry : params.entrySet()) {
+            Map.Entry e = (Map.Entry) entry;
+            if (e.getValue() instanceof LazyStack) {
+                e.setValue(((LazyStack) e.getValue()).getStack());
+            }
+        }
+    }
+
+    /**
+     * 去掉原始栈中 RASP 自身的栈帧，只保留 plugin.maxstack 个栈帧
+     *
+     * @param trace 原始栈
+     * @return 过滤后的调用栈
+     */
+    public static StackTraceElement[] filter(StackTraceElement[] trace) {
+        int limit = Config.getConfig().getPluginMaxStack();
+        int start = 0;
+        int end = 0;
+        while (end < trace.length && end - start < limit) {
+            String className = trace[end].getClassName();
+            end++;
+            if (isRaspFrame(className) || (end - 1 == start && isReflectFrame(className))) {
+                start = end;
+            }
+        }
+        StackTraceElement[] result = new StackTraceElement[end - start];
+        System.arraycopy(trace, start, result, 0, result.length);
+        return result;
+    }
+
+    private static boolean isRaspFrame(String className) {
+        return className.startsWith("com.baidu.openrasp");
+    }
+
+    private static boolean isReflectFrame(String className) {
+        return className.contains("reflect");
+    }
+
+    private static StackTraceElement[] capture() {
+        if (walker != null) {
+            try {
+                return (StackTraceElement[]) walkMethod.invoke(walker, walkFunction);
+            } catch (Throwable t) {
+                // 使用 Throwable 获取
+            }
+        }
+        return filter(new Throwable().getStackTrace());
+    }
+
+    /**
+     * 作为 StackWalker.walk 的 Function 参数，跳过 RASP 栈帧后只取 plugin.maxstack 个栈帧
+     */
+    private static class WalkHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!"apply".equals(method.getName())) {
+                if ("hashCode".equals(method.getName())) {
+                    return System.identityHashCode(proxy);
+                }
+                if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                }
+                return "StackCapture";
+            }
+            int limit = Config.getConfig().getPluginMaxStack();
+            List<Object> frames = new ArrayList<Object>(Math.min(limit, 64));
+            Iterator<?> iterator = (Iterator<?>) iteratorMethod.invoke(args[0]);
+            while (frames.size() < limit && iterator.hasNext()) {
+                Object frame = iterator.next();
+                String className = (String) getClassNameMethod.invoke(frame);
+                if (isRaspFrame(className)) {
+                    frames.clear();
+                } else if (!frames.isEmpty() || !isReflectFrame(className)) {
+                    frames.add(frame);
+                }
+            }
+            StackTraceElement[] result = new StackTraceElement[frames.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (StackTraceElement) toStackTraceElementMethod.invoke(frames.get(i));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * hook 点参数中的调用栈，创建时已经在 hook 点获取，第一次访问时才转换为字符串，之后复用
+     * <p>
+     * 转换不做同步，交给其它线程之前需要调用 {@link #resolve(Map)}
+     */
+    private static class LazyStack extends AbstractList<String> {
+
+        private final StackTraceElement[] trace;
+        private List<String> stack;
+
+        LazyStack(StackTraceElement[] trace) {
+            this.trace = trace;
+        }
+
+        List<String> getStack() {
+            if (stack == null) {
+                List<String> result = new ArrayList<String>(trace.length);
+                for (StackTraceElement element : trace) {
+                    result.add(element.getClassName() + "." + element.getMethodName());
+                }
+                stack = result;
+            }
+            return stack;
+        }
+
+        @Override
+        public String get(int index) {
+            return getStack().get(index);
+        }
+
+        @Override
+        public int size() {
+            return getStack().size();
+        }
+    }
+}
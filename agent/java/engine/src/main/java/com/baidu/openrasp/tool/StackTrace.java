@@ -16,9 +16,6 @@
 
 package com.baidu.openrasp.tool;
 
-import com.baidu.openrasp.config.Config;
-
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -61,9 +58,16 @@ public class StackTrace {
      * @return 原始栈
      */
     public static List<String> getStackTraceArray(boolean isFilter, boolean hasLineNumber) {
+        return getStackTraceArray(new Throwable().getStackTrace(), isFilter, hasLineNumber);
+    }
+
+    /**
+     * 将给定的原始栈转换为字符串数组
+     *
+     * @return 原始栈
+     */
+    public static List<String> getStackTraceArray(StackTraceElement[] stack, boolean isFilter, boolean hasLineNumber) {
         LinkedList<String> stackTrace = new LinkedList<String>();
-        Throwable throwable = new Throwable();
-        StackTraceElement[] stack = throwable.getStackTrace();
         if (stack != null) {
             if (isFilter) {
                 stack = filter(stack);
@@ -81,23 +85,18 @@ public class StackTrace {
     }
 
     /**
-     * hook 点参数获取原始栈
+     * hook 点参数获取原始栈，在第一次被访问时才获取
      *
      * @return 原始栈
+     * @see StackCapture#getParamStack()
      */
     public static List<String> getParamStackTraceArray() {
-        return getStackTraceArray(true, false);
+        return StackCapture.getParamStack();
     }
 
     //去掉包含rasp的堆栈
     public static StackTraceElement[] filter(StackTraceElement[] trace) {
-        int i = 0;
-        // 去除插件本身调用栈
-        while (i < trace.length && (trace[i].getClassName().startsWith("com.baidu.openrasp")
-                || trace[i].getClassName().contains("reflect"))) {
-            i++;
-        }
-        return Arrays.copyOfRange(trace, i, Math.min(i + Config.getConfig().getPluginMaxStack(), trace.length));
+        return StackCapture.filter(trace);
     }
 
 }
@@ -29,6 +29,15 @@ public class TimeUtils {
 
     public static final int DAY_MILLISECOND = 86400000;
 
+    private static final ThreadLocal<DateFormat> EVENT_TIME_FORMAT = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+        }
+    };
+
+    private static volatile CachedTime cachedEventTime;
+
     /**
      * 获取ISO8601格式化时间
      *
@@ -40,4 +49,31 @@ public class TimeUtils {
         dateFormat.setTimeZone(timeZone);
         return dateFormat.format(new Date());
     }
+
+    /**
+     * 按照报警日志的 event_time 格式输出时间，同一秒内的调用复用上一次的结果
+     *
+     * @param millis 毫秒时间戳
+     * @return yyyy-MM-dd'T'HH:mm:ssZ 格式的时间
+     */
+    public static String formatEventTime(long millis) {
+        long second = millis / 1000;
+        CachedTime cached = cachedEventTime;
+        if (cached != null && cached.second == second) {
+            return cached.text;
+        }
+        String text = EVENT_TIME_FORMAT.get().format(new Date(millis));
+        cachedEventTime = new CachedTime(second, text);
+        return text;
+    }
+
+    private static class CachedTime {
+        final long second;
+        final String text;
+
+        CachedTime(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool.metrics;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 按检测类型统计的检测耗时和计数
+ * <p>
+ * 调用方式：
+ * <pre>
+ *     long start = HookMetrics.now();
+ *     ...
+ *     start = HookMetrics.record(type, Phase.SERIALIZE, start);
+ * </pre>
+ * 关闭 metrics.enable 时 {@link #now()} 返回 0，之后的 record 调用直接返回，不读取时钟。
+ * 计数和耗时都按线程分段累加，读取时合并，检测线程之间不会争抢同一个计数器。
+ */
+public class HookMetrics {
+
+    /**
+     * 检测阶段
+     */
+    public enum Phase {
+        // 白名单判断和检测参数构造，异步检测时包含请求快照
+        PARAM_BUILD("param_build"),
+        // 检测参数序列化
+        SERIALIZE("serialize"),
+        // 插件结果缓存查询
+        CACHE_LOOKUP("cache_lookup"),
+        // V8 插件执行
+        V8("v8"),
+        // 插件结果解析
+        RESULT_PARSE("result_parse"),
+        // 报警输出
+        ALARM("alarm"),
+        // 完整检测耗时
+        TOTAL("total");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * 检测计数
+     */
+    public enum Counter {
+        // 检测次数
+        CALLS,
+        // 插件结果缓存命中次数
+        CACHE_HITS,
+        // 拦截次数
+        BLOCKS,
+        // 插件执行超时次数
+        TIMEOUTS
+    }
+
+    private static final EnumMap<Type, TypeMetrics> metrics = new EnumMap<Type, TypeMetrics>(Type.class);
+
+    static {
+        for (Type type : Type.values()) {
+            metrics.put(type, new TypeMetrics());
+        }
+    }
+
+    /**
+     * 获取当前时间作为计时起点
+     *
+     * @return 纳秒时间，未开启统计时返回 0
+     */
+    public static long now() {
+        return Config.getConfig().getMetricsEnable() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 记录从 start 到当前的耗时
+     *
+     * @param type  检测类型
+     * @param phase 检测阶段
+     * @param start {@link #now()} 或上一次 record 的返回值
+     * @return 当前时间，可以作为下一阶段的计时起点
+     */
+    public static long record(Type type, Phase phase, long start) {
+        if (start == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.get(type).latencies.get(phase).record(now - start);
+        return now;
+    }
+
+    public static void incrementCalls(Type type) {
+        increment(type, Counter.CALLS);
+    }
+
+    public static void incrementCacheHits(Type type) {
+        increment(type, Counter.CACHE_HITS);
+    }
+
+    public static void incrementBlocks(Type type) {
+        increment(type, Counter.BLOCKS);
+    }
+
+    public static void incrementTimeouts(Type type) {
+        increment(type, Counter.TIMEOUTS);
+    }
+
+    public static void increment(Type type, Counter counter) {
+        metrics.get(type).counters[counter.ordinal()].increment();
+    }
+
+    public static long getCount(Type type, Counter counter) {
+        return metrics.get(type).counters[counter.ordinal()].sum();
+    }
+
+    public static long getCalls(Type type) {
+        return getCount(type, Counter.CALLS);
+    }
+
+    public static long getCacheHits(Type type) {
+        return getCount(type, Counter.CACHE_HITS);
+    }
+
+    public static long getBlocks(Type type) {
+        return getCount(type, Counter.BLOCKS);
+    }
+
+    public static long getTimeouts(Type type) {
+        return getCount(type, Counter.TIMEOUTS);
+    }
+
+    public static LatencyHistogram getLatency(Type type, Phase phase) {
+        return metrics.get(type).latencies.get(phase);
+    }
+
+    public static void reset() {
+        for (TypeMetrics typeMetrics : metrics.values()) {
+            for (StripedCounter counter : typeMetrics.counters) {
+                counter.reset();
+            }
+            for (LatencyHistogram histogram : typeMetrics.latencies.values()) {
+                histogram.reset();
+            }
+        }
+    }
+
+    private static class TypeMetrics {
+        final StripedCounter[] counters = new StripedCounter[Counter.values().length];
+        final Map<Phase, LatencyHistogram> latencies = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+
+        TypeMetrics() {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = new StripedCounter();
+            }
+            for (Phase phase : Phase.values()) {
+                latencies.put(phase, new LatencyHistogram());
+            }
+        }
+    }
+}
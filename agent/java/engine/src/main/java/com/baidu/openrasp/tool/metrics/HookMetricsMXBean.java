@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool.metrics;
+
+import java.util.Map;
+
+/**
+ * 检测统计的 JMX 接口，注册名为 {@link MetricsManager#OBJECT_NAME}
+ */
+public interface HookMetricsMXBean {
+
+    /**
+     * @return 检测类型名称到检测次数的映射
+     */
+    Map<String, Long> getCalls();
+
+    /**
+     * @return 检测类型名称到插件结果缓存命中次数的映射
+     */
+    Map<String, Long> getCacheHits();
+
+    /**
+     * @return 检测类型名称到拦截次数的映射
+     */
+    Map<String, Long> getBlocks();
+
+    /**
+     * @return 检测类型名称到插件执行超时次数的映射
+     */
+    Map<String, Long> getTimeouts();
+
+    /**
+     * @return "检测类型.检测阶段" 到耗时统计(count、mean、p50、p90、p99、max，单位/微秒)的映射
+     */
+    Map<String, Map<String, Double>> getLatencyMicros();
+
+    /**
+     * @return 组件名称到统计项的映射，组件通过 {@link MetricsManager#register(String, StatisticsSource)} 注册
+     */
+    Map<String, Map<String, Long>> getComponents();
+
+    /**
+     * @return Prometheus 文本格式的全部统计
+     */
+    String getPrometheusText();
+
+    void reset();
+}
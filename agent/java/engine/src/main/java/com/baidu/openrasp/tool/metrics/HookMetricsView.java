@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool.metrics;
+
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import com.baidu.openrasp.tool.metrics.HookMetrics.Phase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link HookMetricsMXBean} 的实现，只输出有检测记录的检测类型
+ */
+public class HookMetricsView implements HookMetricsMXBean {
+
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    @Override
+    public Map<String, Long> getCalls() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Type type : Type.values()) {
+            if (HookMetrics.getCalls(type) > 0) {
+                result.put(type.getName(), HookMetrics.getCalls(type));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getCacheHits() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Type type : Type.values()) {
+            if (HookMetrics.getCalls(type) > 0) {
+                result.put(type.getName(), HookMetrics.getCacheHits(type));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getBlocks() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Type type : Type.values()) {
+            if (HookMetrics.getCalls(type) > 0) {
+                result.put(type.getName(), HookMetrics.getBlocks(type));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getTimeouts() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Type type : Type.values()) {
+            if (HookMetrics.getCalls(type) > 0) {
+                result.put(type.getName(), HookMetrics.getTimeouts(type));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Map<String, Double>> getLatencyMicros() {
+        Map<String, Map<String, Double>> result = new TreeMap<String, Map<String, Double>>();
+        for (Type type : Type.values()) {
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = HookMetrics.getLatency(type, phase);
+                long count = histogram.getCount();
+                if (count == 0) {
+                    continue;
+                }
+                Map<String, Double> stat = new LinkedHashMap<String, Double>();
+                stat.put("count", (double) count);
+                stat.put("mean", histogram.getSum() / NANOS_PER_MICRO / count);
+                stat.put("p50", histogram.getValueAtPercentile(50) / NANOS_PER_MICRO);
+                stat.put("p90", histogram.getValueAtPercentile(90) / NANOS_PER_MICRO);
+                stat.put("p99", histogram.getValueAtPercentile(99) / NANOS_PER_MICRO);
+                stat.put("max", histogram.getMax() / NANOS_PER_MICRO);
+                result.put(type.getName() + "." + phase.getName(), stat);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getComponents() {
+        return MetricsManager.getComponentStatistics();
+    }
+
+    @Override
+    public String getPrometheusText() {
+        return PrometheusEndpoint.getMetricsText();
+    }
+
+    @Override
+    public void reset() {
+        HookMetrics.reset();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 无锁的耗时直方图
+ * <p>
+ * 采用对数线性分桶：每个 2 的幂区间再均分为 8 个子桶，相对误差不超过 12.5%，
+ * 覆盖 1 纳秒到约 18 分钟。记录时按线程落到不同的分段，分段在首次使用时创建，
+ * 只做一次数组下标计算和几次原子加，读取时再合并各分段，并发记录时不会争抢同一个计数器。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+    // 每个分段的末尾依次存放次数、总和和最大值
+    private static final int COUNT_INDEX = BUCKET_COUNT;
+    private static final int SUM_INDEX = BUCKET_COUNT + 1;
+    private static final int MAX_INDEX = BUCKET_COUNT + 2;
+    private static final int CELL_LENGTH = BUCKET_COUNT + 3;
+
+    private final AtomicReferenceArray<AtomicLongArray> cells =
+            new AtomicReferenceArray<AtomicLongArray>(StripedCounter.STRIPES);
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时，单位/纳秒
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        AtomicLongArray cell = getCell(StripedCounter.stripe());
+        cell.incrementAndGet(indexOf(nanos));
+        cell.incrementAndGet(COUNT_INDEX);
+        cell.addAndGet(SUM_INDEX, nanos);
+        long current = cell.get(MAX_INDEX);
+        while (nanos > current && !cell.compareAndSet(MAX_INDEX, current, nanos)) {
+            current = cell.get(MAX_INDEX);
+        }
+    }
+
+    private AtomicLongArray getCell(int stripe) {
+        AtomicLongArray cell = cells.get(stripe);
+        if (cell == null) {
+            cells.compareAndSet(stripe, null, new AtomicLongArray(CELL_LENGTH));
+            cell = cells.get(stripe);
+        }
+        return cell;
+    }
+
+    public long getCount() {
+        return sumOf(COUNT_INDEX);
+    }
+
+    /**
+     * @return 耗时总和，单位/纳秒
+     */
+    public long getSum() {
+        return sumOf(SUM_INDEX);
+    }
+
+    /**
+     * @return 最大耗时，单位/纳秒
+     */
+    public long getMax() {
+        long max = 0;
+        for (int i = 0; i < cells.length(); i++) {
+            AtomicLongArray cell = cells.get(i);
+            if (cell != null) {
+                max = Math.max(max, cell.get(MAX_INDEX));
+            }
+        }
+        return max;
+    }
+
+    private long sumOf(int index) {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i++) {
+            AtomicLongArray cell = cells.get(i);
+            if (cell != null) {
+                sum += cell.get(index);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 获取百分位耗时的近似值
+     *
+     * @param percentile 百分位，取值 (0,100]
+     * @return 耗时，单位/纳秒
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < cells.length(); i++) {
+            AtomicLongArray cell = cells.get(i);
+            if (cell == null) {
+                continue;
+            }
+            for (int j = 0; j < BUCKET_COUNT; j++) {
+                long value = cell.get(j);
+                snapshot[j] += value;
+                total += value;
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long max = getMax();
+        long target = (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total);
+        if (target < 1) {
+            target = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        for (int i = 0; i < cells.length(); i++) {
+            AtomicLongArray cell = cells.get(i);
+            if (cell == null) {
+                continue;
+            }
+            for (int j = 0; j < CELL_LENGTH; j++) {
+                cell.set(j, 0);
+            }
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKET_COUNT;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKET_COUNT + sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool.metrics;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.messaging.ErrorType;
+import com.baidu.openrasp.messaging.LogTool;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 检测统计管理类，负责注册 JMX MBean 和启停本地 Prometheus 接口，
+ * 缓存、日志发送等组件的统计项通过 {@link #register(String, StatisticsSource)} 注册后统一输出
+ */
+public class MetricsManager {
+
+    public static final String OBJECT_NAME = "com.baidu.openrasp:type=HookMetrics";
+
+    private static boolean started = false;
+    private static PrometheusEndpoint endpoint = null;
+    private static final ConcurrentSkipListMap<String, StatisticsSource> sources =
+            new ConcurrentSkipListMap<String, StatisticsSource>();
+
+    /**
+     * 注册组件的统计项，同名的统计项会被替换
+     *
+     * @param name   组件名称，同时作为 Prometheus 指标名 openrasp_&lt;name&gt; 的后缀，只能包含小写字母、数字和下划线
+     * @param source 统计项来源
+     */
+    public static void register(String name, StatisticsSource source) {
+        sources.put(name, source);
+    }
+
+    /**
+     * 获取所有已注册组件的统计项
+     *
+     * @return 组件名称到统计项的映射，按组件名称排序
+     */
+    public static Map<String, Map<String, Long>> getComponentStatistics() {
+        Map<String, Map<String, Long>> result = new TreeMap<String, Map<String, Long>>();
+        for (Map.Entry<String, StatisticsSource> entry : sources.entrySet()) {
+            try {
+                result.put(entry.getKey(), entry.getValue().getStatistics());
+            } catch (Throwable t) {
+                LogTool.warn(ErrorType.METRICS_ERROR,
+                        "failed to get statistics of " + entry.getKey() + ": " + t.getMessage(), t);
+            }
+        }
+        return result;
+    }
+
+    public static synchronized void start() {
+        started = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new HookMetricsView(), name);
+        } catch (Throwable t) {
+            LogTool.warn(ErrorType.METRICS_ERROR, "failed to register metrics mbean: " + t.getMessage(), t);
+        }
+        restartEndpoint();
+    }
+
+    /**
+     * 按照 metrics.prometheus_port 重新启动 Prometheus 接口，端口为 0 时关闭
+     */
+    public static synchronized void restartEndpoint() {
+        if (!started) {
+            return;
+        }
+        if (endpoint != null) {
+            endpoint.stop();
+            endpoint = null;
+        }
+        int port = Config.getConfig().getMetricsPrometheusPort();
+        if (port > 0) {
+            try {
+                endpoint = new PrometheusEndpoint(port);
+            } catch (Throwable t) {
+                LogTool.warn(ErrorType.METRICS_ERROR,
+                        "failed to start metrics endpoint on 127.0.0.1:" + port + ": " + t.getMessage(), t);
+            }
+        }
+    }
+
+    public static synchronized void release() {
+        started = false;
+        if (endpoint != null) {
+            endpoint.stop();
+            endpoint = null;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Throwable t) {
+            // ignore
+        }
+    }
+}
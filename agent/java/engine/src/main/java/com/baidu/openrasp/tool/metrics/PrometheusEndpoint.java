@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool.metrics;
+
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import com.baidu.openrasp.tool.metrics.HookMetrics.Counter;
+import com.baidu.openrasp.tool.metrics.HookMetrics.Phase;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+
+/**
+ * 只监听 127.0.0.1 的 Prometheus 文本格式统计接口，GET /metrics 返回全部统计
+ */
+public class PrometheusEndpoint implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(PrometheusEndpoint.class.getName());
+    private static final int SOCKET_TIMEOUT_MILLIS = 3000;
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+    private static final double[] QUANTILES = new double[]{0.5, 0.9, 0.99, 0.999};
+
+    private final ServerSocket serverSocket;
+    private volatile boolean running = true;
+
+    public PrometheusEndpoint(int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port));
+        Thread thread = new Thread(this, "OpenRASP Metrics Thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            Socket socket = null;
+            try {
+                socket = serverSocket.accept();
+                socket.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+                handle(socket);
+            } catch (SocketException e) {
+                if (running) {
+                    LOGGER.warn("metrics endpoint socket error: " + e.getMessage());
+                }
+            } catch (Throwable t) {
+                LOGGER.warn("failed to serve metrics request: " + t.getMessage(), t);
+            } finally {
+                if (socket != null) {
+                    try {
+                        socket.close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+        String requestLine = reader.readLine();
+        String line;
+        while ((line = reader.readLine()) != null && line.length() > 0) {
+            // 忽略请求头
+        }
+        String status;
+        String body;
+        if (requestLine != null && (requestLine.startsWith("GET /metrics ") || requestLine.startsWith("GET / "))) {
+            status = "200 OK";
+            body = getMetricsText();
+        } else {
+            status = "404 Not Found";
+            body = "not found\n";
+        }
+        byte[] content = body.getBytes("UTF-8");
+        String header = "HTTP/1.1 " + status + "\r\n"
+                + "Content-Type: text/plain; version=0.0.4; charset=utf-8\r\n"
+                + "Content-Length: " + content.length + "\r\n"
+                + "Connection: close\r\n\r\n";
+        OutputStream out = socket.getOutputStream();
+        out.write(header.getBytes("ISO-8859-1"));
+        out.write(content);
+        out.flush();
+    }
+
+    /**
+     * 生成 Prometheus 文本格式的统计，只输出有检测记录的检测类型；
+     * 已注册组件的每个统计项输出为 openrasp_&lt;组件名称&gt;{item="&lt;统计项&gt;"}
+     *
+     * @return 统计文本
+     */
+    public static String getMetricsText() {
+        StringBuilder sb = new StringBuilder(4096);
+        appendCounter(sb, "openrasp_hook_calls_total", "Number of checks by hook type", Counter.CALLS);
+        appendCounter(sb, "openrasp_hook_cache_hits_total", "Number of plugin verdict cache hits by hook type", Counter.CACHE_HITS);
+        appendCounter(sb, "openrasp_hook_blocks_total", "Number of blocked checks by hook type", Counter.BLOCKS);
+        appendCounter(sb, "openrasp_hook_timeouts_total", "Number of plugin timeouts by hook type", Counter.TIMEOUTS);
+        sb.append("# HELP openrasp_hook_latency_seconds Check latency by hook type and phase\n");
+        sb.append("# TYPE openrasp_hook_latency_seconds summary\n");
+        for (Type type : Type.values()) {
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = HookMetrics.getLatency(type, phase);
+                long count = histogram.getCount();
+                if (count == 0) {
+                    continue;
+                }
+                String labels = "type=\"" + type.getName() + "\",phase=\"" + phase.getName() + "\"";
+                for (double quantile : QUANTILES) {
+                    sb.append("openrasp_hook_latency_seconds{").append(labels)
+                            .append(",quantile=\"").append(quantile).append("\"} ")
+                            .append(histogram.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND).append('\n');
+                }
+                sb.append("openrasp_hook_latency_seconds_sum{").append(labels).append("} ")
+                        .append(histogram.getSum() / NANOS_PER_SECOND).append('\n');
+                sb.append("openrasp_hook_latency_seconds_count{").append(labels).append("} ")
+                        .append(count).append('\n');
+            }
+        }
+        for (Map.Entry<String, Map<String, Long>> component : MetricsManager.getComponentStatistics().entrySet()) {
+            String name = "openrasp_" + component.getKey();
+            sb.append("# TYPE ").append(name).append(" untyped\n");
+            for (Map.Entry<String, Long> item : component.getValue().entrySet()) {
+                sb.append(name).append("{item=\"").append(item.getKey()).append("\"} ")
+                        .append(item.getValue()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendCounter(StringBuilder sb, String name, String help, Counter counter) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        for (Type type : Type.values()) {
+            if (HookMetrics.getCalls(type) == 0) {
+                continue;
+            }
+            long value = HookMetrics.getCount(type, counter);
+            sb.append(name).append("{type=\"").append(type.getName()).append("\"} ").append(value).append('\n');
+        }
+    }
+}
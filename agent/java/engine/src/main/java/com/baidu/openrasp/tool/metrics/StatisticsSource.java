@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool.metrics;
+
+import java.util.Map;
+
+/**
+ * 组件统计项的来源，通过 {@link MetricsManager#register(String, StatisticsSource)} 注册后
+ * 由 JMX 和 Prometheus 接口统一输出
+ */
+public interface StatisticsSource {
+
+    /**
+     * @return 统计项名称到数值的映射
+     */
+    Map<String, Long> getStatistics();
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段计数器
+ * <p>
+ * 多个线程同时累加同一个 AtomicLong 时会争抢同一条缓存行。这里按线程把累加分散到多个槽位，
+ * 槽位之间隔开一条缓存行，读取时再把各槽位求和，适合写多读少的统计计数
+ */
+class StripedCounter {
+
+    // 每个槽位占 8 个 long，即 64 字节，避免相邻槽位伪共享
+    private static final int PADDING_SHIFT = 3;
+
+    static final int STRIPES = stripeCount();
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES << PADDING_SHIFT);
+
+    public void increment() {
+        cells.incrementAndGet(stripe() << PADDING_SHIFT);
+    }
+
+    public void add(long delta) {
+        cells.addAndGet(stripe() << PADDING_SHIFT, delta);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i << PADDING_SHIFT);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i << PADDING_SHIFT, 0);
+        }
+    }
+
+    /**
+     * 当前线程对应的槽位，同一线程总是落在同一槽位
+     */
+    static int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * 槽位数取不小于 CPU 核数的 2 的幂，最多 32 个
+     */
+    private static int stripeCount() {
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), 32);
+        int count = 1;
+        while (count < processors) {
+            count <<= 1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.transformer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按类名预先过滤匹配对象(hook 点、服务器探测器)的索引
+ * <p>
+ * 完整类名放在 hash 表中，前缀放在字典树中，后缀逐个比较；
+ * 只有索引命中的对象才需要调用 isClassMatched 做最终判断，没有声明类名模式的对象总是作为候选。
+ * 构建完成后只读，可以在多个线程之间共享。
+ */
+public class ClassNameIndex<T> {
+
+    private final List<T> targets = new ArrayList<T>();
+    private final Map<String, int[]> exact = new HashMap<String, int[]>();
+    private final Node prefixRoot = new Node();
+    private final List<String> suffixes = new ArrayList<String>();
+    private final List<Integer> suffixTargets = new ArrayList<Integer>();
+    private final BitSet undeclared = new BitSet();
+
+    /**
+     * @param patterns 匹配对象到类名模式的映射，候选列表按照该映射的迭代顺序返回，
+     *                 类名模式格式见 {@link com.baidu.openrasp.hook.AbstractClassHook#getClassNamePatterns()}
+     */
+    public ClassNameIndex(Map<T, String[]> patterns) {
+        for (Map.Entry<T, String[]> entry : patterns.entrySet()) {
+            int index = targets.size();
+            targets.add(entry.getKey());
+            String[] classNames = entry.getValue();
+            if (classNames == null) {
+                undeclared.set(index);
+                continue;
+            }
+            for (String pattern : classNames) {
+                if (pattern == null || pattern.length() == 0) {
+                    continue;
+                }
+                if (pattern.startsWith("*")) {
+                    suffixes.add(pattern.substring(1));
+                    suffixTargets.add(index);
+                } else if (pattern.endsWith("*")) {
+                    addPrefix(pattern.substring(0, pattern.length() - 1), index);
+                } else {
+                    exact.put(pattern, append(exact.get(pattern), index));
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取可能匹配该类名的对象
+     *
+     * @param className 类名，以 "/" 分隔
+     * @return 候选对象，没有候选时返回空列表
+     */
+    public List<T> getCandidates(String className) {
+        BitSet matched = null;
+        if (!undeclared.isEmpty()) {
+            matched = (BitSet) undeclared.clone();
+        }
+        int[] exactTargets = exact.get(className);
+        if (exactTargets != null) {
+            matched = set(matched, exactTargets);
+        }
+        Node node = prefixRoot;
+        for (int i = 0; i < className.length() && node != null; i++) {
+            node = node.children == null ? null : node.children.get(className.charAt(i));
+            if (node != null && node.targets != null) {
+                matched = set(matched, node.targets);
+            }
+        }
+        for (int i = 0; i < suffixes.size(); i++) {
+            if (className.endsWith(suffixes.get(i))) {
+                if (matched == null) {
+                    matched = new BitSet();
+                }
+                matched.set(suffixTargets.get(i));
+            }
+        }
+        if (matched == null || matched.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> result = new ArrayList<T>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            result.add(targets.get(i));
+        }
+        return result;
+    }
+
+    private void addPrefix(String prefix, int index) {
+        Node node = prefixRoot;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (node.children == null) {
+                node.children = new HashMap<Character, Node>();
+            }
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                child = new Node();
+                node.children.put(prefix.charAt(i), child);
+            }
+            node = child;
+        }
+        node.targets = append(node.targets, index);
+    }
+
+    private static BitSet set(BitSet bits, int[] indexes) {
+        if (bits == null) {
+            bits = new BitSet();
+        }
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+
+    private static int[] append(int[] array, int value) {
+        if (array == null) {
+            return new int[]{value};
+        }
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, array.length);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static class Node {
+        Map<Character, Node> children;
+        int[] targets;
+    }
+}
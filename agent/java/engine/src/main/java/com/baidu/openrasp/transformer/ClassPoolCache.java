@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.transformer;
+
+import com.baidu.openrasp.ModuleLoader;
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.LoaderClassPath;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 按类加载器缓存的 javassist ClassPool
+ * <p>
+ * 以类加载器为弱引用 key，类加载器被回收后对应的 ClassPool 也会被回收。
+ */
+public class ClassPoolCache {
+
+    private static final Map<ClassLoader, ClassPool> pools =
+            Collections.synchronizedMap(new WeakHashMap<ClassLoader, ClassPool>());
+    private static volatile ClassPool bootstrapPool = null;
+
+    /**
+     * 获取类加载器对应的 ClassPool，不存在时创建
+     *
+     * @param loader 类加载器，null 代表 BootstrapClassLoader
+     * @return ClassPool
+     */
+    public static ClassPool get(ClassLoader loader) {
+        if (loader == null) {
+            ClassPool pool = bootstrapPool;
+            if (pool == null) {
+                synchronized (ClassPoolCache.class) {
+                    if (bootstrapPool == null) {
+                        bootstrapPool = create(null);
+                    }
+                    pool = bootstrapPool;
+                }
+            }
+            return pool;
+        }
+        synchronized (pools) {
+            ClassPool pool = pools.get(loader);
+            if (pool == null) {
+                pool = create(loader);
+                pools.put(loader, pool);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * 清空所有缓存的 ClassPool
+     */
+    public static void clear() {
+        pools.clear();
+        bootstrapPool = null;
+    }
+
+    private static ClassPool create(ClassLoader loader) {
+        ClassPool classPool = new ClassPool();
+        classPool.appendSystemPath();
+        classPool.appendClassPath(new ClassClassPath(ModuleLoader.class));
+        if (loader != null) {
+            classPool.appendClassPath(new LoaderClassPath(loader));
+        }
+        return classPool;
+    }
+}
@@ -16,7 +16,6 @@
 
 package com.baidu.openrasp.transformer;
 
-import com.baidu.openrasp.ModuleLoader;
 import com.baidu.openrasp.config.Config;
 import com.baidu.openrasp.dependency.DependencyFinder;
 import com.baidu.openrasp.detector.ServerDetectorManager;
@@ -25,21 +24,20 @@ import com.baidu.openrasp.messaging.ErrorType;
 import com.baidu.openrasp.messaging.LogTool;
 import com.baidu.openrasp.tool.annotation.AnnotationScanner;
 import com.baidu.openrasp.tool.annotation.HookAnnotation;
-import javassist.ClassClassPath;
 import javassist.ClassPool;
 import javassist.CtClass;
-import javassist.LoaderClassPath;
 import org.apache.log4j.Logger;
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.lang.instrument.Instrumentation;
 import java.lang.ref.SoftReference;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -56,7 +54,11 @@ public class CustomClassTransformer implements ClassFileTransformer {
     public static ConcurrentHashMap<String, SoftReference<ClassLoader>> jspClassLoaderCache = new ConcurrentHashMap<String, SoftReference<ClassLoader>>();
 
     private Instrumentation inst;
-    private HashSet<AbstractClassHook> hooks = new HashSet<AbstractClassHook>();
+    private static volatile CustomClassTransformer instance = null;
+
+    private HashSet<AbstractClassHook> allHooks = new HashSet<AbstractClassHook>();
+    private volatile HashSet<AbstractClassHook> hooks = new HashSet<AbstractClassHook>();
+    private volatile ClassNameIndex<AbstractClassHook> hookIndex;
     private ServerDetectorManager serverDetector = ServerDetectorManager.getInstance();
 
     public static volatile boolean isNecessaryHookComplete = false;
@@ -74,45 +76,102 @@ public class CustomClassTransformer implements ClassFileTransformer {
 
     public CustomClassTransformer(Instrumentation inst) {
         this.inst = inst;
-        inst.addTransformer(this, true);
         addAnnotationHook();
+        hooks = filterIgnoredHooks(allHooks, true);
+        hookIndex = buildHookIndex(hooks);
+        instance = this;
+        // 索引建好之后再注册，注册后加载的类会立即进入 transform
+        inst.addTransformer(this, true);
     }
 
     public void release() {
+        instance = null;
         inst.removeTransformer(this);
         retransform();
+        ClassPoolCache.clear();
     }
 
     public void retransform() {
-        LinkedList<Class> retransformClasses = new LinkedList<Class>();
-        Class[] loadedClasses = inst.getAllLoadedClasses();
-        for (Class clazz : loadedClasses) {
-            if (isClassMatched(clazz.getName().replace(".", "/"))) {
-                if (inst.isModifiableClass(clazz) && !clazz.getName().startsWith("java.lang.invoke.LambdaForm")) {
-                    try {
-                        // hook已经加载的类，或者是回滚已经加载的类
-                        inst.retransformClasses(clazz);
-                    } catch (Throwable t) {
-                        LogTool.error(ErrorType.HOOK_ERROR,
-                                "failed to retransform class " + clazz.getName() + ": " + t.getMessage(), t);
+        Retransformer.retransform(inst, new Retransformer.ClassFilter() {
+            @Override
+            public boolean accept(String className) {
+                return isClassMatched(className);
+            }
+        }, "hook");
+    }
+
+    /**
+     * hooks.ignore 更新后调用，只重新转换新增或者被忽略的 hook 点所匹配的类
+     */
+    public static void onIgnoreHooksChanged() {
+        CustomClassTransformer transformer = instance;
+        if (transformer != null) {
+            transformer.updateHooks();
+        }
+    }
+
+    private synchronized void updateHooks() {
+        HashSet<AbstractClassHook> newHooks = filterIgnoredHooks(allHooks, false);
+        LinkedHashMap<AbstractClassHook, String[]> changed = new LinkedHashMap<AbstractClassHook, String[]>();
+        for (AbstractClassHook hook : allHooks) {
+            if (newHooks.contains(hook) != hooks.contains(hook)) {
+                changed.put(hook, hook.getClassNamePatterns());
+                LOGGER.info((newHooks.contains(hook) ? "enable" : "ignore") + " hook type " + hook.getType()
+                        + ", class " + hook.getClass().getName());
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        hooks = newHooks;
+        hookIndex = buildHookIndex(newHooks);
+        final ClassNameIndex<AbstractClassHook> changedIndex = new ClassNameIndex<AbstractClassHook>(changed);
+        Retransformer.retransform(inst, new Retransformer.ClassFilter() {
+            @Override
+            public boolean accept(String className) {
+                for (AbstractClassHook hook : changedIndex.getCandidates(className)) {
+                    if (hook.isClassMatched(className)) {
+                        return true;
                     }
                 }
+                return false;
             }
-        }
+        }, "hooks.ignore");
     }
 
-    private void addHook(AbstractClassHook hook, String className) {
+    private void addHook(AbstractClassHook hook) {
         if (hook.isNecessary()) {
             necessaryHookType.add(hook.getType());
         }
+        allHooks.add(hook);
+    }
+
+    private static HashSet<AbstractClassHook> filterIgnoredHooks(Set<AbstractClassHook> hooks, boolean log) {
+        HashSet<AbstractClassHook> result = new HashSet<AbstractClassHook>();
         String[] ignore = Config.getConfig().getIgnoreHooks();
-        for (String s : ignore) {
-            if (hook.couldIgnore() && (s.equals("all") || s.equals(hook.getType()))) {
-                LOGGER.info("ignore hook type " + hook.getType() + ", class " + className);
-                return;
+        for (AbstractClassHook hook : hooks) {
+            boolean ignored = false;
+            for (String s : ignore) {
+                if (hook.couldIgnore() && (s.equals("all") || s.equals(hook.getType()))) {
+                    ignored = true;
+                    break;
+                }
             }
+            if (!ignored) {
+                result.add(hook);
+            } else if (log) {
+                LOGGER.info("ignore hook type " + hook.getType() + ", class " + hook.getClass().getName());
+            }
+        }
+        return result;
+    }
+
+    private static ClassNameIndex<AbstractClassHook> buildHookIndex(Set<AbstractClassHook> hooks) {
+        LinkedHashMap<AbstractClassHook, String[]> patterns = new LinkedHashMap<AbstractClassHook, String[]>();
+        for (AbstractClassHook hook : hooks) {
+            patterns.put(hook, hook.getClassNamePatterns());
         }
-        hooks.add(hook);
+        return new ClassNameIndex<AbstractClassHook>(patterns);
     }
 
     private void addAnnotationHook() {
@@ -121,7 +180,7 @@ public class CustomClassTransformer implements ClassFileTransformer {
             try {
                 Object object = clazz.newInstance();
                 if (object instanceof AbstractClassHook) {
-                    addHook((AbstractClassHook) object, clazz.getName());
+                    addHook((AbstractClassHook) object);
                 }
             } catch (Exception e) {
                 LogTool.error(ErrorType.HOOK_ERROR, "add hook failed: " + e.getMessage(), e);
@@ -143,31 +202,69 @@ public class CustomClassTransformer implements ClassFileTransformer {
         if (loader != null && jspClassLoaderNames.contains(loader.getClass().getName())) {
             jspClassLoaderCache.put(className.replace("/", "."), new SoftReference<ClassLoader>(loader));
         }
-        for (final AbstractClassHook hook : hooks) {
-            if (hook.isClassMatched(className)) {
-                CtClass ctClass = null;
-                try {
-                    ClassPool classPool = new ClassPool();
-                    addLoader(classPool, loader);
+        List<AbstractClassHook> candidates = hookIndex.getCandidates(className);
+        if (!candidates.isEmpty()) {
+            byte[] transformed = transformClass(loader, className, classfileBuffer, candidates);
+            if (transformed != null) {
+                classfileBuffer = transformed;
+            }
+        }
+        serverDetector.detectServer(className, loader, domain);
+        return classfileBuffer;
+    }
+
+    /**
+     * 只解析一次类的字节码，所有匹配的 hook 点依次修改同一个类之后再统一生成字节码
+     *
+     * @return 修改后的字节码，没有 hook 点修改成功时返回 null
+     */
+    private byte[] transformClass(ClassLoader loader, String className, byte[] classfileBuffer,
+                                  List<AbstractClassHook> candidates) {
+        ClassPool classPool = ClassPoolCache.get(loader);
+        CtClass ctClass = null;
+        List<AbstractClassHook> applied = new ArrayList<AbstractClassHook>(candidates.size());
+        try {
+            for (AbstractClassHook hook : candidates) {
+                if (!hook.isClassMatched(className)) {
+                    continue;
+                }
+                if (ctClass == null) {
                     ctClass = classPool.makeClass(new ByteArrayInputStream(classfileBuffer));
-                    if (loader == null) {
-                        hook.setLoadedByBootstrapLoader(true);
-                    }
-                    classfileBuffer = hook.transformClass(ctClass);
-                    if (classfileBuffer != null) {
-                        checkNecessaryHookType(hook.getType());
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                } finally {
-                    if (ctClass != null) {
-                        ctClass.detach();
+                }
+                if (loader == null) {
+                    hook.setLoadedByBootstrapLoader(true);
+                }
+                if (hook.hookClass(ctClass)) {
+                    applied.add(hook);
+                } else {
+                    // 失败的 hook 点可能已经修改了部分方法，从原始字节码重新应用之前成功的 hook 点
+                    ctClass.detach();
+                    ctClass = classPool.makeClass(new ByteArrayInputStream(classfileBuffer));
+                    List<AbstractClassHook> reapplied = new ArrayList<AbstractClassHook>(applied.size());
+                    for (AbstractClassHook appliedHook : applied) {
+                        if (appliedHook.hookClass(ctClass)) {
+                            reapplied.add(appliedHook);
+                        }
                     }
+                    applied = reapplied;
                 }
             }
+            if (applied.isEmpty()) {
+                return null;
+            }
+            byte[] result = ctClass.toBytecode();
+            for (AbstractClassHook hook : applied) {
+                checkNecessaryHookType(hook.getType());
+            }
+            return result;
+        } catch (Throwable e) {
+            LogTool.error(ErrorType.HOOK_ERROR, "failed to transform class " + className + ": " + e.getMessage(), e);
+            return null;
+        } finally {
+            if (ctClass != null) {
+                ctClass.detach();
+            }
         }
-        serverDetector.detectServer(className, loader, domain);
-        return classfileBuffer;
     }
 
     private void checkNecessaryHookType(String type) {
@@ -188,7 +285,7 @@ public class CustomClassTransformer implements ClassFileTransformer {
 
 
     public boolean isClassMatched(String className) {
-        for (final AbstractClassHook hook : getHooks()) {
+        for (final AbstractClassHook hook : hookIndex.getCandidates(className)) {
             if (hook.isClassMatched(className)) {
                 return true;
             }
@@ -196,14 +293,6 @@ public class CustomClassTransformer implements ClassFileTransformer {
         return serverDetector.isClassMatched(className);
     }
 
-    private void addLoader(ClassPool classPool, ClassLoader loader) {
-        classPool.appendSystemPath();
-        classPool.appendClassPath(new ClassClassPath(ModuleLoader.class));
-        if (loader != null) {
-            classPool.appendClassPath(new LoaderClassPath(loader));
-        }
-    }
-
     public HashSet<AbstractClassHook> getHooks() {
         return hooks;
     }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.transformer;
+
+import com.baidu.openrasp.messaging.ErrorType;
+import com.baidu.openrasp.messaging.LogTool;
+import org.apache.log4j.Logger;
+
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对已经加载的类重新进行字节码转换
+ * <p>
+ * 先用多个线程并行筛选需要转换的类，再按批调用 {@link Instrumentation#retransformClasses(Class[])}，
+ * 某一批转换失败时逐个重试该批中的类。转换本身在调用线程中按顺序进行，
+ * 因为部分 hook 点在 isClassMatched 中保存了之后 hookMethod 需要使用的状态。
+ */
+class Retransformer {
+
+    private static final Logger LOGGER = CustomClassTransformer.LOGGER;
+    private static final int BATCH_SIZE = 128;
+    private static final int MAX_MATCH_THREADS = 4;
+    private static final int MIN_CLASSES_PER_THREAD = 4096;
+
+    /**
+     * 筛选需要重新转换的类
+     */
+    interface ClassFilter {
+        boolean accept(String className);
+    }
+
+    /**
+     * @param inst   Instrumentation
+     * @param filter 类名筛选条件，类名以 "/" 分隔
+     * @param reason 用于日志输出的转换原因
+     * @return 成功转换的类数量
+     */
+    static int retransform(Instrumentation inst, ClassFilter filter, String reason) {
+        long start = System.currentTimeMillis();
+        Class[] loadedClasses = inst.getAllLoadedClasses();
+        List<Class> matched = match(inst, loadedClasses, filter);
+        int success = 0;
+        for (int from = 0; from < matched.size(); from += BATCH_SIZE) {
+            List<Class> batch = matched.subList(from, Math.min(from + BATCH_SIZE, matched.size()));
+            success += retransformBatch(inst, batch);
+            LOGGER.info(reason + " retransform progress: " + Math.min(from + BATCH_SIZE, matched.size())
+                    + "/" + matched.size() + " classes");
+        }
+        LOGGER.info(reason + " retransform finished: " + success + "/" + matched.size() + " classes retransformed, "
+                + loadedClasses.length + " classes scanned, cost " + (System.currentTimeMillis() - start) + "ms");
+        return success;
+    }
+
+    private static List<Class> match(final Instrumentation inst, final Class[] classes, final ClassFilter filter) {
+        int threads = Math.min(MAX_MATCH_THREADS, Runtime.getRuntime().availableProcessors());
+        threads = Math.min(threads, classes.length / MIN_CLASSES_PER_THREAD);
+        if (threads <= 1) {
+            return matchRange(inst, classes, 0, classes.length, filter);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "OpenRASP Retransform Thread-" + index.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<List<Class>>> futures = new ArrayList<Future<List<Class>>>(threads);
+            int step = (classes.length + threads - 1) / threads;
+            for (int i = 0; i < threads; i++) {
+                final int from = i * step;
+                final int to = Math.min(from + step, classes.length);
+                futures.add(executor.submit(new Callable<List<Class>>() {
+                    @Override
+                    public List<Class> call() {
+                        return matchRange(inst, classes, from, to, filter);
+                    }
+                }));
+            }
+            List<Class> result = new ArrayList<Class>();
+            for (Future<List<Class>> future : futures) {
+                result.addAll(future.get());
+            }
+            return result;
+        } catch (Exception e) {
+            LogTool.warn(ErrorType.HOOK_ERROR, "parallel class matching failed, fall back to serial matching: "
+                    + e.getMessage(), e);
+            return matchRange(inst, classes, 0, classes.length, filter);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Class> matchRange(Instrumentation inst, Class[] classes, int from, int to,
+                                          ClassFilter filter) {
+        List<Class> result = new ArrayList<Class>();
+        for (int i = from; i < to; i++) {
+            Class clazz = classes[i];
+            String name = clazz.getName();
+            if (name.startsWith("java.lang.invoke.LambdaForm") || clazz.isArray()) {
+                continue;
+            }
+            if (filter.accept(name.replace('.', '/')) && inst.isModifiableClass(clazz)) {
+                result.add(clazz);
+            }
+        }
+        return result;
+    }
+
+    private static int retransformBatch(Instrumentation inst, List<Class> batch) {
+        try {
+            // hook已经加载的类，或者是回滚已经加载的类
+            inst.retransformClasses(batch.toArray(new Class[batch.size()]));
+            return batch.size();
+        } catch (Throwable t) {
+            // 一批中有类转换失败时整批都不会生效，逐个重试
+            int success = 0;
+            for (Class clazz : batch) {
+                try {
+                    inst.retransformClasses(clazz);
+                    success++;
+                } catch (Throwable e) {
+                    LogTool.error(ErrorType.HOOK_ERROR,
+                            "failed to retransform class " + clazz.getName() + ": " + e.getMessage(), e);
+                }
+            }
+            return success;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.cloud.httpappender;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.config.ConfigItem;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HttpShipperTest {
+    private static final long TIMEOUT = 10000;
+
+    private final List<Post> posts = new CopyOnWriteArrayList<Post>();
+    private volatile int status = 200;
+    private HttpServer server;
+    private File spillDirectory;
+    private HttpShipper shipper;
+
+    private static class Post {
+        final int status;
+        final String encoding;
+        final List<Integer> ids = new ArrayList<Integer>();
+
+        Post(int status, String encoding, String body) {
+            this.status = status;
+            this.encoding = encoding;
+            JsonArray events = new JsonParser().parse(body).getAsJsonArray();
+            for (int i = 0; i < events.size(); i++) {
+                ids.add(events.get(i).getAsJsonObject().get("id").getAsInt());
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Config.getConfig().setConfig(ConfigItem.HTTP_APPENDER_BATCH_SIZE, "10", false);
+        Config.getConfig().setConfig(ConfigItem.HTTP_APPENDER_FLUSH_INTERVAL, "100", false);
+        Config.getConfig().setConfig(ConfigItem.HTTP_APPENDER_GZIP, "true", false);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/agent/log/attack", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+                InputStream in = exchange.getRequestBody();
+                if ("gzip".equals(encoding)) {
+                    in = new GZIPInputStream(in);
+                }
+                int code = status;
+                posts.add(new Post(code, encoding, read(in)));
+                exchange.sendResponseHeaders(code, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        spillDirectory = Files.createTempDirectory("openrasp-http-spill").toFile();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/agent/log/attack";
+        shipper = new HttpShipper("alarm", url, spillDirectory);
+        shipper.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        shipper.stop();
+        server.stop(0);
+        Config.getConfig().setConfig(ConfigItem.HTTP_APPENDER_BATCH_SIZE, "100", false);
+        Config.getConfig().setConfig(ConfigItem.HTTP_APPENDER_FLUSH_INTERVAL, "1000", false);
+        Config.getConfig().setConfig(ConfigItem.HTTP_APPENDER_GZIP, "true", false);
+        File[] files = spillDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        spillDirectory.delete();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toString("UTF-8");
+    }
+
+    private void offer(int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertTrue(shipper.offer("{\"id\":" + i + ",\"message\":\"attack \\\"" + i + "\\\"\"}"));
+        }
+    }
+
+    private List<Integer> acceptedIds() {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (Post post : posts) {
+            if (post.status == 200) {
+                ids.addAll(post.ids);
+            }
+        }
+        return ids;
+    }
+
+    private List<Post> acceptedPosts() {
+        List<Post> accepted = new ArrayList<Post>();
+        for (Post post : posts) {
+            if (post.status == 200) {
+                accepted.add(post);
+            }
+        }
+        return accepted;
+    }
+
+    private void awaitAccepted(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (acceptedIds().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, acceptedIds().size());
+    }
+
+    private void awaitPosts(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (posts.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(posts.size() >= count);
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int i = from; i < to; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    @Test
+    public void testBatchesBySize() throws Exception {
+        offer(0, 25);
+        awaitAccepted(25);
+        assertEquals(range(0, 25), acceptedIds());
+        List<Post> accepted = acceptedPosts();
+        assertEquals(3, accepted.size());
+        assertEquals(10, accepted.get(0).ids.size());
+        assertEquals(10, accepted.get(1).ids.size());
+        assertEquals(5, accepted.get(2).ids.size());
+    }
+
+    @Test
+    public void testFlushesPartialBatchAfterInterval() throws Exception {
+        offer(0, 3);
+        awaitAccepted(3);
+        assertEquals(1, posts.size());
+        assertEquals(range(0, 3), posts.get(0).ids);
+    }
+
+    @Test
+    public void testGzipSwitch() throws Exception {
+        offer(0, 1);
+        awaitAccepted(1);
+        assertEquals("gzip", posts.get(0).encoding);
+
+        Config.getConfig().setConfig(ConfigItem.HTTP_APPENDER_GZIP, "false", false);
+        offer(1, 2);
+        awaitAccepted(2);
+        assertNull(posts.get(1).encoding);
+        assertEquals(range(1, 2), posts.get(1).ids);
+    }
+
+    @Test
+    public void testSpillsOn5xxAndReplaysInOrder() throws Exception {
+        status = 503;
+        offer(0, 10);
+        awaitPosts(1);
+        // 重试间隔内的日志不再发送，直接写入磁盘
+        offer(10, 15);
+        Thread.sleep(300);
+        assertEquals(1, posts.size());
+        File[] spilled = spillDirectory.listFiles();
+        assertTrue(spilled != null && spilled.length > 0);
+
+        status = 200;
+        awaitAccepted(15);
+        assertEquals(range(0, 15), acceptedIds());
+    }
+
+    @Test
+    public void testDropsBatchRejectedWith4xx() throws Exception {
+        status = 400;
+        offer(0, 5);
+        awaitPosts(1);
+
+        status = 200;
+        offer(5, 6);
+        awaitAccepted(1);
+        Thread.sleep(300);
+        assertEquals(range(5, 6), acceptedIds());
+        assertEquals(2, posts.size());
+    }
+
+    @Test
+    public void testRejectsMalformedEventBeforeBatching() throws Exception {
+        assertFalse(shipper.offer("{\"id\":"));
+        assertFalse(shipper.offer("attack \"x\""));
+        offer(0, 2);
+        awaitAccepted(2);
+        assertEquals(1, posts.size());
+        assertEquals(range(0, 2), acceptedIds());
+        assertEquals(2, shipper.getMalformedCount());
+    }
+}
+
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.cloud.httpappender;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JsonSyntaxTest {
+
+    @Test
+    public void testValid() {
+        assertTrue(JsonSyntax.isValid("{}"));
+        assertTrue(JsonSyntax.isValid(" {\"a\": [1, -2.5e+3, 0, true, false, null], \"b\": {\"c\": \"\\\"\\\\\\/\\n\\u00e9\"}} "));
+        assertTrue(JsonSyntax.isValid("[]"));
+        assertTrue(JsonSyntax.isValid("\"\u4e2d\u6587\""));
+        assertTrue(JsonSyntax.isValid("12"));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertFalse(JsonSyntax.isValid(null));
+        assertFalse(JsonSyntax.isValid(""));
+        assertFalse(JsonSyntax.isValid("{"));
+        assertFalse(JsonSyntax.isValid("{\"a\":1,}"));
+        assertFalse(JsonSyntax.isValid("{a:1}"));
+        assertFalse(JsonSyntax.isValid("{\"a\":1} {}"));
+        assertFalse(JsonSyntax.isValid("[1 2]"));
+        assertFalse(JsonSyntax.isValid("\"tab\there\""));
+        assertFalse(JsonSyntax.isValid("\"\\x\""));
+        assertFalse(JsonSyntax.isValid("\"\\u12\""));
+        assertFalse(JsonSyntax.isValid("01"));
+        assertFalse(JsonSyntax.isValid("1."));
+        assertFalse(JsonSyntax.isValid("tru"));
+        assertFalse(JsonSyntax.isValid("-"));
+    }
+
+    @Test
+    public void testDeepNestingRejectedWithoutOverflow() {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            json.append('[');
+        }
+        assertFalse(JsonSyntax.isValid(json.toString()));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.hook.sql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 遍历 H2 内存数据库中的大结果集，对比 next 前是否插入 SQLResultSetHook 的检测代码
+ * <p>
+ * hook 模式下每次 next 之前调用 checkSqlQueryResult，与 agent 插桩后的行为一致；
+ * 行数达到 sql.slowquery.min_rows 时会进入一次完整的检测流程。
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.hook.sql.ResultSetIterationBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSetIterationBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"none", "hook"})
+    public String mode;
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:rows" + rows + ";DB_CLOSE_DELAY=-1");
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("DROP TABLE IF EXISTS users");
+            statement.execute("CREATE TABLE users (id INT PRIMARY KEY, name VARCHAR(64), score INT)");
+        } finally {
+            statement.close();
+        }
+        PreparedStatement insert = connection.prepareStatement("INSERT INTO users VALUES (?, ?, ?)");
+        try {
+            for (int i = 0; i < rows; i++) {
+                insert.setInt(1, i);
+                insert.setString(2, "user" + i);
+                insert.setInt(3, i % 100);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        } finally {
+            insert.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long iterate() throws SQLException {
+        boolean hook = "hook".equals(mode);
+        long sum = 0;
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT id, name, score FROM users");
+            while (true) {
+                if (hook) {
+                    SQLResultSetHook.checkSqlQueryResult("h2", resultSet);
+                }
+                if (!resultSet.next()) {
+                    break;
+                }
+                sum += resultSet.getInt(3) + resultSet.getString(2).length();
+            }
+            resultSet.close();
+        } finally {
+            statement.close();
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResultSetIterationBenchmark.class.getName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.messaging;
+
+import com.baidu.openrasp.config.Config;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.helpers.OnlyOnceErrorHandler;
+import org.apache.log4j.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64 个线程同时写 alarm.log 的吞吐，对比加锁同步写入的 OpenraspDailyRollingFileAppender
+ * 和批量写入的 AsyncDailyRollingFileAppender
+ * <p>
+ * appender 的配置与 DynamicConfigAppender.createFileAppender 创建的报警日志 appender 一致。
+ * work 为每条报警之前模拟的请求处理开销（Blackhole.consumeCPU 的 token 数）。
+ * 异步模式下队列写满时 doAppend 直接丢弃日志，ops/ms 就不再是写入吞吐，所以一轮中只要有日志被丢弃，
+ * 该轮即失败；每轮结束时输出写线程实际写入的 written/ms 和批次数。为 0 时生产者不停地写，
+ * 写线程跟不上时该组参数会失败，说明异步写入在这个速率下无法不丢日志。
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.messaging.AlarmFileAppenderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class AlarmFileAppenderBenchmark {
+
+    private static final int QUEUE_SIZE = 8192;
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    @Param({"0", "2000", "20000"})
+    public int work;
+
+    private File directory;
+    private OpenraspDailyRollingFileAppender appender;
+    private LoggingEvent event;
+    private Map<String, Long> before;
+    private long startNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // agent 中配置早已加载，避免写线程第一次读取配置时的初始化计入测量
+        Config.getConfig();
+        directory = File.createTempFile("openrasp-alarm", "");
+        if (!directory.delete() || !directory.mkdirs()) {
+            throw new IOException("failed to create " + directory);
+        }
+        appender = "async".equals(mode)
+                ? new AsyncDailyRollingFileAppender(QUEUE_SIZE)
+                : new OpenraspDailyRollingFileAppender();
+        appender.setName("ALARM");
+        appender.setErrorHandler(new OnlyOnceErrorHandler());
+        appender.setFile(new File(directory, "alarm.log").getPath());
+        appender.setAppend(true);
+        appender.setDatePattern("'.'yyyy-MM-dd");
+        appender.setEncoding("UTF-8");
+        appender.setLayout(new PatternLayout("%m%n"));
+        appender.activateOptions();
+
+        String message = "{\"event_type\":\"attack\",\"attack_type\":\"sql\",\"intercept_state\":\"block\","
+                + "\"plugin_message\":\"SQLi - Detected UNION-NULL phrase in sql query\","
+                + "\"url\":\"http://127.0.0.1:8080/vulns/012-jdbc-mysql.jsp?id=1 union select null\"}";
+        event = new LoggingEvent(Logger.class.getName(), Logger.getLogger("com.baidu.openrasp.plugin.checker.alarm"),
+                org.apache.log4j.Level.INFO, message, null);
+    }
+
+    @Setup(Level.Iteration)
+    public void recordCounters() {
+        before = AsyncDailyRollingFileAppender.getStatistics();
+        startNanos = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounters() {
+        if ("async".equals(mode)) {
+            double millis = (System.nanoTime() - startNanos) / 1000000.0;
+            Map<String, Long> statistics = AsyncDailyRollingFileAppender.getStatistics();
+            long written = statistics.get("written") - before.get("written");
+            long dropped = statistics.get("dropped") - before.get("dropped");
+            System.out.println(String.format("written: %.3f ops/ms, batches: %d", written / millis,
+                    statistics.get("batches") - before.get("batches")));
+            if (dropped > 0) {
+                throw new IllegalStateException(dropped + " lines dropped by the full queue, "
+                        + "ops/ms does not measure write throughput");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        appender.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void append() {
+        Blackhole.consumeCPU(work);
+        appender.doAppend(event);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AlarmFileAppenderBenchmark.class.getName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.messaging;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+public class AsyncSyslogWriterTest {
+
+    private ServerSocket server;
+    private final AtomicInteger accepted = new AtomicInteger(0);
+    private final List<Socket> sockets = new ArrayList<Socket>();
+    private AsyncSyslogWriter writer;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket();
+        server.setReceiveBufferSize(4096);
+        server.bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        // 接收端只建立连接，从不读取
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        Socket socket = server.accept();
+                        synchronized (sockets) {
+                            sockets.add(socket);
+                        }
+                        accepted.incrementAndGet();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (writer != null) {
+            writer.shutdown();
+        }
+        server.close();
+        synchronized (sockets) {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    public void testStalledServerTimesOutAndReconnects() throws Exception {
+        long errorsBefore = AsyncSyslogWriter.getStatistics().get("write_error");
+        writer = new AsyncSyslogWriter(InetAddress.getByName("127.0.0.1"), server.getLocalPort(),
+                200, 50, 1024, AsyncSyslogWriter.POLICY_DROP);
+        writer.start();
+        byte[] packet = new byte[8 * 1024];
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline
+                && (AsyncSyslogWriter.getStatistics().get("write_error") == errorsBefore || accepted.get() < 2)) {
+            writer.offer(packet);
+            Thread.sleep(1);
+        }
+        assertTrue(AsyncSyslogWriter.getStatistics().get("write_error") > errorsBefore);
+        assertTrue(accepted.get() >= 2);
+    }
+}
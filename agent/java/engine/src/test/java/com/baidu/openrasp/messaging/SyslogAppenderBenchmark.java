@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.messaging;
+
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 报警线程写 syslog 的吞吐：接收端故意读得很慢（每读 1KB 休眠 1 毫秒），对比同步模式和异步模式的各溢出策略
+ * <p>
+ * 同步模式下请求线程会被阻塞在 socket 写入上；异步模式下请求线程只做格式化和入队，
+ * 每轮结束时输出异步发送线程的写入和丢弃计数。
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.messaging.SyslogAppenderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SyslogAppenderBenchmark {
+
+    private static final int FACILITY_LOCAL0 = 16;
+    private static final int QUEUE_SIZE = 4096;
+
+    @Param({"sync", AsyncSyslogWriter.POLICY_DROP, AsyncSyslogWriter.POLICY_DROP_OLDEST, AsyncSyslogWriter.POLICY_BLOCK})
+    public String mode;
+
+    private SlowSink sink;
+    private SyslogTcpAppender appender;
+    private LoggingEvent event;
+    private long writtenBefore;
+    private long droppedBefore;
+
+    /**
+     * 读取很慢的 syslog 接收端
+     */
+    private static class SlowSink extends Thread {
+        private final ServerSocket server;
+        private volatile boolean running = true;
+
+        SlowSink() throws IOException {
+            super("slow syslog sink");
+            setDaemon(true);
+            server = new ServerSocket();
+            // 缩小接收缓冲区，让发送端尽快感受到背压
+            server.setReceiveBufferSize(4096);
+            server.bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        }
+
+        int getPort() {
+            return server.getLocalPort();
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[1024];
+            while (running) {
+                try {
+                    Socket socket = server.accept();
+                    InputStream in = socket.getInputStream();
+                    try {
+                        while (running && in.read(buffer) != -1) {
+                            Thread.sleep(1);
+                        }
+                    } finally {
+                        socket.close();
+                    }
+                } catch (Exception e) {
+                    return;
+                }
+            }
+        }
+
+        void shutdown() throws IOException {
+            running = false;
+            server.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        sink = new SlowSink();
+        sink.start();
+        PatternLayout layout = new PatternLayout("%m");
+        if ("sync".equals(mode)) {
+            appender = new SyslogTcpAppender("127.0.0.1", sink.getPort(), FACILITY_LOCAL0, layout);
+        } else {
+            appender = new SyslogTcpAppender("127.0.0.1", sink.getPort(), FACILITY_LOCAL0, layout,
+                    QUEUE_SIZE, mode);
+        }
+        String message = "{\"event_type\":\"attack\",\"attack_type\":\"sql\",\"intercept_state\":\"block\","
+                + "\"plugin_message\":\"SQLi - Detected UNION-NULL phrase in sql query\","
+                + "\"url\":\"http://127.0.0.1:8080/vulns/012-jdbc-mysql.jsp?id=1 union select null\"}";
+        event = new LoggingEvent(Logger.class.getName(), Logger.getLogger("com.baidu.openrasp.plugin.checker.alarm"),
+                org.apache.log4j.Level.INFO, message, null);
+    }
+
+    @Setup(Level.Iteration)
+    public void recordCounters() {
+        Map<String, Long> statistics = AsyncSyslogWriter.getStatistics();
+        writtenBefore = statistics.get("written");
+        droppedBefore = statistics.get("dropped");
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounters() {
+        if (!"sync".equals(mode)) {
+            Map<String, Long> statistics = AsyncSyslogWriter.getStatistics();
+            System.out.println("written: " + (statistics.get("written") - writtenBefore)
+                    + ", dropped: " + (statistics.get("dropped") - droppedBefore));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        appender.close();
+        sink.shutdown();
+    }
+
+    @Benchmark
+    public void append() {
+        appender.doAppend(event);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SyslogAppenderBenchmark.class.getName())
+                .build()).run();
+    }
+}
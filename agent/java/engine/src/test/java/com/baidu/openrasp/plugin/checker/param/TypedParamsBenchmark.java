@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.checker.param;
+
+import com.baidu.openrasp.plugin.js.ParamOutputStream;
+import com.jsoniter.output.JsonStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * hook 点构造检测参数并序列化给 V8 的开销：按线程复用的 {@link TypedParams} 与每次新建的 HashMap 对比
+ * <p>
+ * 两种方式写入同一个复用的 {@link ParamOutputStream}，差异只来自参数对象本身；
+ * mapView 模拟本地检测读取 Map 视图的情况。
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.plugin.checker.param.TypedParamsBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypedParamsBenchmark {
+
+    private static final String SERVER = "mysql";
+    private static final String QUERY = "SELECT id, name FROM users WHERE id = 42";
+    private static final String PATH = "/var/www/html/../upload/avatar.png";
+    private static final String REALPATH = "/var/www/upload/avatar.png";
+
+    private ParamOutputStream out;
+
+    @Setup
+    public void setUp() {
+        out = new ParamOutputStream();
+    }
+
+    @Benchmark
+    public int sqlHashMap() {
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("server", SERVER);
+        params.put("query", QUERY);
+        out.reset();
+        JsonStream.serialize(params, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int sqlTyped() {
+        SqlParams params = SqlParams.acquire(SERVER, QUERY);
+        try {
+            out.reset();
+            params.writeJson(out);
+            return out.size();
+        } finally {
+            params.release();
+        }
+    }
+
+    @Benchmark
+    public int readFileHashMap() {
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("path", PATH);
+        params.put("realpath", REALPATH);
+        out.reset();
+        JsonStream.serialize(params, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int readFileTyped() {
+        FileParams params = FileParams.acquire(PATH, REALPATH);
+        try {
+            out.reset();
+            params.writeJson(out);
+            return out.size();
+        } finally {
+            params.release();
+        }
+    }
+
+    @Benchmark
+    public Object sqlTypedMapView() {
+        SqlParams params = SqlParams.acquire(SERVER, QUERY);
+        try {
+            Map<String, Object> map = params;
+            return map.get("query");
+        } finally {
+            params.release();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TypedParamsBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
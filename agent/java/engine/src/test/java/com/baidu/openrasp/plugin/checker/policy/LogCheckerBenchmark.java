@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.checker.policy;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogHook 每条日志调用 LogChecker 的开销，分别配置 0、5、20 条敏感信息正则
+ * <p>
+ * clean 为不含敏感信息的普通日志；sensitive 的日志命中手机号正则，但同一调用位置只在第一次报警，
+ * 之后只有正则匹配和调用位置计算的开销。
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.plugin.checker.policy.LogCheckerBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogCheckerBenchmark {
+
+    private static final String[][] REGEXES = {
+            {"phone", "\\b1[3-9]\\d{9}\\b"},
+            {"id_card", "\\b\\d{17}[\\dXx]\\b"},
+            {"bank_card", "\\b\\d{16,19}\\b"},
+            {"email", "[\\w.+-]+@[\\w-]+\\.[\\w.]+"},
+            {"password", "(?i)password\\s*[=:]\\s*\\S+"},
+            {"secret_key", "(?i)secret[_-]?key\\s*[=:]\\s*\\S+"},
+            {"access_token", "(?i)access[_-]?token\\s*[=:]\\s*\\S+"},
+            {"aws_key", "AKIA[0-9A-Z]{16}"},
+            {"bearer", "(?i)authorization:\\s*bearer\\s+\\S+"},
+            {"private_key_block", "-----BEGIN [A-Z ]*PRIVATE KEY-----"},
+            {"jdbc_password", "(?i)jdbc:[a-z]+://\\S+password=\\S+"},
+            {"ip", "\\b(?:\\d{1,3}\\.){3}\\d{1,3}\\b"},
+            {"passwd", "(?i)passwd\\s*[=:]\\s*\\S+"},
+            {"api_key", "(?i)api[_-]?key\\s*[=:]\\s*\\S+"},
+            {"passport", "\\b[A-Z]{1,2}\\d{6,9}\\b"},
+            {"session_id", "(?i)session[_-]?id\\s*[=:]\\s*\\S+"},
+            {"cookie", "(?i)cookie:\\s*\\S+"},
+            {"github_token", "\\bghp_[A-Za-z0-9]{36}\\b"},
+            {"slack_token", "\\bxox[baprs]-[A-Za-z0-9-]+\\b"},
+            {"private_key", "(?i)private[_-]?key\\s*[=:]\\s*\\S+"}
+    };
+
+    @Param({"0", "5", "20"})
+    public int regexCount;
+
+    @Param({"clean", "sensitive"})
+    public String message;
+
+    private final LogChecker checker = new LogChecker(false);
+    private CheckParameter parameter;
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<String, String> regexes = new LinkedHashMap<String, String>();
+        for (int i = 0; i < regexCount; i++) {
+            regexes.put(REGEXES[i][0], REGEXES[i][1]);
+        }
+        // log_regex.regex 来自插件的 algorithmConfig，这里直接写入
+        Field field = Config.class.getDeclaredField("logSensitiveRegex");
+        field.setAccessible(true);
+        field.set(Config.getConfig(), regexes);
+
+        String content = "sensitive".equals(message)
+                ? "OrderService - order 10234 created for user alice, contact 13800138000, total=129.50"
+                : "OrderService - order 10234 created for user alice, items=3, total=129.50";
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("message", content);
+        parameter = new CheckParameter(Type.POLICY_LOG, params, null, createStackTrace());
+        // 第一次调用产生报警，之后同一调用位置不再重复报警
+        checker.checkParam(parameter);
+    }
+
+    private static StackTraceElement[] createStackTrace() {
+        StackTraceElement[] trace = new StackTraceElement[60];
+        for (int i = 0; i < trace.length; i++) {
+            trace[i] = new StackTraceElement("com.example.service.Layer" + i, "handle" + i, "Layer" + i + ".java", 100 + i);
+        }
+        return trace;
+    }
+
+    @Benchmark
+    public List<?> checkLog() {
+        return checker.checkParam(parameter);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LogCheckerBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
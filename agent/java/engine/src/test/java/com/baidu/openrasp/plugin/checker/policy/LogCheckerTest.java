@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.checker.policy;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogCheckerTest {
+
+    private final LogChecker checker = new LogChecker(false);
+
+    @After
+    public void tearDown() throws Exception {
+        setRegexes(null);
+    }
+
+    @Test
+    public void testNewRegexAtSameIndexIsReported() throws Exception {
+        Map<String, String> regexes = new LinkedHashMap<String, String>();
+        regexes.put("phone", "\\b1[3-9]\\d{9}\\b");
+        setRegexes(regexes);
+        CheckParameter parameter = createParameter("contact 13800138000, mail alice@example.com");
+        assertEquals(1, checker.checkParam(parameter).size());
+        assertEquals(0, checker.checkParam(parameter).size());
+
+        // 配置更新后新的正则占用了原来的下标，同一个调用位置仍然需要报警
+        regexes = new LinkedHashMap<String, String>();
+        regexes.put("email", "[\\w.+-]+@[\\w-]+\\.[\\w.]+");
+        setRegexes(regexes);
+        assertEquals(1, checker.checkParam(parameter).size());
+        assertEquals(0, checker.checkParam(parameter).size());
+    }
+
+    private static void setRegexes(Map<String, String> regexes) throws Exception {
+        Field field = Config.class.getDeclaredField("logSensitiveRegex");
+        field.setAccessible(true);
+        field.set(Config.getConfig(), regexes);
+    }
+
+    private static CheckParameter createParameter(String message) {
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("message", message);
+        StackTraceElement[] trace = new StackTraceElement[]{
+                new StackTraceElement("com.example.LogCheckerTestCaller", "log", "LogCheckerTestCaller.java", 42)
+        };
+        return new CheckParameter(Type.POLICY_LOG, params, null, trace);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.info;
+
+import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import com.baidu.openrasp.tool.OSUtil;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 报警 JSON 编码吞吐量，每次都创建新的 AttackInfo，避免命中 toString 的缓存
+ * <p>
+ * streaming 为当前的流式编码；gson 先生成 getInfo() 的 Map 再交给 Gson 序列化；
+ * legacy 在 gson 的基础上补回旧实现每条报警都要做的 SimpleDateFormat 创建和主机名、网卡查询。
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.plugin.info.AlarmEncodingBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlarmEncodingBenchmark {
+
+    private CheckParameter parameter;
+
+    @Setup
+    public void setUp() {
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("server", "mysql");
+        params.put("query", "SELECT id, name, email FROM users WHERE name = '' OR 1=1 -- ' AND status = \"active\"");
+        parameter = new CheckParameter(Type.SQL, params, null, createStackTrace());
+    }
+
+    private static StackTraceElement[] createStackTrace() {
+        StackTraceElement[] trace = new StackTraceElement[40];
+        for (int i = 0; i < trace.length; i++) {
+            trace[i] = new StackTraceElement("com.example.dao.Layer" + i, "query" + i, "Layer" + i + ".java", 100 + i);
+        }
+        return trace;
+    }
+
+    private AttackInfo createAttackInfo() {
+        return new AttackInfo(parameter, "block", "SQLi - Detected SQL injection with tautology",
+                "official", "sqli_userinput", 90);
+    }
+
+    @Benchmark
+    public String streaming() {
+        return createAttackInfo().toString();
+    }
+
+    @Benchmark
+    public String gson() {
+        return new Gson().toJson(createAttackInfo().getInfo());
+    }
+
+    @Benchmark
+    public String legacy() {
+        Map<String, Object> info = createAttackInfo().getInfo();
+        info.put("event_time", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ")
+                .format(new Timestamp(parameter.getCreateTime())));
+        info.put("server_hostname", OSUtil.getHostName());
+        info.put("server_nic", OSUtil.getIpAddress());
+        return new Gson().toJson(info);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AlarmEncodingBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
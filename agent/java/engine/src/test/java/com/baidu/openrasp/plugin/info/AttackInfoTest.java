@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.info;
+
+import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class AttackInfoTest {
+
+    @Test
+    public void testExtrasOverrideBuiltinFields() {
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("query", "select 1");
+        CheckParameter parameter = new CheckParameter(Type.SQL, params, null, new StackTraceElement[0]);
+        JsonObject extras = new JsonObject();
+        extras.addProperty("plugin_message", "overridden by plugin");
+        extras.addProperty("custom_field", "custom");
+        AttackInfo info = new AttackInfo(parameter, "block", "SQLi", "official", 90,
+                "sqli_userinput", null, extras);
+
+        String json = info.toString();
+        assertEquals(1, count(json, "\"plugin_message\""));
+        JsonObject parsed = new JsonParser().parse(json).getAsJsonObject();
+        assertEquals("overridden by plugin", parsed.get("plugin_message").getAsString());
+        assertEquals("custom", parsed.get("custom_field").getAsString());
+        assertEquals(extras.get("plugin_message"), info.getInfo().get("plugin_message"));
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + token.length())) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.plugin.js;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.config.ConfigItem;
+import com.baidu.openrasp.plugin.checker.CheckParameter;
+import com.baidu.openrasp.plugin.checker.CheckParameter.Type;
+import com.baidu.openrasp.plugin.checker.param.SqlParams;
+import com.baidu.openrasp.v8.ByteArrayOutputStream;
+import com.jsoniter.output.JsonStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JS.Check 在调用 V8 之前的分配情况，配合 -prof gc 查看每次检测分配的字节数（gc.alloc.rate.norm）
+ * <p>
+ * 不加载 V8：checkCacheHit 预先写入放行结果，走完整的 JS.Check 但在缓存命中后返回；
+ * serialize 和 serializeLegacy 分别是当前和改动前交给 V8 的参数序列化及缓存 key 计算，省略 V8 调用本身。
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.plugin.js.JSCheckBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSCheckBenchmark {
+
+    private static final String SERVER = "mysql";
+
+    @Param({"false", "true"})
+    public String compareEnable;
+
+    private String query;
+
+    @Setup
+    public void setUp() throws Exception {
+        Config.getConfig().setConfig(ConfigItem.LRU_COMPARE_ENABLE, compareEnable, false);
+        VerdictCache.rebuild();
+        char[] padding = new char[200];
+        Arrays.fill(padding, 'x');
+        query = "SELECT id, name, email FROM users WHERE name = '" + new String(padding) + "' LIMIT 10";
+
+        // 按 JS.Check 的方式计算缓存 key，预先写入放行结果
+        SqlParams params = SqlParams.acquire(SERVER, query);
+        ParamOutputStream out = new ParamOutputStream();
+        params.writeJson(out);
+        out.write(0);
+        params.release();
+        Object key = Boolean.parseBoolean(compareEnable) ? out.copy() : out.getHash();
+        VerdictCache.put(Type.SQL, key, VerdictCache.getGeneration());
+        if (!VerdictCache.contains(Type.SQL, key)) {
+            throw new IllegalStateException("verdict cache is disabled");
+        }
+    }
+
+    @Benchmark
+    public List<?> checkCacheHit() {
+        SqlParams params = SqlParams.acquire(SERVER, query);
+        try {
+            return JS.Check(new CheckParameter(Type.SQL, params, null));
+        } finally {
+            params.release();
+        }
+    }
+
+    @Benchmark
+    public int serialize() {
+        SqlParams params = SqlParams.acquire(SERVER, query);
+        ParamOutputStream out = ParamOutputStream.acquire();
+        try {
+            params.writeJson(out);
+            out.write(0);
+            return out.getHash();
+        } finally {
+            out.release();
+            params.release();
+        }
+    }
+
+    @Benchmark
+    public int serializeLegacy() {
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("server", SERVER);
+        params.put("query", query);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonStream.serialize(params, out);
+        out.write(0);
+        return ByteBuffer.wrap(out.getByteArray(), 0, out.size()).hashCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JSCheckBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.request;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BodyBufferTest {
+
+    private static byte[] fill(int length, char c) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) c);
+        return data;
+    }
+
+    @Test
+    public void testWriteAcrossSlabs() {
+        BodyBuffer buffer = new BodyBuffer(BodyBuffer.SLAB_SIZE * 3);
+        byte[] data = new byte[BodyBuffer.SLAB_SIZE * 2 + 10];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        buffer.write(data, 0, 5);
+        buffer.write(data, 5, data.length - 5);
+        assertArrayEquals(data, buffer.toByteArray());
+
+        BodyBuffer small = new BodyBuffer(3);
+        small.write('a');
+        small.write('b');
+        small.write('c');
+        small.write('d');
+        assertEquals("abc", small.toString("UTF-8"));
+    }
+
+    @Test
+    public void testWriteAfterReleaseIsIgnored() {
+        BodyBuffer first = new BodyBuffer(BodyBuffer.SLAB_SIZE * 2);
+        byte[] secret = fill(BodyBuffer.SLAB_SIZE * 2, 's');
+        first.write(secret, 0, secret.length);
+        first.release();
+        assertEquals(0, first.size());
+        assertEquals(0, first.toByteArray().length);
+
+        // 另一个请求的缓冲区归还内存块后继续写入，不能读到之前请求的数据
+        BodyBuffer second = new BodyBuffer(BodyBuffer.SLAB_SIZE * 2);
+        byte[] mine = fill(BodyBuffer.SLAB_SIZE + 1, 'm');
+        second.write(mine, 0, mine.length);
+        second.release();
+        second.write('x');
+        second.write(mine, 0, mine.length);
+        assertEquals(0, second.size());
+        assertEquals(0, second.toByteArray().length);
+        assertEquals("", second.toString("UTF-8"));
+    }
+
+    @Test
+    public void testReleaseKeepsMergedBytes() {
+        BodyBuffer buffer = new BodyBuffer(16);
+        buffer.write("a=1&b=2".getBytes(), 0, 7);
+        assertEquals("a=1&b=2", buffer.toString("UTF-8"));
+        buffer.release();
+        buffer.release();
+        buffer.write('z');
+        assertEquals(7, buffer.size());
+        assertEquals("a=1&b=2", buffer.toString("UTF-8"));
+    }
+
+    @Test
+    public void testReadOnlyCopy() {
+        BodyBuffer buffer = new BodyBuffer(8);
+        buffer.write("hello".getBytes(), 0, 5);
+        BodyBuffer copy = BodyBuffer.readOnlyCopy(buffer);
+        buffer.release();
+        assertEquals("hello", copy.toString(null));
+    }
+}
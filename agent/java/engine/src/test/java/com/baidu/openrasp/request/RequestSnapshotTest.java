@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.request;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RequestSnapshotTest {
+
+    @Test
+    public void testSnapshotIsSharedWithinRequest() {
+        StubRequest request = new StubRequest().addParameter("id", "1").addHeader("host", "localhost");
+        RequestSnapshot snapshot = request.getSnapshot();
+        assertSame(snapshot, request.getSnapshot());
+        assertSame(snapshot, snapshot.getSnapshot());
+        assertEquals("1", snapshot.getParameter("id"));
+        assertEquals("localhost", snapshot.getHeader("host"));
+        assertEquals(request.getRequestId(), snapshot.getRequestId());
+    }
+
+    @Test
+    public void testBodyChangeCreatesNewSnapshot() {
+        StubRequest request = new StubRequest();
+        byte[] first = "a=1".getBytes();
+        request.appendBody(first, 0, first.length);
+        RequestSnapshot before = request.getSnapshot();
+
+        byte[] second = "&b=2".getBytes();
+        request.appendBody(second, 0, second.length);
+        RequestSnapshot after = request.getSnapshot();
+        assertNotSame(before, after);
+        // 已经交给其它线程的快照不受后续写入影响
+        assertArrayEquals("a=1".getBytes(), before.getBody());
+        assertArrayEquals("a=1&b=2".getBytes(), after.getBody());
+
+        request.releaseBody();
+        assertArrayEquals("a=1&b=2".getBytes(), after.getBody());
+    }
+
+    @Test
+    public void testContextSnapshotIsLoadedBeforeSharing() {
+        StubRequest request = new StubRequest().addParameter("id", "1").addHeader("host", "localhost");
+        byte[] body = "a=1".getBytes();
+        request.appendBody(body, 0, body.length);
+        RequestSnapshot snapshot = request.getSnapshot();
+        RequestContextSnapshot context = snapshot.getContextSnapshot();
+        assertSame(context, snapshot.getContextSnapshot());
+
+        // 原始请求之后的变化不影响已经计算的快照字段
+        byte[] more = "&b=2".getBytes();
+        request.appendBody(more, 0, more.length);
+        assertArrayEquals("a=1".getBytes(), context.getBody());
+    }
+
+    @Test
+    public void testParameterChangeCreatesNewSnapshot() {
+        StubRequest request = new StubRequest();
+        RequestSnapshot before = request.getSnapshot();
+        request.setCanGetParameter(true);
+        assertNotSame(before, request.getSnapshot());
+    }
+}
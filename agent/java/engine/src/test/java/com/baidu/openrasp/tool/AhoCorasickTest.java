@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class AhoCorasickTest {
+
+    private static int scan(AhoCorasick automaton, int[] state, String text) {
+        int found = -1;
+        int s = state[0];
+        for (int i = 0; i < text.length(); i++) {
+            s = automaton.next(s, text.charAt(i));
+            int index = automaton.getMatch(s);
+            if (index >= 0 && (found < 0 || index < found)) {
+                found = index;
+            }
+        }
+        state[0] = s;
+        return found;
+    }
+
+    @Test
+    public void testSmallestIndexWins() {
+        AhoCorasick automaton = new AhoCorasick(new String[]{"<script>alert(1)", "alert", "t(1"});
+        assertEquals(0, scan(automaton, new int[1], "xx<script>alert(1)</script>"));
+        assertEquals(1, scan(automaton, new int[1], "<b>alert(2)</b>"));
+        assertEquals(2, scan(automaton, new int[1], "abort(1)"));
+        assertEquals(-1, scan(automaton, new int[1], "<script>aler"));
+    }
+
+    @Test
+    public void testSuffixOutputsAreInherited() {
+        AhoCorasick automaton = new AhoCorasick(new String[]{"abcd", "bc", "c"});
+        assertEquals(1, scan(automaton, new int[1], "xbcx"));
+        assertEquals(2, scan(automaton, new int[1], "xacx"));
+        assertEquals(0, scan(automaton, new int[1], "abcd"));
+    }
+
+    @Test
+    public void testMatchAcrossChunks() {
+        AhoCorasick automaton = new AhoCorasick(new String[]{"<img src=x onerror=alert(1)>"});
+        int[] state = new int[1];
+        assertEquals(-1, scan(automaton, state, "<html><body><img src=x one"));
+        assertEquals(0, scan(automaton, state, "rror=alert(1)></body>"));
+    }
+
+    @Test
+    public void testIgnoresNullAndEmptyPatterns() {
+        AhoCorasick automaton = new AhoCorasick(new String[]{null, "", "ab"});
+        assertEquals(2, scan(automaton, new int[1], "cab"));
+        assertEquals(-1, scan(new AhoCorasick(new String[]{null}), new int[1], "anything"));
+    }
+
+    @Test
+    public void testAgainstIndexOf() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            String[] patterns = new String[1 + random.nextInt(8)];
+            for (int i = 0; i < patterns.length; i++) {
+                patterns[i] = randomString(random, 1 + random.nextInt(4));
+            }
+            String text = randomString(random, random.nextInt(40));
+            int expected = -1;
+            for (int i = 0; i < patterns.length; i++) {
+                if (text.contains(patterns[i])) {
+                    expected = i;
+                    break;
+                }
+            }
+            assertEquals(expected, scan(new AhoCorasick(patterns), new int[1], text));
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(3));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LRUCache} 与 {@link ConcurrentLRUCache} 的并发吞吐对比
+ * <p>
+ * 访问模式贴近插件结果缓存：90% 的访问落在缓存容量一半的热点 key 上，其余均匀分布在 4 倍容量的 key 上，
+ * 未命中时写入。main 方法依次以 1、8、32、64 个线程运行，也可以直接通过 JMH 命令行指定 -t：
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.tool.CacheBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+    private static final int[] THREADS = {1, 8, 32, 64};
+
+    @Param({"lru", "concurrent"})
+    public String type;
+
+    @Param({"1024"})
+    public int maxSize;
+
+    private Cache<Object, Object> cache;
+    private String[] keys;
+    private int hotKeys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int seed = (int) System.nanoTime() | 1;
+
+        int next() {
+            // xorshift，避免 Random 的共享种子影响多线程结果
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            return seed & Integer.MAX_VALUE;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        if ("concurrent".equals(type)) {
+            cache = new ConcurrentLRUCache<Object, Object>(maxSize);
+        } else {
+            cache = new LRUCache<Object, Object>(maxSize);
+        }
+        keys = new String[maxSize * 4];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "SELECT * FROM users WHERE id = " + i;
+        }
+        hotKeys = maxSize / 2;
+        for (int i = 0; i < hotKeys; i++) {
+            cache.put(keys[i], Boolean.TRUE);
+        }
+    }
+
+    @Benchmark
+    public Object lookup(Cursor cursor) {
+        int random = cursor.next();
+        String key = random % 10 == 0 ? keys[random % keys.length] : keys[random % hotKeys];
+        Object value = cache.get(key);
+        if (value == null) {
+            cache.put(key, Boolean.TRUE);
+        }
+        return value;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder()
+                    .include(CacheBenchmark.class.getName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
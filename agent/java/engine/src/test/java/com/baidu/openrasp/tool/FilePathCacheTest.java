@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import com.baidu.openrasp.config.Config;
+import com.baidu.openrasp.config.ConfigItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FilePathCacheTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("openrasp-file-cache").toFile().getCanonicalFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Config.getConfig().setConfig(ConfigItem.FILE_CACHE_TTL_MILLIS, "0", false);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static long hits() {
+        return FilePathCache.getStatistics().get("hit");
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        assertEquals(0, Config.getConfig().getFileCacheTtlMillis());
+        File file = new File(dir, "a.txt");
+        long before = hits();
+        FilePathCache.getRealPath(file);
+        FilePathCache.getRealPath(file);
+        assertEquals(before, hits());
+    }
+
+    @Test
+    public void testCachesPlainPathsAndInvalidates() throws Exception {
+        Config.getConfig().setConfig(ConfigItem.FILE_CACHE_TTL_MILLIS, "60000", false);
+        File file = new File(dir, "b.txt");
+        assertTrue(file.createNewFile());
+        assertEquals(file.getPath(), FilePathCache.getRealPath(file));
+        long before = hits();
+        assertTrue(FilePathCache.exists(file));
+        assertEquals(before + 1, hits());
+
+        assertTrue(file.delete());
+        FilePathCache.invalidate(file);
+        assertFalse(FilePathCache.exists(file));
+    }
+
+    @Test
+    public void testSymlinksAreNotCached() throws Exception {
+        Config.getConfig().setConfig(ConfigItem.FILE_CACHE_TTL_MILLIS, "60000", false);
+        File first = new File(dir, "first");
+        File second = new File(dir, "second");
+        assertTrue(first.createNewFile());
+        assertTrue(second.createNewFile());
+        File link = new File(dir, "link");
+        Files.createSymbolicLink(link.toPath(), first.toPath());
+        assertEquals(first.getPath(), FilePathCache.getRealPath(link));
+
+        // 没有经过任何 hook 点的情况下重新指向另一个文件
+        assertTrue(link.delete());
+        Files.createSymbolicLink(link.toPath(), second.toPath());
+        assertEquals(second.getPath(), FilePathCache.getRealPath(link));
+    }
+}
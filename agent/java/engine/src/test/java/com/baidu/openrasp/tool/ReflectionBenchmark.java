@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求包装类读取请求信息时的反射开销：带方法缓存的 {@link Reflection} 与改动前每次 getMethod 的方式对比
+ * <p>
+ * 测试环境没有 Tomcat，这里用结构相同的 RequestFacade 代替：public 门面类把调用转发给内部的 Request。
+ * 每次操作读取 Context.getString 和 AttackInfo 常用的 4 个 getter。
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.tool.ReflectionBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionBenchmark {
+
+    private static final Class[] EMPTY_CLASS = new Class[]{};
+    private static final Class[] STRING_CLASS = new Class[]{String.class};
+
+    private final Object facade = new RequestFacade(new Request());
+
+    public static class Request {
+        public String getRequestURI() {
+            return "/index.jsp";
+        }
+
+        public String getMethod() {
+            return "GET";
+        }
+
+        public String getRemoteAddr() {
+            return "10.0.0.1";
+        }
+
+        public String getHeader(String name) {
+            return "user-agent".equalsIgnoreCase(name) ? "Mozilla/5.0" : null;
+        }
+    }
+
+    public static class RequestFacade {
+        private final Request request;
+
+        public RequestFacade(Request request) {
+            this.request = request;
+        }
+
+        public String getRequestURI() {
+            return request.getRequestURI();
+        }
+
+        public String getMethod() {
+            return request.getMethod();
+        }
+
+        public String getRemoteAddr() {
+            return request.getRemoteAddr();
+        }
+
+        public String getHeader(String name) {
+            return request.getHeader(name);
+        }
+    }
+
+    /**
+     * 改动前的 Reflection.invokeMethod
+     */
+    private static Object invokeUncached(Object object, String methodName, Class[] paramTypes, Object... parameters) {
+        try {
+            Method method = object.getClass().getMethod(methodName, paramTypes);
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+            return method.invoke(object, parameters);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        blackhole.consume(Reflection.invokeStringMethod(facade, "getRequestURI", EMPTY_CLASS));
+        blackhole.consume(Reflection.invokeStringMethod(facade, "getMethod", EMPTY_CLASS));
+        blackhole.consume(Reflection.invokeStringMethod(facade, "getRemoteAddr", EMPTY_CLASS));
+        blackhole.consume(Reflection.invokeStringMethod(facade, "getHeader", STRING_CLASS, "User-Agent"));
+    }
+
+    @Benchmark
+    public void uncached(Blackhole blackhole) {
+        blackhole.consume(invokeUncached(facade, "getRequestURI", EMPTY_CLASS));
+        blackhole.consume(invokeUncached(facade, "getMethod", EMPTY_CLASS));
+        blackhole.consume(invokeUncached(facade, "getRemoteAddr", EMPTY_CLASS));
+        blackhole.consume(invokeUncached(facade, "getHeader", STRING_CLASS, "User-Agent"));
+    }
+
+    @Benchmark
+    public void direct(Blackhole blackhole) {
+        RequestFacade request = (RequestFacade) facade;
+        blackhole.consume(request.getRequestURI());
+        blackhole.consume(request.getMethod());
+        blackhole.consume(request.getRemoteAddr());
+        blackhole.consume(request.getHeader("User-Agent"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReflectionBenchmark.class.getName())
+                .build()).run();
+    }
+}
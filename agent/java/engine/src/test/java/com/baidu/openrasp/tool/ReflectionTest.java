@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReflectionTest {
+
+    public static class Target {
+        public String get() {
+            return "none";
+        }
+
+        public String get(String name) {
+            return "name:" + name;
+        }
+
+        public String get(int index) {
+            return "index:" + index;
+        }
+    }
+
+    @Test
+    public void testOverloadsAreCachedSeparately() throws Exception {
+        Target target = new Target();
+        assertEquals("none", Reflection.invokeMethod(target, "get", null));
+        assertEquals("none", Reflection.invokeMethod(target, "get", new Class[]{}));
+        assertEquals("name:a", Reflection.invokeMethod(target, "get", new Class[]{String.class}, "a"));
+        assertEquals("index:1", Reflection.invokeMethod(target, "get", new Class[]{int.class}, 1));
+
+        Method first = Reflection.getMethod(Target.class, "get", new Class[]{String.class});
+        assertSame(first, Reflection.getMethod(Target.class, "get", new Class[]{String.class}));
+        assertSame(Reflection.getMethod(Target.class, "get", null),
+                Reflection.getMethod(Target.class, "get", new Class[0]));
+    }
+
+    @Test
+    public void testMissingMethod() {
+        assertNull(Reflection.invokeMethod(new Target(), "missing", new Class[]{}));
+    }
+
+    @Test
+    public void testCachedLookupDoesNotAllocate() throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        Class[] paramTypes = new Class[]{String.class};
+        for (int i = 0; i < 20000; i++) {
+            Reflection.getMethod(Target.class, "get", paramTypes);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            Reflection.getMethod(Target.class, "get", paramTypes);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 100000);
+    }
+}
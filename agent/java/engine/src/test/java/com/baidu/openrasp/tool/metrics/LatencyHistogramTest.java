@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.tool.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static void runThreads(int threads, final Runnable task) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    task.run();
+                }
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    @Test
+    public void testBucketBounds() {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 1000, 123456789L, 1L << 40}) {
+            long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(value));
+            assertTrue(upper >= value);
+            assertTrue(upper - value <= value / 8);
+        }
+    }
+
+    @Test
+    public void testConcurrentRecordsAreMerged() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        runThreads(8, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= 10000; i++) {
+                    histogram.record(i);
+                }
+            }
+        });
+        assertEquals(80000, histogram.getCount());
+        assertEquals(8L * 10000 * 10001 / 2, histogram.getSum());
+        assertEquals(10000, histogram.getMax());
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 >= 5000 && p50 <= 5000 + 5000 / 8);
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testConcurrentCounterIsMerged() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        runThreads(8, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10000; i++) {
+                    counter.increment();
+                }
+                counter.add(5);
+            }
+        });
+        assertEquals(80040, counter.sum());
+        counter.reset();
+        assertEquals(0, counter.sum());
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2017-2021 Baidu Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.baidu.openrasp.transformer;
+
+import com.baidu.openrasp.dependency.DependencyFinder;
+import com.baidu.openrasp.detector.BESDetector;
+import com.baidu.openrasp.detector.DubboDetector;
+import com.baidu.openrasp.detector.JBossDetector;
+import com.baidu.openrasp.detector.JBossEAPDetector;
+import com.baidu.openrasp.detector.JettyDetector;
+import com.baidu.openrasp.detector.ResinDetector;
+import com.baidu.openrasp.detector.ServerDetector;
+import com.baidu.openrasp.detector.SpringbootDetector;
+import com.baidu.openrasp.detector.TomcatDetector;
+import com.baidu.openrasp.detector.TongWeb7Detector;
+import com.baidu.openrasp.detector.TongWebDetector;
+import com.baidu.openrasp.detector.UndertowDetector;
+import com.baidu.openrasp.detector.WeblogicDetector;
+import com.baidu.openrasp.detector.WebsphereDetector;
+import com.baidu.openrasp.hook.AbstractClassHook;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.CtNewMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * 应用启动时加载大量类的耗时，对比不加载 agent、使用类名索引的 agent 以及逐个匹配全部 hook 点的旧方式
+ * <p>
+ * 预先用 javassist 生成一个包含 5 万个类的 jar，类名分布在常见框架的包名下，都不会被 hook。
+ * 每次测量新建一个类加载器加载全部的类，define 之前按 JVM 的方式调用 transform。
+ * 没有通过 -javaagent 挂载，Instrumentation 使用空实现，只统计转换器本身的开销。
+ * <pre>
+ *     mvn test-compile
+ *     java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.baidu.openrasp.transformer.ClassLoadingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassLoadingBenchmark {
+
+    private static final String[] PACKAGES = {
+            "org/springframework/beans/factory/support/",
+            "org/springframework/context/annotation/",
+            "org/springframework/web/servlet/mvc/method/",
+            "org/hibernate/engine/spi/",
+            "com/fasterxml/jackson/databind/deser/",
+            "io/netty/handler/codec/http/",
+            "org/apache/commons/collections4/map/",
+            "com/google/common/collect/",
+            "org/aspectj/weaver/patterns/",
+            "com/example/shop/order/service/"
+    };
+
+    @Param({"50000"})
+    public int classCount;
+
+    @Param({"none", "index", "linear"})
+    public String agent;
+
+    private File jar;
+    private String[] classNames;
+    private ClassFileTransformer transformer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        jar = File.createTempFile("openrasp-startup", ".jar");
+        classNames = writeJar(jar, classCount);
+        if (!"none".equals(agent)) {
+            CustomClassTransformer custom = new CustomClassTransformer(createInstrumentation());
+            transformer = "index".equals(agent) ? custom : new LinearTransformer(custom.getHooks());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jar.delete();
+    }
+
+    private static String[] writeJar(File file, int count) throws Exception {
+        String[] names = new String[count];
+        ClassPool pool = new ClassPool(true);
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+        try {
+            for (int i = 0; i < count; i++) {
+                String internalName = PACKAGES[i % PACKAGES.length] + "Generated" + i;
+                names[i] = internalName.replace('/', '.');
+                CtClass ctClass = pool.makeClass(names[i]);
+                CtMethod method = CtNewMethod.make("public int value(int x) { return x * " + i + " + 1; }", ctClass);
+                ctClass.addMethod(method);
+                out.putNextEntry(new JarEntry(internalName + ".class"));
+                out.write(ctClass.toBytecode());
+                out.closeEntry();
+                ctClass.detach();
+            }
+        } finally {
+            out.close();
+        }
+        return names;
+    }
+
+    private static Instrumentation createInstrumentation() {
+        return (Instrumentation) Proxy.newProxyInstance(ClassLoadingBenchmark.class.getClassLoader(),
+                new Class[]{Instrumentation.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        Class<?> type = method.getReturnType();
+                        if (type == boolean.class) {
+                            return false;
+                        }
+                        if (type == long.class) {
+                            return 0L;
+                        }
+                        if (type.isArray()) {
+                            return java.lang.reflect.Array.newInstance(type.getComponentType(), 0);
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    @Benchmark
+    public int loadAll() throws Exception {
+        TransformingLoader loader = new TransformingLoader(jar, transformer);
+        int loaded = 0;
+        for (String name : classNames) {
+            if (loader.loadClass(name) != null) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 改动前的匹配方式：每个类依次调用全部 hook 点和服务器探测器的 isClassMatched
+     */
+    private static class LinearTransformer implements ClassFileTransformer {
+        private final List<AbstractClassHook> hooks;
+        private final List<ServerDetector> detectors = new ArrayList<ServerDetector>();
+
+        LinearTransformer(Iterable<AbstractClassHook> hooks) {
+            this.hooks = new ArrayList<AbstractClassHook>();
+            for (AbstractClassHook hook : hooks) {
+                this.hooks.add(hook);
+            }
+            detectors.add(new TomcatDetector());
+            detectors.add(new JBossDetector());
+            detectors.add(new JBossEAPDetector());
+            detectors.add(new JettyDetector());
+            detectors.add(new WeblogicDetector());
+            detectors.add(new ResinDetector());
+            detectors.add(new WebsphereDetector());
+            detectors.add(new UndertowDetector());
+            detectors.add(new DubboDetector());
+            detectors.add(new SpringbootDetector());
+            detectors.add(new TongWebDetector());
+            detectors.add(new TongWeb7Detector());
+            detectors.add(new BESDetector());
+        }
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                                ProtectionDomain domain, byte[] classfileBuffer) {
+            if (loader != null) {
+                DependencyFinder.addJarPath(domain);
+            }
+            int matched = 0;
+            for (AbstractClassHook hook : hooks) {
+                if (hook.isClassMatched(className)) {
+                    matched++;
+                }
+            }
+            for (ServerDetector detector : detectors) {
+                if (detector.isClassMatched(className)) {
+                    matched++;
+                }
+            }
+            if (matched > 0) {
+                throw new IllegalStateException("synthetic class " + className + " should not be hooked");
+            }
+            return classfileBuffer;
+        }
+    }
+
+    /**
+     * 在 define 之前调用转换器的类加载器，相当于 JVM 对挂载了 agent 的应用所做的处理
+     */
+    private static class TransformingLoader extends URLClassLoader {
+        private final ClassFileTransformer transformer;
+        private final ProtectionDomain domain;
+
+        TransformingLoader(File jar, ClassFileTransformer transformer) throws IOException {
+            super(new URL[]{jar.toURI().toURL()}, ClassLoadingBenchmark.class.getClassLoader());
+            this.transformer = transformer;
+            this.domain = new ProtectionDomain(new CodeSource(jar.toURI().toURL(), (Certificate[]) null), null);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            String internalName = name.replace('.', '/');
+            byte[] bytes;
+            try {
+                bytes = readResource(internalName + ".class");
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            if (transformer != null) {
+                try {
+                    byte[] transformed = transformer.transform(this, internalName, null, domain, bytes);
+                    if (transformed != null) {
+                        bytes = transformed;
+                    }
+                } catch (IllegalClassFormatException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+            return defineClass(name, bytes, 0, bytes.length, domain);
+        }
+
+        private byte[] readResource(String path) throws IOException {
+            InputStream in = getResourceAsStream(path);
+            if (in == null) {
+                return null;
+            }
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+                byte[] buffer = new byte[4096];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClassLoadingBenchmark.class.getName())
+                .build()).run();
+    }
+}